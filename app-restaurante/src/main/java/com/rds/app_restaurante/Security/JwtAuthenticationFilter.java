@@ -1,10 +1,13 @@
 package com.rds.app_restaurante.Security;
 
+import com.rds.app_restaurante.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,12 +17,15 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Date;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -60,20 +66,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             final String token = authHeader.substring(7);
-            System.out.println("JWT Filter: Processing token for: " + request.getRequestURI());
+            // Un solo parseo por petición (firma verificada o tomada de la caché de claims)
+            final Claims claims = jwtUtil.parseToken(token);
+            final String email = claims.getSubject();
             
-            final String email = jwtUtil.extractEmail(token);
-            System.out.println("JWT Filter: Email extracted: " + email);
+            // Revocación en memoria (cierre de sesión, cambio de contraseña): sin consultas a la BD
+            if (tokenRevocationService.isRevoked(claims)) {
+                log.debug("JWT revocado para {} en {}", email, requestPath);
+                SecurityContextHolder.clearContext();
+                filterChain.doFilter(request, response);
+                return;
+            }
             
             if (email != null) {
                 // Siempre establecer el SecurityContext si tenemos un email válido, incluso si ya está establecido
                 // (esto asegura que se actualice si hay un token nuevo)
-                if (!jwtUtil.isTokenExpired(token)) {
-                    com.rds.app_restaurante.model.Role role = jwtUtil.extractRole(token);
-                    System.out.println("JWT Filter: Role extracted: " + role.name());
-                    
+                if (claims.getExpiration() == null || claims.getExpiration().after(new Date())) {
+                    com.rds.app_restaurante.model.Role role = jwtUtil.extractRole(claims);
                     String authority = "ROLE_" + role.name();
-                    System.out.println("JWT Filter: Setting authority: " + authority);
                     
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             email,
@@ -84,26 +94,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                     
-                    System.out.println("JWT Authentication successful for: " + email + " with role: " + authority + " for URI: " + request.getRequestURI());
-                    System.out.println("JWT Filter: SecurityContext authentication set: " + 
-                        (SecurityContextHolder.getContext().getAuthentication() != null));
-                    System.out.println("JWT Filter: SecurityContext authorities: " + 
-                        SecurityContextHolder.getContext().getAuthentication().getAuthorities());
+                    log.debug("JWT autenticado: {} con {} para {}", email, authority, requestPath);
                 } else {
-                    System.err.println("JWT Token expired for: " + email + " for URI: " + request.getRequestURI());
+                    log.debug("JWT expirado para {} en {}", email, requestPath);
                     // Limpiar SecurityContext si el token está expirado
                     SecurityContextHolder.clearContext();
                 }
             } else {
-                System.err.println("JWT Filter: Could not extract email from token for: " + request.getRequestURI());
+                log.debug("JWT sin email (subject) en {}", requestPath);
                 // Limpiar SecurityContext si no podemos extraer el email
                 SecurityContextHolder.clearContext();
             }
         } catch (Exception e) {
             // Token inválido o expirado, limpiar contexto y continuar
-            System.err.println("JWT Authentication error for: " + request.getRequestURI() + " - " + e.getMessage());
-            System.err.println("JWT Filter: Exception type: " + e.getClass().getSimpleName());
-            e.printStackTrace();
+            // Sin traza: un token vencido o alterado es un caso normal, no un error del servidor
+            log.debug("JWT rechazado en {}: {} ({})", requestPath, e.getMessage(), e.getClass().getSimpleName());
             SecurityContextHolder.clearContext();
         }
         
@@ -1,17 +1,28 @@
 package com.rds.app_restaurante.Security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.rds.app_restaurante.model.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -23,8 +34,46 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Value("${jwt.claims-cache.maximum-size:10000}")
+    private long claimsCacheMaximumSize;
+    
+    // Clave y parser se construyen una sola vez (ambos son inmutables y seguros entre hilos)
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Claims ya verificados por digest del token: un token repetido no vuelve a validar la firma.
+    // Cada entrada vive como máximo hasta la expiración del propio token
+    private Cache<String, Claims> verifiedClaims;
+    
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaximumSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        Date expirationDate = claims.getExpiration();
+                        if (expirationDate == null) {
+                            return 0;
+                        }
+                        long remainingMs = Math.max(0, expirationDate.getTime() - System.currentTimeMillis());
+                        return TimeUnit.MILLISECONDS.toNanos(remainingMs);
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
     
     public String generateToken(Long userId, String email, Role role) {
@@ -36,9 +85,11 @@ public class JwtUtil {
         return Jwts.builder()
                 .claims(claims)
                 .subject(email)
+                // jti: permite revocar este token concreto al cerrar sesión
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
@@ -53,6 +104,10 @@ public class JwtUtil {
     
     public Role extractRole(String token) {
         Claims claims = extractAllClaims(token);
+        return extractRole(claims);
+    }
+    
+    public Role extractRole(Claims claims) {
         String roleStr = claims.get("role", String.class);
         return Role.valueOf(roleStr);
     }
@@ -66,12 +121,27 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     
+    /**
+     * Claims verificados del token (firma y expiración). Lanza JwtException si no es válido
+     */
+    public Claims parseToken(String token) {
+        return extractAllClaims(token);
+    }
+    
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String digest = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null) {
+            // Caffeine expira con algo de holgura: se revisa la expiración exacta en cada lectura
+            if (cached.getExpiration() != null && cached.getExpiration().before(new Date())) {
+                verifiedClaims.invalidate(digest);
+                throw new ExpiredJwtException(null, cached, "El token ha expirado");
+            }
+            return cached;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        verifiedClaims.put(digest, claims);
+        return claims;
     }
     
     public Boolean isTokenExpired(String token) {
@@ -82,5 +152,14 @@ public class JwtUtil {
         final String tokenEmail = extractEmail(token);
         return (tokenEmail.equals(email) && !isTokenExpired(token));
     }
+    
+    // Digest en lugar del token: la caché no guarda credenciales reutilizables
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
-
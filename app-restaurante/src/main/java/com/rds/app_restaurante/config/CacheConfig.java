@@ -1,34 +1,117 @@
 package com.rds.app_restaurante.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Cachés de Caffeine con política propia por caché (especificación de Caffeine en application.yml).
+ * Las cachés con refreshAfterWrite se recargan en segundo plano: los lectores reciben el valor
+ * vigente mientras se calcula el nuevo, así que el menú nunca vence en plena hora pico.
+ * Con cache.l2.mode las cachés indicadas pasan a tener un segundo nivel compartido entre
+ * instancias y las evicciones se propagan a la caché local de todas ellas.
+ */
 @Configuration
 @EnableCaching
+@Slf4j
 public class CacheConfig {
 
+    // Política para cachés creadas sin especificación propia
+    private static final String DEFAULT_SPEC = "maximumSize=500,expireAfterWrite=30m";
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService cacheRefreshExecutor(@Value("${cache.refresh-threads:2}") int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Escrituras en el segundo nivel fuera del hilo de la petición; si la cola se llena se omiten
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sharedCacheWriter() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-l2-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "categories", 
-                "subCategories",
-                "products",
-                "statistics"
-        );
-        
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES) // Cache expira después de 30 minutos
-                .maximumSize(500) // Máximo 500 entradas en caché
-                .recordStats() // Habilitar estadísticas de caché
-        );
-        
-        return cacheManager;
+    public CacheManager cacheManager(
+            CacheRefreshRegistry refreshRegistry,
+            ExecutorService cacheRefreshExecutor,
+            ExecutorService sharedCacheWriter,
+            MeterRegistry meterRegistry,
+            ObjectProvider<SharedCacheStore> sharedCacheStore,
+            ObjectProvider<CacheInvalidationBus> invalidationBus,
+            @Value("${cache.l2.caches:categories,subCategories,products,productById,productsByCategory}") String sharedCaches,
+            @Value("${cache.specs.categories:maximumSize=50,refreshAfterWrite=5m,expireAfterWrite=24h}") String categoriesSpec,
+            @Value("${cache.specs.sub-categories:maximumSize=50,refreshAfterWrite=5m,expireAfterWrite=24h}") String subCategoriesSpec,
+            @Value("${cache.specs.products:maximumSize=200,refreshAfterWrite=2m,expireAfterWrite=24h}") String productsSpec,
+            @Value("${cache.specs.product-by-id:maximumSize=2000,refreshAfterWrite=2m,expireAfterWrite=24h}") String productByIdSpec,
+            @Value("${cache.specs.products-by-category:maximumSize=200,refreshAfterWrite=2m,expireAfterWrite=24h}") String productsByCategorySpec,
+            @Value("${cache.specs.statistics:maximumSize=500,expireAfterWrite=5m}") String statisticsSpec) {
+        Map<String, String> specs = new LinkedHashMap<>();
+        specs.put("categories", categoriesSpec);
+        specs.put("subCategories", subCategoriesSpec);
+        specs.put("products", productsSpec);
+        specs.put("productById", productByIdSpec);
+        specs.put("productsByCategory", productsByCategorySpec);
+        specs.put("statistics", statisticsSpec);
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.from(DEFAULT_SPEC).recordStats());
+
+        specs.forEach((name, spec) -> {
+            CaffeineSpec caffeineSpec = CaffeineSpec.parse(spec);
+            Caffeine<Object, Object> builder = Caffeine.from(caffeineSpec)
+                    .executor(cacheRefreshExecutor)
+                    .recordStats();
+            if (spec.contains("maximumWeight")) {
+                // Las listas pesan según su cantidad de elementos
+                builder.weigher((key, value) -> value instanceof Collection<?> collection ? collection.size() + 1 : 1);
+            }
+            Cache<Object, Object> cache = spec.contains("refreshAfterWrite")
+                    ? builder.build(refreshRegistry.loaderFor(name))
+                    : builder.build();
+            cacheManager.registerCustomCache(name, cache);
+            // Mismas etiquetas que usa Actuator, para que no se dupliquen los medidores
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "cache.manager", "cacheManager");
+            log.info("Caché {} configurada: {}", name, spec);
+        });
+
+        SharedCacheStore shared = sharedCacheStore.getIfAvailable();
+        CacheInvalidationBus bus = invalidationBus.getIfAvailable();
+        if (shared == null || bus == null) {
+            return cacheManager;
+        }
+        Set<String> sharedCacheNames = new LinkedHashSet<>();
+        for (String name : sharedCaches.split(",")) {
+            if (!name.isBlank()) {
+                sharedCacheNames.add(name.trim());
+            }
+        }
+        log.info("Caché de dos niveles activa para {}", sharedCacheNames);
+        return new TwoLevelCacheManager(cacheManager, sharedCacheNames, shared, bus, sharedCacheWriter);
     }
 }
-
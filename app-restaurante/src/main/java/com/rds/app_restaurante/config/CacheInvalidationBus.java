@@ -0,0 +1,20 @@
+package com.rds.app_restaurante.config;
+
+/**
+ * Canal de invalidaciones entre instancias: cada evicción publicada hace que las demás
+ * instancias descarten la entrada de su caché local
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Publica una invalidación; key null invalida toda la caché
+     */
+    void publish(String cacheName, String key);
+
+    void subscribe(Listener listener);
+
+    @FunctionalInterface
+    interface Listener {
+        void onInvalidation(String cacheName, String key);
+    }
+}
@@ -0,0 +1,58 @@
+package com.rds.app_restaurante.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Funciones de recarga por caché para refreshAfterWrite. Los servicios registran cómo volver a
+ * calcular un valor a partir de su clave; la recarga corre en segundo plano dentro de una
+ * transacción de solo lectura mientras los lectores siguen recibiendo el valor anterior.
+ */
+@Component
+@Slf4j
+public class CacheRefreshRegistry {
+
+    private final Map<String, Function<Object, Object>> loaders = new ConcurrentHashMap<>();
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CacheRefreshRegistry(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Registra la recarga de una caché; la función recibe la clave generada por @Cacheable y
+     * puede devolver null para descartar la entrada
+     */
+    public void register(String cacheName, Function<Object, Object> loader) {
+        loaders.put(cacheName, loader);
+    }
+
+    CacheLoader<Object, Object> loaderFor(String cacheName) {
+        return new CacheLoader<>() {
+            // Los fallos de caché los resuelve @Cacheable invocando el método anotado
+            @Override
+            public Object load(Object key) {
+                return null;
+            }
+
+            // Si la recarga falla Caffeine conserva el valor anterior
+            @Override
+            public Object reload(Object key, Object oldValue) {
+                Function<Object, Object> loader = loaders.get(cacheName);
+                if (loader == null) {
+                    return null;
+                }
+                log.debug("Recargando la entrada {} de la caché {}", key, cacheName);
+                return readOnlyTransaction.execute(status -> loader.apply(key));
+            }
+        };
+    }
+}
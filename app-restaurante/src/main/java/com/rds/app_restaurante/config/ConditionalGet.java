@@ -0,0 +1,17 @@
+package com.rds.app_restaurante.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un GET cuya respuesta depende solo de los agregados indicados: si el cliente ya tiene
+ * la versión actual se responde 304 antes de ejecutar el controlador. Los nombres admiten
+ * {userId} (parámetro userId o usuario del token) y variables de la ruta, por ejemplo {date}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+    String[] value();
+}
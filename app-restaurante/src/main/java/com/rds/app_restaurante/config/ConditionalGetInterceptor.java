@@ -0,0 +1,105 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.Security.JwtUtil;
+import com.rds.app_restaurante.service.AggregateVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Peticiones condicionales para los endpoints marcados con @ConditionalGet: calcula ETag y
+ * Last-Modified con las versiones de los agregados y, si coinciden con If-None-Match o
+ * If-Modified-Since, responde 304 sin cargar entidades ni serializar. Corre después de la
+ * autorización por ruta de Spring Security. Las respuestas dependen del usuario, así que
+ * llevan Vary: Authorization y solo se guardan en cachés privadas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([^}]+)}");
+
+    private final AggregateVersionService aggregateVersionService;
+    private final JwtUtil jwtUtil;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class);
+        if (conditionalGet == null || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        List<String> aggregates = resolveAggregates(conditionalGet.value(), request);
+        if (aggregates == null) {
+            return true;
+        }
+
+        AggregateVersionService.Validators validators = aggregateVersionService.validators(aggregates);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        if (new ServletWebRequest(request, response).checkNotModified(validators.etag(), validators.lastModified())) {
+            log.debug("{} sin cambios ({})", request.getRequestURI(), validators.etag());
+            return false;
+        }
+        return true;
+    }
+
+    // null si algún nombre no se puede resolver: la petición se atiende sin validadores
+    @SuppressWarnings("unchecked")
+    private List<String> resolveAggregates(String[] names, HttpServletRequest request) {
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        List<String> aggregates = new ArrayList<>(names.length);
+        for (String name : names) {
+            Matcher matcher = PLACEHOLDER.matcher(name);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                String value = resolveVariable(matcher.group(1), request, pathVariables);
+                if (value == null) {
+                    return null;
+                }
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+            }
+            matcher.appendTail(resolved);
+            aggregates.add(resolved.toString());
+        }
+        return aggregates;
+    }
+
+    private String resolveVariable(String variable, HttpServletRequest request, Map<String, String> pathVariables) {
+        if (pathVariables != null && pathVariables.containsKey(variable)) {
+            return pathVariables.get(variable);
+        }
+        String parameter = request.getParameter(variable);
+        if (parameter != null) {
+            return parameter;
+        }
+        if ("userId".equals(variable)) {
+            String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                try {
+                    Long userId = jwtUtil.extractUserId(authHeader.substring(7));
+                    return userId != null ? userId.toString() : null;
+                } catch (Exception e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
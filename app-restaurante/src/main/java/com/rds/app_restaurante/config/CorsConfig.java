@@ -95,7 +95,8 @@ public class CorsConfig {
 		
 		config.setAllowedMethods(Arrays.asList(allowedMethods.split(",")));
 		config.addAllowedHeader("*");
-		config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+		config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type",
+				"RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset", "RateLimit-Policy", "Retry-After"));
 		config.setMaxAge(3600L); // Cache preflight por 1 hora
 
 		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
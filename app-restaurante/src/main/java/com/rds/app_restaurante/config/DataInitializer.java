@@ -4,6 +4,7 @@ import com.rds.app_restaurante.model.Admin;
 import com.rds.app_restaurante.model.DocumentType;
 import com.rds.app_restaurante.repository.AdminRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 //Configuracion para inicializar datos predeterminados
 @Configuration
 @RequiredArgsConstructor
+@Slf4j
 public class DataInitializer {
     
     private final AdminRepository adminRepository;
@@ -32,11 +34,8 @@ public class DataInitializer {
                     Long.parseLong("3000000000")
                 );
                 adminRepository.save(defaultAdmin);
-                System.out.println("========================================");
-                System.out.println("Admin predeterminado creado:");
-                System.out.println("Email: yerals17@hotmail.com");
-                System.out.println("Password: Rincon2025");
-                System.out.println("========================================");
+                // La contraseña no se escribe en los logs
+                log.warn("Admin predeterminado creado: {} (cambiar la contraseña inicial)", defaultAdmin.getEmail());
             }
         };
     }
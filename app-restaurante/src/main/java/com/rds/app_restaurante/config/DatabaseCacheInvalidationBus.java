@@ -0,0 +1,83 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.model.CacheInvalidation;
+import com.rds.app_restaurante.repository.CacheInvalidationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Canal de invalidaciones sobre una tabla de la base de datos compartida: la invalidación se
+ * inserta después del commit de la escritura y cada instancia consulta cada segundo las
+ * invalidaciones recientes publicadas por otras.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.mode", havingValue = "database")
+@Slf4j
+public class DatabaseCacheInvalidationBus implements CacheInvalidationBus {
+
+    // Los ids se confirman fuera de orden: se vuelve a mirar una ventana y se descartan los ya aplicados
+    private static final long LOOKBACK_SECONDS = 30;
+
+    private final CacheInvalidationRepository repository;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, LocalDateTime> applied = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastPoll = LocalDateTime.now();
+
+    public DatabaseCacheInvalidationBus(CacheInvalidationRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void publish(String cacheName, String key) {
+        repository.save(CacheInvalidation.builder()
+                .origin(instanceId)
+                .cacheName(cacheName)
+                // Una clave demasiado larga invalida toda la caché
+                .cacheKey(key != null && key.length() <= 255 ? key : null)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(cron = "* * * * * ?")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<CacheInvalidation> invalidations = repository.findByCreatedAtAfterAndOriginNotOrderByIdAsc(
+                    lastPoll.minusSeconds(LOOKBACK_SECONDS), instanceId);
+            for (CacheInvalidation invalidation : invalidations) {
+                if (applied.putIfAbsent(invalidation.getId(), invalidation.getCreatedAt()) == null) {
+                    listeners.forEach(listener -> listener.onInvalidation(invalidation.getCacheName(), invalidation.getCacheKey()));
+                }
+            }
+            lastPoll = now;
+            applied.values().removeIf(createdAt -> createdAt.isBefore(now.minusSeconds(2 * LOOKBACK_SECONDS)));
+        } catch (Exception e) {
+            log.warn("No se pudieron leer las invalidaciones de caché: {}", e.getMessage());
+        }
+    }
+
+    // Limpieza cada hora de las invalidaciones que ya todas las instancias leyeron
+    @Scheduled(cron = "0 40 * * * ?")
+    @Transactional
+    public void deleteOld() {
+        repository.deleteOlderThan(LocalDateTime.now().minusHours(1));
+    }
+}
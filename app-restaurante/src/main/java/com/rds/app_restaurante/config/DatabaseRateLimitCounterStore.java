@@ -0,0 +1,91 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Policy;
+import com.rds.app_restaurante.model.RateLimitCounter;
+import com.rds.app_restaurante.repository.RateLimitCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Buckets del rate limiter guardados en la base de datos que ya comparten todas las instancias.
+ * Cada reserva bloquea la fila del bucket dentro de su propia transacción, de modo que dos
+ * instancias nunca conceden los mismos tokens; como se reservan lotes, la consulta solo ocurre
+ * cuando una instancia agota su lote.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.shared.mode", havingValue = "database")
+@Slf4j
+public class DatabaseRateLimitCounterStore implements RateLimitCounterStore {
+
+    private static final int MAX_ID_LENGTH = 255;
+
+    private final RateLimitCounterRepository repository;
+    private final TransactionTemplate transaction;
+
+    public DatabaseRateLimitCounterStore(RateLimitCounterRepository repository,
+                                         PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public Grant reserve(String key, Policy policy, int wanted) {
+        String id = id(key);
+        try {
+            return transaction.execute(status -> reserveLocked(id, policy, wanted));
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Otra instancia creó la fila a la vez, o el bloqueo terminó en deadlock o timeout:
+            // se reintenta una vez con la fila ya existente
+            return transaction.execute(status -> reserveLocked(id, policy, wanted));
+        }
+    }
+
+    private Grant reserveLocked(String id, Policy policy, int wanted) {
+        long now = RateLimitCounterStore.nowMicros();
+        RateLimitCounter counter = repository.findForUpdate(id).orElse(null);
+        Grant grant = RateLimitCounterStore.grant(policy, counter == null ? 0 : counter.getTatMicros(), wanted, now);
+        if (grant.tokens() == 0) {
+            return grant;
+        }
+        if (counter == null) {
+            counter = RateLimitCounter.builder().id(id).build();
+        }
+        counter.setTatMicros(grant.fullAtMicros());
+        // Pasado ese instante el bucket está lleno y la fila se puede borrar
+        counter.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(grant.fullAtMicros() / 1000), ZoneId.systemDefault()));
+        repository.saveAndFlush(counter);
+        return grant;
+    }
+
+    // Una sola actualización atómica: no necesita bloquear la fila ni crearla si ya no existe.
+    // Un instante teórico en el pasado equivale a un bucket lleno
+    @Override
+    public void refund(String key, Policy policy, int tokens) {
+        transaction.execute(status -> repository.refund(id(key), tokens * policy.intervalMicros()));
+    }
+
+    private static String id(String key) {
+        return key.length() <= MAX_ID_LENGTH ? key : key.substring(0, MAX_ID_LENGTH);
+    }
+
+    // Limpieza cada 10 minutos de los buckets que ya se recargaron por completo
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void deleteExpired() {
+        Integer deleted = transaction.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0) {
+            log.debug("Se eliminaron {} buckets de rate limit vencidos", deleted);
+        }
+    }
+}
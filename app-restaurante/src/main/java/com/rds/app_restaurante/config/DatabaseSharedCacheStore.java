@@ -0,0 +1,168 @@
+package com.rds.app_restaurante.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.rds.app_restaurante.model.SharedCacheEntry;
+import com.rds.app_restaurante.repository.SharedCacheEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Segundo nivel guardado en la base de datos que ya comparten todas las instancias. Una lectura
+ * es una consulta por clave en lugar de recalcular el menú, así que una instancia nueva no
+ * repite la carga en frío que ya hizo otra. Las evicciones no borran la fila sino que guardan el
+ * momento de la invalidación, y las escrituras son actualizaciones condicionales: una escritura
+ * en segundo plano que llega tarde no puede devolver a L2 un valor cargado antes de la evicción.
+ * Las marcas usan el reloj de cada instancia, que debe estar sincronizado (NTP).
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.mode", havingValue = "database")
+@Slf4j
+public class DatabaseSharedCacheStore implements SharedCacheStore {
+
+    private static final int MAX_ID_LENGTH = 255;
+
+    private final SharedCacheEntryRepository repository;
+    private final ObjectMapper objectMapper;
+    private final long ttlMinutes;
+    private final TransactionTemplate transaction;
+
+    public DatabaseSharedCacheStore(SharedCacheEntryRepository repository, ObjectMapper objectMapper,
+                                    @Value("${cache.l2.ttl-minutes:10}") long ttlMinutes,
+                                    PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.ttlMinutes = ttlMinutes;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Se guarda el tipo de cada valor, restringido a las clases de la aplicación y del JDK
+        this.objectMapper = objectMapper.copy();
+        this.objectMapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.rds.app_restaurante.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.math.")
+                        .allowIfSubType("java.time.")
+                        .build(),
+                ObjectMapper.DefaultTyping.NON_FINAL);
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+        String id = id(cacheName, key);
+        if (id == null) {
+            return null;
+        }
+        try {
+            // La entrada y la marca de limpieza de su caché en una sola consulta
+            Map<String, SharedCacheEntry> rows = repository.findAllById(List.of(id, cacheName)).stream()
+                    .collect(Collectors.toMap(SharedCacheEntry::getId, Function.identity()));
+            SharedCacheEntry entry = rows.get(id);
+            SharedCacheEntry cleared = rows.get(cacheName);
+            if (entry == null || !entry.getExpiresAt().isAfter(LocalDateTime.now())
+                    || entry.getLoadedAt() <= entry.getInvalidatedAt()
+                    || (cleared != null && entry.getLoadedAt() <= cleared.getInvalidatedAt())) {
+                return null;
+            }
+            return deserialize(entry.getPayload());
+        } catch (Exception e) {
+            log.warn("No se pudo leer la caché compartida {}: {}", cacheName, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String cacheName, String key, Object value, long loadedAt) {
+        String id = id(cacheName, key);
+        // Una carga más antigua que la vigencia pudo ser invalidada por una marca que ya se borró
+        if (id == null || loadedAt < System.currentTimeMillis() - ttlMinutes * 60_000) {
+            return;
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(value);
+            try {
+                transaction.executeWithoutResult(status -> writeIfNewer(id, cacheName, payload, loadedAt));
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia creó la fila a la vez: se reintenta sobre la fila existente
+                transaction.executeWithoutResult(status -> writeIfNewer(id, cacheName, payload, loadedAt));
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo guardar en la caché compartida {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        String id = id(cacheName, key);
+        if (id != null) {
+            invalidate(id, cacheName);
+        }
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        invalidate(cacheName, cacheName);
+        // Las entradas ya no valen frente a la marca; se borran para liberar espacio
+        transaction.execute(status -> repository.deleteEntriesOf(cacheName));
+    }
+
+    private void writeIfNewer(String id, String cacheName, String payload, long loadedAt) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        if (repository.updateIfNewer(id, payload, loadedAt, expiresAt) == 0 && !repository.existsById(id)) {
+            repository.insert(id, cacheName, payload, loadedAt, 0, expiresAt);
+        }
+    }
+
+    private void invalidate(String id, String cacheName) {
+        try {
+            transaction.executeWithoutResult(status -> invalidateRow(id, cacheName));
+        } catch (DataIntegrityViolationException e) {
+            transaction.executeWithoutResult(status -> invalidateRow(id, cacheName));
+        }
+    }
+
+    private void invalidateRow(String id, String cacheName) {
+        long now = System.currentTimeMillis();
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        if (repository.invalidate(id, now, expiresAt) == 0 && !repository.existsById(id)) {
+            repository.insert(id, cacheName, "null", 0, now, expiresAt);
+        }
+    }
+
+    // Limpieza cada 10 minutos de las entradas vencidas
+    @Scheduled(cron = "0 */10 * * * ?")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Se eliminaron {} entradas vencidas de la caché compartida", deleted);
+        }
+    }
+
+    private Object deserialize(String payload) {
+        try {
+            return objectMapper.readValue(payload, Object.class);
+        } catch (Exception e) {
+            log.debug("Entrada de caché compartida no legible, se ignora: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Las claves demasiado largas solo viven en el primer nivel
+    private static String id(String cacheName, String key) {
+        String id = cacheName + "::" + key;
+        return id.length() <= MAX_ID_LENGTH ? id : null;
+    }
+}
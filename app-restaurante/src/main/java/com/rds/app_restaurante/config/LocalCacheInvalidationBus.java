@@ -0,0 +1,28 @@
+package com.rds.app_restaurante.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sustituto en proceso del canal de invalidaciones: entrega cada invalidación a todos los
+ * suscriptores de la misma JVM
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.mode", havingValue = "local")
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String cacheName, String key) {
+        listeners.forEach(listener -> listener.onInvalidation(cacheName, key));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
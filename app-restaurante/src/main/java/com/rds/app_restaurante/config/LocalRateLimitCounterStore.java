@@ -0,0 +1,39 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Policy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sustituto en memoria del almacén compartido de buckets, para pruebas y para una sola instancia
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.shared.mode", havingValue = "local")
+public class LocalRateLimitCounterStore implements RateLimitCounterStore {
+
+    private final Map<String, Long> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public Grant reserve(String key, Policy policy, int wanted) {
+        Grant[] result = new Grant[1];
+        long now = RateLimitCounterStore.nowMicros();
+        buckets.compute(key, (id, tat) -> {
+            result[0] = RateLimitCounterStore.grant(policy, tat == null ? 0 : tat, wanted, now);
+            // Un bucket que ya se recargó por completo equivale a uno inexistente
+            return result[0].fullAtMicros() > now ? result[0].fullAtMicros() : null;
+        });
+        return result[0];
+    }
+
+    @Override
+    public void refund(String key, Policy policy, int tokens) {
+        long now = RateLimitCounterStore.nowMicros();
+        buckets.computeIfPresent(key, (id, tat) -> {
+            long refunded = RateLimitCounterStore.refunded(policy, tat, tokens, now);
+            return refunded > 0 ? refunded : null;
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.rds.app_restaurante.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sustituto en memoria del segundo nivel, para pruebas y para una sola instancia
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.mode", havingValue = "local")
+public class LocalSharedCacheStore implements SharedCacheStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public LocalSharedCacheStore(@Value("${cache.l2.ttl-minutes:10}") long ttlMinutes) {
+        this.ttlMillis = ttlMinutes * 60_000;
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+        Entry entry = entries.get(id(cacheName, key));
+        if (entry == null || entry.value() == null || entry.expiresAt() < System.currentTimeMillis()
+                || entry.loadedAt() <= entry.invalidatedAt()) {
+            return null;
+        }
+        Entry cleared = entries.get(cacheName);
+        return cleared == null || entry.loadedAt() > cleared.invalidatedAt() ? entry.value() : null;
+    }
+
+    @Override
+    public void put(String cacheName, String key, Object value, long loadedAt) {
+        long now = System.currentTimeMillis();
+        // Una carga más antigua que la vigencia pudo ser invalidada por una marca que ya venció
+        if (loadedAt < now - ttlMillis) {
+            return;
+        }
+        entries.compute(id(cacheName, key), (id, current) -> {
+            if (current != null && (current.loadedAt() >= loadedAt || current.invalidatedAt() >= loadedAt)) {
+                return current;
+            }
+            return new Entry(value, loadedAt, current != null ? current.invalidatedAt() : 0, now + ttlMillis);
+        });
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        invalidate(id(cacheName, key));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        invalidate(cacheName);
+        entries.keySet().removeIf(id -> id.startsWith(cacheName + "::"));
+    }
+
+    private void invalidate(String id) {
+        long now = System.currentTimeMillis();
+        entries.compute(id, (key, current) -> current == null
+                ? new Entry(null, 0, now, now + ttlMillis)
+                : new Entry(current.value(), current.loadedAt(), Math.max(now, current.invalidatedAt()),
+                        Math.max(now + ttlMillis, current.expiresAt())));
+    }
+
+    // La marca de limpieza de una caché usa su nombre sin clave
+    private static String id(String cacheName, String key) {
+        return cacheName + "::" + key;
+    }
+
+    private record Entry(Object value, long loadedAt, long invalidatedAt, long expiresAt) {
+    }
+}
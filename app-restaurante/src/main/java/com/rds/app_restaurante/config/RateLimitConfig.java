@@ -1,95 +1,135 @@
 package com.rds.app_restaurante.config;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Decision;
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Policy;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
+/**
+ * Rate limiting por IP de cliente con una política por tipo de ruta (límites en application.yml).
+ * Cada petición cuenta solo para la primera política que coincide; el resto de /api/** usa "api".
+ * Las respuestas llevan las cabeceras RateLimit-* y, al rechazar, Retry-After.
+ */
 @Component
 @Slf4j
 public class RateLimitConfig implements HandlerInterceptor {
 
-    private final Cache<String, Integer> loginAttempts;
-    private final Cache<String, Integer> apiRequests;
-    
-    @Value("${rate-limit.login.requests-per-minute:5}")
-    private int loginRequestsPerMinute;
-    
-    @Value("${rate-limit.api.requests-per-minute:100}")
-    private int apiRequestsPerMinute;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final List<Route> routes;
+    private final Policy apiPolicy;
 
-    public RateLimitConfig() {
-        // Cache para intentos de login (expira después de 1 minuto)
-        this.loginAttempts = Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .maximumSize(10000)
-                .build();
-        
-        // Cache para peticiones API (expira después de 1 minuto)
-        this.apiRequests = Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .maximumSize(10000)
-                .build();
+    // Método HTTP (null = cualquiera) y ruta exacta o prefijo terminado en "/"
+    private record Route(String method, String path, Policy policy, String message) {
+
+        boolean matches(String requestMethod, String requestPath) {
+            if (method != null && !method.equals(requestMethod)) {
+                return false;
+            }
+            return path.endsWith("/") ? requestPath.startsWith(path) : requestPath.equals(path);
+        }
+    }
+
+    public RateLimitConfig(
+            TokenBucketRateLimiter rateLimiter,
+            @Value("${rate-limit.login.requests-per-minute:5}") int loginPerMinute,
+            @Value("${rate-limit.login.burst:5}") int loginBurst,
+            @Value("${rate-limit.signup.requests-per-minute:3}") int signupPerMinute,
+            @Value("${rate-limit.signup.burst:3}") int signupBurst,
+            @Value("${rate-limit.forgot-password.requests-per-minute:3}") int forgotPasswordPerMinute,
+            @Value("${rate-limit.forgot-password.burst:5}") int forgotPasswordBurst,
+            @Value("${rate-limit.public-menu.requests-per-minute:300}") int publicMenuPerMinute,
+            @Value("${rate-limit.public-menu.burst:60}") int publicMenuBurst,
+            @Value("${rate-limit.order-creation.requests-per-minute:10}") int orderCreationPerMinute,
+            @Value("${rate-limit.order-creation.burst:5}") int orderCreationBurst,
+            @Value("${rate-limit.api.requests-per-minute:100}") int apiPerMinute,
+            @Value("${rate-limit.api.burst:100}") int apiBurst) {
+        this.rateLimiter = rateLimiter;
+        Policy login = new Policy("login", loginBurst, loginPerMinute);
+        Policy signup = new Policy("signup", signupBurst, signupPerMinute);
+        Policy forgotPassword = new Policy("forgot-password", forgotPasswordBurst, forgotPasswordPerMinute);
+        Policy publicMenu = new Policy("public-menu", publicMenuBurst, publicMenuPerMinute);
+        Policy orderCreation = new Policy("order-creation", orderCreationBurst, orderCreationPerMinute);
+        this.apiPolicy = new Policy("api", apiBurst, apiPerMinute);
+
+        String tooManyAttempts = "Demasiados intentos. Por favor, intenta nuevamente en un minuto.";
+        String tooManyOrders = "Demasiados pedidos en poco tiempo. Por favor, espera un momento.";
+        this.routes = List.of(
+                new Route("POST", "/api/auth/login", login, tooManyAttempts),
+                new Route("POST", "/api/auth/signup", signup, tooManyAttempts),
+                // El código de recuperación también se puede adivinar: comparte política con la solicitud
+                new Route("POST", "/api/auth/forgot-password", forgotPassword, tooManyAttempts),
+                new Route("POST", "/api/auth/verify-reset-code", forgotPassword, tooManyAttempts),
+                new Route("POST", "/api/auth/reset-password", forgotPassword, tooManyAttempts),
+                new Route("GET", "/api/public/", publicMenu, null),
+                new Route("POST", "/api/client/orders", orderCreation, tooManyOrders),
+                new Route("POST", "/api/client/deliveries", orderCreation, tooManyOrders),
+                new Route("POST", "/api/employee/orders", orderCreation, tooManyOrders),
+                new Route("POST", "/api/employee/deliveries", orderCreation, tooManyOrders)
+        );
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String clientIp = getClientIpAddress(request);
+        // El despacho asíncrono de la misma petición ya se contó; los preflight CORS no cuentan
+        if (request.getDispatcherType() == DispatcherType.ASYNC || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
         String requestPath = request.getRequestURI();
+        if (!requestPath.startsWith("/api/")) {
+            return true;
+        }
 
-        // Aplicar rate limiting más estricto para login
-        if (requestPath.contains("/api/auth/login")) {
-            Integer attempts = loginAttempts.getIfPresent(clientIp);
-            if (attempts != null && attempts >= loginRequestsPerMinute) {
-                log.warn("Rate limit exceeded for login attempt from IP: {}", clientIp);
-                response.setStatus(429); // Too Many Requests
-                response.setContentType("application/json");
-                try {
-                    response.getWriter().write("{\"message\":\"Demasiados intentos. Por favor, intenta nuevamente en un minuto.\"}");
-                } catch (Exception e) {
-                    log.error("Error writing rate limit response", e);
-                }
-                return false;
-            }
-            loginAttempts.put(clientIp, (attempts == null ? 0 : attempts) + 1);
-        } else if (requestPath.startsWith("/api/")) {
-            // Rate limiting más flexible para otras API
-            Integer requests = apiRequests.getIfPresent(clientIp);
-            if (requests != null && requests >= apiRequestsPerMinute) {
-                log.warn("Rate limit exceeded for API requests from IP: {}", clientIp);
-                response.setStatus(429); // Too Many Requests
-                response.setContentType("application/json");
-                try {
-                    response.getWriter().write("{\"message\":\"Demasiadas peticiones. Por favor, espera un momento.\"}");
-                } catch (Exception e) {
-                    log.error("Error writing rate limit response", e);
-                }
-                return false;
-            }
-            apiRequests.put(clientIp, (requests == null ? 0 : requests) + 1);
+        Route route = findRoute(request.getMethod(), requestPath);
+        Policy policy = route != null ? route.policy() : apiPolicy;
+        String clientIp = getClientIpAddress(request);
+        Decision decision = rateLimiter.tryAcquire(policy, clientIp);
+
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+        // Cuota por minuto (recarga) y ráfaga máxima del bucket
+        response.setHeader("RateLimit-Policy", policy.requestsPerMinute() + ";w=60;burst=" + policy.capacity()
+                + ";name=\"" + policy.name() + "\"");
+        if (decision.allowed()) {
+            return true;
         }
 
-        return true;
+        log.warn("Rate limit {} excedido para IP: {} en {}", policy.name(), clientIp, requestPath);
+        response.setStatus(429); // Too Many Requests
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, decision.retryAfterSeconds())));
+        response.setContentType("application/json");
+        String message = route != null && route.message() != null
+                ? route.message()
+                : "Demasiadas peticiones. Por favor, espera un momento.";
+        try {
+            response.getWriter().write("{\"message\":\"" + message + "\"}");
+        } catch (Exception e) {
+            log.error("Error writing rate limit response", e);
+        }
+        return false;
     }
 
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+    private Route findRoute(String method, String path) {
+        for (Route route : routes) {
+            if (route.matches(method, path)) {
+                return route;
+            }
         }
-        
+        return null;
+    }
+
+    // Las cabeceras X-Forwarded-For las resuelve Tomcat (server.forward-headers-strategy) y solo
+    // si la conexión viene de un proxy de confianza; leerlas aquí dejaría a cualquier cliente
+    // elegir su IP y saltarse el límite
+    private String getClientIpAddress(HttpServletRequest request) {
         return request.getRemoteAddr();
     }
 }
-
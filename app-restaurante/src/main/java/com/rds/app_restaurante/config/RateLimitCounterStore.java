@@ -0,0 +1,55 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Policy;
+
+/**
+ * Almacén compartido entre instancias para los buckets del rate limiter (Redis o equivalente).
+ * Cada instancia reserva lotes de tokens del bucket global y los consume en memoria, así que
+ * el límite se cumple en todo el clúster sin una llamada remota por petición.
+ */
+public interface RateLimitCounterStore {
+
+    /**
+     * Tokens concedidos (0 si el bucket está vacío) e instante, en microsegundos de reloj, en que
+     * el bucket global vuelve a estar lleno tras la reserva
+     */
+    record Grant(int tokens, long fullAtMicros) {
+    }
+
+    /**
+     * Reserva hasta {@code wanted} tokens del bucket {@code key} de forma atómica
+     */
+    Grant reserve(String key, Policy policy, int wanted);
+
+    /**
+     * Devuelve al bucket {@code key} tokens reservados que no se usaron: retrasa el instante teórico
+     * en un intervalo por token
+     */
+    void refund(String key, Policy policy, int tokens);
+
+    /**
+     * Instante teórico tras devolver los tokens; 0 si con ellos el bucket ya está lleno
+     */
+    static long refunded(Policy policy, long storedTatMicros, int tokens, long nowMicros) {
+        long tat = storedTatMicros - tokens * policy.intervalMicros();
+        return tat > nowMicros ? tat : 0;
+    }
+
+    /**
+     * GCRA sobre el instante teórico guardado (0 si no existe): concede los tokens que caben en
+     * la tolerancia de ráfaga y devuelve el nuevo instante teórico
+     */
+    static Grant grant(Policy policy, long storedTatMicros, int wanted, long nowMicros) {
+        long interval = policy.intervalMicros();
+        long tolerance = interval * (Math.max(1, policy.capacity()) - 1L);
+        long tat = Math.max(storedTatMicros, nowMicros);
+        long ahead = tat - nowMicros;
+        long fit = ahead > tolerance ? 0 : (tolerance - ahead) / interval + 1;
+        int tokens = (int) Math.min(fit, wanted);
+        return new Grant(tokens, tat + tokens * interval);
+    }
+
+    static long nowMicros() {
+        return System.currentTimeMillis() * 1000;
+    }
+}
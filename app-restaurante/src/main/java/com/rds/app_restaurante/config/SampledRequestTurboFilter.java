@@ -0,0 +1,30 @@
+package com.rds.app_restaurante.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Filtro de logback (declarado en logback-spring.xml): en las peticiones muestreadas por
+ * RequestIdFilter deja pasar los DEBUG de la aplicación sin bajar el nivel global, así se ve el
+ * detalle de unas pocas peticiones sin pagar el volumen de todas.
+ */
+public class SampledRequestTurboFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.rds.app_restaurante";
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.DEBUG || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return "true".equals(MDC.get(RequestIdFilter.MDC_SAMPLED)) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,22 @@
+package com.rds.app_restaurante.config;
+
+/**
+ * Segundo nivel de caché compartido entre instancias (Redis o equivalente). Las claves ya
+ * llegan como texto y los valores deben poder serializarse; un fallo se trata como ausencia.
+ * Cada valor lleva el momento en que se empezó a cargar y cada evicción o limpieza deja la marca
+ * del momento en que ocurrió: un valor cargado antes de la última invalidación no se devuelve,
+ * aunque su escritura en segundo plano llegue después de ella.
+ */
+public interface SharedCacheStore {
+
+    Object get(String cacheName, String key);
+
+    /**
+     * Guarda el valor si se cargó (loadedAt, epoch en ms) después de la última invalidación de la clave o de la caché
+     */
+    void put(String cacheName, String key, Object value, long loadedAt);
+
+    void evict(String cacheName, String key);
+
+    void clear(String cacheName);
+}
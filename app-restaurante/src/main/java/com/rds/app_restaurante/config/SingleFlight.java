@@ -0,0 +1,20 @@
+package com.rds.app_restaurante.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lectura costosa e idempotente: si llega una llamada con los mismos argumentos mientras otra
+ * se está calculando, espera y recibe ese mismo resultado en lugar de repetir el trabajo.
+ * Solo para métodos de lectura cuyo resultado no depende del usuario que llama.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+    /**
+     * Nombre en las métricas; por defecto Clase.metodo
+     */
+    String value() default "";
+}
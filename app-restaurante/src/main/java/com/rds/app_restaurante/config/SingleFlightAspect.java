@@ -0,0 +1,110 @@
+package com.rds.app_restaurante.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Agrupa las llamadas concurrentes idénticas a métodos {@link SingleFlight}: la primera calcula
+ * y las demás esperan su resultado (o su excepción). Va por fuera de @Transactional y @Cacheable
+ * para que quien espera no ocupe una conexión y para cubrir también la carga de una caché fría.
+ * Solo se agrupan llamadas simultáneas: nada se guarda después de que termina el cálculo.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class SingleFlightAspect {
+
+    private static final String METRIC_NAME = "single_flight.calls";
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Counter> leaderCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalescedCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long waitTimeoutMs;
+
+    public SingleFlightAspect(
+            MeterRegistry meterRegistry,
+            @Value("${single-flight.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.waitTimeoutMs = waitTimeoutMs;
+        Gauge.builder("single_flight.in_flight", inFlight, Map::size)
+                .description("Cálculos agrupados en curso")
+                .register(meterRegistry);
+    }
+
+    // Sin enlazar la anotación como argumento: con la máxima precedencia no hay JoinPointMatch expuesto
+    @Around("@annotation(com.rds.app_restaurante.config.SingleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = names.computeIfAbsent(method, m -> {
+            String value = m.getAnnotation(SingleFlight.class).value();
+            return !value.isEmpty() ? value : m.getDeclaringClass().getSimpleName() + "." + m.getName();
+        });
+        // Clave: método y argumentos (deben tener equals por valor, como LocalDate o Long)
+        Object[] args = joinPoint.getArgs();
+        Object[] keyParts = Arrays.copyOf(new Object[]{method}, args.length + 1);
+        System.arraycopy(args, 0, keyParts, 1, args.length);
+        List<Object> key = Arrays.asList(keyParts);
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            counter(coalescedCounters, name, "coalesced").increment();
+            return await(existing, joinPoint, name);
+        }
+
+        counter(leaderCounters, name, "leader").increment();
+        try {
+            Object result = joinPoint.proceed();
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> flight, ProceedingJoinPoint joinPoint, String name) throws Throwable {
+        try {
+            return flight.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            // El cálculo en curso está tardando demasiado: esta llamada sigue por su cuenta
+            log.warn("Tiempo de espera agotado para {} después de {} ms, se calcula de nuevo", name, waitTimeoutMs);
+            return joinPoint.proceed();
+        }
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String role) {
+        return counters.computeIfAbsent(name, n -> Counter.builder(METRIC_NAME)
+                .description("Llamadas a lecturas agrupadas: leader calcula, coalesced reutiliza el resultado")
+                .tag("name", n)
+                .tag("role", role)
+                .register(meterRegistry));
+    }
+}
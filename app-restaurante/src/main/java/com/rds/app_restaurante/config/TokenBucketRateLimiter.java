@@ -0,0 +1,280 @@
+package com.rds.app_restaurante.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos (algoritmo GCRA): cada cliente y política guarda un único AtomicLong
+ * con el instante teórico en que el bucket vuelve a estar lleno; consumir un token es un CAS.
+ * Un bucket que no se usa durante el tiempo de recarga completa es equivalente a uno lleno, así
+ * que la caché puede olvidarlo sin cambiar el resultado.
+ * Con rate-limit.shared.mode el bucket vive en un RateLimitCounterStore común a todas las
+ * instancias: cada una reserva un lote pequeño de tokens y lo consume en memoria hasta agotarlo
+ * o hasta que vence el lote, así el límite es global y casi ninguna petición sale de la JVM.
+ * Los tokens que quedan sin usar cuando vence un lote se devuelven al bucket global, para que un
+ * cliente que pasa a otra instancia no encuentre el bucket vaciado por reservas que no consumió.
+ */
+@Component
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    /**
+     * Capacidad (ráfaga máxima) y ritmo de recarga de una política
+     */
+    public record Policy(String name, int capacity, int requestsPerMinute) {
+
+        long intervalNanos() {
+            return TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+        }
+
+        long intervalMicros() {
+            return TimeUnit.MINUTES.toMicros(1) / Math.max(1, requestsPerMinute);
+        }
+
+        // Tiempo para recargar el bucket completo desde vacío
+        long fullRefillNanos() {
+            return intervalNanos() * Math.max(1, capacity);
+        }
+    }
+
+    /**
+     * Resultado de un intento: tokens restantes, segundos hasta el bucket lleno y, si se rechazó,
+     * segundos hasta el siguiente token
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    private final Cache<String, AtomicLong> buckets;
+    private final Map<String, Counter> allowedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> throttledCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    // Modo compartido: lotes de tokens reservados del almacén común, por política y cliente
+    private final RateLimitCounterStore sharedStore;
+    private final Cache<String, Lease> leases;
+    private final int maxLease;
+    private final long leaseTtlNanos;
+    private final AtomicBoolean sharedStoreAvailable = new AtomicBoolean(true);
+    private final Map<String, Counter> reservationCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Tokens de un lote todavía sin consumir; un lote sin tokens recuerda un rechazo del almacén
+     * hasta que haya un token disponible, para no consultarlo en cada petición rechazada
+     */
+    private record Lease(Policy policy, AtomicInteger tokens, long expiresAtNanos, long fullAtMicros) {
+
+        // Devuelve los tokens que quedan tras consumir uno, o -1 si el lote está agotado
+        int take() {
+            while (true) {
+                int current = tokens.get();
+                if (current <= 0) {
+                    return -1;
+                }
+                if (tokens.compareAndSet(current, current - 1)) {
+                    return current - 1;
+                }
+            }
+        }
+
+        // Retira los tokens sin usar; después de esto take() ya no concede ninguno
+        int drain() {
+            return tokens.getAndSet(0);
+        }
+    }
+
+    public TokenBucketRateLimiter(
+            MeterRegistry meterRegistry,
+            ObjectProvider<RateLimitCounterStore> sharedStore,
+            @Value("${rate-limit.max-clients:100000}") long maxClients,
+            @Value("${rate-limit.idle-expiry-minutes:60}") long idleExpiryMinutes,
+            @Value("${rate-limit.shared.max-lease:20}") int maxLease,
+            @Value("${rate-limit.shared.lease-ttl-ms:1000}") long leaseTtlMs) {
+        this.meterRegistry = meterRegistry;
+        // La expiración debe cubrir la recarga completa de la política más lenta
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleExpiryMinutes, TimeUnit.MINUTES)
+                .build();
+        this.sharedStore = sharedStore.getIfAvailable();
+        this.maxLease = Math.max(1, maxLease);
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        // Cada lote sale de la caché al vencer (el scheduler lo retira aunque nadie lo vuelva a pedir)
+        // y al salir devuelve sus tokens sin usar
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfter(new Expiry<String, Lease>() {
+                    @Override
+                    public long expireAfterCreate(String key, Lease lease, long currentTime) {
+                        return Math.max(0, lease.expiresAtNanos() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Lease lease, long currentTime, long currentDuration) {
+                        return Math.max(0, lease.expiresAtNanos() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Lease lease, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String key, Lease lease, RemovalCause cause) -> refund(key, lease))
+                .build();
+        if (this.sharedStore != null) {
+            log.info("Rate limiting compartido entre instancias con {}", this.sharedStore.getClass().getSimpleName());
+        }
+    }
+
+    public Decision tryAcquire(Policy policy, String clientKey) {
+        String key = policy.name() + ':' + clientKey;
+        return sharedStore != null ? acquireShared(policy, key) : acquireLocal(policy, key);
+    }
+
+    private Decision acquireLocal(Policy policy, String key) {
+        AtomicLong bucket = buckets.get(key, id -> new AtomicLong());
+        long interval = policy.intervalNanos();
+        // Tolerancia de ráfaga: cuánto puede adelantarse el instante teórico respecto a ahora
+        long tolerance = policy.fullRefillNanos() - interval;
+        while (true) {
+            long now = System.nanoTime();
+            long current = bucket.get();
+            long tat = current == 0 ? now : Math.max(current, now);
+            long ahead = tat - now;
+            if (ahead > tolerance) {
+                counter(throttledCounters, policy, "throttled").increment();
+                long retryAfterNanos = ahead - tolerance;
+                return new Decision(false, policy.capacity(), 0, seconds(ahead), seconds(retryAfterNanos));
+            }
+            long next = tat + interval;
+            if (bucket.compareAndSet(current, next)) {
+                counter(allowedCounters, policy, "allowed").increment();
+                int remaining = (int) Math.max(0, Math.floorDiv(tolerance - (next - now), interval) + 1);
+                return new Decision(true, policy.capacity(), Math.min(remaining, policy.capacity()),
+                        seconds(next - now), 0);
+            }
+        }
+    }
+
+    private Decision acquireShared(Policy policy, String key) {
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null && System.nanoTime() < lease.expiresAtNanos()) {
+            int left = lease.take();
+            if (left >= 0) {
+                counter(allowedCounters, policy, "allowed").increment();
+                return sharedDecision(policy, true, left, lease.fullAtMicros());
+            }
+            if (!hasTokenAvailable(policy, lease.fullAtMicros())) {
+                counter(throttledCounters, policy, "throttled").increment();
+                return sharedDecision(policy, false, 0, lease.fullAtMicros());
+            }
+        }
+
+        RateLimitCounterStore.Grant grant;
+        try {
+            grant = sharedStore.reserve(key, policy, leaseSize(policy));
+            if (sharedStoreAvailable.compareAndSet(false, true)) {
+                log.info("El almacén compartido de rate limit vuelve a responder");
+            }
+        } catch (RuntimeException e) {
+            reservationCounter("error").increment();
+            // Si el almacén no responde se limita por instancia en lugar de dejar pasar todo
+            if (sharedStoreAvailable.compareAndSet(true, false)) {
+                log.warn("Almacén compartido de rate limit no disponible, se aplica el límite local: {}", e.getMessage());
+            }
+            return acquireLocal(policy, key);
+        }
+
+        if (grant.tokens() == 0) {
+            reservationCounter("denied").increment();
+            long retryAfterMicros = grant.fullAtMicros() - RateLimitCounterStore.nowMicros() - tolerance(policy);
+            leases.put(key, new Lease(policy, new AtomicInteger(), System.nanoTime()
+                    + TimeUnit.MICROSECONDS.toNanos(Math.max(0, retryAfterMicros)), grant.fullAtMicros()));
+            counter(throttledCounters, policy, "throttled").increment();
+            return sharedDecision(policy, false, 0, grant.fullAtMicros());
+        }
+        reservationCounter("granted").increment();
+        int left = grant.tokens() - 1;
+        leases.put(key, new Lease(policy, new AtomicInteger(left), System.nanoTime() + leaseTtlNanos, grant.fullAtMicros()));
+        counter(allowedCounters, policy, "allowed").increment();
+        return sharedDecision(policy, true, left, grant.fullAtMicros());
+    }
+
+    // Devuelve al almacén los tokens que el lote no llegó a usar
+    private void refund(String key, Lease lease) {
+        if (key == null || lease == null) {
+            return;
+        }
+        int unused = lease.drain();
+        if (unused <= 0) {
+            return;
+        }
+        try {
+            sharedStore.refund(key, lease.policy(), unused);
+            reservationCounter("refunded").increment();
+        } catch (RuntimeException e) {
+            // Los tokens quedan consumidos hasta la recarga, como antes de devolverlos
+            log.debug("No se pudieron devolver {} tokens de {}: {}", unused, key, e.getMessage());
+        }
+    }
+
+    // Lotes de una décima de la ráfaga: login y registro (ráfagas de 3-5) reservan de uno en uno
+    private int leaseSize(Policy policy) {
+        return Math.min(maxLease, Math.max(1, policy.capacity() / 10));
+    }
+
+    private static long tolerance(Policy policy) {
+        return policy.intervalMicros() * (Math.max(1, policy.capacity()) - 1L);
+    }
+
+    private static boolean hasTokenAvailable(Policy policy, long fullAtMicros) {
+        return fullAtMicros - RateLimitCounterStore.nowMicros() <= tolerance(policy);
+    }
+
+    // Restantes = tokens del lote local + los que quedan en el bucket global según la última reserva
+    private static Decision sharedDecision(Policy policy, boolean allowed, int leased, long fullAtMicros) {
+        long interval = policy.intervalMicros();
+        long ahead = Math.max(0, fullAtMicros - RateLimitCounterStore.nowMicros());
+        long tolerance = tolerance(policy);
+        long global = ahead > tolerance ? 0 : Math.floorDiv(tolerance - ahead, interval) + 1;
+        int remaining = (int) Math.min(policy.capacity(), allowed ? leased + global : 0);
+        long retryAfterMicros = allowed ? 0 : Math.max(0, ahead - tolerance);
+        return new Decision(allowed, policy.capacity(), remaining,
+                seconds(TimeUnit.MICROSECONDS.toNanos(ahead)), seconds(TimeUnit.MICROSECONDS.toNanos(retryAfterMicros)));
+    }
+
+    private Counter reservationCounter(String outcome) {
+        return reservationCounters.computeIfAbsent(outcome, name -> Counter.builder("rate_limit.shared.reservations")
+                .description("Reservas de lotes de tokens en el almacén compartido: granted, denied, error o refunded")
+                .tag("outcome", name)
+                .register(meterRegistry));
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(0, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    private Counter counter(Map<String, Counter> counters, Policy policy, String outcome) {
+        return counters.computeIfAbsent(policy.name(), name -> Counter.builder("rate_limit.requests")
+                .description("Peticiones evaluadas por el rate limiter: allowed o throttled por política")
+                .tag("policy", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,148 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.service.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Caché de dos niveles: Caffeine local (L1) delante de un almacén compartido (L2). Las lecturas
+ * que fallan en L1 se buscan en L2 antes de ir a la base de datos, las escrituras en L2 se hacen
+ * en segundo plano con el momento en que empezó la carga y cada evicción, una vez confirmada la
+ * transacción, invalida L2 y se publica para que las demás instancias limpien su L1. Una escritura
+ * encolada antes de la evicción que llega después es rechazada por L2.
+ */
+@Slf4j
+class TwoLevelCache implements Cache {
+
+    private final CaffeineCache local;
+    private final SharedCacheStore shared;
+    private final CacheInvalidationBus bus;
+    private final Executor sharedWriter;
+
+    TwoLevelCache(CaffeineCache local, SharedCacheStore shared, CacheInvalidationBus bus, Executor sharedWriter) {
+        this.local = local;
+        this.shared = shared;
+        this.bus = bus;
+        this.sharedWriter = sharedWriter;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) {
+            return value;
+        }
+        Object sharedValue = shared.get(getName(), keyString(key));
+        if (sharedValue == null) {
+            return null;
+        }
+        local.put(key, sharedValue);
+        return new SimpleValueWrapper(sharedValue);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (type != null && value.get() != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("El valor cacheado no es del tipo " + type.getName());
+        }
+        return (T) value.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        return local.get(key, () -> {
+            // Marca tomada antes de leer la BD: si una evicción llega mientras tanto, L2 rechaza el valor
+            long loadedAt = System.currentTimeMillis();
+            T loaded = valueLoader.call();
+            writeShared(key, loaded, loadedAt);
+            return loaded;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, value);
+        writeShared(key, value, System.currentTimeMillis());
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+        String keyString = keyString(key);
+        TransactionHooks.afterCommit(() -> {
+            try {
+                shared.evict(getName(), keyString);
+                // Un lector pudo volver a traer el valor anterior desde L2 mientras tanto
+                local.evict(key);
+                bus.publish(getName(), keyString);
+            } catch (Exception e) {
+                log.warn("No se pudo propagar la evicción de {} en la caché {}: {}", keyString, getName(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        TransactionHooks.afterCommit(() -> {
+            try {
+                shared.clear(getName());
+                local.clear();
+                bus.publish(getName(), null);
+            } catch (Exception e) {
+                log.warn("No se pudo propagar la limpieza de la caché {}: {}", getName(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Invalidación recibida de otra instancia: solo afecta el primer nivel
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            local.clear();
+            return;
+        }
+        local.getNativeCache().asMap().keySet().removeIf(candidate -> keyString(candidate).equals(key));
+    }
+
+    private void writeShared(Object key, Object value, long loadedAt) {
+        if (value == null) {
+            return;
+        }
+        try {
+            sharedWriter.execute(() -> shared.put(getName(), keyString(key), value, loadedAt));
+        } catch (Exception e) {
+            log.debug("No se pudo encolar la escritura en la caché compartida {}: {}", getName(), e.getMessage());
+        }
+    }
+
+    static String keyString(Object key) {
+        return String.valueOf(key);
+    }
+}
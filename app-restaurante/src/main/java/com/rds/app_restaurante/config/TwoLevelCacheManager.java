@@ -0,0 +1,48 @@
+package com.rds.app_restaurante.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Envuelve las cachés de Caffeine indicadas con un segundo nivel compartido y aplica en L1 las
+ * invalidaciones que llegan de otras instancias
+ */
+class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager localManager;
+    private final Map<String, TwoLevelCache> sharedCaches = new ConcurrentHashMap<>();
+
+    TwoLevelCacheManager(CacheManager localManager, Set<String> sharedCacheNames, SharedCacheStore shared,
+                         CacheInvalidationBus bus, Executor sharedWriter) {
+        this.localManager = localManager;
+        for (String name : sharedCacheNames) {
+            if (localManager.getCache(name) instanceof CaffeineCache local) {
+                sharedCaches.put(name, new TwoLevelCache(local, shared, bus, sharedWriter));
+            }
+        }
+        bus.subscribe((cacheName, key) -> {
+            TwoLevelCache cache = sharedCaches.get(cacheName);
+            if (cache != null) {
+                cache.invalidateLocal(key);
+            }
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = sharedCaches.get(name);
+        return cache != null ? cache : localManager.getCache(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return localManager.getCacheNames();
+    }
+}
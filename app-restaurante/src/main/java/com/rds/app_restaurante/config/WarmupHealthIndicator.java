@@ -0,0 +1,30 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.service.WarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indicador "warmup" del grupo readiness: OUT_OF_SERVICE mientras la instancia se calienta
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupService warmupService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmupService.isFinished() ? Health.up() : Health.outOfService();
+        builder.withDetail("phase", warmupService.getPhase());
+        if (warmupService.isFinished()) {
+            builder.withDetail("durationMs", warmupService.getDurationMs());
+        }
+        if (warmupService.getError() != null) {
+            builder.withDetail("error", warmupService.getError());
+        }
+        return builder.build();
+    }
+}
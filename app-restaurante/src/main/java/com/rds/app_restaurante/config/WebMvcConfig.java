@@ -10,11 +10,14 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final RateLimitConfig rateLimitConfig;
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(rateLimitConfig)
                 .addPathPatterns("/api/**");
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/api/**");
     }
 }
 
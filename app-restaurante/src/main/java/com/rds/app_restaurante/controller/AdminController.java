@@ -1,15 +1,19 @@
 package com.rds.app_restaurante.controller;
 
 import com.rds.app_restaurante.dto.AdminRequest;
+import com.rds.app_restaurante.dto.RevokeSessionsRequest;
 import com.rds.app_restaurante.dto.SignUpResponse;
 import com.rds.app_restaurante.model.Admin;
 import com.rds.app_restaurante.service.AdminService;
+import com.rds.app_restaurante.service.TokenRevocationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
@@ -17,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
     
     private final AdminService adminService;
+    private final TokenRevocationService tokenRevocationService;
     
     @PostMapping("/admins")
     public ResponseEntity<?> createAdmin(@Valid @RequestBody AdminRequest adminRequest) {
@@ -39,5 +44,30 @@ public class AdminController {
         }
     }
     
+    // Cierre forzado: todas las sesiones de un usuario o un token concreto por su jti
+    @PostMapping("/sessions/revoke")
+    public ResponseEntity<?> revokeSessions(@Valid @RequestBody RevokeSessionsRequest request) {
+        boolean hasEmail = request.getEmail() != null && !request.getEmail().isBlank();
+        boolean hasTokenId = request.getTokenId() != null && !request.getTokenId().isBlank();
+        if (hasEmail == hasTokenId) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Indique el email del usuario o el id del token, no ambos"));
+        }
+        try {
+            if (hasEmail) {
+                if (tokenRevocationService.revokeAllForEmail(request.getEmail().trim()) == 0) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("message", "No hay ninguna cuenta con ese email"));
+                }
+                return ResponseEntity.ok(Map.of("message", "Sesiones del usuario cerradas exitosamente"));
+            }
+            tokenRevocationService.revokeTokenId(request.getTokenId().trim(), null);
+            return ResponseEntity.ok(Map.of("message", "Token revocado exitosamente"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Error al revocar las sesiones"));
+        }
+    }
+    
 }
 
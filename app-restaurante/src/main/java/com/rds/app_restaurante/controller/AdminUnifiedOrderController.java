@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.dto.DeliveryResponse;
 import com.rds.app_restaurante.dto.OrderResponse;
 import com.rds.app_restaurante.service.DeliveryService;
@@ -25,6 +26,7 @@ public class AdminUnifiedOrderController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"orders", "deliveries", "users", "products"})
     public ResponseEntity<List<Map<String, Object>>> getAllUnifiedOrders(
             @RequestParam(value = "type", required = false) String type) {
         List<Map<String, Object>> unifiedOrders = new ArrayList<>();
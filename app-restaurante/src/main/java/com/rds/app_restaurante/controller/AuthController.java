@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.Security.JwtUtil;
 import com.rds.app_restaurante.dto.LoginRequest;
 import com.rds.app_restaurante.dto.LoginResponse;
 import com.rds.app_restaurante.dto.SignUpRequest;
@@ -9,11 +10,17 @@ import com.rds.app_restaurante.dto.ResetPasswordRequest;
 import com.rds.app_restaurante.dto.VerifyResetCodeRequest;
 import com.rds.app_restaurante.dto.CheckEmailRequest;
 import com.rds.app_restaurante.exception.AuthenticationException;
+import com.rds.app_restaurante.exception.LoginUnavailableException;
 import com.rds.app_restaurante.service.AuthService;
+import com.rds.app_restaurante.service.TokenRevocationService;
 import com.rds.app_restaurante.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +35,8 @@ public class AuthController {
     
     private final AuthService authService;
     private final UserService userService;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
     
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
@@ -40,6 +49,10 @@ public class AuthController {
             log.warn("Authentication failed for email: {} - {}", loginRequest.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Credenciales inválidas"));
+        } catch (LoginUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             log.error("Error processing login request for email: {}", loginRequest.getEmail(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -47,6 +60,28 @@ public class AuthController {
         }
     }
     
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Token no válido"));
+        }
+        try {
+            Claims claims = jwtUtil.parseToken(authHeader.substring(7));
+            tokenRevocationService.revoke(claims);
+            log.info("Logout for email: {}", claims.getSubject());
+        } catch (JwtException e) {
+            // Un token vencido o alterado ya no sirve: no hay nada que revocar
+            log.debug("Logout with unusable token: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error processing logout request", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Error al cerrar la sesión"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Sesión cerrada exitosamente"));
+    }
+    
     @PostMapping("/signup")
     public ResponseEntity<?> signUp(@Valid @RequestBody SignUpRequest signUpRequest) {
         try {
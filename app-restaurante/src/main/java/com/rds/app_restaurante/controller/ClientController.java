@@ -4,6 +4,7 @@ import com.rds.app_restaurante.Security.JwtUtil;
 import com.rds.app_restaurante.dto.ChangePasswordRequest;
 import com.rds.app_restaurante.dto.UserResponse;
 import com.rds.app_restaurante.service.UserService;
+import io.jsonwebtoken.Claims;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -58,9 +59,10 @@ public class ClientController {
             }
 
             String token = authHeader.substring(7);
-            Long userId = jwtUtil.extractUserId(token);
+            Claims claims = jwtUtil.parseToken(token);
+            Long userId = claims.get("userId", Long.class);
 
-            userService.changePassword(userId, request.getCurrentPassword(), request.getNewPassword());
+            userService.changePassword(userId, request.getCurrentPassword(), request.getNewPassword(), claims.getId());
             return ResponseEntity.ok(Map.of("message", "Contraseña actualizada exitosamente"));
         } catch (RuntimeException e) {
             log.warn("Change password failed: {}", e.getMessage());
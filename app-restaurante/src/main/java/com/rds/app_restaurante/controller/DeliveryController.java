@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.Security.JwtUtil;
 import com.rds.app_restaurante.dto.DeliveryRequest;
 import com.rds.app_restaurante.dto.DeliveryResponse;
@@ -10,6 +11,7 @@ import com.rds.app_restaurante.service.DeliveryService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +27,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
+@Slf4j
 
 public class DeliveryController {
 
@@ -34,6 +37,7 @@ public class DeliveryController {
 
     @GetMapping("/admin/deliveries")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<List<DeliveryResponse>> getAllDeliveries() {
         List<DeliveryResponse> deliveries = deliveryService.getAllDeliveries();
         return ResponseEntity.ok(deliveries);
@@ -43,6 +47,7 @@ public class DeliveryController {
     // Esto evita que Spring intente convertir "verified-payments" a Long
     @GetMapping("/admin/deliveries/pending-payments")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<List<DeliveryResponse>> getDeliveriesWithPendingPayments() {
         List<DeliveryResponse> deliveries = deliveryService.getDeliveriesByPaymentStatus(PaymentStatus.PENDING);
         return ResponseEntity.ok(deliveries);
@@ -50,6 +55,7 @@ public class DeliveryController {
 
     @GetMapping("/admin/deliveries/verified-payments")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<List<DeliveryResponse>> getDeliveriesWithVerifiedPayments() {
         List<DeliveryResponse> deliveries = deliveryService.getDeliveriesByPaymentStatus(PaymentStatus.VERIFIED);
         return ResponseEntity.ok(deliveries);
@@ -57,6 +63,7 @@ public class DeliveryController {
 
     @GetMapping("/admin/deliveries/date/{date}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<List<DeliveryResponse>> getDeliveriesByDate(
             @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         List<DeliveryResponse> deliveries = deliveryService.getDeliveriesByDate(date);
@@ -67,21 +74,19 @@ public class DeliveryController {
     @PutMapping("/admin/deliveries/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateDeliveryStatusByAdmin(@PathVariable("id") Long id, @RequestBody Map<String, Boolean> request) {
-        System.out.println("=== Endpoint updateDeliveryStatusByAdmin llamado con ID: " + id + " ===");
         try {
             Boolean status = request.get("status");
             if (status == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El campo 'status' es obligatorio");
             }
             DeliveryResponse delivery = deliveryService.updateDeliveryStatus(id, status);
-            System.out.println("=== Delivery actualizado exitosamente: " + delivery.getId() + " ===");
+            log.debug("Domicilio {} actualizado por el admin", delivery.getId());
             return ResponseEntity.ok(delivery);
         } catch (RuntimeException e) {
-            System.err.println("=== Error al actualizar delivery: " + e.getMessage() + " ===");
+            log.warn("Error al actualizar el domicilio {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("=== Error inesperado al actualizar delivery: " + e.getMessage() + " ===");
-            e.printStackTrace();
+            log.error("Error inesperado al actualizar el domicilio {}: {}", id, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error al actualizar el estado del domicilio");
         }
@@ -90,6 +95,7 @@ public class DeliveryController {
     // IMPORTANTE: Esta ruta genérica DEBE ir al final, después de todas las rutas específicas
     @GetMapping("/admin/deliveries/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<?> getDeliveryById(@PathVariable("id") Long id) {
         try {
             DeliveryResponse delivery = deliveryService.getDeliveryById(id);
@@ -101,6 +107,7 @@ public class DeliveryController {
 
     @GetMapping("/employee/deliveries")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<List<DeliveryResponse>> getAllDeliveriesForEmployee() {
         List<DeliveryResponse> deliveries = deliveryService.getAllDeliveries();
         return ResponseEntity.ok(deliveries);
@@ -108,6 +115,7 @@ public class DeliveryController {
 
     @GetMapping("/employee/deliveries/{id}")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"deliveries", "users", "products"})
     public ResponseEntity<?> getDeliveryByIdForEmployee(@PathVariable("id") Long id) {
         try {
             DeliveryResponse delivery = deliveryService.getDeliveryById(id);
@@ -165,6 +173,7 @@ public class DeliveryController {
 
     @GetMapping("/client/deliveries")
     @PreAuthorize("hasRole('CLIENT')")
+    @ConditionalGet({"deliveries:user:{userId}", "users:{userId}", "products"})
     public ResponseEntity<List<DeliveryResponse>> getClientDeliveries(
             HttpServletRequest request,
             @RequestParam(value = "userId", required = false) Long userId) {
@@ -196,7 +205,7 @@ public class DeliveryController {
             List<DeliveryResponse> deliveries = deliveryService.getDeliveriesByUserId(clientUserId);
             return ResponseEntity.ok(deliveries);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error al obtener los domicilios del cliente: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.emptyList());
         }
@@ -1,19 +1,33 @@
 package com.rds.app_restaurante.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rds.app_restaurante.dto.ExpenseSearchRequest;
+import com.rds.app_restaurante.model.BulkExportDataset;
+import com.rds.app_restaurante.model.BulkExportFormat;
+import com.rds.app_restaurante.model.ExportJobType;
+import com.rds.app_restaurante.service.BulkExportService;
+import com.rds.app_restaurante.service.ExportCacheService;
 import com.rds.app_restaurante.service.ExportService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin/export")
@@ -22,90 +36,169 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN')")
 public class ExportController {
 
+    private static final String BULK_EXPORT_SLOT = ExportController.class.getName() + ".bulkExportSlot";
+
     private final ExportService exportService;
+    private final BulkExportService bulkExportService;
+    private final ExportCacheService exportCacheService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/expenses/excel")
-    public ResponseEntity<?> exportExpensesToExcel(@RequestBody(required = false) ExpenseSearchRequest searchRequest) {
-        try {
-            if (searchRequest == null) {
-                searchRequest = new ExpenseSearchRequest();
-            }
-            
-            byte[] excelData = exportService.exportExpensesToExcel(searchRequest);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                    "gastos_" + LocalDate.now() + ".xlsx");
-            headers.setContentLength(excelData.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Error al exportar gastos: " + e.getMessage()));
-        }
+    public ResponseEntity<StreamingResponseBody> exportExpensesToExcel(@RequestBody(required = false) ExpenseSearchRequest searchRequest) {
+        ExpenseSearchRequest filters = searchRequest != null ? searchRequest : new ExpenseSearchRequest();
+        
+        // El libro se escribe directamente en la respuesta mientras se leen los gastos
+        StreamingResponseBody body = outputStream -> exportService.writeExpensesToExcel(filters, outputStream);
+        
+        return ResponseEntity.ok()
+                .headers(attachmentHeaders(MediaType.APPLICATION_OCTET_STREAM, "gastos_" + LocalDate.now() + ".xlsx"))
+                .body(body);
     }
 
     @GetMapping("/statistics/excel")
-    public ResponseEntity<?> exportStatisticsToExcel(
+    public ResponseEntity<StreamingResponseBody> exportStatisticsToExcel(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        try {
-            // Si no se proporcionan fechas, usar el último mes por defecto
-            if (startDate == null) {
-                startDate = LocalDate.now().minusMonths(1);
-            }
-            if (endDate == null) {
-                endDate = LocalDate.now();
-            }
-            
-            byte[] excelData = exportService.exportFinancialStatsToExcel(startDate, endDate);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                    "estadisticas_financieras_" + startDate + "_" + endDate + ".xlsx");
-            headers.setContentLength(excelData.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Error al exportar estadísticas: " + e.getMessage()));
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Si no se proporcionan fechas, usar el último mes por defecto
+        LocalDate start = startDate != null ? startDate : LocalDate.now().minusMonths(1);
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        
+        ExportCacheService.CachedReport report = exportCacheService.lookup(ExportJobType.STATISTICS_EXCEL, start, end);
+        if (matchesEtag(ifNoneMatch, report.etag())) {
+            return notModified(report);
         }
+        
+        StreamingResponseBody body = outputStream -> exportCacheService.serve(report,
+                out -> exportService.writeFinancialStatsToExcel(start, end, out), outputStream);
+        
+        return ResponseEntity.ok()
+                .headers(cachedReportHeaders(report, MediaType.APPLICATION_OCTET_STREAM,
+                        "estadisticas_financieras_" + start + "_" + end + ".xlsx"))
+                .body(body);
     }
 
     @GetMapping("/statistics/pdf")
-    public ResponseEntity<?> exportStatisticsToPdf(
+    public ResponseEntity<StreamingResponseBody> exportStatisticsToPdf(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Si no se proporcionan fechas, usar el último mes por defecto
+        LocalDate start = startDate != null ? startDate : LocalDate.now().minusMonths(1);
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        
+        ExportCacheService.CachedReport report = exportCacheService.lookup(ExportJobType.STATISTICS_PDF, start, end);
+        if (matchesEtag(ifNoneMatch, report.etag())) {
+            return notModified(report);
+        }
+        
+        StreamingResponseBody body = outputStream -> exportCacheService.serve(report,
+                out -> exportService.writeFinancialStatsToPdf(start, end, out), outputStream);
+        
+        return ResponseEntity.ok()
+                .headers(cachedReportHeaders(report, MediaType.APPLICATION_PDF,
+                        "estadisticas_financieras_" + start + "_" + end + ".pdf"))
+                .body(body);
+    }
+
+    @GetMapping("/stream/{dataset}")
+    public ResponseEntity<StreamingResponseBody> streamDataset(
+            @PathVariable BulkExportDataset dataset,
+            @RequestParam(defaultValue = "CSV") BulkExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String type,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
         try {
-            // Si no se proporcionan fechas, usar el último mes por defecto
-            if (startDate == null) {
-                startDate = LocalDate.now().minusMonths(1);
+            bulkExportService.validateType(dataset, type);
+        } catch (RuntimeException e) {
+            return messageResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        BulkExportService.ExportSlot slot = bulkExportService.tryAcquireSlot();
+        if (slot == null) {
+            return messageResponse(HttpStatus.SERVICE_UNAVAILABLE, "Hay demasiadas exportaciones masivas en curso, intente más tarde");
+        }
+        // Si la petición asíncrona vence, falla o el volcado nunca llega a ejecutarse, el cupo se
+        // libera igualmente al completarse
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(BULK_EXPORT_SLOT,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        slot.close();
+                    }
+                });
+        
+        // Siempre comprimido: como Content-Encoding si el cliente lo acepta, si no como archivo .gz
+        boolean contentEncoding = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String extension = format == BulkExportFormat.CSV ? ".csv" : ".ndjson";
+        String filename = dataset.name().toLowerCase() + "_" + LocalDate.now() + extension + (contentEncoding ? "" : ".gz");
+        MediaType contentType = contentEncoding
+                ? (format == BulkExportFormat.CSV ? new MediaType("text", "csv", StandardCharsets.UTF_8) : new MediaType("application", "x-ndjson"))
+                : new MediaType("application", "gzip");
+        
+        StreamingResponseBody body = outputStream -> {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(outputStream, 64 * 1024)) {
+                bulkExportService.export(dataset, format, startDate, endDate, type, gzip);
+            } finally {
+                slot.close();
+            }
+        };
+        
+        HttpHeaders headers = attachmentHeaders(contentType, filename);
+        if (contentEncoding) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    // El navegador guarda el reporte pero siempre lo revalida con el ETag (versión de los datos)
+    private HttpHeaders cachedReportHeaders(ExportCacheService.CachedReport report, MediaType contentType, String filename) {
+        HttpHeaders headers = attachmentHeaders(contentType, filename);
+        if (report.etag() != null) {
+            headers.setETag(report.etag());
+            headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        }
+        return headers;
+    }
+
+    private <T> ResponseEntity<T> notModified(ExportCacheService.CachedReport report) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(report.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
             }
-            if (endDate == null) {
-                endDate = LocalDate.now();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
             }
-            
-            byte[] pdfData = exportService.exportFinancialStatsToPdf(startDate, endDate);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", 
-                    "estadisticas_financieras_" + startDate + "_" + endDate + ".pdf");
-            headers.setContentLength(pdfData.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(pdfData);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Error al exportar estadísticas a PDF: " + e.getMessage()));
         }
+        return false;
     }
-}
 
+    // El tipo de retorno debe declarar StreamingResponseBody para que el volcado se ejecute de forma
+    // asíncrona, así que los errores se escriben también como cuerpo en streaming
+    private ResponseEntity<StreamingResponseBody> messageResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> outputStream.write(objectMapper.writeValueAsBytes(Map.of("message", message))));
+    }
+
+    private HttpHeaders attachmentHeaders(MediaType contentType, String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        headers.setContentDispositionFormData("attachment", filename);
+        return headers;
+    }
+}
@@ -0,0 +1,78 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.dto.ExportJobRequest;
+import com.rds.app_restaurante.dto.ExportJobResponse;
+import com.rds.app_restaurante.service.ExportJobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/export/jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    @PostMapping
+    public ResponseEntity<?> submit(@Valid @RequestBody ExportJobRequest request) {
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().isAfter(request.getEndDate())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "La fecha de inicio no puede ser posterior a la fecha de fin"));
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(exportJobService.submit(request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ExportJobResponse>> getJobs() {
+        return ResponseEntity.ok(exportJobService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(exportJobService.getJob(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<?> download(@PathVariable String id) {
+        try {
+            File file = exportJobService.getResultFile(id);
+            String downloadName = exportJobService.getDownloadName(id);
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(downloadName.endsWith(".pdf") ? MediaType.APPLICATION_PDF : MediaType.APPLICATION_OCTET_STREAM);
+            headers.setContentDispositionFormData("attachment", downloadName);
+            headers.setContentLength(file.length());
+            
+            // El archivo se envía desde disco sin cargarlo en memoria
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(new FileSystemResource(file));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.dto.LifecycleLatencyResponse;
+import com.rds.app_restaurante.service.LifecycleMetricsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/metrics/lifecycle")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class LifecycleMetricsController {
+
+    private final LifecycleMetricsService lifecycleMetricsService;
+
+    @GetMapping
+    public ResponseEntity<?> getLatencyReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "false") boolean byHour) {
+        // Si no se proporcionan fechas, usar la última semana por defecto
+        if (endDate == null) {
+            endDate = LocalDate.now();
+        }
+        if (startDate == null) {
+            startDate = endDate.minusDays(6);
+        }
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "La fecha de inicio no puede ser posterior a la fecha de fin"));
+        }
+        List<LifecycleLatencyResponse> report = lifecycleMetricsService.getLatencyReport(startDate, endDate).stream()
+                .filter(row -> type == null || row.getType().equalsIgnoreCase(type))
+                .filter(row -> byHour || row.getHourOfDay() == null)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.service.MenuSnapshotService.MenuDocument;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Respuestas de los documentos ya serializados del menú público: 304 si el cliente tiene la
+ * misma versión y, si acepta gzip, los bytes comprimidos tal cual
+ */
+final class MenuSnapshotResponses {
+
+    static final String VERSION_HEADER = "X-Menu-Version";
+
+    private MenuSnapshotResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(MenuDocument document, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // ETag fuerte por representación: la versión comprimida lleva su propio sufijo
+        String gzipEtag = document.etag().substring(0, document.etag().length() - 1) + "-gz\"";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(gzip ? gzipEtag : document.etag());
+        // Cualquier caché puede guardarlo, pero siempre revalida (el menú cambia sin aviso)
+        headers.setCacheControl(CacheControl.noCache().cachePublic());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        headers.set(VERSION_HEADER, String.valueOf(document.version()));
+        if (matchesEtag(ifNoneMatch, document.etag()) || matchesEtag(ifNoneMatch, gzipEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = document.json();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = document.gzip();
+        }
+        headers.setContentLength(body.length);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
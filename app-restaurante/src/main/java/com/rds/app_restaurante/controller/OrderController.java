@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.Security.JwtUtil;
 import com.rds.app_restaurante.dto.OrderRequest;
 import com.rds.app_restaurante.dto.OrderResponse;
@@ -9,6 +10,7 @@ import com.rds.app_restaurante.service.OrderService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +26,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
+@Slf4j
 
 public class OrderController {
 
@@ -33,6 +36,7 @@ public class OrderController {
 
     @GetMapping("/admin/orders")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
         List<OrderResponse> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
@@ -41,6 +45,7 @@ public class OrderController {
     // Rutas específicas primero para evitar conflictos con /{id}
     @GetMapping("/admin/orders/pending-payments")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<List<OrderResponse>> getOrdersWithPendingPayments() {
         List<OrderResponse> orders = orderService.getOrdersWithPendingPayments();
         return ResponseEntity.ok(orders);
@@ -48,6 +53,7 @@ public class OrderController {
 
     @GetMapping("/admin/orders/verified-payments")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<List<OrderResponse>> getOrdersWithVerifiedPayments() {
         List<OrderResponse> orders = orderService.getOrdersWithVerifiedPayments();
         return ResponseEntity.ok(orders);
@@ -55,6 +61,7 @@ public class OrderController {
 
     @GetMapping("/admin/orders/date/{date}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<List<OrderResponse>> getOrdersByDate(
             @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         List<OrderResponse> orders = orderService.getOrdersByDate(date);
@@ -65,21 +72,19 @@ public class OrderController {
     @PutMapping("/admin/orders/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateOrderStatusByAdmin(@PathVariable("id") Long id, @RequestBody Map<String, Boolean> request) {
-        System.out.println("=== Endpoint updateOrderStatusByAdmin llamado con ID: " + id + " ===");
         try {
             Boolean status = request.get("status");
             if (status == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El campo 'status' es obligatorio");
             }
             OrderResponse order = orderService.updateOrderStatus(id, status);
-            System.out.println("=== Pedido actualizado exitosamente: " + order.getId() + " ===");
+            log.debug("Pedido {} actualizado por el admin", order.getId());
             return ResponseEntity.ok(order);
         } catch (RuntimeException e) {
-            System.err.println("=== Error al actualizar pedido: " + e.getMessage() + " ===");
+            log.warn("Error al actualizar el pedido {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("=== Error inesperado al actualizar pedido: " + e.getMessage() + " ===");
-            e.printStackTrace();
+            log.error("Error inesperado al actualizar el pedido {}: {}", id, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error al actualizar el estado de la orden");
         }
@@ -87,6 +92,7 @@ public class OrderController {
 
     @GetMapping("/admin/orders/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<?> getOrderById(@PathVariable("id") Long id) {
         try {
             OrderResponse order = orderService.getOrderById(id);
@@ -98,6 +104,7 @@ public class OrderController {
 
     @GetMapping("/employee/orders")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<List<OrderResponse>> getAllOrdersForEmployee() {
         List<OrderResponse> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
@@ -105,6 +112,7 @@ public class OrderController {
 
     @GetMapping("/employee/orders/{id}")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<?> getOrderByIdForEmployee(@PathVariable("id") Long id) {
         try {
             OrderResponse order = orderService.getOrderById(id);
@@ -163,6 +171,7 @@ public class OrderController {
 
     @GetMapping("/client/orders")
     @PreAuthorize("hasRole('CLIENT')")
+    @ConditionalGet({"orders:user:{userId}", "users:{userId}", "products"})
     public ResponseEntity<List<OrderResponse>> getClientOrders(
             HttpServletRequest request,
             @RequestParam(value = "userId", required = false) Long userId) {
@@ -195,7 +204,7 @@ public class OrderController {
             List<OrderResponse> orders = orderService.getOrdersByUserId(clientUserId);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error al obtener los pedidos del cliente: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.emptyList());
         }
@@ -203,6 +212,7 @@ public class OrderController {
 
     @GetMapping("/client/orders/{id}")
     @PreAuthorize("hasRole('CLIENT')")
+    @ConditionalGet({"orders", "users", "products"})
     public ResponseEntity<?> getClientOrderById(@PathVariable("id") Long id) {
         try {
             OrderResponse order = orderService.getOrderById(id);
@@ -0,0 +1,112 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.dto.PeriodSnapshotResponse;
+import com.rds.app_restaurante.model.PeriodSnapshot;
+import com.rds.app_restaurante.model.PeriodType;
+import com.rds.app_restaurante.service.PeriodCloseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/periods")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class PeriodCloseController {
+
+    private final PeriodCloseService periodCloseService;
+
+    @GetMapping
+    public ResponseEntity<List<PeriodSnapshotResponse>> getSnapshots(
+            @RequestParam(defaultValue = "DAILY") PeriodType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        // Si no se proporcionan fechas, usar el último mes por defecto
+        if (startDate == null) {
+            startDate = LocalDate.now().minusMonths(1);
+        }
+        if (endDate == null) {
+            endDate = LocalDate.now();
+        }
+        List<PeriodSnapshotResponse> snapshots = periodCloseService.getSnapshots(type, startDate, endDate).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(snapshots);
+    }
+
+    @PostMapping("/close/day")
+    public ResponseEntity<?> closeDay(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(mapToResponse(periodCloseService.closeDay(date)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/close/days")
+    public ResponseEntity<?> closeDays(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            int closed = periodCloseService.closeDays(startDate, endDate);
+            return ResponseEntity.ok(Map.of("closedDays", closed));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Error al cerrar los días: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/close/month")
+    public ResponseEntity<?> closeMonth(@RequestParam int year, @RequestParam int month) {
+        try {
+            return ResponseEntity.ok(mapToResponse(periodCloseService.closeMonth(YearMonth.of(year, month))));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reclose")
+    public ResponseEntity<?> recloseReopenedPeriods() {
+        try {
+            int reclosed = periodCloseService.recloseReopenedPeriods();
+            return ResponseEntity.ok(Map.of("reclosedPeriods", reclosed));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Error al re-cerrar los periodos: " + e.getMessage()));
+        }
+    }
+
+    private PeriodSnapshotResponse mapToResponse(PeriodSnapshot snapshot) {
+        return PeriodSnapshotResponse.builder()
+                .id(snapshot.getId())
+                .periodType(snapshot.getPeriodType())
+                .periodStart(snapshot.getPeriodStart())
+                .periodEnd(snapshot.getPeriodEnd())
+                .status(snapshot.getStatus())
+                .totalRevenue(snapshot.getTotalRevenue())
+                .ordersRevenue(snapshot.getOrdersRevenue())
+                .deliveriesRevenue(snapshot.getDeliveriesRevenue())
+                .totalExpenses(snapshot.getTotalExpenses())
+                .netProfit(snapshot.getTotalRevenue().subtract(snapshot.getTotalExpenses()))
+                .ordersCount(snapshot.getOrdersCount())
+                .deliveriesCount(snapshot.getDeliveriesCount())
+                .reservationsCount(snapshot.getReservationsCount())
+                .topProducts(periodCloseService.readTopProducts(snapshot))
+                .expensesByCategory(periodCloseService.readExpensesByCategory(snapshot))
+                .closedAt(snapshot.getClosedAt())
+                .reopenedAt(snapshot.getReopenedAt())
+                .build();
+    }
+}
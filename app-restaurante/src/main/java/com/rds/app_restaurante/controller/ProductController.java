@@ -7,6 +7,7 @@ import com.rds.app_restaurante.service.CloudinaryService;
 import com.rds.app_restaurante.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +23,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/admin/products")
 @RequiredArgsConstructor
+@Slf4j
 
 public class ProductController {
 
@@ -124,33 +126,25 @@ public class ProductController {
     @PostMapping("/upload-image")
     public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
         try {
-            System.out.println("=== Iniciando subida de imagen ===");
-            System.out.println("File recibido: " + (file != null ? "Sí" : "No"));
-            
             if (file == null || file.isEmpty()) {
-                System.out.println("Error: Archivo vacío o nulo");
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("message", "El archivo está vacío"));
             }
 
-            System.out.println("Nombre archivo: " + file.getOriginalFilename());
-            System.out.println("Tamaño archivo: " + file.getSize() + " bytes");
-            System.out.println("Content-Type: " + file.getContentType());
+            log.debug("Subida de imagen: {} ({} bytes, {})", file.getOriginalFilename(), file.getSize(), file.getContentType());
 
             // Validar tipo de archivo
             String contentType = file.getContentType();
             if (contentType == null || !contentType.startsWith("image/")) {
-                System.out.println("Error: Tipo de archivo inválido: " + contentType);
+                log.debug("Subida de imagen rechazada, tipo inválido: {}", contentType);
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("message", "El archivo debe ser una imagen"));
             }
 
-            System.out.println("Subiendo a Cloudinary...");
             Map<String, Object> uploadResult = cloudinaryService.upload(file);
-            System.out.println("Resultado Cloudinary recibido: " + (uploadResult != null ? "Sí" : "No"));
             
             if (uploadResult == null || uploadResult.isEmpty()) {
-                System.out.println("Error: Cloudinary devolvió un resultado vacío o nulo");
+                log.warn("Cloudinary devolvió un resultado vacío para {}", file.getOriginalFilename());
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("message", "Error al subir la imagen: Cloudinary no devolvió un resultado válido"));
             }
@@ -162,22 +156,19 @@ public class ProductController {
             }
             
             if (imageUrl == null) {
-                System.out.println("Error: No se encontró URL en la respuesta de Cloudinary");
-                System.out.println("Claves disponibles: " + uploadResult.keySet());
+                log.warn("Respuesta de Cloudinary sin URL, claves: {}", uploadResult.keySet());
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("message", "Error al obtener la URL de la imagen subida"));
             }
             
-            System.out.println("Imagen subida exitosamente. URL: " + imageUrl);
+            log.info("Imagen subida: {}", imageUrl);
             return ResponseEntity.ok(Map.of("imageUrl", imageUrl));
         } catch (IOException e) {
-            System.err.println("IOException al subir imagen: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error de E/S al subir imagen: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("message", "Error al subir la imagen: " + e.getMessage()));
         } catch (Exception e) {
-            System.err.println("Exception inesperada al subir imagen: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error inesperado al subir imagen: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("message", "Error inesperado al subir la imagen: " + e.getMessage()));
         }
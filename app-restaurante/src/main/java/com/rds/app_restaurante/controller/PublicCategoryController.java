@@ -2,12 +2,12 @@ package com.rds.app_restaurante.controller;
 
 import com.rds.app_restaurante.dto.CategoryResponse;
 import com.rds.app_restaurante.service.CategoryService;
+import com.rds.app_restaurante.service.MenuSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/public/categories")
 @RequiredArgsConstructor
@@ -15,17 +15,20 @@ import java.util.List;
 public class PublicCategoryController {
 
     private final CategoryService categoryService;
+    private final MenuSnapshotService menuSnapshotService;
 
     @GetMapping
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
-        List<CategoryResponse> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<byte[]> getAllCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return MenuSnapshotResponses.of(menuSnapshotService.getCategories(), ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getCategoryById(@PathVariable Long id) {
         try {
-            CategoryResponse category = categoryService.getCategoryById(id);
+            CategoryResponse category = menuSnapshotService.findCategory(id)
+                    .orElseGet(() -> categoryService.getCategoryById(id));
             return ResponseEntity.ok(category);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -0,0 +1,24 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.service.MenuSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/public/menu")
+@RequiredArgsConstructor
+
+public class PublicMenuController {
+
+    private final MenuSnapshotService menuSnapshotService;
+
+    // Menú completo (categorías → subcategorías → productos y recompensas activas) desde memoria
+    @GetMapping
+    public ResponseEntity<byte[]> getMenu(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return MenuSnapshotResponses.of(menuSnapshotService.getMenu(), ifNoneMatch, acceptEncoding);
+    }
+}
@@ -2,7 +2,9 @@ package com.rds.app_restaurante.controller;
 
 import com.rds.app_restaurante.dto.ProductResponse;
 import com.rds.app_restaurante.service.ProductService;
+import com.rds.app_restaurante.service.MenuSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,17 +17,21 @@ import java.util.List;
 public class PublicProductController {
 
     private final ProductService productService;
+    private final MenuSnapshotService menuSnapshotService;
 
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        List<ProductResponse> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return MenuSnapshotResponses.of(menuSnapshotService.getProducts(), ifNoneMatch, acceptEncoding);
     }
 
+    // Desde la instantánea del menú; si no está (recién creado) se consulta la base de datos
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
         try {
-            ProductResponse product = productService.getProductById(id);
+            ProductResponse product = menuSnapshotService.findProduct(id)
+                    .orElseGet(() -> productService.getProductById(id));
             return ResponseEntity.ok(product);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -35,7 +41,8 @@ public class PublicProductController {
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<?> getProductsByCategory(@PathVariable Long categoryId) {
         try {
-            List<ProductResponse> products = productService.getProductsByCategory(categoryId);
+            List<ProductResponse> products = menuSnapshotService.findProductsByCategory(categoryId)
+                    .orElseGet(() -> productService.getProductsByCategory(categoryId));
             return ResponseEntity.ok(products);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
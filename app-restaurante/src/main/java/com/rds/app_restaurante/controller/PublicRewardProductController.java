@@ -2,12 +2,12 @@ package com.rds.app_restaurante.controller;
 
 import com.rds.app_restaurante.dto.RewardProductResponse;
 import com.rds.app_restaurante.service.RewardProductService;
+import com.rds.app_restaurante.service.MenuSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/public/rewards")
 @RequiredArgsConstructor
@@ -15,17 +15,20 @@ import java.util.List;
 public class PublicRewardProductController {
 
     private final RewardProductService rewardProductService;
+    private final MenuSnapshotService menuSnapshotService;
 
     @GetMapping
-    public ResponseEntity<List<RewardProductResponse>> getActiveRewardProducts() {
-        List<RewardProductResponse> rewards = rewardProductService.getActiveRewardProducts();
-        return ResponseEntity.ok(rewards);
+    public ResponseEntity<byte[]> getActiveRewardProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return MenuSnapshotResponses.of(menuSnapshotService.getRewards(), ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getRewardProductById(@PathVariable Long id) {
         try {
-            RewardProductResponse reward = rewardProductService.getRewardProductById(id);
+            RewardProductResponse reward = menuSnapshotService.findReward(id)
+                    .orElseGet(() -> rewardProductService.getRewardProductById(id));
             return ResponseEntity.ok(reward);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -1,8 +1,10 @@
 package com.rds.app_restaurante.controller;
 
 import com.rds.app_restaurante.dto.SubCategoryResponse;
+import com.rds.app_restaurante.service.MenuSnapshotService;
 import com.rds.app_restaurante.service.SubCategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,23 +17,26 @@ import java.util.List;
 public class PublicSubCategoryController {
 
     private final SubCategoryService subCategoryService;
+    private final MenuSnapshotService menuSnapshotService;
 
     @GetMapping
-    public ResponseEntity<List<SubCategoryResponse>> getAllSubCategories() {
-        List<SubCategoryResponse> subCategories = subCategoryService.getAllSubCategories();
-        return ResponseEntity.ok(subCategories);
+    public ResponseEntity<byte[]> getAllSubCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return MenuSnapshotResponses.of(menuSnapshotService.getSubCategories(), ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<List<SubCategoryResponse>> getSubCategoriesByCategory(@PathVariable Long categoryId) {
-        List<SubCategoryResponse> subCategories = subCategoryService.getSubCategoriesByCategory(categoryId);
+        List<SubCategoryResponse> subCategories = menuSnapshotService.getSubCategoriesByCategory(categoryId);
         return ResponseEntity.ok(subCategories);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getSubCategoryById(@PathVariable Long id) {
         try {
-            SubCategoryResponse subCategory = subCategoryService.getSubCategoryById(id);
+            SubCategoryResponse subCategory = menuSnapshotService.findSubCategory(id)
+                    .orElseGet(() -> subCategoryService.getSubCategoryById(id));
             return ResponseEntity.ok(subCategory);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
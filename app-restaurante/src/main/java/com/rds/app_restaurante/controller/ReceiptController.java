@@ -0,0 +1,93 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.model.ReceiptFormat;
+import com.rds.app_restaurante.service.ReceiptService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/receipts")
+@RequiredArgsConstructor
+
+@PreAuthorize("hasRole('ADMIN')")
+public class ReceiptController {
+
+    private final ReceiptService receiptService;
+
+    @GetMapping("/orders/{id}")
+    public ResponseEntity<?> getOrderReceipt(@PathVariable("id") Long id,
+                                             @RequestParam(defaultValue = "PDF") ReceiptFormat format) {
+        try {
+            byte[] receipt = receiptService.getOrderReceipt(id, format);
+            return ResponseEntity.ok()
+                    .headers(receiptHeaders(format, "recibo_pedido_" + id, true))
+                    .body(receipt);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/deliveries/{id}")
+    public ResponseEntity<?> getDeliveryReceipt(@PathVariable("id") Long id,
+                                                @RequestParam(defaultValue = "PDF") ReceiptFormat format) {
+        try {
+            byte[] receipt = receiptService.getDeliveryReceipt(id, format);
+            return ResponseEntity.ok()
+                    .headers(receiptHeaders(format, "recibo_domicilio_" + id, true))
+                    .body(receipt);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Todos los recibos verificados del día en un solo documento (una página o un corte por recibo)
+    @GetMapping("/daily")
+    public ResponseEntity<StreamingResponseBody> getDailyReceipts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "PDF") ReceiptFormat format) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        
+        StreamingResponseBody body = outputStream -> receiptService.writeDailyReceipts(day, format, outputStream);
+        
+        return ResponseEntity.ok()
+                .headers(receiptHeaders(format, "recibos_" + day, false))
+                .body(body);
+    }
+
+    private HttpHeaders receiptHeaders(ReceiptFormat format, String name, boolean inline) {
+        HttpHeaders headers = new HttpHeaders();
+        String extension = switch (format) {
+            case PDF -> {
+                headers.setContentType(MediaType.APPLICATION_PDF);
+                yield ".pdf";
+            }
+            case TEXT -> {
+                headers.setContentType(new MediaType("text", "plain", StandardCharsets.UTF_8));
+                yield ".txt";
+            }
+            case ESCPOS -> {
+                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                yield ".bin";
+            }
+        };
+        // Los recibos individuales se abren en el navegador para imprimirlos directamente
+        headers.setContentDisposition((inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(name + extension)
+                .build());
+        return headers;
+    }
+}
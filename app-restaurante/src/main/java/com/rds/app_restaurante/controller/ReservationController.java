@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.Security.JwtUtil;
 import com.rds.app_restaurante.dto.ReservationRequest;
 import com.rds.app_restaurante.dto.ReservationResponse;
@@ -8,6 +9,7 @@ import com.rds.app_restaurante.service.ReservationService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +23,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
+@Slf4j
 
 public class ReservationController {
 
@@ -29,6 +32,7 @@ public class ReservationController {
 
     @GetMapping("/admin/reservations")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"reservations", "users"})
     public ResponseEntity<List<ReservationResponse>> getAllReservations() {
         List<ReservationResponse> reservations = reservationService.getAllReservations();
         return ResponseEntity.ok(reservations);
@@ -38,17 +42,15 @@ public class ReservationController {
     @PutMapping("/admin/reservations/{id}/confirm")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> confirmReservationByAdmin(@PathVariable Long id) {
-        System.out.println("=== Endpoint confirmReservationByAdmin llamado con ID: " + id + " ===");
         try {
             ReservationResponse reservation = reservationService.confirmReservation(id);
-            System.out.println("=== Reserva confirmada exitosamente: " + reservation.getId() + " ===");
+            log.debug("Reserva {} confirmada por el admin", reservation.getId());
             return ResponseEntity.ok(reservation);
         } catch (RuntimeException e) {
-            System.err.println("=== Error al confirmar reserva: " + e.getMessage() + " ===");
+            log.warn("Error al confirmar la reserva {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("=== Error inesperado al confirmar reserva: " + e.getMessage() + " ===");
-            e.printStackTrace();
+            log.error("Error inesperado al confirmar la reserva {}: {}", id, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error al confirmar la reserva");
         }
@@ -56,6 +58,7 @@ public class ReservationController {
 
     @GetMapping("/admin/reservations/date/{date}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"reservations:date:{date}", "users"})
     public ResponseEntity<List<ReservationResponse>> getReservationsByDate(
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         List<ReservationResponse> reservations = reservationService.getReservationsByDate(date);
@@ -64,6 +67,7 @@ public class ReservationController {
 
     @GetMapping("/admin/reservations/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"reservations", "users"})
     public ResponseEntity<List<ReservationResponse>> getReservationsByStatus(@PathVariable boolean status) {
         List<ReservationResponse> reservations = reservationService.getReservationsByStatus(status);
         return ResponseEntity.ok(reservations);
@@ -71,6 +75,7 @@ public class ReservationController {
 
     @GetMapping("/admin/reservations/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"reservations", "users"})
     public ResponseEntity<?> getReservationById(@PathVariable Long id) {
         try {
             ReservationResponse reservation = reservationService.getReservationById(id);
@@ -96,6 +101,7 @@ public class ReservationController {
 
     @GetMapping("/employee/reservations")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"reservations", "users"})
     public ResponseEntity<List<ReservationResponse>> getAllReservationsForEmployee() {
         List<ReservationResponse> reservations = reservationService.getAllReservations();
         return ResponseEntity.ok(reservations);
@@ -103,6 +109,7 @@ public class ReservationController {
 
     @GetMapping("/employee/reservations/status/{status}")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"reservations", "users"})
     public ResponseEntity<List<ReservationResponse>> getReservationsByStatusForEmployee(@PathVariable boolean status) {
         List<ReservationResponse> reservations = reservationService.getReservationsByStatus(status);
         return ResponseEntity.ok(reservations);
@@ -147,6 +154,7 @@ public class ReservationController {
 
     @GetMapping("/client/reservations")
     @PreAuthorize("hasRole('CLIENT')")
+    @ConditionalGet({"reservations:user:{userId}", "users:{userId}"})
     public ResponseEntity<?> getClientReservations(HttpServletRequest request) {
         try {
             String authHeader = request.getHeader("Authorization");
@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.dto.RewardProductRequest;
 import com.rds.app_restaurante.dto.RewardProductResponse;
 import com.rds.app_restaurante.service.RewardProductService;
@@ -23,6 +24,7 @@ public class RewardProductController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"rewards"})
     public ResponseEntity<List<RewardProductResponse>> getAllRewardProducts() {
         List<RewardProductResponse> rewards = rewardProductService.getAllRewardProducts();
         return ResponseEntity.ok(rewards);
@@ -30,6 +32,7 @@ public class RewardProductController {
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"rewards"})
     public ResponseEntity<?> getRewardProductById(@PathVariable Long id) {
         try {
             RewardProductResponse reward = rewardProductService.getRewardProductById(id);
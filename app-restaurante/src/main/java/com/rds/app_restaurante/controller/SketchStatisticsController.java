@@ -0,0 +1,75 @@
+package com.rds.app_restaurante.controller;
+
+import com.rds.app_restaurante.dto.DistinctCustomersResponse;
+import com.rds.app_restaurante.service.SketchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/statistics/sketches")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class SketchStatisticsController {
+
+    // El sketch solo sigue a los 64 candidatos más frecuentes
+    private static final int MAX_TOP_PRODUCTS = 64;
+
+    private final SketchService sketchService;
+
+    @GetMapping("/distinct-customers")
+    public ResponseEntity<DistinctCustomersResponse> getDistinctCustomers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        // Si no se proporcionan fechas, usar la última semana por defecto
+        if (endDate == null) {
+            endDate = LocalDate.now();
+        }
+        if (startDate == null) {
+            startDate = endDate.minusDays(6);
+        }
+        return ResponseEntity.ok(sketchService.getDistinctCustomers(startDate, endDate));
+    }
+
+    @GetMapping("/top-products")
+    public ResponseEntity<?> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_TOP_PRODUCTS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "El límite debe estar entre 1 y " + MAX_TOP_PRODUCTS));
+        }
+        // Si no se proporcionan fechas, usar el último trimestre por defecto
+        if (endDate == null) {
+            endDate = LocalDate.now();
+        }
+        if (startDate == null) {
+            startDate = endDate.minusMonths(3);
+        }
+        return ResponseEntity.ok(sketchService.getTopProducts(startDate, endDate, limit));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "La fecha de inicio no puede ser posterior a la fecha de fin"));
+        }
+        try {
+            int days = sketchService.rebuild(startDate, endDate);
+            return ResponseEntity.ok(Map.of("rebuiltDays", days));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Error al reconstruir los sketches: " + e.getMessage()));
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.dto.BusinessStatsResponse;
 import com.rds.app_restaurante.dto.FinancialStatsResponse;
 import com.rds.app_restaurante.service.StatisticsService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,6 +16,7 @@ import java.time.LocalDate;
 @RestController
 @RequestMapping("/api/admin/statistics")
 @RequiredArgsConstructor
+@Slf4j
 
 public class StatisticsController {
 
@@ -21,6 +24,7 @@ public class StatisticsController {
 
     @GetMapping("/financial")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"statistics"})
     public ResponseEntity<?> getFinancialStats(
             @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -32,17 +36,12 @@ public class StatisticsController {
             if (endDate == null) {
                 endDate = LocalDate.now();
             }
-            System.out.println("=== StatisticsController: Fechas recibidas ===");
-            System.out.println("startDate: " + startDate);
-            System.out.println("endDate: " + endDate);
-            System.out.println("hoy: " + LocalDate.now());
             FinancialStatsResponse stats = statisticsService.getFinancialStats(startDate, endDate);
-            System.out.println("Total revenue: " + stats.getTotalRevenue());
-            System.out.println("Total daily stats: " + stats.getDailyStats().size());
+            log.debug("Estadísticas financieras {} a {}: ingresos={}, días={}", startDate, endDate,
+                    stats.getTotalRevenue(), stats.getDailyStats().size());
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
-            System.err.println("Error en getFinancialStats: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error en getFinancialStats ({} a {}): {}", startDate, endDate, e.getMessage(), e);
             java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
             errorResponse.put("error", "Error al obtener estadísticas financieras: " + e.getMessage());
             return ResponseEntity.status(500).body(errorResponse);
@@ -51,16 +50,11 @@ public class StatisticsController {
 
     @GetMapping("/business")
     @PreAuthorize("hasRole('ADMIN')")
+    @ConditionalGet({"statistics", "reservations", "users", "products"})
     public ResponseEntity<BusinessStatsResponse> getBusinessStats() {
-        System.out.println("=== StatisticsController: getBusinessStats llamado ===");
-        System.out.println("Timestamp: " + new java.util.Date());
         BusinessStatsResponse stats = statisticsService.getBusinessStats();
-        System.out.println("Total pedidos: " + stats.getTotalOrders());
-        System.out.println("Total entregas: " + stats.getTotalDeliveries());
-        System.out.println("Total reservas: " + stats.getTotalReservations());
-        System.out.println("Total clientes: " + stats.getTotalCustomers());
-        System.out.println("Pedidos hoy: " + stats.getTodayStats().getOrdersCount());
-        System.out.println("Entregas hoy: " + stats.getTodayStats().getDeliveriesCount());
+        log.debug("Estadísticas del negocio: pedidos={}, entregas={}, reservas={}, clientes={}",
+                stats.getTotalOrders(), stats.getTotalDeliveries(), stats.getTotalReservations(), stats.getTotalCustomers());
         return ResponseEntity.ok(stats);
     }
 }
@@ -1,10 +1,12 @@
 package com.rds.app_restaurante.controller;
 
+import com.rds.app_restaurante.config.ConditionalGet;
 import com.rds.app_restaurante.dto.DeliveryResponse;
 import com.rds.app_restaurante.dto.OrderResponse;
 import com.rds.app_restaurante.service.DeliveryService;
 import com.rds.app_restaurante.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,6 +20,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/employee/unified-orders")
 @RequiredArgsConstructor
+@Slf4j
 
 public class UnifiedOrderController {
 
@@ -26,24 +29,18 @@ public class UnifiedOrderController {
 
     @GetMapping
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @ConditionalGet({"orders", "deliveries", "users", "products"})
     public ResponseEntity<List<Map<String, Object>>> getAllUnifiedOrders(
             @RequestParam(value = "type", required = false) String type) {
         
-        System.out.println("=== getAllUnifiedOrders llamado ===");
-        System.out.println("Type filter: " + type);
-        
         var authentication = SecurityContextHolder.getContext().getAuthentication();
-        System.out.println("Authentication: " + authentication);
-        System.out.println("Authentication is null: " + (authentication == null));
-        System.out.println("Authentication is authenticated: " + (authentication != null && authentication.isAuthenticated()));
-        if (authentication != null) {
-            System.out.println("Authentication authorities: " + authentication.getAuthorities());
-            System.out.println("Authentication name: " + authentication.getName());
-        }
+        log.debug("getAllUnifiedOrders type={} usuario={} roles={}", type,
+                authentication != null ? authentication.getName() : null,
+                authentication != null ? authentication.getAuthorities() : null);
         
         // Verificar autorización manualmente para mejor logging
         if (authentication == null || !authentication.isAuthenticated()) {
-            System.err.println("Error: No hay autenticación establecida");
+            log.warn("Pedidos unificados sin autenticación establecida");
             return ResponseEntity.status(403).build();
         }
         
@@ -51,19 +48,15 @@ public class UnifiedOrderController {
             .anyMatch(a -> a.getAuthority().equals("ROLE_EMPLOYEE"));
         
         if (!hasEmployeeRole) {
-            System.err.println("Error: El usuario no tiene el rol EMPLOYEE. Roles: " + authentication.getAuthorities());
+            log.warn("Pedidos unificados: {} no tiene el rol EMPLOYEE ({})", authentication.getName(), authentication.getAuthorities());
             return ResponseEntity.status(403).build();
         }
         
-        System.out.println("Autorización exitosa - usuario tiene rol EMPLOYEE");
-        
         List<Map<String, Object>> unifiedOrders = new ArrayList<>();
 
         // Obtener pedidos en mesa
         if (type == null || "EN_MESA".equals(type)) {
-            System.out.println("Obteniendo pedidos en mesa...");
             List<OrderResponse> orders = orderService.getAllOrders();
-            System.out.println("Pedidos en mesa encontrados: " + orders.size());
             for (OrderResponse order : orders) {
                 Map<String, Object> unified = new HashMap<>();
                 unified.put("id", order.getId());
@@ -79,15 +72,12 @@ public class UnifiedOrderController {
                 unified.put("items", order.getItems() != null ? order.getItems() : new ArrayList<>());
                 // NO incluir campos de delivery para orders
                 unifiedOrders.add(unified);
-                System.out.println("Pedido EN_MESA agregado: ID=" + order.getId() + ", Type=" + unified.get("type"));
             }
         }
 
         // Obtener pedidos a domicilio
         if (type == null || "DOMICILIO".equals(type)) {
-            System.out.println("Obteniendo pedidos a domicilio...");
             List<DeliveryResponse> deliveries = deliveryService.getAllDeliveries();
-            System.out.println("Pedidos a domicilio encontrados: " + deliveries.size());
             for (DeliveryResponse delivery : deliveries) {
                 Map<String, Object> unified = new HashMap<>();
                 unified.put("id", delivery.getId());
@@ -104,11 +94,10 @@ public class UnifiedOrderController {
                 unified.put("items", delivery.getItems() != null ? delivery.getItems() : new ArrayList<>());
                 // NO incluir tableNumber para deliveries
                 unifiedOrders.add(unified);
-                System.out.println("Pedido DOMICILIO agregado: ID=" + delivery.getId() + ", Type=" + unified.get("type"));
             }
         }
 
-        System.out.println("Total de pedidos unificados: " + unifiedOrders.size());
+        log.debug("Pedidos unificados: {} (type={})", unifiedOrders.size(), type);
         return ResponseEntity.ok(unifiedOrders);
     }
 }
@@ -38,5 +38,6 @@ public class DeliveryResponse {
     private Long verifiedByAdminId;
     private String verifiedByAdminName;
     private LocalDateTime verifiedAt;
+    private LocalDateTime completedAt;
 }
 
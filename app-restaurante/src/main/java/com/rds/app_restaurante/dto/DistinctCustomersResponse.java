@@ -0,0 +1,20 @@
+package com.rds.app_restaurante.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistinctCustomersResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long estimatedDistinctCustomers; // Clientes distintos en todo el rango (no la suma diaria)
+    private Map<LocalDate, Long> dailyEstimates;
+}
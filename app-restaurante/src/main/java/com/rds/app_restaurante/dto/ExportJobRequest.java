@@ -0,0 +1,22 @@
+package com.rds.app_restaurante.dto;
+
+import com.rds.app_restaurante.model.ExportJobType;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobRequest {
+    @NotNull(message = "El tipo de exportación es obligatorio")
+    private ExportJobType type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private ExpenseSearchRequest expenseFilters; // Solo para EXPENSES_EXCEL
+}
@@ -0,0 +1,26 @@
+package com.rds.app_restaurante.dto;
+
+import com.rds.app_restaurante.model.ExportJobStatus;
+import com.rds.app_restaurante.model.ExportJobType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponse {
+    private String id;
+    private ExportJobType type;
+    private ExportJobStatus status;
+    private Long bytesWritten; // Progreso: bytes generados hasta el momento
+    private String fileName;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,22 @@
+package com.rds.app_restaurante.dto;
+
+import com.rds.app_restaurante.model.LifecycleStage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LifecycleLatencyResponse {
+    private String type; // ORDER o DELIVERY
+    private LifecycleStage stage;
+    private Integer hourOfDay; // Hora en que se creó (null = todas las horas)
+    private Long count;
+    private Long p50Seconds;
+    private Long p95Seconds;
+    private Long p99Seconds;
+    private Long maxSeconds;
+}
@@ -37,5 +37,6 @@ public class OrderResponse {
     private Long verifiedBy;
     private String verifiedByName;
     private LocalDateTime verifiedAt;
+    private LocalDateTime completedAt;
 }
 
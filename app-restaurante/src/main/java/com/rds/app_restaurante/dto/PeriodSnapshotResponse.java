@@ -0,0 +1,37 @@
+package com.rds.app_restaurante.dto;
+
+import com.rds.app_restaurante.model.PeriodStatus;
+import com.rds.app_restaurante.model.PeriodType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodSnapshotResponse {
+    private Long id;
+    private PeriodType periodType;
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private PeriodStatus status;
+    private BigDecimal totalRevenue;
+    private BigDecimal ordersRevenue;
+    private BigDecimal deliveriesRevenue;
+    private BigDecimal totalExpenses;
+    private BigDecimal netProfit;
+    private Long ordersCount;
+    private Long deliveriesCount;
+    private Long reservationsCount;
+    private List<TopProductResponse> topProducts;
+    private List<CategoryExpenseResponse> expensesByCategory;
+    private LocalDateTime closedAt;
+    private LocalDateTime reopenedAt;
+}
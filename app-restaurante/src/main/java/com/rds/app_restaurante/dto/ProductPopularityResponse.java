@@ -0,0 +1,16 @@
+package com.rds.app_restaurante.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPopularityResponse {
+    private Long productId;
+    private String productName;
+    private Long estimatedQuantity; // Cota superior aproximada de unidades vendidas
+}
@@ -0,0 +1,13 @@
+package com.rds.app_restaurante.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class RevokeSessionsRequest {
+    @Size(max = 255, message = "El email no puede tener más de 255 caracteres")
+    private String email; // Cierra todas las sesiones del usuario
+
+    @Size(max = 36, message = "El id del token no puede tener más de 36 caracteres")
+    private String tokenId; // jti de un token concreto
+}
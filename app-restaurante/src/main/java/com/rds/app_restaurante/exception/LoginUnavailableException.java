@@ -0,0 +1,7 @@
+package com.rds.app_restaurante.exception;
+
+public class LoginUnavailableException extends RuntimeException {
+    public LoginUnavailableException(String message) {
+        super(message);
+    }
+}
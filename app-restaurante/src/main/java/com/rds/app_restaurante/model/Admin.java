@@ -1,6 +1,7 @@
 package com.rds.app_restaurante.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +14,9 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 
 @Entity
-@Table(name = "admins")
+@Table(name = "admins", indexes = {
+        @Index(name = "idx_admins_email", columnList = "email")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,26 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "aggregate_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AggregateVersion {
+    @Id
+    @Column(name = "id", length = 150)
+    private String id; // Nombre del agregado ("orders", "orders:user:5", "reservations:date:2025-01-31"...)
+
+    @Column(name = "version", nullable = false)
+    private Long version; // Número de cambios confirmados del agregado
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt; // Momento del último cambio
+}
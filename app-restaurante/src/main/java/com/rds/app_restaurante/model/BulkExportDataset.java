@@ -0,0 +1,8 @@
+package com.rds.app_restaurante.model;
+
+public enum BulkExportDataset {
+    TRANSACTIONS, // Transacciones del balance (filtro de tipo: TransactionType)
+    ORDERS,       // Pedidos en mesa con sus ítems (filtro de tipo: PaymentStatus)
+    DELIVERIES,   // Domicilios con sus ítems (filtro de tipo: PaymentStatus)
+    EXPENSES      // Gastos (filtro de tipo: categoría)
+}
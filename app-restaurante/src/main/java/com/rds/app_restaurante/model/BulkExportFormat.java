@@ -0,0 +1,6 @@
+package com.rds.app_restaurante.model;
+
+public enum BulkExportFormat {
+    CSV,   // Una fila por registro (o por ítem en pedidos y domicilios)
+    NDJSON // Un objeto JSON por línea, con los ítems anidados
+}
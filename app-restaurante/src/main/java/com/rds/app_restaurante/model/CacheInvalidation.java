@@ -0,0 +1,34 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cache_invalidations", indexes = {
+        @Index(name = "idx_cache_invalidation_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "origin", nullable = false, length = 36)
+    private String origin; // Instancia que publicó la invalidación
+
+    @Column(name = "cache_name", nullable = false, length = 100)
+    private String cacheName;
+
+    @Column(name = "cache_key", length = 255)
+    private String cacheKey; // null invalida toda la caché
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
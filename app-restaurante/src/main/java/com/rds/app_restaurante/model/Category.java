@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.model;
 
+import com.rds.app_restaurante.service.AggregateVersionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(AggregateVersionListener.class)
 @Table(name = "categories")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,50 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "daily_sketches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sketch_date", nullable = false, unique = true)
+    private LocalDate sketchDate;
+
+    @Lob
+    @Column(name = "distinct_users", nullable = false, columnDefinition = "BLOB")
+    private byte[] distinctUsers; // Registros HyperLogLog de clientes
+
+    @Lob
+    @Column(name = "product_counts", nullable = false, columnDefinition = "BLOB")
+    private byte[] productCounts; // Contadores Count-Min de unidades por producto
+
+    @Column(name = "top_product_ids", columnDefinition = "TEXT")
+    private String topProductIds; // Candidatos frecuentes separados por coma
+
+    // Día reconstruido desde pedidos y domicilios, anterior a los sketches registrados en línea
+    @ColumnDefault("false")
+    @Column(name = "rebuilt", nullable = false)
+    private boolean rebuilt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -36,5 +36,13 @@ public class DeliveryItem {
         this.quantity = quantity;
         this.subtotal = product.getPrice() * quantity;
     }
+
+    // Constructor con el precio unitario ya resuelto (por ejemplo desde la caché de productos)
+    public DeliveryItem(Delivery delivery, Product product, int quantity, double unitPrice) {
+        this.delivery = delivery;
+        this.product = product;
+        this.quantity = quantity;
+        this.subtotal = unitPrice * quantity;
+    }
 }
 
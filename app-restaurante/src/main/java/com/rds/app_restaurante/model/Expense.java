@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.model;
 
+import com.rds.app_restaurante.service.AggregateVersionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,6 +10,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(AggregateVersionListener.class)
 @Table(name = "expenses")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,28 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "export_data_versions", indexes = {
+        @Index(name = "idx_export_data_versions_date", columnList = "version_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportDataVersion {
+    @Id
+    @Column(name = "id", length = 20)
+    private String id; // Fecha ISO del día, o "business" para las estadísticas de negocio
+
+    @Column(name = "version_date")
+    private LocalDate versionDate; // Día al que corresponde (null en la fila de negocio)
+
+    @Column(name = "version", nullable = false)
+    private Long version; // Número de escrituras confirmadas que afectaron esos datos
+}
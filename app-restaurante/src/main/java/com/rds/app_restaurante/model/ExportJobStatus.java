@@ -0,0 +1,8 @@
+package com.rds.app_restaurante.model;
+
+public enum ExportJobStatus {
+    PENDING,   // En cola esperando un worker
+    RUNNING,   // Generando el archivo
+    COMPLETED, // Archivo listo para descargar
+    FAILED     // Terminó con error
+}
@@ -0,0 +1,8 @@
+package com.rds.app_restaurante.model;
+
+public enum ExportJobType {
+    EXPENSES_EXCEL,     // Gastos filtrados en Excel
+    STATISTICS_EXCEL,   // Estadísticas financieras en Excel
+    STATISTICS_PDF,     // Estadísticas financieras en PDF
+    TRANSACTIONS_EXCEL  // Transacciones del balance en Excel
+}
@@ -0,0 +1,6 @@
+package com.rds.app_restaurante.model;
+
+public enum LifecycleStage {
+    PLACED_TO_COMPLETED, // Desde que se crea hasta que se marca como completado (cocina/entrega)
+    PLACED_TO_VERIFIED   // Desde que se crea hasta que un admin verifica el pago
+}
@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.model;
 
+import com.rds.app_restaurante.service.AggregateVersionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(AggregateVersionListener.class)
 @Table(name = "orders")
 @Data
 @NoArgsConstructor
@@ -60,4 +62,7 @@ public class Order {
 
     @Column(name = "verified_at")
     private LocalDateTime verifiedAt;
+
+    @Column(name = "completed_at", nullable = true)
+    private LocalDateTime completedAt; // Momento en que se marcó como completado
 }
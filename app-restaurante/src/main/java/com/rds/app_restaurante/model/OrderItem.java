@@ -36,5 +36,13 @@ public class OrderItem {
         this.quantity = quantity;
         this.subtotal = product.getPrice() * quantity;
     }
+
+    // Constructor con el precio unitario ya resuelto (por ejemplo desde la caché de productos)
+    public OrderItem(Order order, Product product, int quantity, double unitPrice) {
+        this.order = order;
+        this.product = product;
+        this.quantity = quantity;
+        this.subtotal = unitPrice * quantity;
+    }
 }
 
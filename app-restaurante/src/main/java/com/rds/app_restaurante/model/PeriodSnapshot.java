@@ -0,0 +1,87 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "period_snapshots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"period_type", "period_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PeriodSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "period_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private PeriodType periodType;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private PeriodStatus status;
+
+    @Column(name = "total_revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalRevenue; // Todos los ingresos del balance
+
+    @Column(name = "orders_revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal ordersRevenue;
+
+    @Column(name = "deliveries_revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal deliveriesRevenue;
+
+    @Column(name = "total_expenses", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalExpenses; // Gastos + pagos de sueldo del balance
+
+    @Column(name = "orders_count", nullable = false)
+    private Long ordersCount;
+
+    @Column(name = "deliveries_count", nullable = false)
+    private Long deliveriesCount;
+
+    @Column(name = "reservations_count", nullable = false)
+    private Long reservationsCount;
+
+    @Column(name = "top_products", columnDefinition = "TEXT")
+    private String topProducts; // JSON: List<TopProductResponse> con todos los productos vendidos del periodo
+
+    @Column(name = "expenses_by_category", columnDefinition = "TEXT")
+    private String expensesByCategory; // JSON: List<CategoryExpenseResponse>
+
+    @Column(name = "closed_at", nullable = false)
+    private LocalDateTime closedAt;
+
+    @Column(name = "reopened_at")
+    private LocalDateTime reopenedAt;
+
+    // Sube en cada cierre y en cada reapertura: un cierre solo se guarda si nadie lo reabrió mientras calculaba
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @PrePersist
+    protected void onCreate() {
+        if (closedAt == null) {
+            closedAt = LocalDateTime.now();
+        }
+        if (status == null) {
+            status = PeriodStatus.CLOSED;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.rds.app_restaurante.model;
+
+public enum PeriodStatus {
+    CLOSED,   // Periodo cerrado, el snapshot es la fuente de verdad
+    REOPENED  // Periodo reabierto por una edición con fecha pasada, pendiente de re-cierre
+}
@@ -0,0 +1,6 @@
+package com.rds.app_restaurante.model;
+
+public enum PeriodType {
+    DAILY,    // Cierre diario
+    MONTHLY   // Cierre mensual
+}
@@ -0,0 +1,28 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rate_limit_counters", indexes = {
+        @Index(name = "idx_rate_limit_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateLimitCounter {
+    @Id
+    @Column(name = "id", length = 255)
+    private String id; // política + ":" + cliente
+
+    @Column(name = "tat_micros", nullable = false)
+    private Long tatMicros; // Instante teórico (microsegundos de reloj) en que el bucket vuelve a estar lleno
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,7 @@
+package com.rds.app_restaurante.model;
+
+public enum ReceiptFormat {
+    PDF,    // PDF en ancho de papel de 80 mm
+    TEXT,   // Texto plano en columnas fijas
+    ESCPOS  // Texto con comandos ESC/POS para impresoras térmicas
+}
@@ -0,0 +1,43 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_id", length = 36)
+    private String tokenId; // jti de un token concreto (cierre de sesión)
+
+    @Column(name = "role", length = 20)
+    private String role; // Tipo de cuenta (Role) cuyos tokens emitidos antes de issuedBefore quedan revocados
+
+    @Column(name = "user_id")
+    private Long userId; // Id de la cuenta en la tabla de su tipo
+
+    @Column(name = "issued_before")
+    private LocalDateTime issuedBefore;
+
+    @Column(name = "except_token_id", length = 36)
+    private String exceptTokenId; // Sesión que se conserva (cambio de contraseña desde esa sesión)
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; // Después de esta fecha todos los tokens afectados ya expiraron
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
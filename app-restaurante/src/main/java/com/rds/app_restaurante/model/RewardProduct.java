@@ -1,11 +1,13 @@
 package com.rds.app_restaurante.model;
 
+import com.rds.app_restaurante.service.AggregateVersionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 @Entity
+@EntityListeners(AggregateVersionListener.class)
 @Table(name = "reward_products")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,44 @@
+package com.rds.app_restaurante.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "shared_cache_entries", indexes = {
+        @Index(name = "idx_shared_cache_name", columnList = "cache_name"),
+        @Index(name = "idx_shared_cache_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SharedCacheEntry {
+    @Id
+    @Column(name = "id", length = 255)
+    private String id; // nombre de la caché + "::" + clave, o solo el nombre para la marca de limpieza
+
+    @Column(name = "cache_name", nullable = false, length = 100)
+    private String cacheName;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "LONGTEXT")
+    private String payload; // Valor serializado en JSON con información de tipos ("null" en las marcas)
+
+    // Epoch en ms en que empezó la carga del valor guardado
+    @ColumnDefault("0")
+    @Column(name = "loaded_at", nullable = false)
+    private long loadedAt;
+
+    // Epoch en ms de la última evicción de la clave (o limpieza de la caché en la marca): los valores cargados antes no valen
+    @ColumnDefault("0")
+    @Column(name = "invalidated_at", nullable = false)
+    private long invalidatedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
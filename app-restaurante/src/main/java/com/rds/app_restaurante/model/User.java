@@ -1,6 +1,9 @@
 package com.rds.app_restaurante.model;
 
+import com.rds.app_restaurante.service.AggregateVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
@@ -15,7 +18,10 @@ import java.time.LocalDate;
 
 //Clase para representar el usuario en la base de datos
 @Entity
-@Table(name = "users")
+@EntityListeners(AggregateVersionListener.class)
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_email", columnList = "email")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
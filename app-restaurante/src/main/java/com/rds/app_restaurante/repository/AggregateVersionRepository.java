@@ -0,0 +1,17 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.AggregateVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AggregateVersionRepository extends JpaRepository<AggregateVersion, String> {
+    @Modifying
+    @Query("UPDATE AggregateVersion v SET v.version = v.version + 1, v.changedAt = :now WHERE v.id = :id")
+    int increment(@Param("id") String id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,20 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.CacheInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+    List<CacheInvalidation> findByCreatedAtAfterAndOriginNotOrderByIdAsc(LocalDateTime since, String origin);
+
+    @Modifying
+    @Query("DELETE FROM CacheInvalidation i WHERE i.createdAt < :threshold")
+    int deleteOlderThan(@Param("threshold") LocalDateTime threshold);
+}
@@ -0,0 +1,27 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.DailySketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailySketchRepository extends JpaRepository<DailySketch, Long> {
+    Optional<DailySketch> findBySketchDate(LocalDate sketchDate);
+
+    List<DailySketch> findBySketchDateBetween(LocalDate startDate, LocalDate endDate);
+
+    // Primer día registrado en línea: desde ahí las instancias pueden tener cambios sin guardar
+    Optional<DailySketch> findFirstByRebuiltFalseOrderBySketchDateAsc();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailySketch s WHERE s.sketchDate = :sketchDate")
+    Optional<DailySketch> findBySketchDateForUpdate(@Param("sketchDate") LocalDate sketchDate);
+}
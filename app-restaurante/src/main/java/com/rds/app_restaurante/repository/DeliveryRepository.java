@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
@@ -24,5 +25,21 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
     @Query("SELECT COUNT(d) FROM Delivery d WHERE d.date BETWEEN :startDate AND :endDate")
     Long countDeliveriesBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-}
+    
+    @Query("SELECT d.date, COUNT(d) FROM Delivery d GROUP BY d.date")
+    List<Object[]> countDeliveriesByDate();
+    
+    // Marcas del ciclo de vida para el reporte de latencias (sin hidratar entidades)
+    @Query("SELECT d.date, d.time, d.completedAt, d.verifiedAt, d.paymentStatus FROM Delivery d " +
+           "WHERE d.date BETWEEN :startDate AND :endDate")
+    List<Object[]> findLifecycleTimestamps(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Domicilios del día con items y productos en una sola consulta, para los recibos del día
+    @Query("SELECT DISTINCT d FROM Delivery d LEFT JOIN FETCH d.items i LEFT JOIN FETCH i.product " +
+           "WHERE d.date = :date AND d.paymentStatus = :paymentStatus ORDER BY d.time, d.id")
+    List<Delivery> findReceiptsByDate(@Param("date") LocalDate date, @Param("paymentStatus") PaymentStatus paymentStatus);
 
+    // Un recibo con items y productos en una sola consulta, fuera de la transacción que lo verificó
+    @Query("SELECT DISTINCT d FROM Delivery d LEFT JOIN FETCH d.items i LEFT JOIN FETCH i.product WHERE d.id = :id")
+    Optional<Delivery> findReceiptById(@Param("id") Long id);
+}
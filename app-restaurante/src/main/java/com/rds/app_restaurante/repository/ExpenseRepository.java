@@ -38,6 +38,30 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
             Pageable pageable
     );
     
+    // Misma búsqueda por bloques (keyset sobre fecha e id) para exportaciones sin límite de filas
+    @Query("SELECT e FROM Expense e WHERE " +
+           "(:description IS NULL OR LOWER(e.description) LIKE LOWER(CONCAT('%', :description, '%'))) AND " +
+           "(:category IS NULL OR e.category = :category) AND " +
+           "(:paymentMethod IS NULL OR e.paymentMethod = :paymentMethod) AND " +
+           "(:startDate IS NULL OR e.expenseDate >= :startDate) AND " +
+           "(:endDate IS NULL OR e.expenseDate <= :endDate) AND " +
+           "(:minAmount IS NULL OR e.amount >= :minAmount) AND " +
+           "(:maxAmount IS NULL OR e.amount <= :maxAmount) AND " +
+           "(:lastDate IS NULL OR e.expenseDate < :lastDate OR (e.expenseDate = :lastDate AND e.id < :lastId)) " +
+           "ORDER BY e.expenseDate DESC, e.id DESC")
+    List<Expense> searchExpensesAfter(
+            @Param("description") String description,
+            @Param("category") String category,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("lastDate") LocalDate lastDate,
+            @Param("lastId") Long lastId,
+            Pageable pageable
+    );
+    
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.expenseDate BETWEEN :startDate AND :endDate")
     BigDecimal getTotalExpensesBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
@@ -0,0 +1,21 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.ExportDataVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface ExportDataVersionRepository extends JpaRepository<ExportDataVersion, String> {
+    @Modifying
+    @Query("UPDATE ExportDataVersion v SET v.version = v.version + 1 WHERE v.id = :id")
+    int increment(@Param("id") String id);
+
+    // Las versiones solo crecen, así que la suma cambia con cualquier escritura de un día del rango
+    @Query("SELECT COALESCE(SUM(v.version), 0) FROM ExportDataVersion v WHERE v.versionDate BETWEEN :startDate AND :endDate")
+    long sumVersions(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -24,5 +25,21 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT COUNT(o) FROM Order o WHERE o.date BETWEEN :startDate AND :endDate")
     Long countOrdersBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-}
+    
+    @Query("SELECT o.date, COUNT(o) FROM Order o GROUP BY o.date")
+    List<Object[]> countOrdersByDate();
+    
+    // Marcas del ciclo de vida para el reporte de latencias (sin hidratar entidades)
+    @Query("SELECT o.date, o.time, o.completedAt, o.verifiedAt, o.paymentStatus FROM Order o " +
+           "WHERE o.date BETWEEN :startDate AND :endDate")
+    List<Object[]> findLifecycleTimestamps(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Pedidos del día con items y productos en una sola consulta, para los recibos del día
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product " +
+           "WHERE o.date = :date AND o.paymentStatus = :paymentStatus ORDER BY o.time, o.id")
+    List<Order> findReceiptsByDate(@Param("date") LocalDate date, @Param("paymentStatus") PaymentStatus paymentStatus);
 
+    // Un recibo con items y productos en una sola consulta, fuera de la transacción que lo verificó
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id = :id")
+    Optional<Order> findReceiptById(@Param("id") Long id);
+}
@@ -0,0 +1,41 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.PeriodSnapshot;
+import com.rds.app_restaurante.model.PeriodStatus;
+import com.rds.app_restaurante.model.PeriodType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PeriodSnapshotRepository extends JpaRepository<PeriodSnapshot, Long> {
+    Optional<PeriodSnapshot> findByPeriodTypeAndPeriodStart(PeriodType periodType, LocalDate periodStart);
+
+    List<PeriodSnapshot> findByStatus(PeriodStatus status);
+
+    List<PeriodSnapshot> findByPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(
+            PeriodType periodType, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT s FROM PeriodSnapshot s WHERE s.periodType = :periodType AND s.status = :status " +
+           "AND s.periodStart BETWEEN :startDate AND :endDate ORDER BY s.periodStart ASC")
+    List<PeriodSnapshot> findByTypeAndStatusBetween(@Param("periodType") PeriodType periodType,
+                                                     @Param("status") PeriodStatus status,
+                                                     @Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    // Siempre incrementa la versión, aunque el periodo ya estuviera reabierto, para invalidar un cierre en curso
+    @Modifying
+    @Query("UPDATE PeriodSnapshot s SET s.status = :status, s.reopenedAt = :reopenedAt, s.version = s.version + 1 " +
+           "WHERE s.periodType = :periodType AND s.periodStart = :periodStart")
+    int markReopened(@Param("periodType") PeriodType periodType,
+                     @Param("periodStart") LocalDate periodStart,
+                     @Param("status") PeriodStatus status,
+                     @Param("reopenedAt") LocalDateTime reopenedAt);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,7 +18,27 @@ import java.util.Optional;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     List<Product> findByCategory(Category category);
+    List<Product> findByCategoryId(Long categoryId);
+    long countByCategoryId(Long categoryId);
+    long countBySubCategoryId(Long subCategoryId);
+    boolean existsByCategoryId(Long categoryId);
+    boolean existsBySubCategoryId(Long subCategoryId);
+
+    // Cantidad de productos por categoría y por subcategoría: filas [id, cantidad]
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.category IS NOT NULL GROUP BY p.category.id")
+    List<Object[]> countProductsByCategory();
+
+    @Query("SELECT p.subCategory.id, COUNT(p) FROM Product p WHERE p.subCategory IS NOT NULL GROUP BY p.subCategory.id")
+    List<Object[]> countProductsBySubCategory();
     Optional<Product> findByName(String name);
+
+    // Descuento de stock atómico: no actualiza nada si no alcanza
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
     
     // Búsqueda por nombre (case-insensitive)
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
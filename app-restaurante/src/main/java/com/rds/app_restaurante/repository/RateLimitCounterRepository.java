@@ -0,0 +1,28 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.RateLimitCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RateLimitCounterRepository extends JpaRepository<RateLimitCounter, String> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RateLimitCounter c WHERE c.id = :id")
+    Optional<RateLimitCounter> findForUpdate(@Param("id") String id);
+
+    @Modifying
+    @Query("UPDATE RateLimitCounter c SET c.tatMicros = c.tatMicros - :micros WHERE c.id = :id")
+    int refund(@Param("id") String id, @Param("micros") long micros);
+
+    @Modifying
+    @Query("DELETE FROM RateLimitCounter c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
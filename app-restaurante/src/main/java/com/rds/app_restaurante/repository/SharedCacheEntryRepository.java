@@ -0,0 +1,45 @@
+package com.rds.app_restaurante.repository;
+
+import com.rds.app_restaurante.model.SharedCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SharedCacheEntryRepository extends JpaRepository<SharedCacheEntry, String> {
+    // Solo reemplaza un valor cargado antes y que no haya sido invalidado después de la carga
+    @Modifying
+    @Query("UPDATE SharedCacheEntry e SET e.payload = :payload, e.loadedAt = :loadedAt, e.expiresAt = :expiresAt " +
+           "WHERE e.id = :id AND e.loadedAt < :loadedAt AND e.invalidatedAt < :loadedAt")
+    int updateIfNewer(@Param("id") String id, @Param("payload") String payload,
+                      @Param("loadedAt") long loadedAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // La marca se conserva al menos tanto como cualquier valor que invalida
+    @Modifying
+    @Query("UPDATE SharedCacheEntry e SET e.invalidatedAt = :invalidatedAt, " +
+           "e.expiresAt = CASE WHEN e.expiresAt < :expiresAt THEN :expiresAt ELSE e.expiresAt END " +
+           "WHERE e.id = :id AND e.invalidatedAt < :invalidatedAt")
+    int invalidate(@Param("id") String id, @Param("invalidatedAt") long invalidatedAt,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Inserción sin fusionar: si otra instancia creó la fila a la vez falla por clave duplicada en lugar de pisarla
+    @Modifying
+    @Query("INSERT INTO SharedCacheEntry (id, cacheName, payload, loadedAt, invalidatedAt, expiresAt) " +
+           "VALUES (:id, :cacheName, :payload, :loadedAt, :invalidatedAt, :expiresAt)")
+    int insert(@Param("id") String id, @Param("cacheName") String cacheName, @Param("payload") String payload,
+               @Param("loadedAt") long loadedAt, @Param("invalidatedAt") long invalidatedAt,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Entradas de la caché sin su marca de limpieza
+    @Modifying
+    @Query("DELETE FROM SharedCacheEntry e WHERE e.cacheName = :cacheName AND e.id <> :cacheName")
+    int deleteEntriesOf(@Param("cacheName") String cacheName);
+
+    @Modifying
+    @Query("DELETE FROM SharedCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -22,6 +22,27 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     List<Transaction> findByCreatedAtBetweenOrderByCreatedAtDesc(LocalDateTime startDate, LocalDateTime endDate);
     
+    // Bloques por id (keyset) para exportaciones grandes
+    List<Transaction> findByCreatedAtBetweenAndIdGreaterThanOrderByIdAsc(LocalDateTime startDate, LocalDateTime endDate, Long afterId, Pageable pageable);
+    
+    // Totales agregados por tipo y referencia (usado por el cierre de periodos)
+    @Query("SELECT t.transactionType, t.referenceType, SUM(t.amount) FROM Transaction t " +
+           "WHERE t.createdAt BETWEEN :startDate AND :endDate GROUP BY t.transactionType, t.referenceType")
+    List<Object[]> sumByTypeAndReferenceBetweenDates(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    // Solo las columnas necesarias para construir el índice de rangos (sin hidratar entidades)
+    @Query("SELECT t.createdAt, t.transactionType, t.referenceType, t.amount FROM Transaction t")
+    List<Object[]> findLedgerEntries();
+    
+    // Columnas del almacén columnar, paginadas por id (keyset) para no cargar todo el historial
+    @Query("SELECT t.id, t.createdAt, t.transactionType, t.referenceType, t.referenceId, t.amount FROM Transaction t " +
+           "WHERE t.id > :afterId ORDER BY t.id ASC")
+    List<Object[]> findLedgerColumnsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Número de transacciones y último id (validación del almacén columnar persistido)
+    @Query("SELECT COUNT(t), MAX(t.id) FROM Transaction t")
+    List<Object[]> getLedgerStats();
+    
     @Query("SELECT t FROM Transaction t WHERE t.referenceType = :referenceType AND t.referenceId = :referenceId")
     List<Transaction> findByReference(@Param("referenceType") String referenceType, @Param("referenceId") Long referenceId);
 }
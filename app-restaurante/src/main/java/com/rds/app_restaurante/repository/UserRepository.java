@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -48,4 +49,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Búsqueda por fecha de registro (últimos N días)
     @Query("SELECT u FROM User u WHERE u.dateOfBirth >= :sinceDate")
     Page<User> findByDateOfBirthAfter(@Param("sinceDate") LocalDate sinceDate, Pageable pageable);
+    
+    // Identidad para el login en una sola consulta sobre las tres tablas de cuentas (email indexado en cada una):
+    // filas [rol, id, password, nombre, apellido, email] en el orden de prioridad CLIENT, ADMIN, EMPLOYEE
+    @Query(value = "SELECT 'CLIENT' AS role, id, password, name, last_name, email, 1 AS priority FROM users WHERE email = :email " +
+                   "UNION ALL SELECT 'ADMIN', id, password, name, last_name, email, 2 FROM admins WHERE email = :email " +
+                   "UNION ALL SELECT 'EMPLOYEE', id, password, name, last_name, email, 3 FROM employees WHERE email = :email " +
+                   "ORDER BY priority", nativeQuery = true)
+    List<Object[]> findLoginIdentities(@Param("email") String email);
+
+    // Cuentas de cualquier tipo con el email: el login identifica la cuenta solo por email
+    @Query(value = "SELECT (SELECT COUNT(*) FROM users WHERE email = :email) " +
+                   "+ (SELECT COUNT(*) FROM admins WHERE email = :email) " +
+                   "+ (SELECT COUNT(*) FROM employees WHERE email = :email)", nativeQuery = true)
+    long countAccountsWithEmail(@Param("email") String email);
 }
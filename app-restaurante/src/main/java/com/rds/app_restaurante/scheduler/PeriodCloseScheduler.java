@@ -0,0 +1,55 @@
+package com.rds.app_restaurante.scheduler;
+
+import com.rds.app_restaurante.service.PeriodCloseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PeriodCloseScheduler {
+
+    // Días hacia atrás que se revisan en cada cierre por si el servidor estuvo apagado
+    private static final int CATCH_UP_DAYS = 7;
+
+    private final PeriodCloseService periodCloseService;
+
+    // Cierre diario a las 00:05: congela el día anterior (y los días pendientes de la última semana)
+    @Scheduled(cron = "0 5 0 * * ?")
+    public void closeDailyPeriods() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        log.info("Ejecutando cierre diario hasta {}", yesterday);
+        try {
+            periodCloseService.closeDays(yesterday.minusDays(CATCH_UP_DAYS - 1), yesterday);
+        } catch (Exception e) {
+            log.error("Error en el cierre diario de periodos: {}", e.getMessage(), e);
+        }
+    }
+
+    // Cierre mensual el día 1 a las 00:15: congela el mes anterior
+    @Scheduled(cron = "0 15 0 1 * ?")
+    public void closeMonthlyPeriod() {
+        YearMonth previousMonth = YearMonth.now().minusMonths(1);
+        log.info("Ejecutando cierre mensual de {}", previousMonth);
+        try {
+            periodCloseService.closeMonth(previousMonth);
+        } catch (Exception e) {
+            log.error("Error en el cierre mensual de periodos: {}", e.getMessage(), e);
+        }
+    }
+
+    // Cada hora se re-cierran los periodos reabiertos por ediciones con fecha pasada
+    @Scheduled(cron = "0 45 * * * ?")
+    public void recloseReopenedPeriods() {
+        try {
+            periodCloseService.recloseReopenedPeriods();
+        } catch (Exception e) {
+            log.error("Error re-cerrando periodos reabiertos: {}", e.getMessage(), e);
+        }
+    }
+}
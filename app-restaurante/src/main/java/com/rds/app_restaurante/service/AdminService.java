@@ -3,6 +3,7 @@ package com.rds.app_restaurante.service;
 import com.rds.app_restaurante.dto.AdminRequest;
 import com.rds.app_restaurante.model.Admin;
 import com.rds.app_restaurante.repository.AdminRepository;
+import com.rds.app_restaurante.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -12,11 +13,12 @@ import org.springframework.stereotype.Service;
 public class AdminService {
     
     private final AdminRepository adminRepository;
+    private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     
     public Admin createAdmin(AdminRequest adminRequest) {
-        // Verificar si el email ya existe
-        if (adminRepository.findByEmail(adminRequest.getEmail()).isPresent()) {
+        // Verificar si el email ya existe en cualquier tipo de cuenta
+        if (userRepository.countAccountsWithEmail(adminRequest.getEmail()) > 0) {
             throw new RuntimeException("El email ya está registrado");
         }
         
@@ -0,0 +1,61 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.*;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Listener JPA que marca los agregados afectados por cada escritura, así ningún servicio tiene
+ * que acordarse de hacerlo. Hibernate lo crea a través del contenedor de Spring. Las
+ * actualizaciones masivas por JPQL no pasan por aquí: el stock descontado por los pedidos se
+ * cubre marcando "products" al crear el pedido. El servicio se resuelve en cada evento porque
+ * depende de un repositorio, y los repositorios necesitan la fábrica que crea este listener.
+ */
+public class AggregateVersionListener {
+
+    private final ObjectProvider<AggregateVersionService> aggregateVersionService;
+
+    public AggregateVersionListener(ObjectProvider<AggregateVersionService> aggregateVersionService) {
+        this.aggregateVersionService = aggregateVersionService;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (entity instanceof Order || entity instanceof Delivery) {
+            markChanged("products");
+        }
+        onChange(entity);
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Order order) {
+            markChanged("orders", "orders:user:" + userId(order.getUser()), "statistics");
+        } else if (entity instanceof Delivery delivery) {
+            markChanged("deliveries", "deliveries:user:" + userId(delivery.getUser()), "statistics");
+        } else if (entity instanceof Reservation reservation) {
+            // La fecha de una reserva no cambia después de crearla
+            markChanged("reservations", "reservations:user:" + userId(reservation.getUser()),
+                    "reservations:date:" + reservation.getDate());
+        } else if (entity instanceof RewardProduct) {
+            markChanged("rewards");
+        } else if (entity instanceof Product || entity instanceof Category || entity instanceof SubCategory) {
+            markChanged("products");
+        } else if (entity instanceof Expense || entity instanceof Transaction) {
+            markChanged("statistics");
+        } else if (entity instanceof User user) {
+            markChanged("users", "users:" + user.getId());
+        }
+    }
+
+    private void markChanged(String... aggregates) {
+        aggregateVersionService.getObject().markChanged(aggregates);
+    }
+
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+}
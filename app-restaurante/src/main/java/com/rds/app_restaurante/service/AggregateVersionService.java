@@ -0,0 +1,126 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.AggregateVersion;
+import com.rds.app_restaurante.repository.AggregateVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Versión barata por agregado ("orders", "orders:user:5", "reservations:date:2025-01-31"...)
+ * para responder peticiones condicionales sin cargar entidades. Cada agregado guarda en la base
+ * de datos un contador de cambios y el momento del último; como los contadores solo crecen, la
+ * suma de los de un conjunto de agregados sube siempre que cambia cualquiera de ellos y sirve
+ * como ETag, igual en todas las instancias y tras un reinicio. Los cambios de una transacción
+ * se registran juntos después del commit.
+ */
+@Service
+@Slf4j
+public class AggregateVersionService {
+
+    private final AggregateVersionRepository repository;
+    private final TransactionTemplate transaction;
+
+    /**
+     * Validadores de una respuesta: ETag débil y Last-Modified (epoch millis, -1 si ningún
+     * agregado cambió todavía)
+     */
+    public record Validators(String etag, long lastModified) {
+    }
+
+    public AggregateVersionService(AggregateVersionRepository repository,
+                                   PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Marca los agregados como modificados (después del commit si hay transacción activa)
+     */
+    public void markChanged(String... aggregates) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(new TreeSet<>(Arrays.asList(aggregates)));
+            return;
+        }
+        pendingAggregates().addAll(Arrays.asList(aggregates));
+    }
+
+    /**
+     * Validadores para una respuesta construida a partir de los agregados indicados; incluyen
+     * el día porque varias vistas (estadísticas, pedidos de hoy) cambian con la fecha
+     */
+    public Validators validators(Collection<String> aggregates) {
+        long version = 0;
+        long changedAt = -1;
+        for (AggregateVersion stored : repository.findAllById(new HashSet<>(aggregates))) {
+            version += stored.getVersion();
+            changedAt = Math.max(changedAt, stored.getChangedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        String etag = "W/\"" + LocalDate.now() + "-" + version + "\"";
+        return new Validators(etag, changedAt);
+    }
+
+    // Agregados modificados en la transacción actual; se registran una sola vez al confirmarla
+    @SuppressWarnings("unchecked")
+    private SortedSet<String> pendingAggregates() {
+        SortedSet<String> pending = (SortedSet<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        SortedSet<String> created = new TreeSet<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AggregateVersionService.this);
+            }
+        });
+        return created;
+    }
+
+    // En su propia transacción y en orden de nombre, para que dos escritores no se bloqueen en cruz
+    private void increment(SortedSet<String> aggregates) {
+        if (aggregates.isEmpty()) {
+            return;
+        }
+        try {
+            try {
+                transaction.executeWithoutResult(status -> incrementOrCreate(aggregates));
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia creó alguna fila a la vez: ahora existe y se puede incrementar
+                transaction.executeWithoutResult(status -> incrementOrCreate(aggregates));
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo registrar el cambio de los agregados {}: {}", aggregates, e.getMessage());
+        }
+    }
+
+    private void incrementOrCreate(SortedSet<String> aggregates) {
+        LocalDateTime now = LocalDateTime.now();
+        for (String aggregate : aggregates) {
+            if (repository.increment(aggregate, now) == 0) {
+                repository.saveAndFlush(AggregateVersion.builder()
+                        .id(aggregate)
+                        .version(1L)
+                        .changedAt(now)
+                        .build());
+            }
+        }
+    }
+}
@@ -3,20 +3,14 @@ package com.rds.app_restaurante.service;
 import com.rds.app_restaurante.Security.JwtUtil;
 import com.rds.app_restaurante.dto.LoginRequest;
 import com.rds.app_restaurante.dto.LoginResponse;
-import com.rds.app_restaurante.model.Admin;
-import com.rds.app_restaurante.model.Employee;
 import com.rds.app_restaurante.model.Role;
-import com.rds.app_restaurante.model.User;
-import com.rds.app_restaurante.repository.AdminRepository;
-import com.rds.app_restaurante.repository.EmployeeRepository;
 import com.rds.app_restaurante.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -24,9 +18,7 @@ import java.util.Optional;
 public class AuthService {
     
     private final UserRepository userRepository;
-    private final AdminRepository adminRepository;
-    private final EmployeeRepository employeeRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerifier passwordVerifier;
     private final JwtUtil jwtUtil;
     
     public LoginResponse authenticate(LoginRequest loginRequest) {
@@ -35,74 +27,53 @@ public class AuthService {
         
         log.debug("Attempting authentication for email: {}", email);
         
-        // 1. Buscar en la tabla de usuarios (CLIENT)
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            boolean passwordMatches = passwordEncoder.matches(password, user.getPassword());
-            if (passwordMatches) {
-                log.info("Successful authentication as CLIENT for email: {}", email);
-                String token = jwtUtil.generateToken(user.getId(), user.getEmail(), Role.CLIENT);
-                return LoginResponse.builder()
-                        .token(token)
-                        .email(user.getEmail())
-                        .name(user.getName())
-                        .lastName(user.getLastName())
-                        .role(Role.CLIENT)
-                        .userId(user.getId())
-                        .redirectTo("/dashboard")
-                        .build();
-            } else {
-                log.warn("Failed authentication attempt for CLIENT email: {} - Invalid password", email);
-            }
+        // Una sola consulta sobre usuarios, administradores y empleados (en ese orden de prioridad)
+        List<Object[]> identities = userRepository.findLoginIdentities(email);
+        if (identities.isEmpty()) {
+            log.warn("Authentication failed for email: {} - Invalid credentials", email);
+            throw new com.rds.app_restaurante.exception.AuthenticationException("Credenciales inválidas");
         }
-        
-        // 2. Buscar en la tabla de administradores (ADMIN)
-        Optional<Admin> adminOpt = adminRepository.findByEmail(email);
-        if (adminOpt.isPresent()) {
-            Admin admin = adminOpt.get();
-            boolean passwordMatches = passwordEncoder.matches(password, admin.getPassword());
-            if (passwordMatches) {
-                log.info("Successful authentication as ADMIN for email: {}", email);
-                String token = jwtUtil.generateToken(admin.getId(), admin.getEmail(), Role.ADMIN);
-                return LoginResponse.builder()
-                        .token(token)
-                        .email(admin.getEmail())
-                        .name(admin.getName())
-                        .lastName(admin.getLastName())
-                        .role(Role.ADMIN)
-                        .userId(admin.getId())
-                        .redirectTo("/admin")
-                        .build();
-            } else {
-                log.warn("Failed authentication attempt for ADMIN email: {} - Invalid password", email);
-            }
+        if (identities.size() > 1) {
+            // Las altas ya no permiten repetir el email entre tipos de cuenta; quedan las anteriores
+            log.warn("El email {} está registrado en {} tipos de cuenta", email, identities.size());
         }
         
-        // 3. Buscar en la tabla de empleados (EMPLOYEE)
-        Optional<Employee> employeeOpt = employeeRepository.findByEmail(email);
-        if (employeeOpt.isPresent()) {
-            Employee employee = employeeOpt.get();
-            boolean passwordMatches = passwordEncoder.matches(password, employee.getPassword());
-            if (passwordMatches) {
-                log.info("Successful authentication as EMPLOYEE for email: {}", email);
-                String token = jwtUtil.generateToken(employee.getId(), employee.getEmail(), Role.EMPLOYEE);
-                return LoginResponse.builder()
-                        .token(token)
-                        .email(employee.getEmail())
-                        .name(employee.getName())
-                        .lastName(employee.getLastName())
-                        .role(Role.EMPLOYEE)
-                        .userId(employee.getId())
-                        .redirectTo("/employee")
-                        .build();
-            } else {
-                log.warn("Failed authentication attempt for EMPLOYEE email: {} - Invalid password", email);
+        // Una verificación BCrypt por cuenta con ese email (normalmente una), en el pool acotado de
+        // login; gana la primera cuenta cuya contraseña coincide, en orden de prioridad
+        Object[] identity = null;
+        for (Object[] candidate : identities) {
+            if (passwordVerifier.matches(password, (String) candidate[2])) {
+                identity = candidate;
+                break;
             }
         }
+        if (identity == null) {
+            log.warn("Failed authentication attempt for email: {} - Invalid password", email);
+            throw new com.rds.app_restaurante.exception.AuthenticationException("Credenciales inválidas");
+        }
+        Role role = Role.valueOf((String) identity[0]);
+        Long id = ((Number) identity[1]).longValue();
         
-        log.warn("Authentication failed for email: {} - Invalid credentials", email);
-        throw new com.rds.app_restaurante.exception.AuthenticationException("Credenciales inválidas");
+        log.info("Successful authentication as {} for email: {}", role, email);
+        String accountEmail = (String) identity[5];
+        String token = jwtUtil.generateToken(id, accountEmail, role);
+        return LoginResponse.builder()
+                .token(token)
+                .email(accountEmail)
+                .name((String) identity[3])
+                .lastName((String) identity[4])
+                .role(role)
+                .userId(id)
+                .redirectTo(redirectFor(role))
+                .build();
+    }
+    
+    private static String redirectFor(Role role) {
+        return switch (role) {
+            case ADMIN -> "/admin";
+            case EMPLOYEE -> "/employee";
+            default -> "/dashboard";
+        };
     }
 }
 
@@ -13,6 +13,7 @@ import com.rds.app_restaurante.repository.ExpenseRepository;
 import com.rds.app_restaurante.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +24,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -34,6 +36,10 @@ public class BalanceService {
     private final OrderRepository orderRepository;
     private final DeliveryRepository deliveryRepository;
     private final ExpenseRepository expenseRepository;
+    private final PeriodCloseService periodCloseService;
+    private final LedgerRangeIndex ledgerRangeIndex;
+    private final LedgerColumnStore ledgerColumnStore;
+    private final ExportCacheService exportCacheService;
 
     /**
      * Obtiene el balance actual o lo crea si no existe
@@ -283,7 +289,11 @@ public class BalanceService {
                     .createdAt(LocalDateTime.now())
                     .build();
 
-            return transactionRepository.save(transaction);
+            Transaction saved = transactionRepository.save(transaction);
+            ledgerRangeIndex.recordTransaction(saved, 1);
+            ledgerColumnStore.append(saved);
+            exportCacheService.markChanged(saved.getCreatedAt().toLocalDate());
+            return saved;
         } catch (Exception e) {
             log.warn("No se pudo guardar la transacción en la BD (puede ser normal si las tablas aún no existen): {}", e.getMessage());
             // Retornar transacción en memoria si no se puede guardar
@@ -338,6 +348,12 @@ public class BalanceService {
                     transactionId, transaction.getTransactionType(), transaction.getAmount());
             
             transactionRepository.deleteById(transactionId);
+            ledgerRangeIndex.recordTransaction(transaction, -1);
+            ledgerColumnStore.markDeleted(transactionId);
+            exportCacheService.markChanged(transaction.getCreatedAt().toLocalDate());
+            
+            // Si la transacción pertenecía a un periodo ya cerrado, reabrirlo
+            periodCloseService.reopen(transaction.getCreatedAt().toLocalDate());
             
             // Recalcular el balance después de eliminar la transacción
             recalculateBalanceFromAllTransactions();
@@ -349,6 +365,23 @@ public class BalanceService {
         }
     }
 
+    /**
+     * Recorre las transacciones del rango en bloques de chunkSize (por id), sin cargarlas todas en memoria
+     */
+    public void streamTransactions(LocalDateTime startDate, LocalDateTime endDate, int chunkSize, Consumer<List<Transaction>> consumer) {
+        long afterId = 0;
+        List<Transaction> chunk;
+        do {
+            chunk = transactionRepository.findByCreatedAtBetweenAndIdGreaterThanOrderByIdAsc(
+                    startDate, endDate, afterId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            consumer.accept(chunk);
+        } while (chunk.size() == chunkSize);
+    }
+
     /**
      * Obtiene transacciones por rango de fechas
      */
@@ -566,7 +599,12 @@ public class BalanceService {
                     .createdAt(transactionDate)
                     .build();
             
-            return transactionRepository.save(transaction);
+            Transaction saved = transactionRepository.save(transaction);
+            ledgerRangeIndex.recordTransaction(saved, 1);
+            ledgerColumnStore.append(saved);
+            exportCacheService.markChanged(transactionDate.toLocalDate());
+            periodCloseService.reopen(transactionDate.toLocalDate());
+            return saved;
         } catch (Exception e) {
             log.warn("Error guardando transacción histórica para {} {}: {}", 
                     referenceType, referenceId, e.getMessage());
@@ -598,7 +636,12 @@ public class BalanceService {
                     .createdAt(transactionDate)
                     .build();
             
-            return transactionRepository.save(transaction);
+            Transaction saved = transactionRepository.save(transaction);
+            ledgerRangeIndex.recordTransaction(saved, 1);
+            ledgerColumnStore.append(saved);
+            exportCacheService.markChanged(transactionDate.toLocalDate());
+            periodCloseService.reopen(transactionDate.toLocalDate());
+            return saved;
         } catch (Exception e) {
             log.warn("Error guardando transacción histórica de gasto para {} {}: {}", 
                     referenceType, referenceId, e.getMessage());
@@ -0,0 +1,379 @@
+package com.rds.app_restaurante.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rds.app_restaurante.model.BulkExportDataset;
+import com.rds.app_restaurante.model.BulkExportFormat;
+import com.rds.app_restaurante.model.PaymentStatus;
+import com.rds.app_restaurante.model.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Volcados masivos en CSV o NDJSON para contabilidad y análisis de datos. Las filas se leen con
+ * cursores JDBC de solo avance (streaming real en MySQL) y se escriben directamente en la salida,
+ * así que la memoria no depende del número de registros. Cada volcado ocupa una conexión durante
+ * toda la descarga, por eso se limita la cantidad de volcados simultáneos.
+ */
+@Service
+@Slf4j
+public class BulkExportService {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final List<String> TRANSACTION_COLUMNS = List.of(
+            "id", "created_at", "transaction_type", "amount", "balance_before", "balance_after",
+            "description", "reference_type", "reference_id", "notes");
+    private static final List<String> EXPENSE_COLUMNS = List.of(
+            "id", "expense_date", "description", "category", "amount", "payment_method", "notes");
+    private static final List<String> ORDER_COLUMNS = List.of(
+            "id", "date", "time", "table_number", "user_id", "total_price", "status",
+            "payment_status", "payment_method", "verified_at", "completed_at");
+    private static final List<String> DELIVERY_COLUMNS = List.of(
+            "id", "date", "time", "delivery_address", "delivery_phone", "user_id", "total_price", "status",
+            "payment_status", "payment_method", "verified_at", "completed_at");
+    private static final List<String> ITEM_COLUMNS = List.of("product_id", "product_name", "quantity", "subtotal");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore slots;
+
+    public BulkExportService(DataSource dataSource, ObjectMapper objectMapper,
+                             @Value("${bulk-export.max-concurrent:2}") int maxConcurrent) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserva un cupo de volcado, o null si están todos ocupados; debe cerrarse al terminar
+     */
+    public ExportSlot tryAcquireSlot() {
+        return slots.tryAcquire() ? new ExportSlot() : null;
+    }
+
+    /**
+     * Cupo reservado; cerrarlo más de una vez no libera permisos de más, así que se puede cerrar
+     * tanto al acabar el volcado como al terminar la petición asíncrona por timeout o error
+     */
+    public final class ExportSlot implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportSlot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Valida el filtro de tipo según el conjunto de datos antes de empezar a escribir la respuesta
+     */
+    public void validateType(BulkExportDataset dataset, String type) {
+        if (type == null || type.isBlank()) {
+            return;
+        }
+        try {
+            switch (dataset) {
+                case TRANSACTIONS -> TransactionType.valueOf(type.toUpperCase());
+                case ORDERS, DELIVERIES -> PaymentStatus.valueOf(type.toUpperCase());
+                case EXPENSES -> { }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Tipo no válido para " + dataset + ": " + type);
+        }
+    }
+
+    /**
+     * Escribe el conjunto de datos filtrado en la salida, registro por registro
+     */
+    public void export(BulkExportDataset dataset, BulkExportFormat format, LocalDate startDate, LocalDate endDate,
+                       String type, OutputStream outputStream) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        RecordSink sink = format == BulkExportFormat.CSV ? new CsvSink(writer) : new NdjsonSink(writer, objectMapper);
+        String typeFilter = type == null || type.isBlank() ? null : type;
+
+        long records = switch (dataset) {
+            case TRANSACTIONS -> streamFlat(sink, TRANSACTION_COLUMNS,
+                    "SELECT id, created_at, transaction_type, amount, balance_before, balance_after, description, " +
+                    "reference_type, reference_id, notes FROM transactions",
+                    "created_at", true, "transaction_type", typeFilter == null ? null : typeFilter.toUpperCase(),
+                    startDate, endDate);
+            case EXPENSES -> streamFlat(sink, EXPENSE_COLUMNS,
+                    "SELECT id, expense_date, description, category, amount, payment_method, notes FROM expenses",
+                    "expense_date", false, "category", typeFilter, startDate, endDate);
+            case ORDERS -> streamWithItems(sink, ORDER_COLUMNS,
+                    "SELECT o.id, o.date, o.time, o.table_number, o.user_id, o.total_price, o.status, o.payment_status, " +
+                    "o.payment_method, o.verified_at, o.completed_at, i.product_id, p.name, i.quantity, i.subtotal " +
+                    "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id LEFT JOIN products p ON p.id = i.product_id",
+                    typeFilter == null ? null : typeFilter.toUpperCase(), startDate, endDate);
+            case DELIVERIES -> streamWithItems(sink, DELIVERY_COLUMNS,
+                    "SELECT o.id, o.date, o.time, o.delivery_address, o.delivery_phone, o.user_id, o.total_price, o.status, " +
+                    "o.payment_status, o.payment_method, o.verified_at, o.completed_at, i.product_id, p.name, i.quantity, i.subtotal " +
+                    "FROM deliveries o LEFT JOIN delivery_items i ON i.delivery_id = o.id LEFT JOIN products p ON p.id = i.product_id",
+                    typeFilter == null ? null : typeFilter.toUpperCase(), startDate, endDate);
+        };
+
+        sink.finish();
+        writer.flush();
+        log.info("Volcado {} en {} completado: {} registros en {} ms", dataset, format, records,
+                System.currentTimeMillis() - start);
+    }
+
+    private long streamFlat(RecordSink sink, List<String> columns, String select, String dateColumn, boolean dateTime,
+                            String typeColumn, String type, LocalDate startDate, LocalDate endDate) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(select).append(" WHERE 1 = 1");
+        appendDateFilter(sql, params, dateColumn, dateTime, startDate, endDate);
+        if (type != null) {
+            sql.append(" AND ").append(typeColumn).append(" = ?");
+            params.add(type);
+        }
+        sql.append(" ORDER BY id");
+
+        sink.begin(columns, List.of());
+        long[] count = {0};
+        jdbcTemplate.query(forwardOnly(sql.toString(), params), rs -> {
+            Map<String, Object> record = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                record.put(columns.get(i), readValue(rs, i + 1));
+            }
+            sink.write(record, List.of());
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    // Las filas llegan ordenadas por id del padre: se agrupan los ítems consecutivos del mismo registro
+    private long streamWithItems(RecordSink sink, List<String> columns, String select, String paymentStatus,
+                                 LocalDate startDate, LocalDate endDate) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(select).append(" WHERE 1 = 1");
+        appendDateFilter(sql, params, "o.date", false, startDate, endDate);
+        if (paymentStatus != null) {
+            sql.append(" AND o.payment_status = ?");
+            params.add(paymentStatus);
+        }
+        sql.append(" ORDER BY o.id, i.id");
+
+        sink.begin(columns, ITEM_COLUMNS);
+        AtomicReference<Object> currentId = new AtomicReference<>();
+        AtomicReference<Map<String, Object>> current = new AtomicReference<>();
+        List<Map<String, Object>> items = new ArrayList<>();
+        long[] count = {0};
+
+        jdbcTemplate.query(forwardOnly(sql.toString(), params), rs -> {
+            Object id = rs.getObject(1);
+            if (!id.equals(currentId.get())) {
+                if (current.get() != null) {
+                    sink.write(current.get(), items);
+                    count[0]++;
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    row.put(columns.get(i), readValue(rs, i + 1));
+                }
+                current.set(row);
+                items.clear();
+                currentId.set(id);
+            }
+            if (rs.getObject(columns.size() + 1) != null) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                for (int i = 0; i < ITEM_COLUMNS.size(); i++) {
+                    item.put(ITEM_COLUMNS.get(i), readValue(rs, columns.size() + i + 1));
+                }
+                items.add(item);
+            }
+        });
+        if (current.get() != null) {
+            sink.write(current.get(), items);
+            count[0]++;
+        }
+        return count[0];
+    }
+
+    private void appendDateFilter(StringBuilder sql, List<Object> params, String column, boolean dateTime,
+                                  LocalDate startDate, LocalDate endDate) {
+        if (startDate != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(dateTime ? Timestamp.valueOf(startDate.atStartOfDay()) : java.sql.Date.valueOf(startDate));
+        }
+        if (endDate != null) {
+            if (dateTime) {
+                sql.append(" AND ").append(column).append(" < ?");
+                params.add(Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            } else {
+                sql.append(" AND ").append(column).append(" <= ?");
+                params.add(java.sql.Date.valueOf(endDate));
+            }
+        }
+    }
+
+    /**
+     * Sentencia de solo avance y solo lectura; en MySQL un fetch size de Integer.MIN_VALUE
+     * activa el streaming fila por fila en lugar de cargar todo el resultado en el cliente
+     */
+    private PreparedStatementCreator forwardOnly(String sql, List<Object> params) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            statement.setFetchSize(mysql ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        };
+    }
+
+    private Object readValue(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        }
+        if (value instanceof Time time) {
+            return time.toLocalTime().toString();
+        }
+        return value;
+    }
+
+    private interface RecordSink {
+        void begin(List<String> columns, List<String> itemColumns);
+
+        void write(Map<String, Object> record, List<Map<String, Object>> items);
+
+        void finish();
+    }
+
+    /**
+     * CSV (RFC 4180); los pedidos y domicilios se aplanan a una fila por ítem
+     */
+    private static class CsvSink implements RecordSink {
+        private final Writer writer;
+        private List<String> itemColumns = List.of();
+
+        CsvSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(List<String> columns, List<String> itemColumns) {
+            this.itemColumns = itemColumns;
+            List<String> header = new ArrayList<>(columns);
+            itemColumns.forEach(column -> header.add("item_" + column));
+            writeLine(new ArrayList<>(header));
+        }
+
+        @Override
+        public void write(Map<String, Object> record, List<Map<String, Object>> items) {
+            if (items.isEmpty()) {
+                List<Object> row = new ArrayList<>(record.values());
+                itemColumns.forEach(column -> row.add(null));
+                writeLine(row);
+                return;
+            }
+            for (Map<String, Object> item : items) {
+                List<Object> row = new ArrayList<>(record.values());
+                row.addAll(item.values());
+                writeLine(row);
+            }
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeLine(List<?> values) {
+            try {
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(escape(values.get(i)));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            return text;
+        }
+    }
+
+    /**
+     * NDJSON: un objeto por línea, con los ítems anidados en "items"
+     */
+    private static class NdjsonSink implements RecordSink {
+        private final Writer writer;
+        private final JsonGenerator generator;
+        private boolean withItems;
+
+        NdjsonSink(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // flush() solo vacía el generador en el writer con buffer, no hasta el socket
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void begin(List<String> columns, List<String> itemColumns) {
+            this.withItems = !itemColumns.isEmpty();
+        }
+
+        @Override
+        public void write(Map<String, Object> record, List<Map<String, Object>> items) {
+            try {
+                if (withItems) {
+                    record.put("items", items);
+                }
+                generator.writeObject(record);
+                generator.flush();
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void finish() {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.rds.app_restaurante.service;
+
+/**
+ * Cambio en el catálogo público (categorías, subcategorías, productos o recompensas);
+ * se publica dentro de la transacción y se atiende después del commit
+ */
+public record CatalogChangedEvent(String source) {
+}
@@ -1,19 +1,25 @@
 package com.rds.app_restaurante.service;
 
+import com.rds.app_restaurante.config.SingleFlight;
+import com.rds.app_restaurante.config.CacheRefreshRegistry;
 import com.rds.app_restaurante.dto.CategoryRequest;
 import com.rds.app_restaurante.dto.CategoryResponse;
 import com.rds.app_restaurante.model.Category;
 import com.rds.app_restaurante.repository.CategoryRepository;
 import com.rds.app_restaurante.repository.ProductRepository;
 import com.rds.app_restaurante.repository.SubCategoryRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,13 +30,30 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final SubCategoryRepository subCategoryRepository;
+    private final CacheRefreshRegistry cacheRefreshRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Recarga en segundo plano de la lista cacheada (sin pasar por el proxy de @Cacheable)
+    @PostConstruct
+    void registerCacheRefresh() {
+        cacheRefreshRegistry.register("categories", key -> {
+            List<CategoryResponse> categories = loadAllCategories();
+            return categories.isEmpty() ? null : categories;
+        });
+    }
 
     @Transactional(readOnly = true)
     @Cacheable(value = "categories", unless = "#result.isEmpty()")
+    @SingleFlight
     public List<CategoryResponse> getAllCategories() {
+        return loadAllCategories();
+    }
+
+    private List<CategoryResponse> loadAllCategories() {
         log.debug("Fetching all categories from database");
+        Map<Long, Integer> productCounts = countProductsByCategory();
         return categoryRepository.findAll().stream()
-                .map(this::mapToResponse)
+                .map(category -> mapToResponse(category, productCounts.getOrDefault(category.getId(), 0)))
                 .collect(Collectors.toList());
     }
 
@@ -56,6 +79,7 @@ public class CategoryService {
                 categoryRequest.getDescription()
         );
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CatalogChangedEvent("category"));
         log.info("Category created successfully with ID: {}", savedCategory.getId());
         return mapToResponse(savedCategory);
     }
@@ -78,6 +102,7 @@ public class CategoryService {
         category.setDescription(categoryRequest.getDescription());
 
         Category updatedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CatalogChangedEvent("category"));
         log.info("Category updated successfully with ID: {}", updatedCategory.getId());
         return mapToResponse(updatedCategory);
     }
@@ -90,7 +115,7 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada con id: " + id));
 
         // Verificar si hay productos asociados
-        if (!productRepository.findByCategory(category).isEmpty()) {
+        if (productRepository.existsByCategoryId(id)) {
             log.warn("Cannot delete category {}: has associated products", id);
             throw new RuntimeException("No se puede eliminar la categoría porque tiene productos asociados.");
         }
@@ -101,6 +126,7 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CatalogChangedEvent("category"));
         log.info("Category deleted successfully with ID: {}", id);
     }
 
@@ -116,8 +142,20 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada con id: " + id));
     }
 
+    // Un solo conteo agrupado para todo el listado en lugar de cargar los productos de cada categoría
+    private Map<Long, Integer> countProductsByCategory() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : productRepository.countProductsByCategory()) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
     private CategoryResponse mapToResponse(Category category) {
-        int productCount = productRepository.findByCategory(category).size();
+        return mapToResponse(category, (int) productRepository.countByCategoryId(category.getId()));
+    }
+
+    private CategoryResponse mapToResponse(Category category, int productCount) {
         return CategoryResponse.builder()
                 .id(category.getId())
                 .name(category.getName())
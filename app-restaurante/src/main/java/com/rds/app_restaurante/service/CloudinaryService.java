@@ -1,5 +1,6 @@
 package com.rds.app_restaurante.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +15,7 @@ import java.util.UUID;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
+@Slf4j
 public class CloudinaryService {
     private final Cloudinary cloudinary;
     private final String defaultFolder;
@@ -57,7 +59,7 @@ public class CloudinaryService {
         ));
         this.defaultFolder = defaultFolder;
         
-        System.out.println("Cloudinary configurado correctamente para cloud: " + cloudName);
+        log.info("Cloudinary configurado para cloud: {}", cloudName);
     }
 
     
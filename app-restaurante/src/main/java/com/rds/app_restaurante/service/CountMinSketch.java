@@ -0,0 +1,119 @@
+package com.rds.app_restaurante.service;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Count-Min Sketch con lista de candidatos frecuentes (heavy hitters) para la popularidad
+ * de productos. Ocupa memoria fija (4 x 256 contadores, ~4 KB) sin importar el tráfico;
+ * las estimaciones nunca subestiman y se combinan sumando contadores.
+ */
+class CountMinSketch {
+
+    static final int DEPTH = 4;
+    static final int WIDTH = 256;
+    static final int MAX_CANDIDATES = 64;
+
+    private final int[][] counters = new int[DEPTH][WIDTH];
+    private final Set<Long> candidates = new HashSet<>();
+
+    static CountMinSketch fromBytes(byte[] data, String candidateIds) {
+        CountMinSketch sketch = new CountMinSketch();
+        if (data != null && data.length == DEPTH * WIDTH * 4) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (int row = 0; row < DEPTH; row++) {
+                for (int col = 0; col < WIDTH; col++) {
+                    sketch.counters[row][col] = buffer.getInt();
+                }
+            }
+        }
+        if (candidateIds != null && !candidateIds.isBlank()) {
+            for (String id : candidateIds.split(",")) {
+                sketch.candidates.add(Long.parseLong(id.trim()));
+            }
+        }
+        return sketch;
+    }
+
+    void add(long item, int count) {
+        for (int row = 0; row < DEPTH; row++) {
+            counters[row][bucket(item, row)] += count;
+        }
+        trackCandidate(item);
+    }
+
+    long estimate(long item) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[row][bucket(item, row)]);
+        }
+        return min;
+    }
+
+    void merge(CountMinSketch other) {
+        for (int row = 0; row < DEPTH; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                counters[row][col] += other.counters[row][col];
+            }
+        }
+        for (Long candidate : other.candidates) {
+            trackCandidate(candidate);
+        }
+    }
+
+    /**
+     * Candidatos ordenados por frecuencia estimada (descendente)
+     */
+    List<Map.Entry<Long, Long>> topItems(int limit) {
+        List<Map.Entry<Long, Long>> items = new ArrayList<>();
+        for (Long candidate : candidates) {
+            items.add(Map.entry(candidate, estimate(candidate)));
+        }
+        items.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+        return items.subList(0, Math.max(0, Math.min(limit, items.size())));
+    }
+
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(DEPTH * WIDTH * 4);
+        for (int row = 0; row < DEPTH; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                buffer.putInt(counters[row][col]);
+            }
+        }
+        return buffer.array();
+    }
+
+    String candidatesToString() {
+        StringJoiner joiner = new StringJoiner(",");
+        candidates.forEach(id -> joiner.add(String.valueOf(id)));
+        return joiner.toString();
+    }
+
+    // Mantiene solo los MAX_CANDIDATES elementos con mayor estimación
+    private void trackCandidate(long item) {
+        if (candidates.contains(item)) {
+            return;
+        }
+        if (candidates.size() < MAX_CANDIDATES) {
+            candidates.add(item);
+            return;
+        }
+        Long weakest = null;
+        long weakestEstimate = Long.MAX_VALUE;
+        for (Long candidate : candidates) {
+            long estimate = estimate(candidate);
+            if (estimate < weakestEstimate) {
+                weakest = candidate;
+                weakestEstimate = estimate;
+            }
+        }
+        if (estimate(item) > weakestEstimate) {
+            candidates.remove(weakest);
+            candidates.add(item);
+        }
+    }
+
+    private static int bucket(long item, int row) {
+        return (int) Long.remainderUnsigned(Hashing.mix64(item ^ Hashing.seed(row)), WIDTH);
+    }
+}
@@ -4,11 +4,13 @@ import com.rds.app_restaurante.dto.DeliveryRequest;
 import com.rds.app_restaurante.dto.DeliveryResponse;
 import com.rds.app_restaurante.dto.OrderItemRequest;
 import com.rds.app_restaurante.dto.OrderItemResponse;
+import com.rds.app_restaurante.dto.ProductResponse;
 import com.rds.app_restaurante.model.Delivery;
 import com.rds.app_restaurante.model.DeliveryItem;
 import com.rds.app_restaurante.model.Product;
 import com.rds.app_restaurante.model.User;
 import com.rds.app_restaurante.model.Admin;
+import com.rds.app_restaurante.model.LifecycleStage;
 import com.rds.app_restaurante.model.PaymentStatus;
 import com.rds.app_restaurante.repository.AdminRepository;
 import com.rds.app_restaurante.repository.DeliveryRepository;
@@ -25,7 +27,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,9 +40,16 @@ public class DeliveryService {
     private final DeliveryRepository deliveryRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ProductService productService;
     private final BalanceService balanceService;
     private final EmailService emailService;
     private final AdminRepository adminRepository;
+    private final PeriodCloseService periodCloseService;
+    private final LedgerRangeIndex ledgerRangeIndex;
+    private final ExportCacheService exportCacheService;
+    private final SketchService sketchService;
+    private final LifecycleMetricsService lifecycleMetricsService;
+    private final ReceiptService receiptService;
 
     @Transactional(readOnly = true)
     public List<DeliveryResponse> getAllDeliveries() {
@@ -81,22 +92,19 @@ public class DeliveryService {
             throw new RuntimeException("El teléfono de entrega es obligatorio para pedidos a domicilio");
         }
 
-        // Validar productos y stock
+        // Validar productos y calcular el total con el precio de la caché de productos
         double totalPrice = 0.0;
+        Map<Long, ProductResponse> pricedProducts = new HashMap<>();
         for (OrderItemRequest itemRequest : deliveryRequest.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + itemRequest.getProductId()));
-            
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new RuntimeException(
-                    String.format("Stock insuficiente para el producto '%s'. Stock disponible: %d, solicitado: %d",
-                        product.getName(), product.getStock(), itemRequest.getQuantity())
-                );
-            }
-            
+            ProductResponse product = pricedProducts.computeIfAbsent(itemRequest.getProductId(), productService::getProductById);
             totalPrice += product.getPrice() * itemRequest.getQuantity();
         }
 
+        // Descontar stock en la base de datos (el stock cacheado puede estar desactualizado)
+        for (OrderItemRequest itemRequest : deliveryRequest.getItems()) {
+            reserveStock(pricedProducts.get(itemRequest.getProductId()), itemRequest.getQuantity());
+        }
+
         // Crear el domicilio
         Delivery delivery = new Delivery();
         LocalDate deliveryDate = LocalDate.now();
@@ -117,22 +125,22 @@ public class DeliveryService {
         // Guardar el domicilio primero para tener el ID
         Delivery savedDelivery = deliveryRepository.save(delivery);
 
-        // Crear items del domicilio y actualizar stock
+        // Crear items del domicilio (los productos se cargan en una sola consulta)
+        Map<Long, Product> products = productRepository.findAllById(pricedProducts.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
         for (OrderItemRequest itemRequest : deliveryRequest.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + itemRequest.getProductId()));
-            
-            // Crear el item del domicilio
-            DeliveryItem deliveryItem = new DeliveryItem(savedDelivery, product, itemRequest.getQuantity());
+            ProductResponse pricedProduct = pricedProducts.get(itemRequest.getProductId());
+            DeliveryItem deliveryItem = new DeliveryItem(savedDelivery, products.get(pricedProduct.getId()),
+                    itemRequest.getQuantity(), pricedProduct.getPrice());
             savedDelivery.getItems().add(deliveryItem);
-            
-            // Actualizar stock del producto
-            product.setStock(product.getStock() - itemRequest.getQuantity());
-            productRepository.save(product);
         }
 
         // Guardar el domicilio con los items
         savedDelivery = deliveryRepository.save(savedDelivery);
+        ledgerRangeIndex.recordDelivery(savedDelivery.getDate());
+        exportCacheService.markChanged(savedDelivery.getDate());
+        exportCacheService.markBusinessChanged();
+        sketchService.recordDelivery(savedDelivery);
 
         // Actualizar solo número de pedidos y fecha (NO actualizar totalSpent ni puntos hasta que el pago sea verificado)
         user.setNumberOfOrders(user.getNumberOfOrders() + 1);
@@ -166,7 +174,20 @@ public class DeliveryService {
         
         boolean wasCompleted = delivery.isStatus();
         delivery.setStatus(status);
+        if (status && !wasCompleted) {
+            delivery.setCompletedAt(LocalDateTime.now());
+            lifecycleMetricsService.record(LifecycleMetricsService.DELIVERY, LifecycleStage.PLACED_TO_COMPLETED,
+                    delivery.getDate(), delivery.getTime(), delivery.getCompletedAt());
+        } else if (!status) {
+            delivery.setCompletedAt(null);
+        }
         Delivery updatedDelivery = deliveryRepository.save(delivery);
+        // Los productos más vendidos solo cuentan entregas completadas
+        if (status != wasCompleted) {
+            periodCloseService.reopen(updatedDelivery.getDate());
+            exportCacheService.markChanged(updatedDelivery.getDate());
+            exportCacheService.markBusinessChanged();
+        }
         
         // Si la entrega se completó (cambió de false a true), enviar email de notificación
         // NOTA: El ingreso en balance y actualización de totalSpent se hace cuando se verifica el pago, no cuando se completa
@@ -193,6 +214,19 @@ public class DeliveryService {
         return mapToResponse(updatedDelivery);
     }
 
+    // Descuento atómico: si otro pedido consumió el stock entre tanto la actualización no aplica
+    private void reserveStock(ProductResponse product, int quantity) {
+        if (productRepository.decrementStock(product.getId(), quantity) > 0) {
+            return;
+        }
+        Integer available = productRepository.findStockById(product.getId())
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + product.getId()));
+        throw new RuntimeException(
+            String.format("Stock insuficiente para el producto '%s'. Stock disponible: %d, solicitado: %d",
+                product.getName(), available, quantity)
+        );
+    }
+
     private DeliveryResponse mapToResponse(Delivery delivery) {
         List<OrderItemResponse> items = delivery.getItems() != null ? delivery.getItems().stream()
                 .map(this::mapItemToResponse)
@@ -221,6 +255,7 @@ public class DeliveryService {
             builder.verifiedByAdminName(delivery.getVerifiedBy().getName() + " " + delivery.getVerifiedBy().getLastName());
         }
         builder.verifiedAt(delivery.getVerifiedAt());
+        builder.completedAt(delivery.getCompletedAt());
 
         return builder.build();
     }
@@ -254,9 +289,13 @@ public class DeliveryService {
         delivery.setPaymentStatus(PaymentStatus.VERIFIED);
         delivery.setVerifiedBy(admin);
         delivery.setVerifiedAt(LocalDateTime.now());
+        lifecycleMetricsService.record(LifecycleMetricsService.DELIVERY, LifecycleStage.PLACED_TO_VERIFIED,
+                delivery.getDate(), delivery.getTime(), delivery.getVerifiedAt());
         
         Delivery updatedDelivery = deliveryRepository.save(delivery);
         log.info("Pago verificado para domicilio ID: {} por admin ID: {}", deliveryId, adminId);
+        // El PDF se genera en segundo plano después del commit
+        receiptService.prepareDeliveryReceipt(updatedDelivery.getId());
         
         // Actualizar estadísticas del usuario cuando el pago es verificado
         User user = updatedDelivery.getUser();
@@ -5,6 +5,7 @@ import com.rds.app_restaurante.dto.EmployeeResponse;
 import com.rds.app_restaurante.dto.SalaryUpdateRequest;
 import com.rds.app_restaurante.model.Employee;
 import com.rds.app_restaurante.repository.EmployeeRepository;
+import com.rds.app_restaurante.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -18,11 +19,13 @@ import java.util.stream.Collectors;
 public class EmployeeService {
 
     private final EmployeeRepository employeeRepository;
+    private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
     public Employee createEmployee(EmployeeRequest employeeRequest) {
-        if (employeeRepository.findByEmail(employeeRequest.getEmail()).isPresent()) {
-            throw new RuntimeException("El email ya está registrado como empleado");
+        // El email identifica la cuenta en el login, así que no puede repetirse en otro tipo de cuenta
+        if (userRepository.countAccountsWithEmail(employeeRequest.getEmail()) > 0) {
+            throw new RuntimeException("El email ya está registrado");
         }
 
         Employee employee = new Employee(
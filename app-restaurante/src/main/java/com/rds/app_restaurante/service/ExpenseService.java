@@ -18,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,11 +27,16 @@ public class ExpenseService {
 
     private final ExpenseRepository expenseRepository;
     private final BalanceService balanceService;
+    private final PeriodCloseService periodCloseService;
+    private final ExportCacheService exportCacheService;
 
     // Constructor con BalanceService opcional para evitar problemas si las tablas no existen
-    public ExpenseService(ExpenseRepository expenseRepository, BalanceService balanceService) {
+    public ExpenseService(ExpenseRepository expenseRepository, BalanceService balanceService,
+                          PeriodCloseService periodCloseService, ExportCacheService exportCacheService) {
         this.expenseRepository = expenseRepository;
         this.balanceService = balanceService;
+        this.periodCloseService = periodCloseService;
+        this.exportCacheService = exportCacheService;
     }
 
     @Transactional(readOnly = true)
@@ -93,6 +99,37 @@ public class ExpenseService {
         return new PageImpl<>(expenseResponses, pageable, expenses.getTotalElements());
     }
 
+    /**
+     * Recorre todos los gastos que cumplen los filtros en bloques de chunkSize (fecha descendente),
+     * sin cargar el resultado completo en memoria. Cada bloque se consulta por separado.
+     */
+    public void streamExpenses(ExpenseSearchRequest searchRequest, int chunkSize, Consumer<List<ExpenseResponse>> consumer) {
+        LocalDate lastDate = null;
+        Long lastId = null;
+        List<Expense> chunk;
+        do {
+            chunk = expenseRepository.searchExpensesAfter(
+                    searchRequest.getDescription(),
+                    searchRequest.getCategory(),
+                    searchRequest.getPaymentMethod(),
+                    searchRequest.getStartDate(),
+                    searchRequest.getEndDate(),
+                    searchRequest.getMinAmount(),
+                    searchRequest.getMaxAmount(),
+                    lastDate,
+                    lastId,
+                    PageRequest.of(0, chunkSize)
+            );
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Expense last = chunk.get(chunk.size() - 1);
+            lastDate = last.getExpenseDate();
+            lastId = last.getId();
+            consumer.accept(chunk.stream().map(this::mapToResponse).collect(Collectors.toList()));
+        } while (chunk.size() == chunkSize);
+    }
+
     @Transactional(readOnly = true)
     public List<ExpenseResponse> getExpensesByDateRange(LocalDate startDate, LocalDate endDate) {
         return expenseRepository.findByExpenseDateBetween(startDate, endDate).stream()
@@ -132,6 +169,9 @@ public class ExpenseService {
         }
         
         Expense savedExpense = expenseRepository.save(expense);
+        // Un gasto con fecha pasada cambia los gastos por categoría de un periodo cerrado
+        periodCloseService.reopen(savedExpense.getExpenseDate());
+        exportCacheService.markChanged(savedExpense.getExpenseDate());
         
         // Registrar transacción en el balance (excepto para gastos de sueldo que se registran por separado)
         // Solo intentar registrar si las tablas de balance existen y están disponibles
@@ -159,6 +199,7 @@ public class ExpenseService {
     public ExpenseResponse updateExpense(Long id, ExpenseRequest expenseRequest) {
         Expense expense = expenseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Gasto no encontrado con id: " + id));
+        LocalDate previousDate = expense.getExpenseDate();
 
         expense.setDescription(expenseRequest.getDescription());
         expense.setCategory(expenseRequest.getCategory());
@@ -172,6 +213,10 @@ public class ExpenseService {
         }
 
         Expense updatedExpense = expenseRepository.save(expense);
+        periodCloseService.reopen(previousDate);
+        periodCloseService.reopen(updatedExpense.getExpenseDate());
+        exportCacheService.markChanged(previousDate);
+        exportCacheService.markChanged(updatedExpense.getExpenseDate());
         return mapToResponse(updatedExpense);
     }
 
@@ -179,9 +224,8 @@ public class ExpenseService {
     @CacheEvict(value = "statistics", allEntries = true)
     public void deleteExpense(Long id) {
         // Verificar que el gasto existe
-        if (!expenseRepository.existsById(id)) {
-            throw new RuntimeException("Gasto no encontrado con id: " + id);
-        }
+        Expense existing = expenseRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Gasto no encontrado con id: " + id));
         
         // Eliminar la transacción correspondiente en el balance si existe
         if (balanceService != null) {
@@ -208,6 +252,8 @@ public class ExpenseService {
         
         // Eliminar el gasto
         expenseRepository.deleteById(id);
+        periodCloseService.reopen(existing.getExpenseDate());
+        exportCacheService.markChanged(existing.getExpenseDate());
         log.info("Gasto eliminado exitosamente: ID {}", id);
     }
 
@@ -0,0 +1,287 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.ExportDataVersion;
+import com.rds.app_restaurante.model.ExportJobType;
+import com.rds.app_restaurante.repository.ExportDataVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en disco de reportes ya renderizados (Excel/PDF de estadísticas). La clave es el hash
+ * de (tipo, rango, versión de datos del rango): cada escritura del libro, gastos, pedidos o
+ * domicilios marca su día como modificado, y las de pedidos, domicilios, reservas, clientes o
+ * productos marcan las estadísticas de negocio, así que un reporte cacheado solo se vuelve a
+ * generar cuando cambió algo que contiene. Las versiones se guardan en la base de datos, de
+ * modo que el hash (que sirve también como ETag) es el mismo en todas las instancias y tras
+ * un reinicio.
+ */
+@Service
+@Slf4j
+public class ExportCacheService {
+
+    // Las estadísticas de negocio del reporte cubren los últimos 30 días y el mes actual
+    private static final int BUSINESS_WINDOW_DAYS = 30;
+    // Fila de versión de los totales de negocio (pedidos, reservas, clientes, productos)
+    private static final String BUSINESS_VERSION_ID = "business";
+
+    private final ExportDataVersionRepository versionRepository;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final long ttlMinutes;
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public ExportCacheService(
+            ExportDataVersionRepository versionRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${export-cache.enabled:true}") boolean enabled,
+            @Value("${export-cache.path:data/export-cache}") String path,
+            @Value("${export-cache.max-size-mb:200}") long maxSizeMb,
+            @Value("${export-cache.ttl-minutes:60}") long ttlMinutes) throws IOException {
+        this.versionRepository = versionRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.directory = Paths.get(path);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.ttlMinutes = ttlMinutes;
+        if (enabled) {
+            Files.createDirectories(directory);
+            deleteStaleFiles();
+        }
+    }
+
+    /**
+     * Escritor de un reporte sobre la salida recibida
+     */
+    @FunctionalInterface
+    public interface ReportWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Reporte identificado por su contenido; etag es null si la caché está deshabilitada
+     */
+    public record CachedReport(String hash, String etag, String extension) {
+    }
+
+    /**
+     * Marca un día como modificado (después del commit si hay transacción activa)
+     */
+    public void markChanged(LocalDate date) {
+        if (!enabled || date == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> increment(date.toString(), date));
+    }
+
+    /**
+     * Marca como modificados los totales de negocio del reporte (pedidos, domicilios, reservas,
+     * clientes y productos), que no dependen del rango pedido
+     */
+    public void markBusinessChanged() {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> increment(BUSINESS_VERSION_ID, null));
+    }
+
+    // Los productos más vendidos del reporte muestran el nombre del producto
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (enabled && "product".equals(event.source())) {
+            increment(BUSINESS_VERSION_ID, null);
+        }
+    }
+
+    /**
+     * Identifica el reporte de estadísticas del rango según la versión actual de sus datos
+     */
+    public CachedReport lookup(ExportJobType type, LocalDate startDate, LocalDate endDate) {
+        String extension = type == ExportJobType.STATISTICS_PDF ? ".pdf" : ".xlsx";
+        if (!enabled) {
+            return new CachedReport(null, null, extension);
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate businessStart = today.minusDays(BUSINESS_WINDOW_DAYS);
+        if (today.withDayOfMonth(1).isBefore(businessStart)) {
+            businessStart = today.withDayOfMonth(1);
+        }
+        long businessVersion = versionRepository.findById(BUSINESS_VERSION_ID)
+                .map(ExportDataVersion::getVersion)
+                .orElse(0L);
+        String key = type + "|" + startDate + "|" + endDate + "|" + today
+                + "|" + rangeVersion(startDate, endDate) + "|" + rangeVersion(businessStart, today)
+                + "|" + businessVersion;
+        String hash = sha256(key);
+        return new CachedReport(hash, "\"" + hash + "\"", extension);
+    }
+
+    /**
+     * Escribe el reporte en la salida: desde el archivo cacheado si existe, si no lo genera,
+     * lo guarda en la caché y luego lo copia
+     */
+    public void serve(CachedReport report, ReportWriter writer, OutputStream outputStream) throws IOException {
+        if (report.hash() == null) {
+            writer.write(outputStream);
+            return;
+        }
+        if (copyCached(report, outputStream)) {
+            return;
+        }
+
+        Path target = directory.resolve(report.hash() + report.extension());
+        Path temp = directory.resolve(report.hash() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                writer.write(fileOut);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        long size = Files.size(target);
+        CacheEntry previous = entries.put(report.hash(), new CacheEntry(target, size));
+        totalBytes.addAndGet(size - (previous != null ? previous.size : 0));
+        log.debug("Reporte {} agregado a la caché de exportaciones ({} bytes)", report.hash(), size);
+        try {
+            Files.copy(target, outputStream);
+        } finally {
+            evictIfNeeded();
+        }
+    }
+
+    private boolean copyCached(CachedReport report, OutputStream outputStream) throws IOException {
+        CacheEntry entry = entries.get(report.hash());
+        if (entry == null) {
+            return false;
+        }
+        if (entry.createdAt.isBefore(LocalDateTime.now().minusMinutes(ttlMinutes))) {
+            remove(report.hash(), entry);
+            return false;
+        }
+        try {
+            Files.copy(entry.file, outputStream);
+            entry.lastAccess = System.nanoTime();
+            return true;
+        } catch (NoSuchFileException e) {
+            // Liberado por la política de tamaño mientras tanto: se vuelve a generar
+            remove(report.hash(), entry);
+            return false;
+        }
+    }
+
+    // Libera los reportes menos usados hasta quedar dentro del tamaño máximo
+    private void evictIfNeeded() {
+        if (totalBytes.get() <= maxSizeBytes) {
+            return;
+        }
+        List<Map.Entry<String, CacheEntry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess));
+        for (Map.Entry<String, CacheEntry> candidate : candidates) {
+            if (totalBytes.get() <= maxSizeBytes) {
+                break;
+            }
+            remove(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private void remove(String hash, CacheEntry entry) {
+        if (entries.remove(hash, entry)) {
+            totalBytes.addAndGet(-entry.size);
+            try {
+                Files.deleteIfExists(entry.file);
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar el reporte cacheado {}: {}", entry.file, e.getMessage());
+            }
+        }
+    }
+
+    private long rangeVersion(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return 0;
+        }
+        return versionRepository.sumVersions(startDate, endDate);
+    }
+
+    // Se incrementa después del commit de los datos: un reporte generado entre ambos queda con
+    // la versión anterior y se vuelve a generar, nunca se guarda un reporte viejo con la nueva
+    private void increment(String id, LocalDate date) {
+        try {
+            try {
+                transaction.executeWithoutResult(status -> incrementOrCreate(id, date));
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia creó la fila a la vez: ahora existe y se puede incrementar
+                transaction.executeWithoutResult(status -> versionRepository.increment(id));
+            }
+        } catch (Exception e) {
+            // El reporte afectado se regenera como muy tarde al vencer su TTL
+            log.warn("No se pudo actualizar la versión de exportación {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void incrementOrCreate(String id, LocalDate date) {
+        if (versionRepository.increment(id) == 0) {
+            versionRepository.saveAndFlush(ExportDataVersion.builder()
+                    .id(id)
+                    .versionDate(date)
+                    .version(1L)
+                    .build());
+        }
+    }
+
+    // El índice de archivos vive en memoria: los reportes de una ejecución anterior no se reutilizan
+    private void deleteStaleFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".xlsx") || name.endsWith(".pdf") || name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CacheEntry {
+        private final Path file;
+        private final long size;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile long lastAccess = System.nanoTime();
+
+        CacheEntry(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
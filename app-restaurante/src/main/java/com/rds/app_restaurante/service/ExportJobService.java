@@ -0,0 +1,311 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.dto.ExpenseSearchRequest;
+import com.rds.app_restaurante.dto.ExportJobRequest;
+import com.rds.app_restaurante.dto.ExportJobResponse;
+import com.rds.app_restaurante.model.ExportJobStatus;
+import com.rds.app_restaurante.model.ExportJobType;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Exportaciones en segundo plano: cada solicitud crea un trabajo que se ejecuta en un pool
+ * acotado de workers (para no competir con la API de pedidos), escribe el resultado en el
+ * almacenamiento local y queda disponible para descarga hasta que vence la retención.
+ * Las solicitudes idénticas mientras el trabajo sigue pendiente reutilizan el mismo trabajo.
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+    private final ExportService exportService;
+    private final Path directory;
+    private final long retentionHours;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    // Clave de deduplicación -> id del trabajo pendiente o en ejecución
+    private final Map<String, String> activeJobsByKey = new ConcurrentHashMap<>();
+
+    public ExportJobService(
+            ExportService exportService,
+            @Value("${export-jobs.path:data/exports}") String path,
+            @Value("${export-jobs.workers:2}") int workers,
+            @Value("${export-jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${export-jobs.retention-hours:24}") long retentionHours) throws IOException {
+        this.exportService = exportService;
+        this.directory = Paths.get(path);
+        this.retentionHours = retentionHours;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        Files.createDirectories(directory);
+        deleteOrphanFiles();
+    }
+
+    /**
+     * Encola una exportación o devuelve el trabajo pendiente idéntico si ya existe
+     */
+    public ExportJobResponse submit(ExportJobRequest request) {
+        ExportJobRequest normalized = normalize(request);
+        String key = deduplicationKey(normalized);
+
+        synchronized (activeJobsByKey) {
+            String existingId = activeJobsByKey.get(key);
+            if (existingId != null && jobs.containsKey(existingId)) {
+                log.info("Exportación {} reutilizada para una solicitud idéntica", existingId);
+                return mapToResponse(jobs.get(existingId));
+            }
+
+            ExportJob job = new ExportJob(UUID.randomUUID().toString(), key, normalized);
+            jobs.put(job.getId(), job);
+            activeJobsByKey.put(key, job.getId());
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getId());
+                activeJobsByKey.remove(key);
+                throw new RuntimeException("Hay demasiadas exportaciones en cola, intente más tarde");
+            }
+            log.info("Exportación {} encolada: {}", job.getId(), normalized.getType());
+            return mapToResponse(job);
+        }
+    }
+
+    public ExportJobResponse getJob(String jobId) {
+        return mapToResponse(findJob(jobId));
+    }
+
+    public List<ExportJobResponse> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ExportJob::getCreatedAt).reversed())
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Archivo de un trabajo completado
+     */
+    public File getResultFile(String jobId) {
+        ExportJob job = findJob(jobId);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new RuntimeException("La exportación aún no está lista. Estado actual: " + job.getStatus());
+        }
+        File file = directory.resolve(job.getFileName()).toFile();
+        if (!file.exists()) {
+            throw new RuntimeException("El archivo de la exportación ya no está disponible");
+        }
+        return file;
+    }
+
+    public String getDownloadName(String jobId) {
+        ExportJob job = findJob(jobId);
+        ExportJobRequest request = job.getRequest();
+        String prefix = switch (request.getType()) {
+            case EXPENSES_EXCEL -> "gastos_" + LocalDate.now();
+            case STATISTICS_EXCEL, STATISTICS_PDF -> "estadisticas_financieras_" + request.getStartDate() + "_" + request.getEndDate();
+            case TRANSACTIONS_EXCEL -> "transacciones_" + request.getStartDate() + "_" + request.getEndDate();
+        };
+        return prefix + extension(request.getType());
+    }
+
+    // Limpieza cada hora de los trabajos y archivos vencidos
+    @Scheduled(cron = "0 20 * * * ?")
+    public void cleanupExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(retentionHours);
+        int removed = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold)) {
+                jobs.remove(job.getId());
+                deleteFile(job.getFileName());
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("Se eliminaron {} exportaciones vencidas", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ExportJob job) {
+        job.setStatus(ExportJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        Path target = directory.resolve(job.getFileName());
+        try (OutputStream out = new CountingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(target)), job.bytesWritten)) {
+            ExportJobRequest request = job.getRequest();
+            switch (request.getType()) {
+                case EXPENSES_EXCEL -> exportService.writeExpensesToExcel(request.getExpenseFilters(), out);
+                case STATISTICS_EXCEL -> exportService.writeFinancialStatsToExcel(request.getStartDate(), request.getEndDate(), out);
+                case STATISTICS_PDF -> exportService.writeFinancialStatsToPdf(request.getStartDate(), request.getEndDate(), out);
+                case TRANSACTIONS_EXCEL -> exportService.writeTransactionsToExcel(request.getStartDate(), request.getEndDate(), out);
+            }
+            out.flush();
+            job.setStatus(ExportJobStatus.COMPLETED);
+            log.info("Exportación {} completada ({} bytes)", job.getId(), job.bytesWritten.get());
+        } catch (Exception e) {
+            job.setStatus(ExportJobStatus.FAILED);
+            job.setErrorMessage(e.getMessage());
+            deleteFile(job.getFileName());
+            log.error("Error en la exportación {}: {}", job.getId(), e.getMessage(), e);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            activeJobsByKey.remove(job.getKey(), job.getId());
+        }
+    }
+
+    private ExportJob findJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Exportación no encontrada con id: " + jobId);
+        }
+        return job;
+    }
+
+    // Fechas por defecto (último mes) y filtros sin paginación, para que la clave sea estable
+    private ExportJobRequest normalize(ExportJobRequest request) {
+        LocalDate endDate = request.getEndDate() != null ? request.getEndDate() : LocalDate.now();
+        LocalDate startDate = request.getStartDate() != null ? request.getStartDate() : endDate.minusMonths(1);
+        ExpenseSearchRequest filters = null;
+        if (request.getType() == ExportJobType.EXPENSES_EXCEL) {
+            filters = request.getExpenseFilters() != null ? request.getExpenseFilters() : new ExpenseSearchRequest();
+            filters.setPage(null);
+            filters.setSize(null);
+        }
+        return ExportJobRequest.builder()
+                .type(request.getType())
+                .startDate(startDate)
+                .endDate(endDate)
+                .expenseFilters(filters)
+                .build();
+    }
+
+    private String deduplicationKey(ExportJobRequest request) {
+        if (request.getType() == ExportJobType.EXPENSES_EXCEL) {
+            return request.getType() + "|" + request.getExpenseFilters();
+        }
+        return request.getType() + "|" + request.getStartDate() + "|" + request.getEndDate();
+    }
+
+    private static String extension(ExportJobType type) {
+        return type == ExportJobType.STATISTICS_PDF ? ".pdf" : ".xlsx";
+    }
+
+    private void deleteFile(String fileName) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el archivo de exportación {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    // Los trabajos viven en memoria: los archivos de una ejecución anterior ya no se pueden descargar
+    private void deleteOrphanFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".xlsx") || name.endsWith(".pdf"))
+                    .forEach(this::deleteFile);
+        }
+    }
+
+    private ExportJobResponse mapToResponse(ExportJob job) {
+        return ExportJobResponse.builder()
+                .id(job.getId())
+                .type(job.getRequest().getType())
+                .status(job.getStatus())
+                .bytesWritten(job.bytesWritten.get())
+                .fileName(job.getStatus() == ExportJobStatus.COMPLETED ? getDownloadName(job.getId()) : null)
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    @Getter
+    private static class ExportJob {
+        private final String id;
+        private final String key;
+        private final ExportJobRequest request;
+        private final String fileName;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private volatile ExportJobStatus status = ExportJobStatus.PENDING;
+        private volatile String errorMessage;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        ExportJob(String id, String key, ExportJobRequest request) {
+            this.id = id;
+            this.key = key;
+            this.request = request;
+            this.fileName = id + extension(request.getType());
+        }
+
+        void setStatus(ExportJobStatus status) {
+            this.status = status;
+        }
+
+        void setErrorMessage(String errorMessage) {
+            this.errorMessage = errorMessage;
+        }
+
+        void setStartedAt(LocalDateTime startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        void setFinishedAt(LocalDateTime finishedAt) {
+            this.finishedAt = finishedAt;
+        }
+    }
+
+    /**
+     * Cuenta los bytes escritos para informar el progreso del trabajo
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong counter;
+
+        CountingOutputStream(OutputStream out, AtomicLong counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.addAndGet(len);
+        }
+    }
+}
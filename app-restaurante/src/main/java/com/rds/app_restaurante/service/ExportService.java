@@ -1,19 +1,16 @@
 package com.rds.app_restaurante.service;
 
 import com.rds.app_restaurante.dto.*;
+import com.rds.app_restaurante.model.Transaction;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -26,139 +23,188 @@ public class ExportService {
 
     private final StatisticsService statisticsService;
     private final ExpenseService expenseService;
+    private final BalanceService balanceService;
 
-    public byte[] exportExpensesToExcel(ExpenseSearchRequest searchRequest) throws IOException {
+    // Filas que SXSSF mantiene en memoria; las anteriores se vuelcan a un archivo temporal
+    private static final int ROW_ACCESS_WINDOW = 100;
+    // Gastos leídos de la BD por consulta
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
+    /**
+     * Escribe los gastos filtrados como Excel directamente en la salida, sin límite de filas.
+     * Los gastos se leen por bloques y el libro se genera en streaming, con memoria constante.
+     */
+    public void writeExpensesToExcel(ExpenseSearchRequest searchRequest, OutputStream outputStream) throws IOException {
         log.info("Exporting expenses to Excel with filters: {}", searchRequest);
         
-        // Obtener gastos con paginación grande para exportar todos
-        searchRequest.setPage(0);
-        searchRequest.setSize(10000); // Máximo 10,000 registros
-        var expensesPage = expenseService.searchExpenses(searchRequest);
-        List<ExpenseResponse> expenses = expensesPage.getContent();
-        
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Gastos");
-        
-        // Estilos
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerFont.setFontHeightInPoints((short) 12);
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        headerStyle.setBorderBottom(BorderStyle.THIN);
-        headerStyle.setBorderTop(BorderStyle.THIN);
-        headerStyle.setBorderLeft(BorderStyle.THIN);
-        headerStyle.setBorderRight(BorderStyle.THIN);
-        
-        CellStyle currencyStyle = workbook.createCellStyle();
-        DataFormat format = workbook.createDataFormat();
-        currencyStyle.setDataFormat(format.getFormat("$#,##0.00"));
-        
-        CellStyle dateStyle = workbook.createCellStyle();
-        DataFormat dateFormat = workbook.createDataFormat();
-        dateStyle.setDataFormat(dateFormat.getFormat("dd/mm/yyyy"));
-        
-        // Encabezados
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {"ID", "Fecha", "Descripción", "Categoría", "Monto", "Método de Pago", "Notas"};
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-        
-        // Datos
-        int rowNum = 1;
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        
-        for (ExpenseResponse expense : expenses) {
-            Row row = sheet.createRow(rowNum++);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Gastos");
             
-            row.createCell(0).setCellValue(expense.getId());
+            // Estilos
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle currencyStyle = createCurrencyStyle(workbook);
+            CellStyle dateStyle = createDateStyle(workbook);
             
-            Cell dateCell = row.createCell(1);
-            dateCell.setCellValue(expense.getExpenseDate().format(dateFormatter));
-            dateCell.setCellStyle(dateStyle);
+            // Encabezados (anchos fijos: autoSizeColumn exigiría recorrer todas las filas)
+            Row headerRow = sheet.createRow(0);
+            String[] headers = {"ID", "Fecha", "Descripción", "Categoría", "Monto", "Método de Pago", "Notas"};
+            int[] widths = {8, 12, 40, 20, 15, 18, 40};
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, widths[i] * 256);
+            }
             
-            row.createCell(2).setCellValue(expense.getDescription());
-            row.createCell(3).setCellValue(expense.getCategory());
+            // Datos
+            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            int[] rowNum = {1};
+            BigDecimal[] totalAmount = {BigDecimal.ZERO};
             
-            Cell amountCell = row.createCell(4);
-            amountCell.setCellValue(expense.getAmount().doubleValue());
-            amountCell.setCellStyle(currencyStyle);
+            expenseService.streamExpenses(searchRequest, EXPORT_CHUNK_SIZE, chunk -> {
+                for (ExpenseResponse expense : chunk) {
+                    Row row = sheet.createRow(rowNum[0]++);
+                    
+                    row.createCell(0).setCellValue(expense.getId());
+                    
+                    Cell dateCell = row.createCell(1);
+                    dateCell.setCellValue(expense.getExpenseDate().format(dateFormatter));
+                    dateCell.setCellStyle(dateStyle);
+                    
+                    row.createCell(2).setCellValue(expense.getDescription());
+                    row.createCell(3).setCellValue(expense.getCategory());
+                    
+                    Cell amountCell = row.createCell(4);
+                    amountCell.setCellValue(expense.getAmount().doubleValue());
+                    amountCell.setCellStyle(currencyStyle);
+                    
+                    row.createCell(5).setCellValue(expense.getPaymentMethod());
+                    row.createCell(6).setCellValue(expense.getNotes() != null ? expense.getNotes() : "");
+                    
+                    totalAmount[0] = totalAmount[0].add(expense.getAmount());
+                }
+            });
             
-            row.createCell(5).setCellValue(expense.getPaymentMethod());
-            row.createCell(6).setCellValue(expense.getNotes() != null ? expense.getNotes() : "");
+            // Fila de totales
+            Row totalRow = sheet.createRow(rowNum[0]);
+            Cell totalLabelCell = totalRow.createCell(3);
+            totalLabelCell.setCellValue("TOTAL:");
+            totalLabelCell.setCellStyle(headerStyle);
             
-            totalAmount = totalAmount.add(expense.getAmount());
-        }
-        
-        // Fila de totales
-        Row totalRow = sheet.createRow(rowNum);
-        Cell totalLabelCell = totalRow.createCell(3);
-        totalLabelCell.setCellValue("TOTAL:");
-        totalLabelCell.setCellStyle(headerStyle);
-        
-        Cell totalAmountCell = totalRow.createCell(4);
-        totalAmountCell.setCellValue(totalAmount.doubleValue());
-        totalAmountCell.setCellStyle(currencyStyle);
-        totalAmountCell.setCellStyle(headerStyle);
-        
-        // Auto-ajustar columnas
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+            Cell totalAmountCell = totalRow.createCell(4);
+            totalAmountCell.setCellValue(totalAmount[0].doubleValue());
+            totalAmountCell.setCellStyle(headerStyle);
+            
+            workbook.write(outputStream);
+            log.info("Exported {} expenses to Excel. Total: {}", rowNum[0] - 1, totalAmount[0]);
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        byte[] data = outputStream.toByteArray();
-        outputStream.close();
-        workbook.close();
-        
-        log.info("Exported {} expenses to Excel. Total: {}", expenses.size(), totalAmount);
-        return data;
     }
 
-    public byte[] exportFinancialStatsToExcel(LocalDate startDate, LocalDate endDate) throws IOException {
+    /**
+     * Escribe las estadísticas financieras como Excel directamente en la salida
+     */
+    public void writeFinancialStatsToExcel(LocalDate startDate, LocalDate endDate, OutputStream outputStream) throws IOException {
         log.info("Exporting financial statistics to Excel from {} to {}", startDate, endDate);
         
         FinancialStatsResponse stats = statisticsService.getFinancialStats(startDate, endDate);
         BusinessStatsResponse businessStats = statisticsService.getBusinessStats();
         
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
         
         try {
             // Hoja 1: Resumen Financiero
-            Sheet summarySheet = workbook.createSheet("Resumen Financiero");
+            Sheet summarySheet = createTrackedSheet(workbook, "Resumen Financiero");
             createFinancialSummarySheet(summarySheet, stats, workbook);
             
             // Hoja 2: Gastos por Categoría
-            Sheet categorySheet = workbook.createSheet("Gastos por Categoría");
+            Sheet categorySheet = createTrackedSheet(workbook, "Gastos por Categoría");
             createCategoryExpensesSheet(categorySheet, stats, workbook);
             
             // Hoja 3: Evolución Diaria
-            Sheet dailySheet = workbook.createSheet("Evolución Diaria");
+            Sheet dailySheet = createTrackedSheet(workbook, "Evolución Diaria");
             createDailyStatsSheet(dailySheet, stats, workbook);
             
             // Hoja 4: Estadísticas de Negocio
-            Sheet businessSheet = workbook.createSheet("Estadísticas de Negocio");
+            Sheet businessSheet = createTrackedSheet(workbook, "Estadísticas de Negocio");
             createBusinessStatsSheet(businessSheet, businessStats, workbook);
             
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             workbook.write(outputStream);
-            byte[] data = outputStream.toByteArray();
-            outputStream.close();
-            
             log.info("Financial statistics exported to Excel");
-            return data;
         } finally {
+            workbook.dispose();
             workbook.close();
         }
     }
 
+    /**
+     * Escribe las transacciones del balance del rango como Excel directamente en la salida
+     */
+    public void writeTransactionsToExcel(LocalDate startDate, LocalDate endDate, OutputStream outputStream) throws IOException {
+        log.info("Exporting transactions to Excel from {} to {}", startDate, endDate);
+        
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Transacciones");
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle currencyStyle = createCurrencyStyle(workbook);
+            
+            Row headerRow = sheet.createRow(0);
+            String[] headers = {"ID", "Fecha", "Tipo", "Descripción", "Referencia", "Monto", "Balance Anterior", "Balance Posterior"};
+            int[] widths = {8, 18, 16, 45, 20, 15, 18, 18};
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, widths[i] * 256);
+            }
+            
+            DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+            int[] rowNum = {1};
+            
+            balanceService.streamTransactions(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay().minusNanos(1),
+                    EXPORT_CHUNK_SIZE, chunk -> {
+                for (Transaction transaction : chunk) {
+                    Row row = sheet.createRow(rowNum[0]++);
+                    row.createCell(0).setCellValue(transaction.getId());
+                    row.createCell(1).setCellValue(transaction.getCreatedAt().format(dateTimeFormatter));
+                    row.createCell(2).setCellValue(transaction.getTransactionType().name());
+                    row.createCell(3).setCellValue(transaction.getDescription() != null ? transaction.getDescription() : "");
+                    row.createCell(4).setCellValue(transaction.getReferenceType() != null
+                            ? transaction.getReferenceType() + " #" + transaction.getReferenceId() : "");
+                    setCurrencyCell(row, 5, transaction.getAmount(), currencyStyle);
+                    setCurrencyCell(row, 6, transaction.getBalanceBefore(), currencyStyle);
+                    setCurrencyCell(row, 7, transaction.getBalanceAfter(), currencyStyle);
+                }
+            });
+            
+            workbook.write(outputStream);
+            log.info("Exported {} transactions to Excel", rowNum[0] - 1);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void setCurrencyCell(Row row, int column, BigDecimal value, CellStyle currencyStyle) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value != null ? value.doubleValue() : 0);
+        cell.setCellStyle(currencyStyle);
+    }
+
+    // En SXSSF el auto-ajuste solo mide las filas registradas mientras siguen en la ventana
+    private Sheet createTrackedSheet(SXSSFWorkbook workbook, String name) {
+        SXSSFSheet sheet = workbook.createSheet(name);
+        sheet.trackAllColumnsForAutoSizing();
+        return sheet;
+    }
+
     private void createFinancialSummarySheet(Sheet sheet, FinancialStatsResponse stats, Workbook workbook) {
         CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle currencyStyle = createCurrencyStyle(workbook);
@@ -356,178 +402,88 @@ public class ExportService {
         }
     }
 
-    public byte[] exportFinancialStatsToPdf(LocalDate startDate, LocalDate endDate) throws IOException {
+    /**
+     * Escribe el reporte financiero en PDF directamente en la salida, incluyendo la evolución
+     * diaria completa del rango (la tabla se pagina automáticamente)
+     */
+    public void writeFinancialStatsToPdf(LocalDate startDate, LocalDate endDate, OutputStream outputStream) throws IOException {
         log.info("Exporting financial statistics to PDF from {} to {}", startDate, endDate);
         
         FinancialStatsResponse stats = statisticsService.getFinancialStats(startDate, endDate);
         BusinessStatsResponse businessStats = statisticsService.getBusinessStats();
         
-        PDDocument document = new PDDocument();
-        PDPage page = new PDPage(PDRectangle.A4);
-        document.addPage(page);
-        
-        PDPageContentStream contentStream = new PDPageContentStream(document, page);
-        
-        try {
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
-            float margin = 50;
-            float yPosition = pageHeight - margin;
-            
-            // Fuentes
-            PDType1Font titleFont = PDType1Font.HELVETICA_BOLD;
-            PDType1Font headingFont = PDType1Font.HELVETICA_BOLD;
-            PDType1Font normalFont = PDType1Font.HELVETICA;
-            
-            // Título
-            String title = "REPORTE FINANCIERO";
-            float titleWidth = titleFont.getStringWidth(title) / 1000 * 20;
-            contentStream.beginText();
-            contentStream.setFont(titleFont, 20);
-            contentStream.newLineAtOffset((pageWidth - titleWidth) / 2, yPosition);
-            contentStream.showText(title);
-            contentStream.endText();
-            yPosition -= 40;
-            
-            // Período
+        try (PdfReportWriter report = new PdfReportWriter()) {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            String period = String.format("Período: %s - %s", startDate.format(formatter), endDate.format(formatter));
-            float periodWidth = normalFont.getStringWidth(period) / 1000 * 12;
-            contentStream.beginText();
-            contentStream.setFont(normalFont, 12);
-            contentStream.newLineAtOffset((pageWidth - periodWidth) / 2, yPosition);
-            contentStream.showText(period);
-            contentStream.endText();
-            yPosition -= 40;
+            report.title("REPORTE FINANCIERO");
+            report.subtitle(String.format("Período: %s - %s", startDate.format(formatter), endDate.format(formatter)));
             
             // Resumen Financiero
-            yPosition = addSectionTitle(contentStream, "RESUMEN FINANCIERO", headingFont, margin, yPosition);
-            yPosition -= 15;
-            
-            // Ingresos
-            yPosition = addTableRow(contentStream, "Ingresos Totales", formatCurrency(stats.getTotalRevenue()), 
-                    headingFont, normalFont, margin, yPosition, true);
-            yPosition = addTableRow(contentStream, "  - Pedidos Mesa", formatCurrency(stats.getOrdersRevenue()), 
-                    normalFont, normalFont, margin, yPosition, false);
-            yPosition = addTableRow(contentStream, "  - Domicilios", formatCurrency(stats.getDeliveriesRevenue()), 
-                    normalFont, normalFont, margin, yPosition, false);
-            yPosition -= 10;
-            
-            // Gastos
-            yPosition = addTableRow(contentStream, "Gastos Totales", formatCurrency(stats.getTotalExpenses()), 
-                    headingFont, normalFont, margin, yPosition, true);
-            yPosition -= 10;
-            
-            // Ganancia
-            yPosition = addTableRow(contentStream, "Ganancia Neta", formatCurrency(stats.getNetProfit()), 
-                    headingFont, normalFont, margin, yPosition, true);
+            report.section("RESUMEN FINANCIERO", 140);
+            report.keyValue("Ingresos Totales", formatCurrency(stats.getTotalRevenue()), true);
+            report.keyValue("  - Pedidos Mesa", formatCurrency(stats.getOrdersRevenue()), false);
+            report.keyValue("  - Domicilios", formatCurrency(stats.getDeliveriesRevenue()), false);
+            report.spacer(10);
+            report.keyValue("Gastos Totales", formatCurrency(stats.getTotalExpenses()), true);
+            report.spacer(10);
+            report.keyValue("Ganancia Neta", formatCurrency(stats.getNetProfit()), true);
             
             // Margen de ganancia
             double profitMargin = 0;
             if (stats.getTotalRevenue().doubleValue() > 0) {
                 profitMargin = ((stats.getNetProfit().doubleValue() / stats.getTotalRevenue().doubleValue()) * 100);
             }
-            yPosition = addTableRow(contentStream, "Margen de Ganancia (%)", String.format("%.2f%%", profitMargin), 
-                    headingFont, normalFont, margin, yPosition, true);
-            yPosition -= 20;
+            report.keyValue("Margen de Ganancia (%)", String.format("%.2f%%", profitMargin), true);
+            report.spacer(20);
             
             // Gastos por Categoría
-            if (!stats.getExpensesByCategory().isEmpty() && yPosition > margin + 100) {
-                yPosition = addSectionTitle(contentStream, "GASTOS POR CATEGORÍA", headingFont, margin, yPosition);
-                yPosition -= 15;
-                
-                // Encabezados
-                contentStream.setLineWidth(1f);
-                contentStream.moveTo(margin, yPosition);
-                contentStream.lineTo(pageWidth - margin, yPosition);
-                contentStream.stroke();
-                yPosition -= 20;
-                
-                yPosition = addTableRow(contentStream, "Categoría", "Monto Total", 
-                        headingFont, headingFont, margin, yPosition, true);
-                yPosition -= 5;
-                
+            if (!stats.getExpensesByCategory().isEmpty()) {
+                report.section("GASTOS POR CATEGORÍA", 60);
+                PdfReportWriter.Table categories = report.table(
+                        PdfReportWriter.Column.left("Categoría", 3),
+                        PdfReportWriter.Column.right("Monto Total", 1));
                 for (CategoryExpenseResponse category : stats.getExpensesByCategory()) {
-                    if (yPosition < margin + 50) {
-                        contentStream.close();
-                        page = new PDPage(PDRectangle.A4);
-                        document.addPage(page);
-                        contentStream = new PDPageContentStream(document, page);
-                        yPosition = pageHeight - margin;
-                    }
-                    yPosition = addTableRow(contentStream, category.getCategory(), formatCurrency(category.getTotalAmount()), 
-                            normalFont, normalFont, margin, yPosition, false);
+                    categories.row(category.getCategory(), formatCurrency(category.getTotalAmount()));
                 }
-                yPosition -= 20;
+                categories.end();
             }
             
             // Estadísticas del Negocio
-            if (yPosition < margin + 150) {
-                contentStream.close();
-                page = new PDPage(PDRectangle.A4);
-                document.addPage(page);
-                contentStream = new PDPageContentStream(document, page);
-                yPosition = pageHeight - margin;
-            }
+            report.section("ESTADÍSTICAS DEL NEGOCIO", 100);
+            report.keyValue("Total Pedidos", String.valueOf(businessStats.getTotalOrders()), false);
+            report.keyValue("Total Domicilios", String.valueOf(businessStats.getTotalDeliveries()), false);
+            report.keyValue("Total Reservas", String.valueOf(businessStats.getTotalReservations()), false);
+            report.keyValue("Total Clientes", String.valueOf(businessStats.getTotalCustomers()), false);
+            report.keyValue("Total Productos", String.valueOf(businessStats.getTotalProducts()), false);
+            report.spacer(20);
             
-            yPosition = addSectionTitle(contentStream, "ESTADÍSTICAS DEL NEGOCIO", headingFont, margin, yPosition);
-            yPosition -= 15;
-            
-            yPosition = addTableRow(contentStream, "Total Pedidos", String.valueOf(businessStats.getTotalOrders()), 
-                    normalFont, normalFont, margin, yPosition, false);
-            yPosition = addTableRow(contentStream, "Total Domicilios", String.valueOf(businessStats.getTotalDeliveries()), 
-                    normalFont, normalFont, margin, yPosition, false);
-            yPosition = addTableRow(contentStream, "Total Reservas", String.valueOf(businessStats.getTotalReservations()), 
-                    normalFont, normalFont, margin, yPosition, false);
-            yPosition = addTableRow(contentStream, "Total Clientes", String.valueOf(businessStats.getTotalCustomers()), 
-                    normalFont, normalFont, margin, yPosition, false);
-            yPosition = addTableRow(contentStream, "Total Productos", String.valueOf(businessStats.getTotalProducts()), 
-                    normalFont, normalFont, margin, yPosition, false);
+            // Evolución Diaria (cientos de filas para un año: se pagina con encabezado repetido)
+            if (stats.getDailyStats() != null && !stats.getDailyStats().isEmpty()) {
+                report.section("EVOLUCIÓN DIARIA", 60);
+                PdfReportWriter.Table daily = report.table(
+                        PdfReportWriter.Column.left("Fecha", 1.2f),
+                        PdfReportWriter.Column.right("Ingresos", 1.5f),
+                        PdfReportWriter.Column.right("Gastos", 1.5f),
+                        PdfReportWriter.Column.right("Ganancia", 1.5f),
+                        PdfReportWriter.Column.right("Pedidos", 0.9f),
+                        PdfReportWriter.Column.right("Domicilios", 0.9f));
+                for (DailyStatsResponse day : stats.getDailyStats()) {
+                    daily.row(day.getDate().format(formatter),
+                            formatCurrency(day.getRevenue()),
+                            formatCurrency(day.getExpenses()),
+                            formatCurrency(day.getProfit()),
+                            String.valueOf(day.getOrdersCount()),
+                            String.valueOf(day.getDeliveriesCount()));
+                }
+                daily.boldRow("TOTAL",
+                        formatCurrency(stats.getTotalRevenue()),
+                        formatCurrency(stats.getTotalExpenses()),
+                        formatCurrency(stats.getNetProfit()), "", "");
+                daily.end();
+            }
             
+            report.writeTo(outputStream);
             log.info("Financial statistics exported to PDF");
-        } finally {
-            contentStream.close();
         }
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        document.save(outputStream);
-        document.close();
-        
-        return outputStream.toByteArray();
-    }
-    
-    private float addSectionTitle(PDPageContentStream contentStream, String title, PDType1Font font, 
-                                  float margin, float yPosition) throws IOException {
-        contentStream.beginText();
-        contentStream.setFont(font, 16);
-        contentStream.newLineAtOffset(margin, yPosition);
-        contentStream.showText(title);
-        contentStream.endText();
-        return yPosition - 25;
-    }
-    
-    private float addTableRow(PDPageContentStream contentStream, String label, String value, 
-                              PDType1Font labelFont, PDType1Font valueFont, 
-                              float margin, float yPosition, boolean isBold) throws IOException {
-        float pageWidth = 595; // A4 width in points
-        float rightMargin = pageWidth - margin;
-        float valueX = rightMargin - (valueFont.getStringWidth(value) / 1000 * 10);
-        
-        // Label
-        contentStream.beginText();
-        contentStream.setFont(labelFont, 10);
-        contentStream.newLineAtOffset(margin, yPosition);
-        contentStream.showText(label);
-        contentStream.endText();
-        
-        // Value (alineado a la derecha)
-        contentStream.beginText();
-        contentStream.setFont(valueFont, 10);
-        contentStream.newLineAtOffset(valueX, yPosition);
-        contentStream.showText(value);
-        contentStream.endText();
-        
-        return yPosition - 20;
     }
 
     private String formatCurrency(BigDecimal amount) {
@@ -0,0 +1,26 @@
+package com.rds.app_restaurante.service;
+
+/**
+ * Funciones de hash de 64 bits para los sketches probabilísticos
+ */
+final class Hashing {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private Hashing() {
+    }
+
+    // Finalizador de SplitMix64: buena dispersión para ids secuenciales
+    static long mix64(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    static long seed(int row) {
+        return SEEDS[row % SEEDS.length];
+    }
+}
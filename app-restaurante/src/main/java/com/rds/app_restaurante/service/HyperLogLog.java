@@ -0,0 +1,70 @@
+package com.rds.app_restaurante.service;
+
+/**
+ * HyperLogLog para estimar elementos distintos (ej. clientes por día) en memoria fija.
+ * Con precisión 11 usa 2048 registros de un byte (~2 KB) y un error típico de ~2.3%.
+ * Dos sketches con la misma precisión se combinan tomando el máximo de cada registro.
+ */
+class HyperLogLog {
+
+    static final int PRECISION = 11;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    static HyperLogLog fromBytes(byte[] data) {
+        if (data == null || data.length != REGISTERS) {
+            return new HyperLogLog();
+        }
+        return new HyperLogLog(data.clone());
+    }
+
+    void add(long value) {
+        long hash = Hashing.mix64(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Bit centinela para que el rango quede acotado aunque el resto del hash sea cero
+        long remaining = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        // Corrección para cardinalidades pequeñas (conteo lineal)
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    byte[] toBytes() {
+        return registers.clone();
+    }
+}
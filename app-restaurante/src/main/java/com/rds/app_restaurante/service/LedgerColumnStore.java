@@ -0,0 +1,482 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.Transaction;
+import com.rds.app_restaurante.model.TransactionType;
+import com.rds.app_restaurante.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Copia columnar del balance fuera del heap, en archivos mapeados en memoria.
+ * Cada transacción ocupa una fila con columnas primitivas (timestamp, monto en centavos,
+ * tipo, tipo de referencia, id de referencia), de modo que la analítica sobre todo el
+ * historial se resuelve con bucles primitivos sin hidratar entidades JPA ni generar basura.
+ * Se sincroniza en cada escritura del balance y se reconstruye desde MySQL cuando el
+ * encabezado persistido no coincide con la BD.
+ * Con varias instancias (cache.l2.mode=database) cada copia solo vería las escrituras locales,
+ * así que el almacén queda deshabilitado y se consulta la BD.
+ */
+@Component
+@Slf4j
+public class LedgerColumnStore {
+
+    private static final int INITIAL_CAPACITY = 65_536;
+    private static final int REBUILD_PAGE_SIZE = 5_000;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final byte NO_REFERENCE = 0;
+
+    private final TransactionRepository transactionRepository;
+    private final boolean enabled;
+    private final Path directory;
+
+    private final Object writeLock = new Object();
+    private volatile boolean ready = false;
+    // Columnas y filas visibles se publican juntas: un lector nunca combina un mapeo con un tamaño de otro
+    private volatile View view = new View(null, 0);
+    // Filas leídas por la última reconstrucción, ordenadas por id: las escrituras que ya estaban
+    // confirmadas cuando se leyó su página están aquí y no se vuelven a agregar
+    private int rebuiltRows = 0;
+    private long maxTransactionId = 0;
+    private final List<String> referenceTypes = new CopyOnWriteArrayList<>(List.of("")); // código 0 = sin referencia
+
+    private record View(Columns columns, int size) {
+    }
+
+    public LedgerColumnStore(
+            TransactionRepository transactionRepository,
+            @Value("${ledger-store.enabled:true}") boolean enabled,
+            @Value("${ledger-store.path:data/ledger-store}") String path,
+            @Value("${cache.l2.mode:none}") String sharedCacheMode) {
+        this.transactionRepository = transactionRepository;
+        this.enabled = enabled && !"database".equals(sharedCacheMode);
+        this.directory = Paths.get(path);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Almacén columnar del balance deshabilitado (configuración o varias instancias)");
+            return;
+        }
+        try {
+            if (!openExisting()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            ready = false;
+            log.warn("No se pudo inicializar el almacén columnar del balance, se usará la BD: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (writeLock) {
+            Columns current = view.columns();
+            if (ready) {
+                try {
+                    writeHeader();
+                    current.force();
+                } catch (IOException e) {
+                    log.warn("Error guardando el encabezado del almacén columnar: {}", e.getMessage());
+                }
+            }
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reconstruye el almacén completo desde MySQL, por páginas y sin hidratar entidades
+     */
+    public void rebuild() throws IOException {
+        synchronized (writeLock) {
+            ready = false;
+            Files.createDirectories(directory);
+            if (view.columns() != null) {
+                view.columns().close();
+            }
+            view = new View(Columns.open(directory, INITIAL_CAPACITY, true), 0);
+            maxTransactionId = 0;
+            rebuiltRows = 0;
+            referenceTypes.subList(1, referenceTypes.size()).clear();
+
+            long afterId = 0;
+            List<Object[]> page;
+            do {
+                page = transactionRepository.findLedgerColumnsAfter(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (Object[] row : page) {
+                    afterId = (Long) row[0];
+                    appendRow(afterId, (LocalDateTime) row[1], (TransactionType) row[2],
+                            (String) row[3], (Long) row[4], (BigDecimal) row[5]);
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+
+            rebuiltRows = view.size();
+            writeHeader();
+            ready = true;
+            log.info("Almacén columnar del balance reconstruido: {} transacciones", view.size());
+        }
+    }
+
+    /**
+     * Agrega una transacción recién guardada (después del commit si hay transacción activa)
+     */
+    public void append(Transaction transaction) {
+        if (!enabled || transaction == null || transaction.getId() == null || transaction.getCreatedAt() == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                // Fila ya leída por una reconstrucción concurrente. Un id menor que el último leído puede
+                // confirmarse después de la lectura de su página, así que se busca el id exacto
+                if (!ready || isRebuilt(transaction.getId())) {
+                    return;
+                }
+                try {
+                    appendRow(transaction.getId(), transaction.getCreatedAt(), transaction.getTransactionType(),
+                            transaction.getReferenceType(), transaction.getReferenceId(), transaction.getAmount());
+                } catch (IOException e) {
+                    ready = false;
+                    log.warn("Error agregando al almacén columnar, se deshabilita hasta la próxima reconstrucción: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Marca como eliminada la fila de una transacción borrada
+     */
+    public void markDeleted(Long transactionId) {
+        if (!enabled || transactionId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                if (!ready) {
+                    return;
+                }
+                View current = view;
+                // Los borrados son raros y casi siempre recientes: búsqueda desde el final
+                for (int row = current.size() - 1; row >= 0; row--) {
+                    if (current.columns().transactionIds.getLong(row * 8) == transactionId) {
+                        current.columns().deleted.put(row, (byte) 1);
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Suma de montos del rango para los tipos indicados
+     */
+    public Optional<BigDecimal> sum(LocalDateTime from, LocalDateTime to, TransactionType... types) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        View snapshot = view;
+        Columns current = snapshot.columns();
+        int rows = snapshot.size();
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        int typeMask = typeMask(types);
+        long total = 0;
+        for (int row = 0; row < rows; row++) {
+            if (matches(current, row, fromMillis, toMillis, typeMask)) {
+                total += current.amounts.getLong(row * 8);
+            }
+        }
+        return Optional.of(fromCents(total));
+    }
+
+    /**
+     * Suma de montos del rango agrupada por tipo de referencia (ORDER, DELIVERY, EXPENSE...)
+     */
+    public Optional<Map<String, BigDecimal>> sumByReferenceType(LocalDateTime from, LocalDateTime to, TransactionType... types) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        View snapshot = view;
+        Columns current = snapshot.columns();
+        int rows = snapshot.size();
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        int typeMask = typeMask(types);
+        long[] totals = new long[256];
+        for (int row = 0; row < rows; row++) {
+            if (matches(current, row, fromMillis, toMillis, typeMask)) {
+                totals[current.referenceTypes.get(row) & 0xFF] += current.amounts.getLong(row * 8);
+            }
+        }
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (int code = 0; code < totals.length; code++) {
+            if (totals[code] != 0) {
+                result.put(code == NO_REFERENCE ? null : referenceTypes.get(code), fromCents(totals[code]));
+            }
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Suma de montos del rango agrupada por día
+     */
+    public Optional<Map<LocalDate, BigDecimal>> sumByDay(LocalDateTime from, LocalDateTime to, TransactionType... types) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        View snapshot = view;
+        Columns current = snapshot.columns();
+        int rows = snapshot.size();
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        if (fromMillis > toMillis) {
+            return Optional.of(new TreeMap<>());
+        }
+        int typeMask = typeMask(types);
+        long firstDay = Math.floorDiv(fromMillis, MILLIS_PER_DAY);
+        long[] totals = new long[(int) (Math.floorDiv(toMillis, MILLIS_PER_DAY) - firstDay + 1)];
+        for (int row = 0; row < rows; row++) {
+            if (matches(current, row, fromMillis, toMillis, typeMask)) {
+                long day = Math.floorDiv(current.timestamps.getLong(row * 8), MILLIS_PER_DAY);
+                totals[(int) (day - firstDay)] += current.amounts.getLong(row * 8);
+            }
+        }
+        Map<LocalDate, BigDecimal> result = new TreeMap<>();
+        for (int i = 0; i < totals.length; i++) {
+            if (totals[i] != 0) {
+                result.put(LocalDate.ofEpochDay(firstDay + i), fromCents(totals[i]));
+            }
+        }
+        return Optional.of(result);
+    }
+
+    private boolean matches(Columns current, int row, long fromMillis, long toMillis, int typeMask) {
+        if (current.deleted.get(row) != 0) {
+            return false;
+        }
+        long timestamp = current.timestamps.getLong(row * 8);
+        return timestamp >= fromMillis && timestamp <= toMillis
+                && (typeMask & (1 << current.types.get(row))) != 0;
+    }
+
+    private void appendRow(long transactionId, LocalDateTime createdAt, TransactionType type,
+                           String referenceType, Long referenceId, BigDecimal amount) throws IOException {
+        if (createdAt == null || type == null || amount == null) {
+            return;
+        }
+        int row = view.size();
+        Columns current = view.columns();
+        if (row >= current.capacity) {
+            current = current.grow(directory, current.capacity * 2);
+            view = new View(current, row);
+        }
+        current.transactionIds.putLong(row * 8, transactionId);
+        current.timestamps.putLong(row * 8, toEpochMillis(createdAt));
+        current.amounts.putLong(row * 8, toCents(amount));
+        current.types.put(row, (byte) type.ordinal());
+        current.referenceTypes.put(row, referenceCode(referenceType));
+        current.referenceIds.putLong(row * 8, referenceId != null ? referenceId : 0L);
+        current.deleted.put(row, (byte) 0);
+        // La fila queda visible para los lectores solo cuando ya está completa
+        view = new View(current, row + 1);
+        maxTransactionId = Math.max(maxTransactionId, transactionId);
+    }
+
+    // Búsqueda binaria entre las filas de la reconstrucción, que se leyeron en orden de id
+    private boolean isRebuilt(long transactionId) {
+        Columns current = view.columns();
+        int low = 0;
+        int high = rebuiltRows - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = current.transactionIds.getLong(middle * 8);
+            if (id < transactionId) {
+                low = middle + 1;
+            } else if (id > transactionId) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte referenceCode(String referenceType) {
+        if (referenceType == null || referenceType.isEmpty()) {
+            return NO_REFERENCE;
+        }
+        int code = referenceTypes.indexOf(referenceType);
+        if (code < 0) {
+            if (referenceTypes.size() >= 256) {
+                throw new IllegalStateException("Demasiados tipos de referencia distintos en el balance");
+            }
+            referenceTypes.add(referenceType);
+            code = referenceTypes.size() - 1;
+        }
+        return (byte) code;
+    }
+
+    /**
+     * Reutiliza los archivos existentes si el encabezado coincide con la BD (mismo número de filas y último id)
+     */
+    private boolean openExisting() throws IOException {
+        Path header = directory.resolve("ledger.properties");
+        if (!Files.exists(header)) {
+            return false;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(header)) {
+            properties.load(in);
+        }
+        int storedRows = Integer.parseInt(properties.getProperty("rows", "-1"));
+        long storedMaxId = Long.parseLong(properties.getProperty("maxTransactionId", "-1"));
+        Object[] stats = transactionRepository.getLedgerStats().get(0);
+        long dbRows = ((Number) stats[0]).longValue();
+        long dbMaxId = stats[1] != null ? ((Number) stats[1]).longValue() : 0L;
+        if (storedRows != dbRows || storedMaxId != dbMaxId) {
+            log.info("Almacén columnar desactualizado (filas {} vs {}), se reconstruye", storedRows, dbRows);
+            return false;
+        }
+
+        synchronized (writeLock) {
+            int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, storedRows)) * 2);
+            view = new View(Columns.open(directory, capacity, false), storedRows);
+            maxTransactionId = storedMaxId;
+            rebuiltRows = Math.min(storedRows, Integer.parseInt(properties.getProperty("rebuiltRows", "0")));
+            referenceTypes.subList(1, referenceTypes.size()).clear();
+            String dictionary = properties.getProperty("referenceTypes", "");
+            if (!dictionary.isEmpty()) {
+                referenceTypes.addAll(Arrays.asList(dictionary.split(",")));
+            }
+            ready = true;
+        }
+        log.info("Almacén columnar del balance abierto desde disco: {} transacciones", storedRows);
+        return true;
+    }
+
+    private void writeHeader() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("rows", String.valueOf(view.size()));
+        properties.setProperty("maxTransactionId", String.valueOf(maxTransactionId));
+        properties.setProperty("rebuiltRows", String.valueOf(rebuiltRows));
+        properties.setProperty("referenceTypes", String.join(",", referenceTypes.subList(1, referenceTypes.size())));
+        try (OutputStream out = Files.newOutputStream(directory.resolve("ledger.properties"))) {
+            properties.store(out, "Encabezado del almacen columnar del balance");
+        }
+    }
+
+    private static int typeMask(TransactionType... types) {
+        int mask = 0;
+        for (TransactionType type : types) {
+            mask |= 1 << type.ordinal();
+        }
+        return mask;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Un archivo mapeado por columna
+     */
+    private static class Columns {
+        private final int capacity;
+        private final List<FileChannel> channels = new ArrayList<>();
+        private final MappedByteBuffer transactionIds;
+        private final MappedByteBuffer timestamps;
+        private final MappedByteBuffer amounts;
+        private final MappedByteBuffer types;
+        private final MappedByteBuffer referenceTypes;
+        private final MappedByteBuffer referenceIds;
+        private final MappedByteBuffer deleted;
+
+        private Columns(Path directory, int capacity, boolean truncate) throws IOException {
+            this.capacity = capacity;
+            this.transactionIds = map(directory.resolve("transaction_id.col"), capacity, 8, truncate);
+            this.timestamps = map(directory.resolve("timestamp.col"), capacity, 8, truncate);
+            this.amounts = map(directory.resolve("amount.col"), capacity, 8, truncate);
+            this.types = map(directory.resolve("type.col"), capacity, 1, truncate);
+            this.referenceTypes = map(directory.resolve("reference_type.col"), capacity, 1, truncate);
+            this.referenceIds = map(directory.resolve("reference_id.col"), capacity, 8, truncate);
+            this.deleted = map(directory.resolve("deleted.col"), capacity, 1, truncate);
+        }
+
+        static Columns open(Path directory, int capacity, boolean truncate) throws IOException {
+            return new Columns(directory, capacity, truncate);
+        }
+
+        // Los mapeos anteriores siguen siendo válidos para los lectores que aún los usan
+        Columns grow(Path directory, int newCapacity) throws IOException {
+            force();
+            Columns grown = new Columns(directory, newCapacity, false);
+            close();
+            return grown;
+        }
+
+        private MappedByteBuffer map(Path file, int capacity, int width, boolean truncate) throws IOException {
+            Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (truncate) {
+                options.add(StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            FileChannel channel = FileChannel.open(file, options);
+            channels.add(channel);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * width);
+        }
+
+        void force() {
+            transactionIds.force();
+            timestamps.force();
+            amounts.force();
+            types.force();
+            referenceTypes.force();
+            referenceIds.force();
+            deleted.force();
+        }
+
+        void close() {
+            for (FileChannel channel : channels) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // El mapeo sigue siendo válido aunque el canal se cierre
+                }
+            }
+        }
+    }
+}
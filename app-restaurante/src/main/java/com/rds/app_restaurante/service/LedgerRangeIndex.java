@@ -0,0 +1,375 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.Transaction;
+import com.rds.app_restaurante.model.TransactionType;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import com.rds.app_restaurante.repository.TransactionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de totales diarios (ingresos, gastos y conteos) sobre árboles de Fenwick.
+ * Se construye al arrancar desde el balance y se actualiza en cada escritura de BalanceService,
+ * de modo que cualquier suma por rango de fechas se responde en O(log n) sin consultar la BD.
+ * Mientras no está listo (o si falló la construcción) las estadísticas usan la BD.
+ * Con varias instancias (cache.l2.mode=database) el índice solo vería las escrituras locales,
+ * así que no se construye y las estadísticas se calculan siempre desde la BD.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerRangeIndex {
+
+    private static final int REVENUE = 0;
+    private static final int ORDERS_REVENUE = 1;
+    private static final int DELIVERIES_REVENUE = 2;
+    private static final int EXPENSES = 3;
+    private static final int ORDERS_COUNT = 4;
+    private static final int DELIVERIES_COUNT = 5;
+    private static final int METRICS = 6;
+
+    // Días extra reservados a cada lado para no redimensionar en cada día nuevo
+    private static final int SLACK_DAYS = 366;
+    private static final int MAX_REBUILD_ATTEMPTS = 10;
+
+    private final TransactionRepository transactionRepository;
+    private final OrderRepository orderRepository;
+    private final DeliveryRepository deliveryRepository;
+
+    @Value("${cache.l2.mode:none}")
+    private String sharedCacheMode;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Escrituras del balance ya terminadas y en pleno commit: la reconstrucción solo se publica si
+    // ninguna escritura terminó ni quedó en curso mientras se leía la BD
+    private final TransactionHooks.WriteWindow writes = new TransactionHooks.WriteWindow();
+    private volatile boolean ready = false;
+    private long originEpochDay;
+    private long[][] values = new long[METRICS][0]; // valor de cada día por métrica (importes en centavos)
+    private long[][] trees = new long[METRICS][1];  // árbol de Fenwick por métrica, 1-indexado
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Reconstrucción nocturna desde la BD para corregir cualquier desviación
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruye el índice completo desde las transacciones, pedidos y entregas. Si una escritura
+     * coincide con la lectura de la BD no se sabe si la lectura la incluyó, así que se repite; si
+     * nunca hay una ventana sin escrituras se conserva el índice anterior (o la BD si no había).
+     */
+    public void rebuild() {
+        if ("database".equals(sharedCacheMode)) {
+            log.info("Varias instancias (cache.l2.mode=database): las estadísticas del balance se calculan desde la BD");
+            return;
+        }
+        try {
+            for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+                if (tryRebuild()) {
+                    return;
+                }
+                Thread.sleep(100L * attempt);
+            }
+            log.warn("No hubo una ventana sin escrituras para reconstruir el índice de rangos del balance");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("No se pudo construir el índice de rangos del balance: {}", e.getMessage());
+        }
+    }
+
+    private boolean tryRebuild() {
+        long writesBefore = writes.open();
+        Map<Long, long[]> days = new HashMap<>();
+        for (Object[] row : transactionRepository.findLedgerEntries()) {
+            LocalDateTime createdAt = (LocalDateTime) row[0];
+            long[] deltas = ledgerDeltas((TransactionType) row[1], (String) row[2], (BigDecimal) row[3]);
+            if (createdAt != null && deltas != null) {
+                addTo(days, createdAt.toLocalDate().toEpochDay(), deltas);
+            }
+        }
+        for (Object[] row : orderRepository.countOrdersByDate()) {
+            addTo(days, ((LocalDate) row[0]).toEpochDay(), countDelta(ORDERS_COUNT, ((Number) row[1]).longValue()));
+        }
+        for (Object[] row : deliveryRepository.countDeliveriesByDate()) {
+            addTo(days, ((LocalDate) row[0]).toEpochDay(), countDelta(DELIVERIES_COUNT, ((Number) row[1]).longValue()));
+        }
+
+        long today = LocalDate.now().toEpochDay();
+        long minDay = days.keySet().stream().mapToLong(Long::longValue).min().orElse(today);
+        long maxDay = Math.max(today, days.keySet().stream().mapToLong(Long::longValue).max().orElse(today));
+
+        lock.writeLock().lock();
+        try {
+            // Una escritura terminada o en curso durante la lectura puede faltar o contarse dos veces
+            if (!writes.isQuiet(writesBefore)) {
+                log.debug("Escrituras concurrentes con la reconstrucción del índice, se repite");
+                return false;
+            }
+            originEpochDay = minDay - SLACK_DAYS;
+            int capacity = (int) (maxDay - originEpochDay + 1 + SLACK_DAYS);
+            values = new long[METRICS][capacity];
+            for (Map.Entry<Long, long[]> entry : days.entrySet()) {
+                int position = (int) (entry.getKey() - originEpochDay);
+                for (int metric = 0; metric < METRICS; metric++) {
+                    values[metric][position] = entry.getValue()[metric];
+                }
+            }
+            rebuildTrees();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de rangos del balance construido: {} días con movimientos", days.size());
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Registra (sign = 1) o descuenta (sign = -1) una transacción del balance.
+     * Si hay una transacción de BD activa, se aplica solo después del commit.
+     */
+    public void recordTransaction(Transaction transaction, int sign) {
+        if (transaction == null || transaction.getCreatedAt() == null) {
+            return;
+        }
+        long[] deltas = ledgerDeltas(transaction.getTransactionType(), transaction.getReferenceType(), transaction.getAmount());
+        if (deltas == null) {
+            return;
+        }
+        if (sign < 0) {
+            for (int metric = 0; metric < METRICS; metric++) {
+                deltas[metric] = -deltas[metric];
+            }
+        }
+        long epochDay = transaction.getCreatedAt().toLocalDate().toEpochDay();
+        writes.afterCommit(() -> apply(epochDay, deltas));
+    }
+
+    public void recordOrder(LocalDate date) {
+        if (date != null) {
+            writes.afterCommit(() -> apply(date.toEpochDay(), countDelta(ORDERS_COUNT, 1)));
+        }
+    }
+
+    public void recordDelivery(LocalDate date) {
+        if (date != null) {
+            writes.afterCommit(() -> apply(date.toEpochDay(), countDelta(DELIVERIES_COUNT, 1)));
+        }
+    }
+
+    /**
+     * Totales del rango [startDate, endDate] en O(log n). Vacío si el índice no está listo.
+     */
+    public Optional<RangeTotals> getTotals(LocalDate startDate, LocalDate endDate) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            int from = clamp(startDate.toEpochDay() - originEpochDay);
+            int to = clamp(endDate.toEpochDay() - originEpochDay);
+            long[] sums = new long[METRICS];
+            if (from <= to && startDate.toEpochDay() - originEpochDay < values[0].length
+                    && endDate.toEpochDay() >= originEpochDay) {
+                for (int metric = 0; metric < METRICS; metric++) {
+                    sums[metric] = prefixSum(metric, to) - prefixSum(metric, from - 1);
+                }
+            }
+            return Optional.of(toTotals(startDate, endDate, sums));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Totales día por día del rango (lectura directa de los valores diarios). Vacío si el índice no está listo.
+     */
+    public Optional<List<RangeTotals>> getDailyTotals(LocalDate startDate, LocalDate endDate) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            List<RangeTotals> daily = new ArrayList<>();
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                long position = day.toEpochDay() - originEpochDay;
+                long[] dayValues = new long[METRICS];
+                if (position >= 0 && position < values[0].length) {
+                    for (int metric = 0; metric < METRICS; metric++) {
+                        dayValues[metric] = values[metric][(int) position];
+                    }
+                }
+                daily.add(toTotals(day, day, dayValues));
+            }
+            return Optional.of(daily);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(long epochDay, long[] deltas) {
+        // Sin índice listo se descarta: la reconstrucción que lo publique ya la habrá leído de la BD
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(epochDay);
+            int position = (int) (epochDay - originEpochDay);
+            for (int metric = 0; metric < METRICS; metric++) {
+                if (deltas[metric] != 0) {
+                    values[metric][position] += deltas[metric];
+                    for (int i = position + 1; i < trees[metric].length; i += i & -i) {
+                        trees[metric][i] += deltas[metric];
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Amplía el rango cubierto cuando llega un día fuera de él (fecha histórica o futura)
+    private void ensureCapacity(long epochDay) {
+        long position = epochDay - originEpochDay;
+        if (position >= 0 && position < values[0].length) {
+            return;
+        }
+        long newOrigin = Math.min(originEpochDay, epochDay - SLACK_DAYS);
+        long newEnd = Math.max(originEpochDay + values[0].length - 1, epochDay + SLACK_DAYS);
+        int shift = (int) (originEpochDay - newOrigin);
+        long[][] resized = new long[METRICS][(int) (newEnd - newOrigin + 1)];
+        for (int metric = 0; metric < METRICS; metric++) {
+            System.arraycopy(values[metric], 0, resized[metric], shift, values[metric].length);
+        }
+        originEpochDay = newOrigin;
+        values = resized;
+        rebuildTrees();
+    }
+
+    // Construcción lineal de los árboles de Fenwick a partir de los valores diarios
+    private void rebuildTrees() {
+        int capacity = values[0].length;
+        trees = new long[METRICS][capacity + 1];
+        for (int metric = 0; metric < METRICS; metric++) {
+            long[] tree = trees[metric];
+            for (int i = 1; i <= capacity; i++) {
+                tree[i] += values[metric][i - 1];
+                int parent = i + (i & -i);
+                if (parent <= capacity) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+
+    // Suma de las posiciones [0, position]
+    private long prefixSum(int metric, int position) {
+        long sum = 0;
+        for (int i = position + 1; i > 0; i -= i & -i) {
+            sum += trees[metric][i];
+        }
+        return sum;
+    }
+
+    private int clamp(long position) {
+        return (int) Math.max(0, Math.min(values[0].length - 1, position));
+    }
+
+    // Mismas reglas que StatisticsService: ingresos separados por referencia, gastos = gastos + sueldos
+    private long[] ledgerDeltas(TransactionType type, String referenceType, BigDecimal amount) {
+        if (type == null || amount == null) {
+            return null;
+        }
+        long cents = toCents(amount);
+        long[] deltas = new long[METRICS];
+        if (type == TransactionType.INCOME) {
+            deltas[REVENUE] = cents;
+            if ("ORDER".equals(referenceType)) {
+                deltas[ORDERS_REVENUE] = cents;
+            } else if ("DELIVERY".equals(referenceType)) {
+                deltas[DELIVERIES_REVENUE] = cents;
+            }
+        } else if (type == TransactionType.EXPENSE || type == TransactionType.SALARY_PAYMENT) {
+            deltas[EXPENSES] = cents;
+        } else {
+            return null;
+        }
+        return deltas;
+    }
+
+    private long[] countDelta(int metric, long count) {
+        long[] deltas = new long[METRICS];
+        deltas[metric] = count;
+        return deltas;
+    }
+
+    private void addTo(Map<Long, long[]> days, long epochDay, long[] deltas) {
+        long[] dayValues = days.computeIfAbsent(epochDay, key -> new long[METRICS]);
+        for (int metric = 0; metric < METRICS; metric++) {
+            dayValues[metric] += deltas[metric];
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private RangeTotals toTotals(LocalDate startDate, LocalDate endDate, long[] sums) {
+        return new RangeTotals(
+                startDate,
+                endDate,
+                fromCents(sums[REVENUE]),
+                fromCents(sums[ORDERS_REVENUE]),
+                fromCents(sums[DELIVERIES_REVENUE]),
+                fromCents(sums[EXPENSES]),
+                sums[ORDERS_COUNT],
+                sums[DELIVERIES_COUNT]
+        );
+    }
+
+    /**
+     * Totales de un rango de fechas
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RangeTotals {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final BigDecimal revenue;
+        private final BigDecimal ordersRevenue;
+        private final BigDecimal deliveriesRevenue;
+        private final BigDecimal expenses;
+        private final long ordersCount;
+        private final long deliveriesCount;
+    }
+}
@@ -0,0 +1,138 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.config.SingleFlight;
+import com.rds.app_restaurante.dto.LifecycleLatencyResponse;
+import com.rds.app_restaurante.model.LifecycleStage;
+import com.rds.app_restaurante.model.PaymentStatus;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Latencias del ciclo de vida de pedidos y domicilios (creado → completado, creado → pago verificado).
+ * Cada transición se publica después del commit como Timer de Micrometer etiquetado por tipo y etapa,
+ * con histograma de percentiles para que los percentiles se calculen agregando todas las instancias
+ * en el backend de métricas; el reporte administrativo calcula percentiles exactos por hora desde la BD.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LifecycleMetricsService {
+
+    public static final String ORDER = "ORDER";
+    public static final String DELIVERY = "DELIVERY";
+    private static final String METRIC_NAME = "restaurant.lifecycle.latency";
+
+    private final MeterRegistry meterRegistry;
+    private final OrderRepository orderRepository;
+    private final DeliveryRepository deliveryRepository;
+
+    /**
+     * Registra la duración de una etapa a partir de la fecha/hora de creación (después del commit si
+     * hay transacción activa, para no contar transiciones revertidas)
+     */
+    public void record(String type, LifecycleStage stage, LocalDate placedDate, LocalTime placedTime, LocalDateTime reachedAt) {
+        if (placedDate == null || placedTime == null || reachedAt == null) {
+            return;
+        }
+        Duration latency = Duration.between(LocalDateTime.of(placedDate, placedTime), reachedAt);
+        if (latency.isNegative()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            try {
+                Timer.builder(METRIC_NAME)
+                        .description("Tiempo entre la creación y cada etapa del ciclo de vida")
+                        .tag("type", type)
+                        .tag("stage", stage.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(latency);
+            } catch (Exception e) {
+                log.warn("No se pudo registrar la latencia {} de {}: {}", stage, type, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Percentiles exactos por tipo, etapa y hora del día para los pedidos/domicilios del rango
+     */
+    @Transactional(readOnly = true)
+    @SingleFlight
+    public List<LifecycleLatencyResponse> getLatencyReport(LocalDate startDate, LocalDate endDate) {
+        List<LifecycleLatencyResponse> report = new ArrayList<>();
+        report.addAll(buildReport(ORDER, orderRepository.findLifecycleTimestamps(startDate, endDate)));
+        report.addAll(buildReport(DELIVERY, deliveryRepository.findLifecycleTimestamps(startDate, endDate)));
+        return report;
+    }
+
+    private List<LifecycleLatencyResponse> buildReport(String type, List<Object[]> rows) {
+        // Latencias en segundos por etapa; índice 24 = todas las horas
+        Map<LifecycleStage, List<List<Long>>> latencies = new EnumMap<>(LifecycleStage.class);
+        for (LifecycleStage stage : LifecycleStage.values()) {
+            List<List<Long>> byHour = new ArrayList<>();
+            for (int hour = 0; hour <= 24; hour++) {
+                byHour.add(new ArrayList<>());
+            }
+            latencies.put(stage, byHour);
+        }
+
+        for (Object[] row : rows) {
+            LocalDateTime placedAt = LocalDateTime.of((LocalDate) row[0], (LocalTime) row[1]);
+            int hour = placedAt.getHour();
+            addLatency(latencies.get(LifecycleStage.PLACED_TO_COMPLETED), hour, placedAt, (LocalDateTime) row[2]);
+            // Los rechazos también guardan verifiedAt; solo cuentan los pagos verificados
+            if (row[4] == PaymentStatus.VERIFIED) {
+                addLatency(latencies.get(LifecycleStage.PLACED_TO_VERIFIED), hour, placedAt, (LocalDateTime) row[3]);
+            }
+        }
+
+        List<LifecycleLatencyResponse> report = new ArrayList<>();
+        latencies.forEach((stage, byHour) -> {
+            for (int hour = 0; hour <= 24; hour++) {
+                List<Long> values = byHour.get(hour);
+                if (values.isEmpty()) {
+                    continue;
+                }
+                Collections.sort(values);
+                report.add(LifecycleLatencyResponse.builder()
+                        .type(type)
+                        .stage(stage)
+                        .hourOfDay(hour == 24 ? null : hour)
+                        .count((long) values.size())
+                        .p50Seconds(percentile(values, 0.50))
+                        .p95Seconds(percentile(values, 0.95))
+                        .p99Seconds(percentile(values, 0.99))
+                        .maxSeconds(values.get(values.size() - 1))
+                        .build());
+            }
+        });
+        return report;
+    }
+
+    private void addLatency(List<List<Long>> byHour, int hour, LocalDateTime placedAt, LocalDateTime reachedAt) {
+        if (reachedAt == null || reachedAt.isBefore(placedAt)) {
+            return;
+        }
+        long seconds = Duration.between(placedAt, reachedAt).getSeconds();
+        byHour.get(hour).add(seconds);
+        byHour.get(24).add(seconds);
+    }
+
+    // Percentil por rango más cercano sobre una lista ordenada
+    private static long percentile(List<Long> sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,308 @@
+package com.rds.app_restaurante.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rds.app_restaurante.dto.CategoryResponse;
+import com.rds.app_restaurante.dto.ProductResponse;
+import com.rds.app_restaurante.dto.RewardProductResponse;
+import com.rds.app_restaurante.dto.SubCategoryResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantánea del menú público: ante cualquier cambio del catálogo se arma un único documento
+ * (categorías → subcategorías → productos, más recompensas activas) y las listas públicas,
+ * ya serializadas y comprimidas con gzip. Las peticiones anónimas se responden desde memoria
+ * sin consultar la base de datos. El ETag es el hash del contenido, así que una reconstrucción
+ * sin cambios reales no invalida lo que los clientes ya tienen.
+ */
+@Service
+@Slf4j
+public class MenuSnapshotService {
+
+    private final CategoryService categoryService;
+    private final SubCategoryService subCategoryService;
+    private final ProductService productService;
+    private final RewardProductService rewardProductService;
+    private final ObjectMapper objectMapper;
+    private final long rebuildDelayMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "menu-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public MenuSnapshotService(
+            CategoryService categoryService,
+            SubCategoryService subCategoryService,
+            ProductService productService,
+            RewardProductService rewardProductService,
+            ObjectMapper objectMapper,
+            @Value("${menu-snapshot.rebuild-delay-ms:250}") long rebuildDelayMs) {
+        this.categoryService = categoryService;
+        this.subCategoryService = subCategoryService;
+        this.productService = productService;
+        this.rewardProductService = rewardProductService;
+        this.objectMapper = objectMapper;
+        this.rebuildDelayMs = rebuildDelayMs;
+    }
+
+    /**
+     * Documento serializado y su versión gzip; etag es el hash del JSON entre comillas
+     */
+    public record MenuDocument(byte[] json, byte[] gzip, String etag, long version) {
+    }
+
+    // Estructura del documento del menú
+    record Menu(List<MenuCategory> categories, List<RewardProductResponse> rewards) {
+    }
+
+    record MenuCategory(Long id, String name, String description,
+                        List<MenuSubCategory> subCategories, List<ProductResponse> products) {
+    }
+
+    record MenuSubCategory(Long id, String name, String description, List<ProductResponse> products) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    // Después del commit (o de inmediato si no hay transacción)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Cambio en el catálogo ({}), se reconstruye el menú", event.source());
+        scheduleRebuild();
+    }
+
+    // El stock cambia con cada pedido sin pasar por el catálogo: se revisa cada minuto
+    @Scheduled(cron = "0 * * * * ?")
+    public void scheduledRebuild() {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public MenuDocument getMenu() {
+        return current().menu;
+    }
+
+    public MenuDocument getCategories() {
+        return current().categories;
+    }
+
+    public MenuDocument getSubCategories() {
+        return current().subCategories;
+    }
+
+    public MenuDocument getProducts() {
+        return current().products;
+    }
+
+    public MenuDocument getRewards() {
+        return current().rewards;
+    }
+
+    public Optional<CategoryResponse> findCategory(Long id) {
+        return Optional.ofNullable(current().categoriesById.get(id));
+    }
+
+    public Optional<SubCategoryResponse> findSubCategory(Long id) {
+        return Optional.ofNullable(current().subCategoriesById.get(id));
+    }
+
+    public Optional<ProductResponse> findProduct(Long id) {
+        return Optional.ofNullable(current().productsById.get(id));
+    }
+
+    public Optional<RewardProductResponse> findReward(Long id) {
+        return Optional.ofNullable(current().rewardsById.get(id));
+    }
+
+    /**
+     * Subcategorías de una categoría (lista vacía si no tiene)
+     */
+    public List<SubCategoryResponse> getSubCategoriesByCategory(Long categoryId) {
+        return current().subCategoriesByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    /**
+     * Productos de una categoría; vacío si la categoría no está en la instantánea
+     */
+    public Optional<List<ProductResponse>> findProductsByCategory(Long categoryId) {
+        Snapshot current = current();
+        if (!current.categoriesById.containsKey(categoryId)) {
+            return Optional.empty();
+        }
+        return Optional.of(current.productsByCategory.getOrDefault(categoryId, List.of()));
+    }
+
+    // Agrupa los cambios seguidos (una edición toca varias tablas) en una sola reconstrucción
+    private void scheduleRebuild() {
+        if (!executor.isShutdown() && rebuildPending.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("Error al reconstruir la instantánea del menú: {}", e.getMessage(), e);
+                }
+            }, rebuildDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Si una petición llega antes de la primera construcción se arma en su hilo
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        long start = System.nanoTime();
+        List<CategoryResponse> categories = categoryService.getAllCategories();
+        List<SubCategoryResponse> subCategories = subCategoryService.getAllSubCategories();
+        List<ProductResponse> products = productService.getAllProducts();
+        List<RewardProductResponse> rewards = rewardProductService.getActiveRewardProducts();
+
+        Map<Long, List<SubCategoryResponse>> subCategoriesByCategory = subCategories.stream()
+                .filter(subCategory -> subCategory.getCategoryId() != null)
+                .collect(Collectors.groupingBy(SubCategoryResponse::getCategoryId, LinkedHashMap::new, Collectors.toList()));
+        Map<Long, List<ProductResponse>> productsByCategory = products.stream()
+                .filter(product -> product.getCategoryId() != null)
+                .collect(Collectors.groupingBy(ProductResponse::getCategoryId, LinkedHashMap::new, Collectors.toList()));
+
+        List<MenuCategory> menuCategories = new ArrayList<>(categories.size());
+        for (CategoryResponse category : categories) {
+            List<ProductResponse> categoryProducts = productsByCategory.getOrDefault(category.getId(), List.of());
+            Map<Long, List<ProductResponse>> bySubCategory = categoryProducts.stream()
+                    .filter(product -> product.getSubCategoryId() != null)
+                    .collect(Collectors.groupingBy(ProductResponse::getSubCategoryId));
+            List<MenuSubCategory> menuSubCategories = new ArrayList<>();
+            Set<Long> subCategoryIds = new HashSet<>();
+            for (SubCategoryResponse subCategory : subCategoriesByCategory.getOrDefault(category.getId(), List.of())) {
+                menuSubCategories.add(new MenuSubCategory(subCategory.getId(), subCategory.getName(),
+                        subCategory.getDescription(), bySubCategory.getOrDefault(subCategory.getId(), List.of())));
+                subCategoryIds.add(subCategory.getId());
+            }
+            // Los productos sin subcategoría van directamente en la categoría
+            List<ProductResponse> looseProducts = categoryProducts.stream()
+                    .filter(product -> !subCategoryIds.contains(product.getSubCategoryId()))
+                    .collect(Collectors.toList());
+            menuCategories.add(new MenuCategory(category.getId(), category.getName(), category.getDescription(),
+                    menuSubCategories, looseProducts));
+        }
+
+        Snapshot previous = snapshot;
+        Snapshot next = new Snapshot();
+        next.menu = document(new Menu(menuCategories, rewards), previous != null ? previous.menu : null);
+        next.categories = document(categories, previous != null ? previous.categories : null);
+        next.subCategories = document(subCategories, previous != null ? previous.subCategories : null);
+        next.products = document(products, previous != null ? previous.products : null);
+        next.rewards = document(rewards, previous != null ? previous.rewards : null);
+        next.categoriesById = index(categories, CategoryResponse::getId);
+        next.subCategoriesById = index(subCategories, SubCategoryResponse::getId);
+        next.productsById = index(products, ProductResponse::getId);
+        next.rewardsById = index(rewards, RewardProductResponse::getId);
+        next.subCategoriesByCategory = subCategoriesByCategory;
+        next.productsByCategory = productsByCategory;
+        snapshot = next;
+
+        if (previous == null || previous.menu.version() != next.menu.version()) {
+            log.info("Menú público versión {} generado en {} ms ({} bytes, {} comprimido)",
+                    next.menu.version(), (System.nanoTime() - start) / 1_000_000,
+                    next.menu.json().length, next.menu.gzip().length);
+        }
+    }
+
+    // Conserva el documento anterior (y su versión) si el contenido no cambió
+    private MenuDocument document(Object content, MenuDocument previous) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(content);
+            String etag = "\"" + sha256(json) + "\"";
+            if (previous != null && previous.etag().equals(etag)) {
+                return previous;
+            }
+            long version = previous != null ? previous.version() + 1 : 1;
+            return new MenuDocument(json, gzip(json), etag, version);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al serializar el menú: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        // Se comprime una sola vez por versión: vale la pena el nivel máximo
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static <T> Map<Long, T> index(List<T> values, Function<T, Long> id) {
+        Map<Long, T> index = new HashMap<>(values.size() * 2);
+        for (T value : values) {
+            index.put(id.apply(value), value);
+        }
+        return index;
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Snapshot {
+        private MenuDocument menu;
+        private MenuDocument categories;
+        private MenuDocument subCategories;
+        private MenuDocument products;
+        private MenuDocument rewards;
+        private Map<Long, CategoryResponse> categoriesById;
+        private Map<Long, SubCategoryResponse> subCategoriesById;
+        private Map<Long, ProductResponse> productsById;
+        private Map<Long, RewardProductResponse> rewardsById;
+        private Map<Long, List<SubCategoryResponse>> subCategoriesByCategory;
+        private Map<Long, List<ProductResponse>> productsByCategory;
+    }
+}
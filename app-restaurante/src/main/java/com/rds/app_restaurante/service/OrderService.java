@@ -2,9 +2,11 @@ package com.rds.app_restaurante.service;
 
 import com.rds.app_restaurante.dto.OrderItemRequest;
 import com.rds.app_restaurante.dto.OrderItemResponse;
+import com.rds.app_restaurante.dto.ProductResponse;
 import com.rds.app_restaurante.dto.OrderRequest;
 import com.rds.app_restaurante.dto.OrderResponse;
 import com.rds.app_restaurante.model.Admin;
+import com.rds.app_restaurante.model.LifecycleStage;
 import com.rds.app_restaurante.model.Order;
 import com.rds.app_restaurante.model.OrderItem;
 import com.rds.app_restaurante.model.PaymentMethod;
@@ -26,7 +28,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,9 +41,16 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ProductService productService;
     private final AdminRepository adminRepository;
     private final BalanceService balanceService;
     private final EmailService emailService;
+    private final PeriodCloseService periodCloseService;
+    private final LedgerRangeIndex ledgerRangeIndex;
+    private final ExportCacheService exportCacheService;
+    private final SketchService sketchService;
+    private final LifecycleMetricsService lifecycleMetricsService;
+    private final ReceiptService receiptService;
 
     @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
@@ -79,22 +90,19 @@ public class OrderService {
             throw new RuntimeException("El número de mesa es obligatorio para pedidos en mesa");
         }
 
-        // Validar productos y stock
+        // Validar productos y calcular el total con el precio de la caché de productos
         double totalPrice = 0.0;
+        Map<Long, ProductResponse> pricedProducts = new HashMap<>();
         for (OrderItemRequest itemRequest : orderRequest.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + itemRequest.getProductId()));
-            
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new RuntimeException(
-                    String.format("Stock insuficiente para el producto '%s'. Stock disponible: %d, solicitado: %d",
-                        product.getName(), product.getStock(), itemRequest.getQuantity())
-                );
-            }
-            
+            ProductResponse product = pricedProducts.computeIfAbsent(itemRequest.getProductId(), productService::getProductById);
             totalPrice += product.getPrice() * itemRequest.getQuantity();
         }
 
+        // Descontar stock en la base de datos (el stock cacheado puede estar desactualizado)
+        for (OrderItemRequest itemRequest : orderRequest.getItems()) {
+            reserveStock(pricedProducts.get(itemRequest.getProductId()), itemRequest.getQuantity());
+        }
+
         // Crear el pedido
         Order order = new Order();
         LocalDate orderDate = LocalDate.now();
@@ -118,22 +126,22 @@ public class OrderService {
         // Guardar el pedido primero para tener el ID
         Order savedOrder = orderRepository.save(order);
 
-        // Crear items del pedido y actualizar stock
+        // Crear items del pedido (los productos se cargan en una sola consulta)
+        Map<Long, Product> products = productRepository.findAllById(pricedProducts.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
         for (OrderItemRequest itemRequest : orderRequest.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + itemRequest.getProductId()));
-            
-            // Crear el item del pedido
-            OrderItem orderItem = new OrderItem(savedOrder, product, itemRequest.getQuantity());
+            ProductResponse pricedProduct = pricedProducts.get(itemRequest.getProductId());
+            OrderItem orderItem = new OrderItem(savedOrder, products.get(pricedProduct.getId()),
+                    itemRequest.getQuantity(), pricedProduct.getPrice());
             savedOrder.getItems().add(orderItem);
-            
-            // Actualizar stock del producto
-            product.setStock(product.getStock() - itemRequest.getQuantity());
-            productRepository.save(product);
         }
 
         // Guardar el pedido con los items
         savedOrder = orderRepository.save(savedOrder);
+        ledgerRangeIndex.recordOrder(savedOrder.getDate());
+        exportCacheService.markChanged(savedOrder.getDate());
+        exportCacheService.markBusinessChanged();
+        sketchService.recordOrder(savedOrder);
 
         // Actualizar solo número de pedidos y fecha (NO actualizar totalSpent ni puntos hasta que el pago sea verificado)
         user.setNumberOfOrders(user.getNumberOfOrders() + 1);
@@ -167,7 +175,20 @@ public class OrderService {
         
         boolean wasCompleted = order.isStatus();
         order.setStatus(status);
+        if (status && !wasCompleted) {
+            order.setCompletedAt(LocalDateTime.now());
+            lifecycleMetricsService.record(LifecycleMetricsService.ORDER, LifecycleStage.PLACED_TO_COMPLETED,
+                    order.getDate(), order.getTime(), order.getCompletedAt());
+        } else if (!status) {
+            order.setCompletedAt(null);
+        }
         Order updatedOrder = orderRepository.save(order);
+        // Los productos más vendidos solo cuentan pedidos completados
+        if (status != wasCompleted) {
+            periodCloseService.reopen(updatedOrder.getDate());
+            exportCacheService.markChanged(updatedOrder.getDate());
+            exportCacheService.markBusinessChanged();
+        }
         
         // Si el pedido se completó (cambió de false a true), enviar email de notificación
         // NOTA: El ingreso en balance y actualización de totalSpent se hace cuando se verifica el pago, no cuando se completa
@@ -207,9 +228,13 @@ public class OrderService {
         order.setPaymentStatus(PaymentStatus.VERIFIED);
         order.setVerifiedBy(admin);
         order.setVerifiedAt(LocalDateTime.now());
+        lifecycleMetricsService.record(LifecycleMetricsService.ORDER, LifecycleStage.PLACED_TO_VERIFIED,
+                order.getDate(), order.getTime(), order.getVerifiedAt());
         
         Order updatedOrder = orderRepository.save(order);
         log.info("Pago verificado para pedido ID: {} por admin ID: {}", orderId, adminId);
+        // El PDF se genera en segundo plano después del commit
+        receiptService.prepareOrderReceipt(updatedOrder.getId());
         
         // Actualizar estadísticas del usuario cuando el pago es verificado
         User user = updatedOrder.getUser();
@@ -305,6 +330,19 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    // Descuento atómico: si otro pedido consumió el stock entre tanto la actualización no aplica
+    private void reserveStock(ProductResponse product, int quantity) {
+        if (productRepository.decrementStock(product.getId(), quantity) > 0) {
+            return;
+        }
+        Integer available = productRepository.findStockById(product.getId())
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + product.getId()));
+        throw new RuntimeException(
+            String.format("Stock insuficiente para el producto '%s'. Stock disponible: %d, solicitado: %d",
+                product.getName(), available, quantity)
+        );
+    }
+
     private OrderResponse mapToResponse(Order order) {
         List<OrderItemResponse> items = order.getItems() != null ? order.getItems().stream()
                 .map(this::mapItemToResponse)
@@ -332,6 +370,7 @@ public class OrderService {
             builder.verifiedByName(order.getVerifiedBy().getName() + " " + order.getVerifiedBy().getLastName());
         }
         builder.verifiedAt(order.getVerifiedAt());
+        builder.completedAt(order.getCompletedAt());
         
         return builder.build();
     }
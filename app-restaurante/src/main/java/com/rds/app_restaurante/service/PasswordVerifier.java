@@ -0,0 +1,84 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.exception.LoginUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificación de contraseñas (BCrypt) en un pool propio y acotado: un pico de inicios de sesión
+ * ocupa como máximo esos hilos de CPU y no le quita procesador al resto de endpoints. Si la cola
+ * está llena el intento se rechaza de inmediato (503) en lugar de acumular peticiones esperando.
+ */
+@Service
+@Slf4j
+public class PasswordVerifier {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Counter rejected;
+
+    public PasswordVerifier(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${login.workers:2}") int workers,
+            @Value("${login.queue-capacity:32}") int queueCapacity,
+            @Value("${login.verify-timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-verifier-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.rejected = Counter.builder("login.verifications.rejected")
+                .description("Intentos de inicio de sesión rechazados por la cola de verificación llena")
+                .register(meterRegistry);
+        Gauge.builder("login.verifications.queued", executor, pool -> pool.getQueue().size())
+                .description("Verificaciones de contraseña en espera")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compara la contraseña con el hash en el pool de login; el hilo de la petición solo espera
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Cola de verificación de contraseñas llena, se rechaza el intento");
+            throw new LoginUnavailableException("Demasiados inicios de sesión en curso, intente de nuevo en unos segundos");
+        }
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejected.increment();
+            throw new LoginUnavailableException("Demasiados inicios de sesión en curso, intente de nuevo en unos segundos");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginUnavailableException("Inicio de sesión interrumpido");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error al verificar la contraseña: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.rds.app_restaurante.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de reportes PDF con modelo de secciones y tablas: lleva la posición vertical, pagina
+ * automáticamente (repitiendo el encabezado de las tablas) y numera las páginas. El documento
+ * usa memoria mixta respaldada por archivo temporal, así que un reporte de cientos de filas
+ * no crece en el heap, y se guarda directamente en el OutputStream recibido.
+ */
+class PdfReportWriter implements Closeable {
+
+    // Fuentes estándar compartidas (no requieren carga ni incrustación)
+    static final PDFont BOLD = PDType1Font.HELVETICA_BOLD;
+    static final PDFont REGULAR = PDType1Font.HELVETICA;
+
+    // Ancho de cada carácter por fuente, en milésimas del tamaño: acotado por los glifos de la fuente
+    private static final Map<String, Map<Character, Float>> GLYPH_WIDTHS = new ConcurrentHashMap<>();
+    private static final long MAX_MAIN_MEMORY_BYTES = 4L * 1024 * 1024;
+
+    private static final float MARGIN = 50;
+    private static final float FOOTER_HEIGHT = 30;
+    private static final float ROW_HEIGHT = 18;
+    private static final float TABLE_FONT_SIZE = 9;
+
+    enum Align { LEFT, RIGHT }
+
+    /**
+     * Columna de una tabla: ancho relativo y alineación
+     */
+    record Column(String header, float weight, Align align) {
+        static Column left(String header, float weight) {
+            return new Column(header, weight, Align.LEFT);
+        }
+
+        static Column right(String header, float weight) {
+            return new Column(header, weight, Align.RIGHT);
+        }
+    }
+
+    private final PDDocument document;
+    private final PDRectangle pageSize;
+    private PDPageContentStream contentStream;
+    private float yPosition;
+    private int pageNumber;
+
+    PdfReportWriter() {
+        this(PDRectangle.A4);
+    }
+
+    PdfReportWriter(PDRectangle pageSize) {
+        this.document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES));
+        this.pageSize = pageSize;
+    }
+
+    float contentWidth() {
+        return pageSize.getWidth() - 2 * MARGIN;
+    }
+
+    void title(String text) throws IOException {
+        ensureSpace(40);
+        centered(text, BOLD, 20);
+        yPosition -= 40;
+    }
+
+    void subtitle(String text) throws IOException {
+        ensureSpace(40);
+        centered(text, REGULAR, 12);
+        yPosition -= 40;
+    }
+
+    /**
+     * Título de sección; se mantiene en la misma página que al menos keepWithNext puntos de contenido
+     */
+    void section(String text, float keepWithNext) throws IOException {
+        ensureSpace(40 + keepWithNext);
+        text(text, BOLD, 16, MARGIN, yPosition);
+        yPosition -= 40;
+    }
+
+    void keyValue(String label, String value, boolean bold) throws IOException {
+        ensureSpace(20);
+        PDFont font = bold ? BOLD : REGULAR;
+        text(label, font, 10, MARGIN, yPosition);
+        text(value, REGULAR, 10, MARGIN + contentWidth() - width(value, REGULAR, 10), yPosition);
+        yPosition -= 20;
+    }
+
+    void spacer(float height) {
+        yPosition -= height;
+    }
+
+    Table table(Column... columns) throws IOException {
+        Table table = new Table(columns);
+        ensureSpace(ROW_HEIGHT * 3);
+        table.drawHeader();
+        return table;
+    }
+
+    /**
+     * Guarda el documento en la salida; las páginas ya escritas se leen desde el archivo temporal
+     */
+    void writeTo(OutputStream outputStream) throws IOException {
+        closeContentStream();
+        if (pageNumber == 0) {
+            newPage();
+            closeContentStream();
+        }
+        document.save(outputStream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeContentStream();
+        } finally {
+            document.close();
+        }
+    }
+
+    /**
+     * Tabla que se escribe fila por fila; al cambiar de página repite el encabezado
+     */
+    class Table {
+        private final Column[] columns;
+        private final float[] widths;
+
+        private Table(Column[] columns) {
+            this.columns = columns;
+            this.widths = new float[columns.length];
+            float totalWeight = 0;
+            for (Column column : columns) {
+                totalWeight += column.weight();
+            }
+            for (int i = 0; i < columns.length; i++) {
+                widths[i] = contentWidth() * columns[i].weight() / totalWeight;
+            }
+        }
+
+        void row(String... cells) throws IOException {
+            writeRow(cells, REGULAR);
+        }
+
+        void boldRow(String... cells) throws IOException {
+            writeRow(cells, BOLD);
+        }
+
+        void end() {
+            yPosition -= 10;
+        }
+
+        private void writeRow(String[] cells, PDFont font) throws IOException {
+            if (yPosition - ROW_HEIGHT < MARGIN + FOOTER_HEIGHT) {
+                newPage();
+                drawHeader();
+            }
+            drawCells(cells, font);
+        }
+
+        private void drawHeader() throws IOException {
+            String[] headers = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                headers[i] = columns[i].header();
+            }
+            drawCells(headers, BOLD);
+            contentStream.setLineWidth(0.5f);
+            contentStream.moveTo(MARGIN, yPosition + ROW_HEIGHT - 4);
+            contentStream.lineTo(MARGIN + contentWidth(), yPosition + ROW_HEIGHT - 4);
+            contentStream.stroke();
+        }
+
+        private void drawCells(String[] cells, PDFont font) throws IOException {
+            float x = MARGIN;
+            for (int i = 0; i < columns.length; i++) {
+                String cell = i < cells.length && cells[i] != null ? cells[i] : "";
+                String fitted = fit(cell, font, TABLE_FONT_SIZE, widths[i] - 4);
+                float cellX = columns[i].align() == Align.RIGHT
+                        ? x + widths[i] - 2 - width(fitted, font, TABLE_FONT_SIZE)
+                        : x + 2;
+                text(fitted, font, TABLE_FONT_SIZE, cellX, yPosition);
+                x += widths[i];
+            }
+            yPosition -= ROW_HEIGHT;
+        }
+    }
+
+    private void ensureSpace(float height) throws IOException {
+        if (contentStream == null || yPosition - height < MARGIN + FOOTER_HEIGHT) {
+            newPage();
+        }
+    }
+
+    private void newPage() throws IOException {
+        closeContentStream();
+        PDPage page = new PDPage(pageSize);
+        document.addPage(page);
+        contentStream = new PDPageContentStream(document, page);
+        pageNumber++;
+        String footer = "Página " + pageNumber;
+        text(footer, REGULAR, 8, MARGIN + contentWidth() - width(footer, REGULAR, 8), MARGIN);
+        yPosition = pageSize.getHeight() - MARGIN;
+    }
+
+    private void closeContentStream() throws IOException {
+        if (contentStream != null) {
+            contentStream.close();
+            contentStream = null;
+        }
+    }
+
+    private void centered(String text, PDFont font, float size) throws IOException {
+        String safe = sanitize(text, font);
+        text(safe, font, size, (pageSize.getWidth() - width(safe, font, size)) / 2, yPosition);
+    }
+
+    private void text(String text, PDFont font, float size, float x, float y) throws IOException {
+        contentStream.beginText();
+        contentStream.setFont(font, size);
+        contentStream.newLineAtOffset(x, y);
+        contentStream.showText(sanitize(text, font));
+        contentStream.endText();
+    }
+
+    // Recorta el texto con "..." si no cabe en la columna; el corte se busca por bisección sobre los anchos acumulados
+    static String fit(String text, PDFont font, float size, float maxWidth) throws IOException {
+        String safe = sanitize(text, font);
+        float limit = maxWidth * 1000 / size;
+        float[] prefix = new float[safe.length() + 1];
+        for (int i = 0; i < safe.length(); i++) {
+            prefix[i + 1] = prefix[i] + glyphWidth(safe.charAt(i), font);
+        }
+        if (prefix[safe.length()] <= limit) {
+            return safe;
+        }
+        String ellipsis = "...";
+        float available = limit - 3 * glyphWidth('.', font);
+        // Mayor prefijo que cabe junto con "..." (0 si ni siquiera cabe "...")
+        int low = 0;
+        int high = safe.length() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (prefix[middle] <= available) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return safe.substring(0, low) + ellipsis;
+    }
+
+    static float width(String text, PDFont font, float size) throws IOException {
+        String safe = sanitize(text, font);
+        float units = 0;
+        for (int i = 0; i < safe.length(); i++) {
+            units += glyphWidth(safe.charAt(i), font);
+        }
+        return units / 1000 * size;
+    }
+
+    private static float glyphWidth(char character, PDFont font) throws IOException {
+        Map<Character, Float> widths = GLYPH_WIDTHS.computeIfAbsent(font.getName(), name -> new ConcurrentHashMap<>());
+        Float cached = widths.get(character);
+        if (cached == null) {
+            cached = font.getStringWidth(String.valueOf(character));
+            widths.put(character, cached);
+        }
+        return cached;
+    }
+
+    // Las fuentes estándar solo cubren WinAnsi: los caracteres no soportados se reemplazan por '?'
+    static String sanitize(String text, PDFont font) {
+        try {
+            font.encode(text);
+            return text;
+        } catch (IllegalArgumentException | IOException e) {
+            StringBuilder safe = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                String character = String.valueOf(text.charAt(i));
+                try {
+                    font.encode(character);
+                    safe.append(character);
+                } catch (IllegalArgumentException | IOException ignored) {
+                    safe.append('?');
+                }
+            }
+            return safe.toString();
+        }
+    }
+}
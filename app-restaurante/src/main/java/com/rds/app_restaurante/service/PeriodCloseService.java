@@ -0,0 +1,344 @@
+package com.rds.app_restaurante.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rds.app_restaurante.dto.CategoryExpenseResponse;
+import com.rds.app_restaurante.dto.TopProductResponse;
+import com.rds.app_restaurante.model.PeriodSnapshot;
+import com.rds.app_restaurante.model.PeriodStatus;
+import com.rds.app_restaurante.model.PeriodType;
+import com.rds.app_restaurante.model.TransactionType;
+import com.rds.app_restaurante.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Cierre de periodos: congela un snapshot inmutable de los resultados financieros
+ * de cada día y mes ya terminados. Las estadísticas leen los periodos cerrados desde
+ * el snapshot y solo calculan en vivo el periodo abierto.
+ * Cada cierre corre en su propia transacción y se guarda condicionado a la versión leída al
+ * empezar: si una escritura con fecha pasada reabre el periodo mientras se calcula, el cierre
+ * falla y se recalcula en lugar de guardar totales viejos como cerrados.
+ */
+@Service
+@Slf4j
+public class PeriodCloseService {
+
+    private static final int MAX_CLOSE_ATTEMPTS = 3;
+
+    private final PeriodSnapshotRepository periodSnapshotRepository;
+    private final TransactionRepository transactionRepository;
+    private final ExpenseRepository expenseRepository;
+    private final OrderRepository orderRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final ReservationRepository reservationRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final DeliveryItemRepository deliveryItemRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+
+    public PeriodCloseService(PeriodSnapshotRepository periodSnapshotRepository,
+                              TransactionRepository transactionRepository,
+                              ExpenseRepository expenseRepository,
+                              OrderRepository orderRepository,
+                              DeliveryRepository deliveryRepository,
+                              ReservationRepository reservationRepository,
+                              OrderItemRepository orderItemRepository,
+                              DeliveryItemRepository deliveryItemRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.periodSnapshotRepository = periodSnapshotRepository;
+        this.transactionRepository = transactionRepository;
+        this.expenseRepository = expenseRepository;
+        this.orderRepository = orderRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.reservationRepository = reservationRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.deliveryItemRepository = deliveryItemRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Cierra (o re-cierra) un día ya terminado
+     */
+    public PeriodSnapshot closeDay(LocalDate date) {
+        if (!date.isBefore(LocalDate.now())) {
+            throw new RuntimeException("Solo se pueden cerrar días anteriores a hoy. Fecha solicitada: " + date);
+        }
+        return close(PeriodType.DAILY, date, date);
+    }
+
+    /**
+     * Cierra (o re-cierra) un mes ya terminado
+     */
+    public PeriodSnapshot closeMonth(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new RuntimeException("Solo se pueden cerrar meses anteriores al actual. Mes solicitado: " + month);
+        }
+        return close(PeriodType.MONTHLY, month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Cierra todos los días del rango que aún no tengan un snapshot cerrado (backfill)
+     */
+    public int closeDays(LocalDate startDate, LocalDate endDate) {
+        LocalDate lastClosable = LocalDate.now().minusDays(1);
+        LocalDate effectiveEnd = endDate.isAfter(lastClosable) ? lastClosable : endDate;
+        if (startDate.isAfter(effectiveEnd)) {
+            return 0;
+        }
+
+        Set<LocalDate> alreadyClosed = periodSnapshotRepository
+                .findByTypeAndStatusBetween(PeriodType.DAILY, PeriodStatus.CLOSED, startDate, effectiveEnd)
+                .stream()
+                .map(PeriodSnapshot::getPeriodStart)
+                .collect(Collectors.toSet());
+
+        int closed = 0;
+        for (LocalDate day = startDate; !day.isAfter(effectiveEnd); day = day.plusDays(1)) {
+            if (!alreadyClosed.contains(day)) {
+                close(PeriodType.DAILY, day, day);
+                closed++;
+            }
+        }
+        log.info("Cierre de días [{}, {}]: {} días cerrados", startDate, effectiveEnd, closed);
+        return closed;
+    }
+
+    /**
+     * Re-cierra todos los periodos que fueron reabiertos por ediciones con fecha pasada
+     */
+    public int recloseReopenedPeriods() {
+        int reclosed = 0;
+        for (PeriodSnapshot snapshot : periodSnapshotRepository.findByStatus(PeriodStatus.REOPENED)) {
+            try {
+                close(snapshot.getPeriodType(), snapshot.getPeriodStart(), snapshot.getPeriodEnd());
+                reclosed++;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Sigue reabierto y se intentará en la próxima pasada
+                log.warn("El periodo {} {} se reabrió en cada intento de cierre", snapshot.getPeriodType(), snapshot.getPeriodStart());
+            }
+        }
+        if (reclosed > 0) {
+            log.info("Re-cerrados {} periodos reabiertos", reclosed);
+        }
+        return reclosed;
+    }
+
+    /**
+     * Reabre el día y el mes que contienen la fecha indicada (si ya estaban cerrados).
+     * Se invoca cuando una escritura afecta un periodo pasado; los datos reabiertos se
+     * calculan en vivo hasta que el periodo se vuelve a cerrar. Corre en la transacción de la
+     * escritura: si la reapertura falla, la escritura tampoco se confirma.
+     */
+    @Transactional
+    public void reopen(LocalDate date) {
+        if (date == null || !date.isBefore(LocalDate.now())) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int reopened = periodSnapshotRepository.markReopened(PeriodType.DAILY, date, PeriodStatus.REOPENED, now);
+        reopened += periodSnapshotRepository.markReopened(PeriodType.MONTHLY, date.withDayOfMonth(1), PeriodStatus.REOPENED, now);
+        if (reopened > 0) {
+            log.info("Periodo reabierto por edición con fecha pasada: {} ({} snapshots)", date, reopened);
+        }
+    }
+
+    /**
+     * Obtiene los snapshots diarios cerrados del rango, indexados por fecha
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, PeriodSnapshot> getClosedDailySnapshots(LocalDate startDate, LocalDate endDate) {
+        LocalDate lastClosable = LocalDate.now().minusDays(1);
+        LocalDate effectiveEnd = endDate.isAfter(lastClosable) ? lastClosable : endDate;
+        if (startDate.isAfter(effectiveEnd)) {
+            return Collections.emptyMap();
+        }
+        try {
+            Map<LocalDate, PeriodSnapshot> snapshots = new HashMap<>();
+            for (PeriodSnapshot snapshot : periodSnapshotRepository.findByTypeAndStatusBetween(
+                    PeriodType.DAILY, PeriodStatus.CLOSED, startDate, effectiveEnd)) {
+                snapshots.put(snapshot.getPeriodStart(), snapshot);
+            }
+            return snapshots;
+        } catch (Exception e) {
+            log.warn("Error obteniendo snapshots diarios, se calculará en vivo: {}", e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Obtiene el snapshot cerrado de un mes si existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<PeriodSnapshot> getClosedMonthlySnapshot(YearMonth month) {
+        try {
+            return periodSnapshotRepository.findByPeriodTypeAndPeriodStart(PeriodType.MONTHLY, month.atDay(1))
+                    .filter(snapshot -> snapshot.getStatus() == PeriodStatus.CLOSED);
+        } catch (Exception e) {
+            log.warn("Error obteniendo snapshot mensual de {}: {}", month, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<PeriodSnapshot> getSnapshots(PeriodType periodType, LocalDate startDate, LocalDate endDate) {
+        return periodSnapshotRepository.findByPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(periodType, startDate, endDate);
+    }
+
+    public List<TopProductResponse> readTopProducts(PeriodSnapshot snapshot) {
+        return readJson(snapshot.getTopProducts(), new TypeReference<List<TopProductResponse>>() {});
+    }
+
+    public List<CategoryExpenseResponse> readExpensesByCategory(PeriodSnapshot snapshot) {
+        return readJson(snapshot.getExpensesByCategory(), new TypeReference<List<CategoryExpenseResponse>>() {});
+    }
+
+    // Reintenta si el periodo se reabrió (o otro cierre creó la fila) mientras se calculaba
+    private PeriodSnapshot close(PeriodType periodType, LocalDate startDate, LocalDate endDate) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> closeOnce(periodType, startDate, endDate));
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_CLOSE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("El periodo {} {} cambió durante el cierre, se recalcula", periodType, startDate);
+            }
+        }
+    }
+
+    /**
+     * Calcula los resultados del periodo desde las tablas y guarda el snapshot. El snapshot se lee
+     * antes que los totales: su versión es la que debe seguir vigente al guardar.
+     */
+    private PeriodSnapshot closeOnce(PeriodType periodType, LocalDate startDate, LocalDate endDate) {
+        PeriodSnapshot snapshot = periodSnapshotRepository.findByPeriodTypeAndPeriodStart(periodType, startDate)
+                .orElseGet(PeriodSnapshot::new);
+
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal ordersRevenue = BigDecimal.ZERO;
+        BigDecimal deliveriesRevenue = BigDecimal.ZERO;
+        BigDecimal totalExpenses = BigDecimal.ZERO;
+
+        // Ingresos y gastos desde las transacciones del balance (fuente de verdad)
+        List<Object[]> sums = transactionRepository.sumByTypeAndReferenceBetweenDates(
+                startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX));
+        for (Object[] row : sums) {
+            TransactionType type = (TransactionType) row[0];
+            String referenceType = (String) row[1];
+            BigDecimal amount = row[2] != null ? (BigDecimal) row[2] : BigDecimal.ZERO;
+            if (type == TransactionType.INCOME) {
+                totalRevenue = totalRevenue.add(amount);
+                if ("ORDER".equals(referenceType)) {
+                    ordersRevenue = ordersRevenue.add(amount);
+                } else if ("DELIVERY".equals(referenceType)) {
+                    deliveriesRevenue = deliveriesRevenue.add(amount);
+                }
+            } else if (type == TransactionType.EXPENSE || type == TransactionType.SALARY_PAYMENT) {
+                totalExpenses = totalExpenses.add(amount);
+            }
+        }
+
+        Long ordersCount = orderRepository.countOrdersBetweenDates(startDate, endDate);
+        Long deliveriesCount = deliveryRepository.countDeliveriesBetweenDates(startDate, endDate);
+        Long reservationsCount = reservationRepository.countReservationsBetweenDates(startDate, endDate);
+
+        List<CategoryExpenseResponse> expensesByCategory = expenseRepository
+                .getExpensesByCategoryBetweenDates(startDate, endDate).stream()
+                .map(row -> CategoryExpenseResponse.builder()
+                        .category((String) row[0])
+                        .totalAmount((BigDecimal) row[1])
+                        .build())
+                .collect(Collectors.toList());
+
+        // Todos los productos vendidos del periodo (pedidos + entregas), no solo el top 10,
+        // para que los snapshots se puedan combinar entre periodos sin perder exactitud
+        Map<Long, TopProductResponse> productMap = new HashMap<>();
+        mergeProductRows(productMap, orderItemRepository.getTopProductsBetweenDates(startDate, endDate));
+        mergeProductRows(productMap, deliveryItemRepository.getTopProductsBetweenDates(startDate, endDate));
+        List<TopProductResponse> topProducts = productMap.values().stream()
+                .sorted((a, b) -> b.getTotalQuantity().compareTo(a.getTotalQuantity()))
+                .collect(Collectors.toList());
+
+        snapshot.setPeriodType(periodType);
+        snapshot.setPeriodStart(startDate);
+        snapshot.setPeriodEnd(endDate);
+        snapshot.setStatus(PeriodStatus.CLOSED);
+        snapshot.setTotalRevenue(totalRevenue);
+        snapshot.setOrdersRevenue(ordersRevenue);
+        snapshot.setDeliveriesRevenue(deliveriesRevenue);
+        snapshot.setTotalExpenses(totalExpenses);
+        snapshot.setOrdersCount(ordersCount != null ? ordersCount : 0L);
+        snapshot.setDeliveriesCount(deliveriesCount != null ? deliveriesCount : 0L);
+        snapshot.setReservationsCount(reservationsCount != null ? reservationsCount : 0L);
+        snapshot.setTopProducts(writeJson(topProducts));
+        snapshot.setExpensesByCategory(writeJson(expensesByCategory));
+        snapshot.setClosedAt(LocalDateTime.now());
+        snapshot.setReopenedAt(null);
+
+        PeriodSnapshot saved = periodSnapshotRepository.saveAndFlush(snapshot);
+        log.debug("Periodo {} [{}, {}] cerrado: Ingresos={}, Gastos={}, Pedidos={}, Entregas={}",
+                periodType, startDate, endDate, totalRevenue, totalExpenses, ordersCount, deliveriesCount);
+        return saved;
+    }
+
+    private void mergeProductRows(Map<Long, TopProductResponse> productMap, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long productId = ((Number) row[0]).longValue();
+            String productName = (String) row[1];
+            Long quantity = ((Number) row[2]).longValue();
+            BigDecimal revenue = BigDecimal.valueOf(((Number) row[3]).doubleValue());
+
+            TopProductResponse existing = productMap.get(productId);
+            if (existing != null) {
+                existing.setTotalQuantity(existing.getTotalQuantity() + quantity);
+                existing.setTotalRevenue(existing.getTotalRevenue().add(revenue));
+            } else {
+                productMap.put(productId, TopProductResponse.builder()
+                        .productId(productId)
+                        .productName(productName)
+                        .totalQuantity(quantity)
+                        .totalRevenue(revenue)
+                        .build());
+            }
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando snapshot de periodo: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> List<T> readJson(String json, TypeReference<List<T>> type) {
+        if (json == null || json.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            log.warn("Error leyendo snapshot de periodo: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+}
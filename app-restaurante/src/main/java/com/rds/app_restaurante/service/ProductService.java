@@ -1,26 +1,39 @@
 package com.rds.app_restaurante.service;
 
+import com.rds.app_restaurante.config.SingleFlight;
+import com.rds.app_restaurante.config.CacheRefreshRegistry;
 import com.rds.app_restaurante.dto.ProductRequest;
 import com.rds.app_restaurante.dto.ProductResponse;
 import com.rds.app_restaurante.model.Category;
 import com.rds.app_restaurante.model.Product;
 import com.rds.app_restaurante.model.SubCategory;
 import com.rds.app_restaurante.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.rds.app_restaurante.dto.ProductSearchRequest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Productos con tres cachés: la lista completa ("products"), cada producto por id
+ * ("productById", también usada para calcular el precio de los pedidos) y la lista por
+ * categoría ("productsByCategory"). Al modificar un producto solo se invalidan su entrada,
+ * las listas de sus categorías y la lista completa.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -29,10 +42,34 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
     private final SubCategoryService subCategoryService;
+    private final CacheRefreshRegistry cacheRefreshRegistry;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Recarga en segundo plano de las entradas cacheadas (sin pasar por el proxy de @Cacheable)
+    @PostConstruct
+    void registerCacheRefresh() {
+        cacheRefreshRegistry.register("products", key -> {
+            List<ProductResponse> products = loadAllProducts();
+            return products.isEmpty() ? null : products;
+        });
+        cacheRefreshRegistry.register("productById", key -> productRepository.findById((Long) key)
+                .map(this::mapToResponse)
+                .orElse(null));
+        cacheRefreshRegistry.register("productsByCategory", key -> {
+            List<ProductResponse> products = loadProductsByCategory((Long) key);
+            return products.isEmpty() ? null : products;
+        });
+    }
 
     @Transactional(readOnly = true)
     @Cacheable(value = "products", unless = "#result.isEmpty()")
+    @SingleFlight
     public List<ProductResponse> getAllProducts() {
+        return loadAllProducts();
+    }
+
+    private List<ProductResponse> loadAllProducts() {
         log.debug("Fetching all products from database");
         return productRepository.findAll().stream()
                 .map(this::mapToResponse)
@@ -82,14 +119,25 @@ public class ProductService {
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(value = "productsByCategory", key = "#categoryId", unless = "#result.isEmpty()")
+    @SingleFlight
     public List<ProductResponse> getProductsByCategory(Long categoryId) {
-        Category category = categoryService.findById(categoryId);
-        return productRepository.findByCategory(category).stream()
+        categoryService.findById(categoryId);
+        return loadProductsByCategory(categoryId);
+    }
+
+    private List<ProductResponse> loadProductsByCategory(Long categoryId) {
+        return productRepository.findByCategoryId(categoryId).stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Producto cacheado por id; el stock puede estar desactualizado hasta la siguiente recarga,
+     * así que los pedidos lo descuentan directamente en la base de datos
+     */
     @Transactional(readOnly = true)
+    @Cacheable(value = "productById", key = "#id")
     public ProductResponse getProductById(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + id));
@@ -97,7 +145,7 @@ public class ProductService {
     }
 
     @Transactional
-    @CacheEvict(value = {"products", "statistics"}, allEntries = true)
+    @CacheEvict(value = "statistics", allEntries = true)
     public ProductResponse createProduct(ProductRequest productRequest) {
         log.info("Creating new product: {}", productRequest.getName());
         Category category = categoryService.findById(productRequest.getCategoryId());
@@ -133,17 +181,20 @@ public class ProductService {
             );
         }
             Product savedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(new CatalogChangedEvent("product"));
+            evictProduct(savedProduct.getId(), category.getId());
             log.info("Product created successfully with ID: {}", savedProduct.getId());
             return mapToResponse(savedProduct);
         }
 
     @Transactional
-    @CacheEvict(value = {"products", "statistics"}, allEntries = true)
+    @CacheEvict(value = "statistics", allEntries = true)
     public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
         log.info("Updating product with ID: {}", id);
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + id));
 
+        Long previousCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
         Category category = categoryService.findById(productRequest.getCategoryId());
 
         SubCategory subCategory = null;
@@ -164,22 +215,56 @@ public class ProductService {
         product.setStock(productRequest.getStock());
 
             Product updatedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(new CatalogChangedEvent("product"));
+            evictProduct(id, previousCategoryId, category.getId());
             log.info("Product updated successfully with ID: {}", updatedProduct.getId());
             return mapToResponse(updatedProduct);
         }
 
     @Transactional
-    @CacheEvict(value = {"products", "statistics"}, allEntries = true)
+    @CacheEvict(value = "statistics", allEntries = true)
     public void deleteProduct(Long id) {
         log.info("Attempting to delete product with ID: {}", id);
-        if (!productRepository.existsById(id)) {
+        Product product = productRepository.findById(id).orElse(null);
+        if (product == null) {
             log.warn("Attempt to delete non-existent product with ID: {}", id);
             throw new RuntimeException("Producto no encontrado con id: " + id);
         }
-        productRepository.deleteById(id);
+        productRepository.delete(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent("product"));
+        evictProduct(id, product.getCategory() != null ? product.getCategory().getId() : null);
         log.info("Product deleted successfully with ID: {}", id);
     }
 
+    /**
+     * Invalida el producto, las listas de sus categorías, la lista completa y el listado de
+     * categorías; se repite después del commit por si una lectura concurrente volvió a cachear
+     * los datos anteriores
+     */
+    private void evictProduct(Long productId, Long... categoryIds) {
+        Runnable eviction = () -> {
+            evict("productById", productId);
+            evict("products", SimpleKey.EMPTY);
+            // El listado de categorías incluye la cantidad de productos
+            evict("categories", SimpleKey.EMPTY);
+            for (Long categoryId : categoryIds) {
+                if (categoryId != null) {
+                    evict("productsByCategory", categoryId);
+                }
+            }
+        };
+        eviction.run();
+        TransactionHooks.afterCommit(eviction);
+        log.debug("Caché del producto {} invalidada", productId);
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
     private ProductResponse mapToResponse(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
@@ -0,0 +1,467 @@
+package com.rds.app_restaurante.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rds.app_restaurante.model.*;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import com.rds.app_restaurante.service.ReceiptTemplate.PrintLine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Recibos de pedidos y domicilios en PDF (papel de 80 mm) y texto ESC/POS. La plantilla se
+ * interpreta una sola vez al iniciar y las fuentes estándar y sus anchos se comparten entre
+ * recibos. Al verificar un pago solo se guarda el id; después del commit el pedido se lee con
+ * sus items en una sola consulta y el PDF se genera en segundo plano y queda en memoria, así que
+ * la verificación no espera ni carga relaciones y la descarga posterior es inmediata.
+ */
+@Service
+@Slf4j
+public class ReceiptService {
+
+    private static final String TEMPLATE_PATH = "templates/receipt/receipt.txt";
+    private static final float PAPER_WIDTH = 226.77f; // 80 mm
+    private static final float MARGIN = 10;
+    private static final float FONT_SIZE = 8;
+    private static final float LINE_HEIGHT = 10;
+    private static final long MAX_MAIN_MEMORY_BYTES = 4L * 1024 * 1024;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Comandos ESC/POS: inicializar, página de códigos PC850, negrita, avance y corte parcial
+    private static final byte[] ESC_INIT = {0x1B, 0x40, 0x1B, 0x74, 0x02};
+    private static final byte[] ESC_BOLD_ON = {0x1B, 0x45, 0x01};
+    private static final byte[] ESC_BOLD_OFF = {0x1B, 0x45, 0x00};
+    private static final byte[] ESC_FEED_AND_CUT = {0x1B, 0x64, 0x03, 0x1D, 0x56, 0x01};
+    private static final Charset ESC_POS_CHARSET = Charset.isSupported("IBM850")
+            ? Charset.forName("IBM850") : StandardCharsets.US_ASCII;
+
+    private final OrderRepository orderRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final ReceiptTemplate template;
+    private final Map<String, String> businessValues;
+    private final int textWidth;
+    private final Cache<String, byte[]> renderedPdfs;
+    private final ThreadPoolExecutor renderer;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReceiptService(
+            OrderRepository orderRepository,
+            DeliveryRepository deliveryRepository,
+            @Value("${receipts.restaurant-name:Restaurante}") String restaurantName,
+            @Value("${receipts.address:}") String address,
+            @Value("${receipts.phone:}") String phone,
+            @Value("${receipts.footer:¡Gracias por su compra!}") String footer,
+            @Value("${receipts.text-width:42}") int textWidth,
+            @Value("${receipts.cache-size:500}") long cacheSize,
+            PlatformTransactionManager transactionManager) throws IOException {
+        this.orderRepository = orderRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.template = ReceiptTemplate.parse(
+                new ClassPathResource(TEMPLATE_PATH).getContentAsString(StandardCharsets.UTF_8));
+        this.businessValues = Map.of(
+                "restaurant", restaurantName,
+                "address", address,
+                "phone", phone,
+                "footer", footer);
+        this.textWidth = textWidth;
+        this.renderedPdfs = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(12))
+                .build();
+        // Un solo hilo de baja prioridad; si la cola se llena el recibo se genera al pedirlo
+        this.renderer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(200),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "receipt-renderer");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Prepara el recibo de un pedido verificado: después del commit se lee el pedido y el PDF se
+     * genera en segundo plano
+     */
+    public void prepareOrderReceipt(Long orderId) {
+        prepare(orderKey(orderId), () -> orderRepository.findReceiptById(orderId).map(this::orderReceipt));
+    }
+
+    /**
+     * Prepara el recibo de un domicilio verificado (ver prepareOrderReceipt)
+     */
+    public void prepareDeliveryReceipt(Long deliveryId) {
+        prepare(deliveryKey(deliveryId), () -> deliveryRepository.findReceiptById(deliveryId).map(this::deliveryReceipt));
+    }
+
+    @Transactional(readOnly = true)
+    public byte[] getOrderReceipt(Long orderId, ReceiptFormat format) {
+        if (format == ReceiptFormat.PDF) {
+            byte[] cached = renderedPdfs.getIfPresent(orderKey(orderId));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Order order = orderRepository.findReceiptById(orderId)
+                .orElseThrow(() -> new RuntimeException("Pedido no encontrado con id: " + orderId));
+        return render(orderReceipt(order), format, order.getPaymentStatus() == PaymentStatus.VERIFIED);
+    }
+
+    @Transactional(readOnly = true)
+    public byte[] getDeliveryReceipt(Long deliveryId, ReceiptFormat format) {
+        if (format == ReceiptFormat.PDF) {
+            byte[] cached = renderedPdfs.getIfPresent(deliveryKey(deliveryId));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Delivery delivery = deliveryRepository.findReceiptById(deliveryId)
+                .orElseThrow(() -> new RuntimeException("Domicilio no encontrado con id: " + deliveryId));
+        return render(deliveryReceipt(delivery), format, delivery.getPaymentStatus() == PaymentStatus.VERIFIED);
+    }
+
+    /**
+     * Escribe en un solo documento los recibos de todos los pedidos y domicilios verificados del día
+     */
+    @Transactional(readOnly = true)
+    public void writeDailyReceipts(LocalDate date, ReceiptFormat format, OutputStream outputStream) throws IOException {
+        List<ReceiptData> receipts = new ArrayList<>();
+        for (Order order : orderRepository.findReceiptsByDate(date, PaymentStatus.VERIFIED)) {
+            receipts.add(orderReceipt(order));
+        }
+        for (Delivery delivery : deliveryRepository.findReceiptsByDate(date, PaymentStatus.VERIFIED)) {
+            receipts.add(deliveryReceipt(delivery));
+        }
+        receipts.sort(Comparator.comparing(ReceiptData::time, Comparator.nullsLast(Comparator.naturalOrder())));
+        log.info("Generando {} recibos del {} en formato {}", receipts.size(), date, format);
+
+        switch (format) {
+            case PDF -> {
+                try (PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES))) {
+                    for (ReceiptData receipt : receipts) {
+                        addPdfPage(document, receipt.lines());
+                    }
+                    if (receipts.isEmpty()) {
+                        addPdfPage(document, List.of(new PrintLine("Sin recibos para el " + date.format(DATE_FORMAT),
+                                null, true, false, false)));
+                    }
+                    document.save(outputStream);
+                }
+            }
+            case TEXT -> {
+                for (ReceiptData receipt : receipts) {
+                    outputStream.write(renderText(receipt.lines()).getBytes(StandardCharsets.UTF_8));
+                    outputStream.write("\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            case ESCPOS -> {
+                for (ReceiptData receipt : receipts) {
+                    outputStream.write(renderEscPos(receipt.lines()));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    // Los datos se leen en el hilo del generador, en su propia transacción de solo lectura
+    private void prepare(String key, Supplier<Optional<ReceiptData>> loader) {
+        TransactionHooks.afterCommit(() -> {
+            try {
+                renderer.execute(() -> {
+                    try {
+                        ReceiptData receipt = readOnlyTransaction.execute(status -> loader.get().orElse(null));
+                        if (receipt != null) {
+                            renderedPdfs.put(key, renderPdf(receipt.lines()));
+                        }
+                    } catch (Exception e) {
+                        log.warn("No se pudo generar el recibo {}: {}", key, e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Cola de recibos llena, el recibo {} se generará al pedirlo", key);
+            }
+        });
+    }
+
+    private byte[] render(ReceiptData receipt, ReceiptFormat format, boolean cacheable) {
+        return switch (format) {
+            case PDF -> {
+                byte[] pdf = renderPdf(receipt.lines());
+                if (cacheable) {
+                    renderedPdfs.put(receipt.key(), pdf);
+                }
+                yield pdf;
+            }
+            case TEXT -> renderText(receipt.lines()).getBytes(StandardCharsets.UTF_8);
+            case ESCPOS -> renderEscPos(receipt.lines());
+        };
+    }
+
+    private ReceiptData orderReceipt(Order order) {
+        Map<String, String> values = baseValues(order.getId(), order.getDate(), order.getTime(), order.getUser(),
+                order.getTotalPrice(), order.getPaymentMethod(), order.getVerifiedAt());
+        values.put("title", "PEDIDO EN MESA");
+        values.put("location", order.getTableNumber() != null ? "Mesa " + order.getTableNumber() : "");
+        List<PrintLine> items = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            items.add(itemLine(item.getQuantity(), item.getProduct(), item.getSubtotal()));
+        }
+        return new ReceiptData(orderKey(order.getId()), order.getTime(), template.layout(values, items));
+    }
+
+    private ReceiptData deliveryReceipt(Delivery delivery) {
+        Map<String, String> values = baseValues(delivery.getId(), delivery.getDate(), delivery.getTime(),
+                delivery.getUser(), delivery.getTotalPrice(), delivery.getPaymentMethod(), delivery.getVerifiedAt());
+        values.put("title", "DOMICILIO");
+        values.put("location", delivery.getDeliveryAddress() != null ? "Dirección: " + delivery.getDeliveryAddress() : "");
+        List<PrintLine> items = new ArrayList<>();
+        for (DeliveryItem item : delivery.getItems()) {
+            items.add(itemLine(item.getQuantity(), item.getProduct(), item.getSubtotal()));
+        }
+        return new ReceiptData(deliveryKey(delivery.getId()), delivery.getTime(), template.layout(values, items));
+    }
+
+    private Map<String, String> baseValues(Long id, LocalDate date, LocalTime time, User user, double total,
+                                           PaymentMethod paymentMethod, LocalDateTime verifiedAt) {
+        Map<String, String> values = new HashMap<>(businessValues);
+        values.put("number", String.valueOf(id));
+        values.put("date", date != null ? date.format(DATE_FORMAT) : "");
+        values.put("time", time != null ? time.format(TIME_FORMAT) : "");
+        values.put("customer", user != null ? user.getName() + " " + user.getLastName() : "");
+        values.put("total", formatCurrency(total));
+        values.put("paymentMethod", paymentMethodLabel(paymentMethod));
+        values.put("verifiedAt", verifiedAt != null ? verifiedAt.format(DATE_TIME_FORMAT) : "");
+        return values;
+    }
+
+    private PrintLine itemLine(int quantity, Product product, double subtotal) {
+        String name = product != null ? product.getName() : "Producto eliminado";
+        return PrintLine.pair(quantity + " x " + name, formatCurrency(subtotal));
+    }
+
+    // ---- Texto en columnas fijas ----
+
+    private String renderText(List<PrintLine> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (PrintLine line : lines) {
+            for (String text : textRows(line)) {
+                builder.append(text).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private byte[] renderEscPos(List<PrintLine> lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        out.writeBytes(ESC_INIT);
+        for (PrintLine line : lines) {
+            if (line.bold()) {
+                out.writeBytes(ESC_BOLD_ON);
+            }
+            for (String text : textRows(line)) {
+                out.writeBytes((text + "\n").getBytes(ESC_POS_CHARSET));
+            }
+            if (line.bold()) {
+                out.writeBytes(ESC_BOLD_OFF);
+            }
+        }
+        out.writeBytes(ESC_FEED_AND_CUT);
+        return out.toByteArray();
+    }
+
+    private List<String> textRows(PrintLine line) {
+        if (line.separator()) {
+            return List.of("-".repeat(textWidth));
+        }
+        if (line.right() != null) {
+            String right = line.right();
+            int leftWidth = Math.max(0, textWidth - right.length() - 1);
+            String left = line.left().length() > leftWidth ? line.left().substring(0, leftWidth) : line.left();
+            return List.of(left + " ".repeat(Math.max(1, textWidth - left.length() - right.length())) + right);
+        }
+        List<String> rows = new ArrayList<>();
+        for (String row : wrap(line.left(), textWidth)) {
+            rows.add(line.centered() ? " ".repeat((textWidth - row.length()) / 2) + row : row);
+        }
+        return rows;
+    }
+
+    private static List<String> wrap(String text, int width) {
+        List<String> rows = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String word : text.split(" ")) {
+            while (word.length() > width) {
+                if (!current.isEmpty()) {
+                    rows.add(current.toString());
+                    current.setLength(0);
+                }
+                rows.add(word.substring(0, width));
+                word = word.substring(width);
+            }
+            if (!current.isEmpty() && current.length() + 1 + word.length() > width) {
+                rows.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append(' ');
+            }
+            current.append(word);
+        }
+        rows.add(current.toString());
+        return rows;
+    }
+
+    // ---- PDF en papel de 80 mm ----
+
+    private byte[] renderPdf(List<PrintLine> lines) {
+        try (PDDocument document = new PDDocument()) {
+            addPdfPage(document, lines);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Una página por recibo, con la altura justa para su contenido
+    private void addPdfPage(PDDocument document, List<PrintLine> lines) throws IOException {
+        float contentWidth = PAPER_WIDTH - 2 * MARGIN;
+        List<PrintLine> rows = new ArrayList<>();
+        for (PrintLine line : lines) {
+            if (line.separator() || line.right() != null) {
+                rows.add(line);
+                continue;
+            }
+            PDFont font = line.bold() ? PdfReportWriter.BOLD : PdfReportWriter.REGULAR;
+            for (String text : wrapPdf(line.left(), font, contentWidth)) {
+                rows.add(new PrintLine(text, null, line.centered(), line.bold(), false));
+            }
+        }
+
+        PDPage page = new PDPage(new PDRectangle(PAPER_WIDTH, 2 * MARGIN + rows.size() * LINE_HEIGHT));
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            float y = page.getMediaBox().getHeight() - MARGIN - FONT_SIZE;
+            for (PrintLine row : rows) {
+                PDFont font = row.bold() ? PdfReportWriter.BOLD : PdfReportWriter.REGULAR;
+                if (row.separator()) {
+                    content.setLineWidth(0.5f);
+                    content.setLineDashPattern(new float[]{2, 2}, 0);
+                    content.moveTo(MARGIN, y + FONT_SIZE / 2 - 1);
+                    content.lineTo(PAPER_WIDTH - MARGIN, y + FONT_SIZE / 2 - 1);
+                    content.stroke();
+                } else if (row.right() != null) {
+                    String right = PdfReportWriter.sanitize(row.right(), font);
+                    float rightWidth = PdfReportWriter.width(right, font, FONT_SIZE);
+                    String left = PdfReportWriter.fit(row.left(), font, FONT_SIZE, contentWidth - rightWidth - 6);
+                    drawText(content, left, font, MARGIN, y);
+                    drawText(content, right, font, PAPER_WIDTH - MARGIN - rightWidth, y);
+                } else {
+                    String text = PdfReportWriter.fit(row.left(), font, FONT_SIZE, contentWidth);
+                    float x = row.centered()
+                            ? (PAPER_WIDTH - PdfReportWriter.width(text, font, FONT_SIZE)) / 2
+                            : MARGIN;
+                    drawText(content, text, font, x, y);
+                }
+                y -= LINE_HEIGHT;
+            }
+        }
+    }
+
+    private static List<String> wrapPdf(String text, PDFont font, float maxWidth) throws IOException {
+        List<String> rows = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String word : text.split(" ")) {
+            String candidate = current.isEmpty() ? word : current + " " + word;
+            if (current.isEmpty() || PdfReportWriter.width(candidate, font, FONT_SIZE) <= maxWidth) {
+                current.setLength(0);
+                current.append(candidate);
+            } else {
+                rows.add(current.toString());
+                current.setLength(0);
+                current.append(word);
+            }
+        }
+        rows.add(current.toString());
+        return rows;
+    }
+
+    private static void drawText(PDPageContentStream content, String text, PDFont font, float x, float y) throws IOException {
+        content.beginText();
+        content.setFont(font, FONT_SIZE);
+        content.newLineAtOffset(x, y);
+        content.showText(PdfReportWriter.sanitize(text, font));
+        content.endText();
+    }
+
+    private static String formatCurrency(double amount) {
+        return String.format("$%,.2f", amount);
+    }
+
+    private static String paymentMethodLabel(PaymentMethod method) {
+        if (method == null) {
+            return "";
+        }
+        return switch (method) {
+            case CASH -> "Efectivo";
+            case NEQUI -> "Nequi";
+            case DAVIPLATA -> "Daviplata";
+            case BANK_TRANSFER -> "Transferencia bancaria";
+            case CARD -> "Tarjeta";
+        };
+    }
+
+    private static String orderKey(Long orderId) {
+        return "ORDER:" + orderId;
+    }
+
+    private static String deliveryKey(Long deliveryId) {
+        return "DELIVERY:" + deliveryId;
+    }
+
+    /**
+     * Datos de un recibo ya armados con la plantilla (no dependen de la sesión JPA)
+     */
+    private record ReceiptData(String key, LocalTime time, List<PrintLine> lines) {
+    }
+}
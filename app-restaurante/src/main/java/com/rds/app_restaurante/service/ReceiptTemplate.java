@@ -0,0 +1,132 @@
+package com.rds.app_restaurante.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plantilla de recibo ya interpretada: cada línea queda como una lista de literales y campos,
+ * así que armar un recibo solo concatena valores sin volver a analizar el texto.
+ *
+ * Sintaxis por línea: "^" centrado, "!" negrita, "izquierda | derecha" en dos columnas,
+ * "---" separador, "{{items}}" detalle de productos, "{campo}" valor y "#" comentario.
+ */
+final class ReceiptTemplate {
+
+    private static final String ITEMS = "{{items}}";
+    private static final String SEPARATOR = "---";
+
+    /**
+     * Línea lista para imprimir; right es null en las líneas de una sola columna
+     */
+    record PrintLine(String left, String right, boolean centered, boolean bold, boolean separator) {
+        static PrintLine pair(String left, String right) {
+            return new PrintLine(left, right, false, false, false);
+        }
+    }
+
+    private enum Kind { TEXT, SEPARATOR, ITEMS }
+
+    private record Segment(String literal, String field) {
+    }
+
+    private record Line(Kind kind, boolean centered, boolean bold, List<Segment> left, List<Segment> right) {
+    }
+
+    private final List<Line> lines;
+
+    private ReceiptTemplate(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    static ReceiptTemplate parse(String source) {
+        List<Line> lines = new ArrayList<>();
+        for (String raw : source.split("\\R")) {
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.equals(SEPARATOR)) {
+                lines.add(new Line(Kind.SEPARATOR, false, false, List.of(), null));
+                continue;
+            }
+            if (line.equals(ITEMS)) {
+                lines.add(new Line(Kind.ITEMS, false, false, List.of(), null));
+                continue;
+            }
+            boolean centered = false;
+            boolean bold = false;
+            while (line.startsWith("^") || line.startsWith("!")) {
+                centered |= line.charAt(0) == '^';
+                bold |= line.charAt(0) == '!';
+                line = line.substring(1);
+            }
+            int pipe = line.indexOf(" | ");
+            List<Segment> left = parseSegments(pipe >= 0 ? line.substring(0, pipe) : line);
+            List<Segment> right = pipe >= 0 ? parseSegments(line.substring(pipe + 3)) : null;
+            lines.add(new Line(Kind.TEXT, centered, bold, left, right));
+        }
+        return new ReceiptTemplate(List.copyOf(lines));
+    }
+
+    /**
+     * Arma las líneas del recibo con los valores y el detalle de productos
+     */
+    List<PrintLine> layout(Map<String, String> values, List<PrintLine> items) {
+        List<PrintLine> result = new ArrayList<>(lines.size() + items.size());
+        for (Line line : lines) {
+            switch (line.kind()) {
+                case SEPARATOR -> result.add(new PrintLine("", null, false, false, true));
+                case ITEMS -> result.addAll(items);
+                case TEXT -> {
+                    String left = render(line.left(), values);
+                    String right = line.right() != null ? render(line.right(), values) : null;
+                    if (left == null || (line.right() != null && right == null)) {
+                        continue;
+                    }
+                    result.add(new PrintLine(left, right, line.centered(), line.bold(), false));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<Segment> parseSegments(String text) {
+        List<Segment> segments = new ArrayList<>();
+        int position = 0;
+        while (position < text.length()) {
+            int open = text.indexOf('{', position);
+            int close = open >= 0 ? text.indexOf('}', open) : -1;
+            if (open < 0 || close < 0) {
+                segments.add(new Segment(text.substring(position), null));
+                break;
+            }
+            if (open > position) {
+                segments.add(new Segment(text.substring(position, open), null));
+            }
+            segments.add(new Segment(null, text.substring(open + 1, close)));
+            position = close + 1;
+        }
+        return List.copyOf(segments);
+    }
+
+    // Devuelve null si la línea tiene campos y todos quedaron vacíos
+    private static String render(List<Segment> segments, Map<String, String> values) {
+        StringBuilder builder = new StringBuilder();
+        boolean hasFields = false;
+        boolean anyValue = false;
+        for (Segment segment : segments) {
+            if (segment.field() == null) {
+                builder.append(segment.literal());
+                continue;
+            }
+            hasFields = true;
+            String value = values.get(segment.field());
+            if (value != null && !value.isBlank()) {
+                builder.append(value);
+                anyValue = true;
+            }
+        }
+        return hasFields && !anyValue ? null : builder.toString();
+    }
+}
@@ -23,6 +23,8 @@ public class ReservationService {
     private final ReservationRepository reservationRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final PeriodCloseService periodCloseService;
+    private final ExportCacheService exportCacheService;
 
     public List<ReservationResponse> getAllReservations() {
         return reservationRepository.findAll().stream()
@@ -69,6 +71,8 @@ public class ReservationService {
         );
 
         Reservation savedReservation = reservationRepository.save(reservation);
+        periodCloseService.reopen(savedReservation.getDate());
+        exportCacheService.markBusinessChanged();
 
         // Actualizar estadísticas del usuario
         user.setNumberOfReservations(user.getNumberOfReservations() + 1);
@@ -101,6 +105,9 @@ public class ReservationService {
         boolean wasConfirmed = reservation.isStatus();
         reservation.setStatus(true);
         Reservation confirmedReservation = reservationRepository.save(reservation);
+        if (!wasConfirmed) {
+            periodCloseService.reopen(confirmedReservation.getDate());
+        }
         
         // Enviar email de confirmación si la reserva acaba de ser confirmada
         if (!wasConfirmed) {
@@ -125,10 +132,11 @@ public class ReservationService {
 
     @Transactional
     public void deleteReservation(Long id) {
-        if (!reservationRepository.existsById(id)) {
-            throw new RuntimeException("Reserva no encontrada con id: " + id);
-        }
+        Reservation reservation = reservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reserva no encontrada con id: " + id));
         reservationRepository.deleteById(id);
+        periodCloseService.reopen(reservation.getDate());
+        exportCacheService.markBusinessChanged();
     }
 
     private ReservationResponse mapToResponse(Reservation reservation) {
@@ -7,6 +7,7 @@ import com.rds.app_restaurante.model.User;
 import com.rds.app_restaurante.repository.RewardProductRepository;
 import com.rds.app_restaurante.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +20,7 @@ public class RewardProductService {
 
     private final RewardProductRepository rewardProductRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<RewardProductResponse> getAllRewardProducts() {
@@ -52,6 +54,7 @@ public class RewardProductService {
                 rewardProductRequest.getIsActive()
         );
         RewardProduct savedRewardProduct = rewardProductRepository.save(rewardProduct);
+        eventPublisher.publishEvent(new CatalogChangedEvent("rewardProduct"));
         return mapToResponse(savedRewardProduct);
     }
 
@@ -68,6 +71,7 @@ public class RewardProductService {
         rewardProduct.setIsActive(rewardProductRequest.getIsActive());
 
         RewardProduct updatedRewardProduct = rewardProductRepository.save(rewardProduct);
+        eventPublisher.publishEvent(new CatalogChangedEvent("rewardProduct"));
         return mapToResponse(updatedRewardProduct);
     }
 
@@ -77,6 +81,7 @@ public class RewardProductService {
             throw new RuntimeException("Producto de recompensa no encontrado con id: " + id);
         }
         rewardProductRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent("rewardProduct"));
     }
 
     @Transactional
@@ -111,6 +116,7 @@ public class RewardProductService {
 
         userRepository.save(user);
         rewardProductRepository.save(rewardProduct);
+        eventPublisher.publishEvent(new CatalogChangedEvent("rewardProduct"));
 
         return mapToResponse(rewardProduct);
     }
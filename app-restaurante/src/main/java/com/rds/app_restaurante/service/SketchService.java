@@ -0,0 +1,343 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.dto.DistinctCustomersResponse;
+import com.rds.app_restaurante.dto.ProductPopularityResponse;
+import com.rds.app_restaurante.model.*;
+import com.rds.app_restaurante.repository.DailySketchRepository;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import com.rds.app_restaurante.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sketches diarios para analítica de alta cardinalidad: HyperLogLog de clientes distintos y
+ * Count-Min con heavy hitters de unidades por producto. Cada día ocupa unos pocos KB sin
+ * importar el tráfico, los días se combinan para cualquier rango y se persisten en la BD.
+ * Cada instancia acumula en memoria solo los cambios aún no guardados y al guardarlos los combina
+ * con la fila de la BD bloqueada (máximo por registro en HLL, suma de contadores en Count-Min),
+ * así varias instancias pueden registrar el mismo día sin pisarse.
+ */
+@Service
+@Slf4j
+public class SketchService {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 5;
+
+    private final DailySketchRepository dailySketchRepository;
+    private final OrderRepository orderRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Cambios de cada día aún no guardados en la BD
+    private final Map<LocalDate, DaySketch> pendingDays = new ConcurrentHashMap<>();
+    // Registros terminados y en pleno commit, para saber si una reconstrucción coincidió con alguno
+    private final TransactionHooks.WriteWindow records = new TransactionHooks.WriteWindow();
+
+    public SketchService(DailySketchRepository dailySketchRepository,
+                         OrderRepository orderRepository,
+                         DeliveryRepository deliveryRepository,
+                         ProductRepository productRepository,
+                         PlatformTransactionManager transactionManager) {
+        this.dailySketchRepository = dailySketchRepository;
+        this.orderRepository = orderRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.productRepository = productRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Registra un pedido recién creado (después del commit si hay transacción activa)
+     */
+    public void recordOrder(Order order) {
+        if (order == null || order.getDate() == null) {
+            return;
+        }
+        Long userId = order.getUser() != null ? order.getUser().getId() : null;
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        records.afterCommit(() -> record(order.getDate(), userId, quantities));
+    }
+
+    /**
+     * Registra un domicilio recién creado (después del commit si hay transacción activa)
+     */
+    public void recordDelivery(Delivery delivery) {
+        if (delivery == null || delivery.getDate() == null) {
+            return;
+        }
+        Long userId = delivery.getUser() != null ? delivery.getUser().getId() : null;
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (DeliveryItem item : delivery.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        records.afterCommit(() -> record(delivery.getDate(), userId, quantities));
+    }
+
+    /**
+     * Clientes distintos estimados por día y en todo el rango
+     */
+    @Transactional(readOnly = true)
+    public DistinctCustomersResponse getDistinctCustomers(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DaySketch> days = loadRange(startDate, endDate);
+        HyperLogLog merged = new HyperLogLog();
+        Map<LocalDate, Long> dailyEstimates = new TreeMap<>();
+        for (Map.Entry<LocalDate, DaySketch> entry : days.entrySet()) {
+            merged.merge(entry.getValue().users);
+            dailyEstimates.put(entry.getKey(), entry.getValue().users.estimate());
+        }
+        return DistinctCustomersResponse.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .estimatedDistinctCustomers(merged.estimate())
+                .dailyEstimates(dailyEstimates)
+                .build();
+    }
+
+    /**
+     * Productos más pedidos del rango según los sketches combinados
+     */
+    @Transactional(readOnly = true)
+    public List<ProductPopularityResponse> getTopProducts(LocalDate startDate, LocalDate endDate, int limit) {
+        CountMinSketch merged = new CountMinSketch();
+        for (DaySketch day : loadRange(startDate, endDate).values()) {
+            merged.merge(day.products);
+        }
+        List<Map.Entry<Long, Long>> top = merged.topItems(limit);
+        Map<Long, Product> products = productRepository.findAllById(
+                        top.stream().map(Map.Entry::getKey).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return top.stream()
+                .map(entry -> ProductPopularityResponse.builder()
+                        .productId(entry.getKey())
+                        .productName(products.containsKey(entry.getKey())
+                                ? products.get(entry.getKey()).getName() : "Producto eliminado")
+                        .estimatedQuantity(entry.getValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reconstruye los sketches de un rango desde pedidos y domicilios, solo para los días anteriores
+     * al primer sketch registrado en línea: desde ese día otras instancias pueden tener cambios sin
+     * guardar que la lectura ya incluye y que se sumarían dos veces al guardarlos.
+     * Un pedido confirmado mientras se leía la BD podría quedar contado dos veces o ninguna, así que
+     * en ese caso se repite la lectura.
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        LocalDate firstRecorded = readOnlyTransaction.execute(status -> dailySketchRepository
+                .findFirstByRebuiltFalseOrderBySketchDateAsc()
+                .map(DailySketch::getSketchDate)
+                .filter(date -> date.isBefore(LocalDate.now()))
+                .orElse(LocalDate.now()));
+        LocalDate lastDay = endDate.isBefore(firstRecorded) ? endDate : firstRecorded.minusDays(1);
+        if (lastDay.isBefore(startDate)) {
+            log.info("Nada que reconstruir entre {} y {}: los sketches se registran en línea desde {}",
+                    startDate, endDate, firstRecorded);
+            return 0;
+        }
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            long recordsBefore = records.open();
+            // Lo pendiente del rango ya está confirmado en la BD: la lectura lo incluye
+            pendingDays.keySet().removeIf(date -> !date.isBefore(startDate) && !date.isAfter(lastDay));
+            Map<LocalDate, DaySketch> rebuilt = readOnlyTransaction.execute(status -> readRange(startDate, lastDay));
+            if (records.isQuiet(recordsBefore)) {
+                rebuilt.forEach(this::replaceStored);
+                log.info("Sketches reconstruidos para {} días ({} a {})", rebuilt.size(), startDate, lastDay);
+                return rebuilt.size();
+            }
+            try {
+                Thread.sleep(100L * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IllegalStateException("Hubo pedidos nuevos durante cada intento, intente de nuevo");
+    }
+
+    private Map<LocalDate, DaySketch> readRange(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DaySketch> rebuilt = new TreeMap<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            rebuilt.put(date, new DaySketch());
+        }
+        for (Order order : orderRepository.findByDateBetween(startDate, endDate)) {
+            DaySketch day = rebuilt.get(order.getDate());
+            if (order.getUser() != null) {
+                day.users.add(order.getUser().getId());
+            }
+            for (OrderItem item : order.getItems()) {
+                day.products.add(item.getProduct().getId(), item.getQuantity());
+            }
+        }
+        for (Delivery delivery : deliveryRepository.findByDateBetween(startDate, endDate)) {
+            DaySketch day = rebuilt.get(delivery.getDate());
+            if (delivery.getUser() != null) {
+                day.users.add(delivery.getUser().getId());
+            }
+            for (DeliveryItem item : delivery.getItems()) {
+                day.products.add(item.getProduct().getId(), item.getQuantity());
+            }
+        }
+        return rebuilt;
+    }
+
+    // Guardar cada 5 minutos los cambios pendientes combinándolos con lo ya guardado
+    @Scheduled(cron = "0 */5 * * * ?")
+    @PreDestroy
+    public void flush() {
+        for (Map.Entry<LocalDate, DaySketch> entry : pendingDays.entrySet()) {
+            DaySketch day = entry.getValue();
+            DaySketch pending;
+            synchronized (day) {
+                pending = day.drain();
+            }
+            if (pending == null) {
+                // Se libera si no llegó nada nuevo desde el último guardado
+                pendingDays.computeIfPresent(entry.getKey(), (date, current) -> current.dirty ? current : null);
+                continue;
+            }
+            try {
+                mergeStored(entry.getKey(), pending);
+            } catch (Exception e) {
+                // Se conservan los cambios para el siguiente intento
+                synchronized (day) {
+                    day.absorb(pending);
+                }
+                log.warn("No se pudo guardar el sketch del {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void record(LocalDate date, Long userId, Map<Long, Integer> quantities) {
+        try {
+            // compute es atómico por día frente a la liberación en flush()
+            pendingDays.compute(date, (key, day) -> {
+                DaySketch target = day != null ? day : new DaySketch();
+                synchronized (target) {
+                    if (userId != null) {
+                        target.users.add(userId);
+                    }
+                    quantities.forEach(target.products::add);
+                    target.dirty = true;
+                }
+                return target;
+            });
+        } catch (Exception e) {
+            log.warn("No se pudo actualizar el sketch del {}: {}", date, e.getMessage());
+        }
+    }
+
+    private Map<LocalDate, DaySketch> loadRange(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DaySketch> days = new TreeMap<>();
+        for (DailySketch stored : dailySketchRepository.findBySketchDateBetween(startDate, endDate)) {
+            days.put(stored.getSketchDate(), DaySketch.from(stored));
+        }
+        // Se suman los cambios de esta instancia aún no guardados
+        pendingDays.forEach((date, day) -> {
+            if (!date.isBefore(startDate) && !date.isAfter(endDate)) {
+                DaySketch merged = days.computeIfAbsent(date, key -> new DaySketch());
+                synchronized (day) {
+                    merged.absorb(day);
+                }
+            }
+        });
+        return days;
+    }
+
+    // Combina los cambios con la fila bloqueada; si otra instancia la creó a la vez se reintenta
+    private void mergeStored(LocalDate date, DaySketch pending) {
+        try {
+            transaction.executeWithoutResult(status -> writeLocked(date, pending, true));
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            transaction.executeWithoutResult(status -> writeLocked(date, pending, true));
+        }
+    }
+
+    // Sustituye lo guardado por el sketch reconstruido desde pedidos y domicilios
+    private void replaceStored(LocalDate date, DaySketch rebuilt) {
+        try {
+            transaction.executeWithoutResult(status -> writeLocked(date, rebuilt, false));
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            transaction.executeWithoutResult(status -> writeLocked(date, rebuilt, false));
+        }
+    }
+
+    private void writeLocked(LocalDate date, DaySketch sketch, boolean merge) {
+        Optional<DailySketch> stored = dailySketchRepository.findBySketchDateForUpdate(date);
+        DaySketch result = new DaySketch();
+        if (merge && stored.isPresent()) {
+            result.absorb(DaySketch.from(stored.get()));
+        }
+        result.absorb(sketch);
+        DailySketch entity = stored.orElseGet(() -> DailySketch.builder().sketchDate(date).build());
+        entity.setDistinctUsers(result.users.toBytes());
+        entity.setProductCounts(result.products.toBytes());
+        entity.setTopProductIds(result.products.candidatesToString());
+        if (!merge) {
+            entity.setRebuilt(true);
+        }
+        dailySketchRepository.saveAndFlush(entity);
+    }
+
+    /**
+     * Sketches de un día; se sincroniza sobre la propia instancia
+     */
+    private static class DaySketch {
+        private HyperLogLog users;
+        private CountMinSketch products;
+        private boolean dirty;
+
+        DaySketch() {
+            this(new HyperLogLog(), new CountMinSketch());
+        }
+
+        DaySketch(HyperLogLog users, CountMinSketch products) {
+            this.users = users;
+            this.products = products;
+        }
+
+        static DaySketch from(DailySketch stored) {
+            return new DaySketch(HyperLogLog.fromBytes(stored.getDistinctUsers()),
+                    CountMinSketch.fromBytes(stored.getProductCounts(), stored.getTopProductIds()));
+        }
+
+        // Entrega los cambios acumulados (null si no hay) y deja el día vacío
+        DaySketch drain() {
+            if (!dirty) {
+                return null;
+            }
+            DaySketch drained = new DaySketch(users, products);
+            users = new HyperLogLog();
+            products = new CountMinSketch();
+            dirty = false;
+            return drained;
+        }
+
+        void absorb(DaySketch other) {
+            users.merge(other.users);
+            products.merge(other.products);
+            dirty = true;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.rds.app_restaurante.service;
 
+import com.rds.app_restaurante.config.SingleFlight;
 import com.rds.app_restaurante.dto.*;
 import com.rds.app_restaurante.model.User;
 import com.rds.app_restaurante.model.Order;
 import com.rds.app_restaurante.model.Delivery;
+import com.rds.app_restaurante.model.PeriodSnapshot;
 import com.rds.app_restaurante.model.Transaction;
 import com.rds.app_restaurante.model.TransactionType;
 import com.rds.app_restaurante.repository.*;
@@ -17,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -34,10 +37,14 @@ public class StatisticsService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final BalanceService balanceService;
+    private final PeriodCloseService periodCloseService;
+    private final LedgerRangeIndex ledgerRangeIndex;
+    private final LedgerColumnStore ledgerColumnStore;
 
     @Transactional(readOnly = true)
     // Cache deshabilitado para obtener siempre datos actualizados de la BD
     // @Cacheable(value = "statistics", key = "'financial_' + #startDate + '_' + #endDate", unless = "#result == null")
+    @SingleFlight
     public FinancialStatsResponse getFinancialStats(LocalDate startDate, LocalDate endDate) {
         try {
             log.info("Calculating financial statistics from {} to {} (hoy: {})", startDate, endDate, LocalDate.now());
@@ -49,123 +56,252 @@ public class StatisticsService {
                 log.debug("Ajustando endDate de {} a {} para incluir el día actual", endDate, effectiveEndDate);
             }
             
-            // Calcular ingresos y gastos desde las transacciones del balance (fuente de verdad)
-            BigDecimal totalRevenue = BigDecimal.ZERO;
-            BigDecimal ordersRevenue = BigDecimal.ZERO;
-            BigDecimal deliveriesRevenue = BigDecimal.ZERO;
-            BigDecimal totalExpenses = BigDecimal.ZERO;
-            
-            try {
-                if (balanceService != null) {
-                    LocalDateTime startDateTime = startDate.atStartOfDay();
-                    LocalDateTime endDateTime = effectiveEndDate.plusDays(1).atStartOfDay().minusSeconds(1);
-                    
-                    List<Transaction> transactions = balanceService.getTransactionsBetweenDates(startDateTime, endDateTime);
-                    
-                    for (Transaction transaction : transactions) {
-                        LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
-                        if (!transactionDate.isBefore(startDate) && !transactionDate.isAfter(effectiveEndDate)) {
-                            if (transaction.getTransactionType() == TransactionType.INCOME) {
-                                totalRevenue = totalRevenue.add(transaction.getAmount());
-                                // Separar por tipo de referencia
-                                if ("ORDER".equals(transaction.getReferenceType())) {
-                                    ordersRevenue = ordersRevenue.add(transaction.getAmount());
-                                } else if ("DELIVERY".equals(transaction.getReferenceType())) {
-                                    deliveriesRevenue = deliveriesRevenue.add(transaction.getAmount());
-                                }
-                            } else if (transaction.getTransactionType() == TransactionType.EXPENSE || 
-                                       transaction.getTransactionType() == TransactionType.SALARY_PAYMENT) {
-                                totalExpenses = totalExpenses.add(transaction.getAmount());
-                            }
-                        }
-                    }
-                    
-                    log.debug("Revenue desde balance: Total={}, Orders={}, Deliveries={}, Expenses={}", 
-                        totalRevenue, ordersRevenue, deliveriesRevenue, totalExpenses);
-                } else {
-                    log.warn("BalanceService no disponible, usando métodos antiguos");
-                    // Fallback a métodos antiguos si balanceService no está disponible
-                    ordersRevenue = orderRepository.getTotalRevenueBetweenDates(startDate, effectiveEndDate);
-                    if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
-                    deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(startDate, effectiveEndDate);
-                    if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
-                    totalRevenue = ordersRevenue.add(deliveriesRevenue);
-                    totalExpenses = expenseRepository.getTotalExpensesBetweenDates(startDate, effectiveEndDate);
-                    if (totalExpenses == null) totalExpenses = BigDecimal.ZERO;
-                }
-            } catch (Exception e) {
-                log.error("Error calculando desde balance, usando métodos antiguos: {}", e.getMessage(), e);
-                // Fallback a métodos antiguos en caso de error
-                try {
-                    ordersRevenue = orderRepository.getTotalRevenueBetweenDates(startDate, effectiveEndDate);
-                    if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
-                    deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(startDate, effectiveEndDate);
-                    if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
-                    totalRevenue = ordersRevenue.add(deliveriesRevenue);
-                    totalExpenses = expenseRepository.getTotalExpensesBetweenDates(startDate, effectiveEndDate);
-                    if (totalExpenses == null) totalExpenses = BigDecimal.ZERO;
-                } catch (Exception ex) {
-                    log.error("Error en fallback de cálculo de estadísticas: {}", ex.getMessage(), ex);
-                    totalRevenue = BigDecimal.ZERO;
-                    ordersRevenue = BigDecimal.ZERO;
-                    deliveriesRevenue = BigDecimal.ZERO;
-                    totalExpenses = BigDecimal.ZERO;
-                }
+            // Los días ya cerrados se leen desde su snapshot; solo se calcula en vivo el resto
+            Map<LocalDate, PeriodSnapshot> closedDays = periodCloseService.getClosedDailySnapshots(startDate, effectiveEndDate);
+            if (closedDays.isEmpty()) {
+                return calculateFinancialStats(startDate, effectiveEndDate);
             }
+            log.debug("Usando {} días cerrados desde snapshots para [{}, {}]", closedDays.size(), startDate, effectiveEndDate);
+            return mergeFinancialStats(startDate, effectiveEndDate, closedDays);
+        } catch (Exception e) {
+            log.error("Error general en getFinancialStats: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al calcular estadísticas financieras: " + e.getMessage(), e);
+        }
+    }
 
-            // Calcular ganancia neta
-            BigDecimal netProfit = totalRevenue.subtract(totalExpenses);
+    /**
+     * Combina los snapshots de los días cerrados con el cálculo en vivo de los días abiertos
+     */
+    private FinancialStatsResponse mergeFinancialStats(LocalDate startDate, LocalDate endDate,
+                                                       Map<LocalDate, PeriodSnapshot> closedDays) {
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal ordersRevenue = BigDecimal.ZERO;
+        BigDecimal deliveriesRevenue = BigDecimal.ZERO;
+        BigDecimal totalExpenses = BigDecimal.ZERO;
+        Map<String, BigDecimal> categoryTotals = new HashMap<>();
+        List<DailyStatsResponse> dailyStats = new ArrayList<>();
 
-            // Gastos por categoría
-            List<CategoryExpenseResponse> expensesByCategory = new ArrayList<>();
-            try {
-                List<Object[]> expensesByCategoryData = expenseRepository.getExpensesByCategoryBetweenDates(startDate, effectiveEndDate);
-                expensesByCategory = expensesByCategoryData.stream()
-                        .map(row -> {
-                            String category = (String) row[0];
-                            BigDecimal amount = (BigDecimal) row[1];
-                            return CategoryExpenseResponse.builder()
-                                    .category(category)
-                                    .totalAmount(amount)
-                                    .build();
-                        })
-                        .collect(Collectors.toList());
-            } catch (Exception e) {
-                log.error("Error obteniendo gastos por categoría: {}", e.getMessage(), e);
-                expensesByCategory = new ArrayList<>();
+        for (PeriodSnapshot snapshot : closedDays.values()) {
+            totalRevenue = totalRevenue.add(snapshot.getTotalRevenue());
+            ordersRevenue = ordersRevenue.add(snapshot.getOrdersRevenue());
+            deliveriesRevenue = deliveriesRevenue.add(snapshot.getDeliveriesRevenue());
+            totalExpenses = totalExpenses.add(snapshot.getTotalExpenses());
+            for (CategoryExpenseResponse category : periodCloseService.readExpensesByCategory(snapshot)) {
+                categoryTotals.merge(category.getCategory(), category.getTotalAmount(), BigDecimal::add);
             }
+            dailyStats.add(DailyStatsResponse.builder()
+                    .date(snapshot.getPeriodStart())
+                    .revenue(snapshot.getTotalRevenue())
+                    .expenses(snapshot.getTotalExpenses())
+                    .profit(snapshot.getTotalRevenue().subtract(snapshot.getTotalExpenses()))
+                    .ordersCount(snapshot.getOrdersCount())
+                    .deliveriesCount(snapshot.getDeliveriesCount())
+                    .build());
+        }
 
-            // Estadísticas diarias - incluir desde startDate hasta effectiveEndDate completo
-            // Esto asegura que siempre incluya el día actual si está en el rango
-            List<DailyStatsResponse> dailyStats = new ArrayList<>();
-            try {
-                dailyStats = generateDailyStatsOptimized(startDate, effectiveEndDate);
-                log.debug("Daily stats generadas: {} días desde {} hasta {}", dailyStats.size(), startDate, effectiveEndDate);
-            } catch (Exception e) {
-                log.error("Error generando estadísticas diarias: {}", e.getMessage(), e);
-                dailyStats = new ArrayList<>();
+        for (LocalDate[] segment : getOpenSegments(startDate, endDate, closedDays.keySet())) {
+            FinancialStatsResponse live = calculateFinancialStats(segment[0], segment[1]);
+            totalRevenue = totalRevenue.add(live.getTotalRevenue());
+            ordersRevenue = ordersRevenue.add(live.getOrdersRevenue());
+            deliveriesRevenue = deliveriesRevenue.add(live.getDeliveriesRevenue());
+            totalExpenses = totalExpenses.add(live.getTotalExpenses());
+            for (CategoryExpenseResponse category : live.getExpensesByCategory()) {
+                categoryTotals.merge(category.getCategory(), category.getTotalAmount(), BigDecimal::add);
             }
+            dailyStats.addAll(live.getDailyStats());
+        }
 
-            return FinancialStatsResponse.builder()
-                    .totalRevenue(totalRevenue)
-                    .totalExpenses(totalExpenses)
-                    .netProfit(netProfit)
-                    .startDate(startDate)
-                    .endDate(effectiveEndDate)
-                    .ordersRevenue(ordersRevenue)
-                    .deliveriesRevenue(deliveriesRevenue)
-                    .expensesByCategory(expensesByCategory)
-                    .dailyStats(dailyStats)
-                    .build();
+        List<CategoryExpenseResponse> expensesByCategory = categoryTotals.entrySet().stream()
+                .map(entry -> CategoryExpenseResponse.builder()
+                        .category(entry.getKey())
+                        .totalAmount(entry.getValue())
+                        .build())
+                .collect(Collectors.toList());
+        dailyStats.sort((a, b) -> a.getDate().compareTo(b.getDate()));
+
+        return FinancialStatsResponse.builder()
+                .totalRevenue(totalRevenue)
+                .totalExpenses(totalExpenses)
+                .netProfit(totalRevenue.subtract(totalExpenses))
+                .startDate(startDate)
+                .endDate(endDate)
+                .ordersRevenue(ordersRevenue)
+                .deliveriesRevenue(deliveriesRevenue)
+                .expensesByCategory(expensesByCategory)
+                .dailyStats(dailyStats)
+                .build();
+    }
+
+    /**
+     * Tramos contiguos del rango que no están cubiertos por un snapshot cerrado
+     */
+    private List<LocalDate[]> getOpenSegments(LocalDate startDate, LocalDate endDate, Set<LocalDate> closedDays) {
+        List<LocalDate[]> segments = new ArrayList<>();
+        LocalDate segmentStart = null;
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            boolean closed = closedDays.contains(day);
+            if (!closed && segmentStart == null) {
+                segmentStart = day;
+            }
+            if (segmentStart != null && (closed || day.equals(endDate))) {
+                segments.add(new LocalDate[]{segmentStart, closed ? day.minusDays(1) : day});
+                segmentStart = null;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Totales del balance para un rango, desde la fuente más barata disponible: índice en memoria,
+     * escaneo del almacén columnar, transacciones del balance y, si todo falla, las tablas de
+     * pedidos, entregas y gastos. Los conteos solo los trae el índice (0 en las demás fuentes).
+     */
+    private LedgerRangeIndex.RangeTotals getLedgerTotals(LocalDate startDate, LocalDate endDate) {
+        Optional<LedgerRangeIndex.RangeTotals> indexed = ledgerRangeIndex.getTotals(startDate, endDate)
+                .or(() -> getColumnStoreTotals(startDate, endDate));
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        try {
+            if (balanceService != null) {
+                return getBalanceTotals(startDate, endDate);
+            }
+            log.warn("BalanceService no disponible, usando métodos antiguos");
         } catch (Exception e) {
-            log.error("Error general en getFinancialStats: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al calcular estadísticas financieras: " + e.getMessage(), e);
+            log.error("Error calculando desde balance, usando métodos antiguos: {}", e.getMessage(), e);
+        }
+        return getLegacyTotals(startDate, endDate);
+    }
+
+    // Escaneo del almacén columnar (sin hidratar transacciones); vacío si no está listo
+    private Optional<LedgerRangeIndex.RangeTotals> getColumnStoreTotals(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusNanos(1);
+        Optional<Map<String, BigDecimal>> income = ledgerColumnStore.sumByReferenceType(
+                startDateTime, endDateTime, TransactionType.INCOME);
+        Optional<BigDecimal> expenses = ledgerColumnStore.sum(
+                startDateTime, endDateTime, TransactionType.EXPENSE, TransactionType.SALARY_PAYMENT);
+        if (income.isEmpty() || expenses.isEmpty()) {
+            return Optional.empty();
+        }
+        BigDecimal revenue = income.get().values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        return Optional.of(new LedgerRangeIndex.RangeTotals(startDate, endDate, revenue,
+                income.get().getOrDefault("ORDER", BigDecimal.ZERO),
+                income.get().getOrDefault("DELIVERY", BigDecimal.ZERO),
+                expenses.get(), 0L, 0L));
+    }
+
+    // Transacciones del balance (fuente de verdad) cargadas desde la BD
+    private LedgerRangeIndex.RangeTotals getBalanceTotals(LocalDate startDate, LocalDate endDate) {
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal ordersRevenue = BigDecimal.ZERO;
+        BigDecimal deliveriesRevenue = BigDecimal.ZERO;
+        BigDecimal totalExpenses = BigDecimal.ZERO;
+
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusSeconds(1);
+        for (Transaction transaction : balanceService.getTransactionsBetweenDates(startDateTime, endDateTime)) {
+            LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
+            if (transactionDate.isBefore(startDate) || transactionDate.isAfter(endDate)) {
+                continue;
+            }
+            if (transaction.getTransactionType() == TransactionType.INCOME) {
+                totalRevenue = totalRevenue.add(transaction.getAmount());
+                // Separar por tipo de referencia
+                if ("ORDER".equals(transaction.getReferenceType())) {
+                    ordersRevenue = ordersRevenue.add(transaction.getAmount());
+                } else if ("DELIVERY".equals(transaction.getReferenceType())) {
+                    deliveriesRevenue = deliveriesRevenue.add(transaction.getAmount());
+                }
+            } else if (transaction.getTransactionType() == TransactionType.EXPENSE ||
+                       transaction.getTransactionType() == TransactionType.SALARY_PAYMENT) {
+                totalExpenses = totalExpenses.add(transaction.getAmount());
+            }
+        }
+
+        log.debug("Totales desde balance para [{}, {}]: Total={}, Orders={}, Deliveries={}, Expenses={}",
+                startDate, endDate, totalRevenue, ordersRevenue, deliveriesRevenue, totalExpenses);
+        return new LedgerRangeIndex.RangeTotals(startDate, endDate, totalRevenue,
+                ordersRevenue, deliveriesRevenue, totalExpenses, 0L, 0L);
+    }
+
+    // Métodos antiguos desde las tablas de pedidos, entregas y gastos
+    private LedgerRangeIndex.RangeTotals getLegacyTotals(LocalDate startDate, LocalDate endDate) {
+        try {
+            BigDecimal ordersRevenue = orderRepository.getTotalRevenueBetweenDates(startDate, endDate);
+            if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
+            BigDecimal deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(startDate, endDate);
+            if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
+            BigDecimal totalExpenses = expenseRepository.getTotalExpensesBetweenDates(startDate, endDate);
+            if (totalExpenses == null) totalExpenses = BigDecimal.ZERO;
+            return new LedgerRangeIndex.RangeTotals(startDate, endDate, ordersRevenue.add(deliveriesRevenue),
+                    ordersRevenue, deliveriesRevenue, totalExpenses, 0L, 0L);
+        } catch (Exception e) {
+            log.error("Error en fallback de cálculo de estadísticas: {}", e.getMessage(), e);
+            return new LedgerRangeIndex.RangeTotals(startDate, endDate, BigDecimal.ZERO,
+                    BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0L, 0L);
+        }
+    }
+
+    // Cálculo en vivo desde las tablas para un rango sin snapshots
+    private FinancialStatsResponse calculateFinancialStats(LocalDate startDate, LocalDate effectiveEndDate) {
+        // Ingresos y gastos desde las transacciones del balance (fuente de verdad)
+        LedgerRangeIndex.RangeTotals ledgerTotals = getLedgerTotals(startDate, effectiveEndDate);
+        BigDecimal totalRevenue = ledgerTotals.getRevenue();
+        BigDecimal ordersRevenue = ledgerTotals.getOrdersRevenue();
+        BigDecimal deliveriesRevenue = ledgerTotals.getDeliveriesRevenue();
+        BigDecimal totalExpenses = ledgerTotals.getExpenses();
+
+        // Calcular ganancia neta
+        BigDecimal netProfit = totalRevenue.subtract(totalExpenses);
+
+        // Gastos por categoría
+        List<CategoryExpenseResponse> expensesByCategory = new ArrayList<>();
+        try {
+            List<Object[]> expensesByCategoryData = expenseRepository.getExpensesByCategoryBetweenDates(startDate, effectiveEndDate);
+            expensesByCategory = expensesByCategoryData.stream()
+                    .map(row -> {
+                        String category = (String) row[0];
+                        BigDecimal amount = (BigDecimal) row[1];
+                        return CategoryExpenseResponse.builder()
+                                .category(category)
+                                .totalAmount(amount)
+                                .build();
+                    })
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error obteniendo gastos por categoría: {}", e.getMessage(), e);
+            expensesByCategory = new ArrayList<>();
         }
+
+        // Estadísticas diarias - incluir desde startDate hasta effectiveEndDate completo
+        // Esto asegura que siempre incluya el día actual si está en el rango
+        List<DailyStatsResponse> dailyStats = new ArrayList<>();
+        try {
+            dailyStats = generateDailyStatsOptimized(startDate, effectiveEndDate);
+            log.debug("Daily stats generadas: {} días desde {} hasta {}", dailyStats.size(), startDate, effectiveEndDate);
+        } catch (Exception e) {
+            log.error("Error generando estadísticas diarias: {}", e.getMessage(), e);
+            dailyStats = new ArrayList<>();
+        }
+
+        return FinancialStatsResponse.builder()
+                .totalRevenue(totalRevenue)
+                .totalExpenses(totalExpenses)
+                .netProfit(netProfit)
+                .startDate(startDate)
+                .endDate(effectiveEndDate)
+                .ordersRevenue(ordersRevenue)
+                .deliveriesRevenue(deliveriesRevenue)
+                .expensesByCategory(expensesByCategory)
+                .dailyStats(dailyStats)
+                .build();
     }
 
     @Transactional(readOnly = true)
     // Cache deshabilitado para obtener siempre datos actualizados de la BD
     // @Cacheable(value = "statistics", key = "'business'", unless = "#result == null")
+    @SingleFlight
     public BusinessStatsResponse getBusinessStats() {
         log.info("Calculating business statistics - obteniendo datos actualizados de la BD");
         // Estadísticas generales - consultar directamente de la BD cada vez
@@ -182,46 +318,20 @@ public class StatisticsService {
         LocalDate startDate = LocalDate.now().minusDays(30);
         LocalDate endDate = LocalDate.now();
         
-        List<Object[]> topOrderProducts = orderItemRepository.getTopProductsBetweenDates(startDate, endDate);
-        List<Object[]> topDeliveryProducts = deliveryItemRepository.getTopProductsBetweenDates(startDate, endDate);
-        
-        // Combinar y agrupar productos
+        // Combinar y agrupar productos: días cerrados desde snapshots, el resto en vivo
         Map<Long, TopProductResponse> productMap = new HashMap<>();
-        
-        // Procesar productos de pedidos
-        for (Object[] row : topOrderProducts) {
-            Long productId = ((Number) row[0]).longValue();
-            String productName = (String) row[1];
-            Long quantity = ((Number) row[2]).longValue();
-            BigDecimal revenue = BigDecimal.valueOf(((Number) row[3]).doubleValue());
-            
-            productMap.put(productId, TopProductResponse.builder()
-                    .productId(productId)
-                    .productName(productName)
-                    .totalQuantity(quantity)
-                    .totalRevenue(revenue)
-                    .build());
+        Map<LocalDate, PeriodSnapshot> closedDays = periodCloseService.getClosedDailySnapshots(startDate, endDate);
+        for (PeriodSnapshot snapshot : closedDays.values()) {
+            for (TopProductResponse product : periodCloseService.readTopProducts(snapshot)) {
+                mergeProduct(productMap, product.getProductId(), product.getProductName(),
+                        product.getTotalQuantity(), product.getTotalRevenue());
+            }
         }
         
-        // Procesar productos de entregas
-        for (Object[] row : topDeliveryProducts) {
-            Long productId = ((Number) row[0]).longValue();
-            String productName = (String) row[1];
-            Long quantity = ((Number) row[2]).longValue();
-            BigDecimal revenue = BigDecimal.valueOf(((Number) row[3]).doubleValue());
-            
-            TopProductResponse existing = productMap.get(productId);
-            if (existing != null) {
-                existing.setTotalQuantity(existing.getTotalQuantity() + quantity);
-                existing.setTotalRevenue(existing.getTotalRevenue().add(revenue));
-            } else {
-                productMap.put(productId, TopProductResponse.builder()
-                        .productId(productId)
-                        .productName(productName)
-                        .totalQuantity(quantity)
-                        .totalRevenue(revenue)
-                        .build());
-            }
+        for (LocalDate[] segment : getOpenSegments(startDate, endDate, closedDays.keySet())) {
+            // Procesar productos de pedidos y de entregas
+            mergeProductRows(productMap, orderItemRepository.getTopProductsBetweenDates(segment[0], segment[1]));
+            mergeProductRows(productMap, deliveryItemRepository.getTopProductsBetweenDates(segment[0], segment[1]));
         }
         
         List<TopProductResponse> topProducts = productMap.values().stream()
@@ -279,6 +389,32 @@ public class StatisticsService {
                 .build();
     }
 
+    private void mergeProductRows(Map<Long, TopProductResponse> productMap, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long productId = ((Number) row[0]).longValue();
+            String productName = (String) row[1];
+            Long quantity = ((Number) row[2]).longValue();
+            BigDecimal revenue = BigDecimal.valueOf(((Number) row[3]).doubleValue());
+            mergeProduct(productMap, productId, productName, quantity, revenue);
+        }
+    }
+
+    private void mergeProduct(Map<Long, TopProductResponse> productMap, Long productId, String productName,
+                              Long quantity, BigDecimal revenue) {
+        TopProductResponse existing = productMap.get(productId);
+        if (existing != null) {
+            existing.setTotalQuantity(existing.getTotalQuantity() + quantity);
+            existing.setTotalRevenue(existing.getTotalRevenue().add(revenue));
+        } else {
+            productMap.put(productId, TopProductResponse.builder()
+                    .productId(productId)
+                    .productName(productName)
+                    .totalQuantity(quantity)
+                    .totalRevenue(revenue)
+                    .build());
+        }
+    }
+
     private List<DailyStatsResponse> generateDailyStats(LocalDate startDate, LocalDate endDate) {
         List<DailyStatsResponse> dailyStats = new ArrayList<>();
         LocalDate current = startDate;
@@ -302,102 +438,137 @@ public class StatisticsService {
     // Versión optimizada que hace menos consultas a la base de datos
     private List<DailyStatsResponse> generateDailyStatsOptimized(LocalDate startDate, LocalDate endDate) {
         try {
+            // Camino rápido: valores diarios desde el índice en memoria, sin cargar transacciones ni pedidos
+            Optional<List<LedgerRangeIndex.RangeTotals>> indexedDays = ledgerRangeIndex.getDailyTotals(startDate, endDate);
+            if (indexedDays.isPresent()) {
+                return indexedDays.get().stream()
+                        .map(day -> DailyStatsResponse.builder()
+                                .date(day.getStartDate())
+                                .revenue(day.getRevenue())
+                                .expenses(day.getExpenses())
+                                .profit(day.getRevenue().subtract(day.getExpenses()))
+                                .ordersCount(day.getOrdersCount())
+                                .deliveriesCount(day.getDeliveriesCount())
+                                .build())
+                        .collect(Collectors.toList());
+            }
+            
             Map<LocalDate, DailyStatsResponse> statsMap = new HashMap<>();
-        LocalDate current = startDate;
-        
-        // Inicializar el mapa con todas las fechas
-        while (!current.isAfter(endDate)) {
-            statsMap.put(current, DailyStatsResponse.builder()
-                    .date(current)
-                    .revenue(BigDecimal.ZERO)
-                    .expenses(BigDecimal.ZERO)
-                    .profit(BigDecimal.ZERO)
-                    .ordersCount(0L)
-                    .deliveriesCount(0L)
-                    .build());
-            current = current.plusDays(1);
-        }
-        
-        // Primero, calcular ingresos y gastos desde las transacciones del balance (fuente de verdad)
-        Map<LocalDate, DailyStatsResponse> tempStatsMap = new HashMap<>(statsMap);
-        
-        try {
-            if (balanceService != null) {
-                LocalDateTime startDateTime = startDate.atStartOfDay();
-                LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusSeconds(1);
+            LocalDate current = startDate;
+            
+            // Inicializar el mapa con todas las fechas
+            while (!current.isAfter(endDate)) {
+                statsMap.put(current, DailyStatsResponse.builder()
+                        .date(current)
+                        .revenue(BigDecimal.ZERO)
+                        .expenses(BigDecimal.ZERO)
+                        .profit(BigDecimal.ZERO)
+                        .ordersCount(0L)
+                        .deliveriesCount(0L)
+                        .build());
+                current = current.plusDays(1);
+            }
+            
+            // Primero, calcular ingresos y gastos desde las transacciones del balance (fuente de verdad)
+            Map<LocalDate, DailyStatsResponse> tempStatsMap = new HashMap<>(statsMap);
+            
+            try {
+                // Sumas por día desde el almacén columnar si está disponible
+                LocalDateTime rangeStart = startDate.atStartOfDay();
+                LocalDateTime rangeEnd = endDate.plusDays(1).atStartOfDay().minusNanos(1);
+                Optional<Map<LocalDate, BigDecimal>> dailyRevenue = ledgerColumnStore.sumByDay(
+                        rangeStart, rangeEnd, TransactionType.INCOME);
+                Optional<Map<LocalDate, BigDecimal>> dailyExpenses = ledgerColumnStore.sumByDay(
+                        rangeStart, rangeEnd, TransactionType.EXPENSE, TransactionType.SALARY_PAYMENT);
+                if (dailyRevenue.isPresent() && dailyExpenses.isPresent()) {
+                    for (DailyStatsResponse stat : statsMap.values()) {
+                        BigDecimal revenue = dailyRevenue.get().getOrDefault(stat.getDate(), BigDecimal.ZERO);
+                        BigDecimal dayExpenses = dailyExpenses.get().getOrDefault(stat.getDate(), BigDecimal.ZERO);
+                        tempStatsMap.put(stat.getDate(), DailyStatsResponse.builder()
+                                .date(stat.getDate())
+                                .revenue(revenue)
+                                .expenses(dayExpenses)
+                                .profit(revenue.subtract(dayExpenses))
+                                .ordersCount(stat.getOrdersCount())
+                                .deliveriesCount(stat.getDeliveriesCount())
+                                .build());
+                    }
+                } else if (balanceService != null) {
+                    LocalDateTime startDateTime = startDate.atStartOfDay();
+                    LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusSeconds(1);
                 
-                List<Transaction> transactions = balanceService.getTransactionsBetweenDates(startDateTime, endDateTime);
+                    List<Transaction> transactions = balanceService.getTransactionsBetweenDates(startDateTime, endDateTime);
                 
-                for (Transaction transaction : transactions) {
-                    LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
-                    if (!transactionDate.isBefore(startDate) && !transactionDate.isAfter(endDate)) {
-                        DailyStatsResponse stat = tempStatsMap.get(transactionDate);
-                        if (stat != null) {
-                            BigDecimal newRevenue = stat.getRevenue();
-                            BigDecimal newExpenses = stat.getExpenses();
+                    for (Transaction transaction : transactions) {
+                        LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
+                        if (!transactionDate.isBefore(startDate) && !transactionDate.isAfter(endDate)) {
+                            DailyStatsResponse stat = tempStatsMap.get(transactionDate);
+                            if (stat != null) {
+                                BigDecimal newRevenue = stat.getRevenue();
+                                BigDecimal newExpenses = stat.getExpenses();
                             
-                            if (transaction.getTransactionType() == TransactionType.INCOME) {
-                                newRevenue = newRevenue.add(transaction.getAmount());
-                            } else if (transaction.getTransactionType() == TransactionType.EXPENSE || 
-                                       transaction.getTransactionType() == TransactionType.SALARY_PAYMENT) {
-                                newExpenses = newExpenses.add(transaction.getAmount());
-                            }
+                                if (transaction.getTransactionType() == TransactionType.INCOME) {
+                                    newRevenue = newRevenue.add(transaction.getAmount());
+                                } else if (transaction.getTransactionType() == TransactionType.EXPENSE || 
+                                           transaction.getTransactionType() == TransactionType.SALARY_PAYMENT) {
+                                    newExpenses = newExpenses.add(transaction.getAmount());
+                                }
                             
-                            DailyStatsResponse updated = DailyStatsResponse.builder()
-                                    .date(stat.getDate())
-                                    .revenue(newRevenue)
-                                    .expenses(newExpenses)
-                                    .ordersCount(stat.getOrdersCount())
-                                    .deliveriesCount(stat.getDeliveriesCount())
-                                    .build();
-                            updated.setProfit(updated.getRevenue().subtract(updated.getExpenses()));
-                            tempStatsMap.put(transactionDate, updated);
+                                DailyStatsResponse updated = DailyStatsResponse.builder()
+                                        .date(stat.getDate())
+                                        .revenue(newRevenue)
+                                        .expenses(newExpenses)
+                                        .ordersCount(stat.getOrdersCount())
+                                        .deliveriesCount(stat.getDeliveriesCount())
+                                        .build();
+                                updated.setProfit(updated.getRevenue().subtract(updated.getExpenses()));
+                                tempStatsMap.put(transactionDate, updated);
+                            }
                         }
                     }
                 }
+            } catch (Exception e) {
+                log.warn("Error obteniendo transacciones del balance para estadísticas diarias, usando métodos antiguos: {}", e.getMessage());
             }
-        } catch (Exception e) {
-            log.warn("Error obteniendo transacciones del balance para estadísticas diarias, usando métodos antiguos: {}", e.getMessage());
-        }
-        
-        // Obtener pedidos y entregas solo para contar (no para ingresos, ya están en balance)
-        List<Order> orders = orderRepository.findByDateBetween(startDate, endDate);
-        log.info("Pedidos encontrados para rango [{}, {}]: {} pedidos", startDate, endDate, orders.size());
-        
-        for (Order order : orders) {
-            DailyStatsResponse stat = tempStatsMap.get(order.getDate());
-            if (stat != null) {
-                DailyStatsResponse updated = DailyStatsResponse.builder()
-                        .date(stat.getDate())
-                        .revenue(stat.getRevenue()) // Ya calculado desde balance
-                        .expenses(stat.getExpenses()) // Ya calculado desde balance
-                        .ordersCount(stat.getOrdersCount() + 1)
-                        .deliveriesCount(stat.getDeliveriesCount())
-                        .build();
-                updated.setProfit(updated.getRevenue().subtract(updated.getExpenses()));
-                tempStatsMap.put(order.getDate(), updated);
+            
+            // Obtener pedidos y entregas solo para contar (no para ingresos, ya están en balance)
+            List<Order> orders = orderRepository.findByDateBetween(startDate, endDate);
+            log.info("Pedidos encontrados para rango [{}, {}]: {} pedidos", startDate, endDate, orders.size());
+            
+            for (Order order : orders) {
+                DailyStatsResponse stat = tempStatsMap.get(order.getDate());
+                if (stat != null) {
+                    DailyStatsResponse updated = DailyStatsResponse.builder()
+                            .date(stat.getDate())
+                            .revenue(stat.getRevenue()) // Ya calculado desde balance
+                            .expenses(stat.getExpenses()) // Ya calculado desde balance
+                            .ordersCount(stat.getOrdersCount() + 1)
+                            .deliveriesCount(stat.getDeliveriesCount())
+                            .build();
+                    updated.setProfit(updated.getRevenue().subtract(updated.getExpenses()));
+                    tempStatsMap.put(order.getDate(), updated);
+                }
             }
-        }
-        
-        // Obtener entregas agrupadas por fecha en una sola consulta (solo para contar)
-        List<Delivery> deliveries = deliveryRepository.findByDateBetween(startDate, endDate);
-        log.info("Entregas encontradas para rango [{}, {}]: {} entregas", startDate, endDate, deliveries.size());
-        
-        for (Delivery delivery : deliveries) {
-            DailyStatsResponse stat = tempStatsMap.get(delivery.getDate());
-            if (stat != null) {
-                DailyStatsResponse updated = DailyStatsResponse.builder()
-                        .date(stat.getDate())
-                        .revenue(stat.getRevenue()) // Ya calculado desde balance
-                        .expenses(stat.getExpenses()) // Ya calculado desde balance
-                        .ordersCount(stat.getOrdersCount())
-                        .deliveriesCount(stat.getDeliveriesCount() + 1)
-                        .build();
-                updated.setProfit(updated.getRevenue().subtract(updated.getExpenses()));
-                tempStatsMap.put(delivery.getDate(), updated);
+            
+            // Obtener entregas agrupadas por fecha en una sola consulta (solo para contar)
+            List<Delivery> deliveries = deliveryRepository.findByDateBetween(startDate, endDate);
+            log.info("Entregas encontradas para rango [{}, {}]: {} entregas", startDate, endDate, deliveries.size());
+            
+            for (Delivery delivery : deliveries) {
+                DailyStatsResponse stat = tempStatsMap.get(delivery.getDate());
+                if (stat != null) {
+                    DailyStatsResponse updated = DailyStatsResponse.builder()
+                            .date(stat.getDate())
+                            .revenue(stat.getRevenue()) // Ya calculado desde balance
+                            .expenses(stat.getExpenses()) // Ya calculado desde balance
+                            .ordersCount(stat.getOrdersCount())
+                            .deliveriesCount(stat.getDeliveriesCount() + 1)
+                            .build();
+                    updated.setProfit(updated.getRevenue().subtract(updated.getExpenses()));
+                    tempStatsMap.put(delivery.getDate(), updated);
+                }
             }
-        }
-        
+            
             return tempStatsMap.values().stream()
                     .sorted((a, b) -> a.getDate().compareTo(b.getDate()))
                     .collect(Collectors.toList());
@@ -412,59 +583,11 @@ public class StatisticsService {
         Long deliveriesCount = deliveryRepository.countDeliveriesBetweenDates(date, endDate);
         Long reservationsCount = reservationRepository.countReservationsBetweenDates(date, endDate);
         
-        BigDecimal ordersRevenue = BigDecimal.ZERO;
-        BigDecimal deliveriesRevenue = BigDecimal.ZERO;
-        BigDecimal expenses = BigDecimal.ZERO;
-        
-        // Usar transacciones del balance como fuente de verdad
-        try {
-            if (balanceService != null) {
-                LocalDateTime startDateTime = date.atStartOfDay();
-                LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusSeconds(1);
-                
-                List<Transaction> transactions = balanceService.getTransactionsBetweenDates(startDateTime, endDateTime);
-                
-                for (Transaction transaction : transactions) {
-                    LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
-                    if (!transactionDate.isBefore(date) && !transactionDate.isAfter(endDate)) {
-                        if (transaction.getTransactionType() == TransactionType.INCOME) {
-                            if ("ORDER".equals(transaction.getReferenceType())) {
-                                ordersRevenue = ordersRevenue.add(transaction.getAmount());
-                            } else if ("DELIVERY".equals(transaction.getReferenceType())) {
-                                deliveriesRevenue = deliveriesRevenue.add(transaction.getAmount());
-                            }
-                        } else if (transaction.getTransactionType() == TransactionType.EXPENSE || 
-                                   transaction.getTransactionType() == TransactionType.SALARY_PAYMENT) {
-                            expenses = expenses.add(transaction.getAmount());
-                        }
-                    }
-                }
-                
-                log.debug("DailySummary desde balance para [{}, {}]: Revenue={}, Expenses={}", 
-                        date, endDate, ordersRevenue.add(deliveriesRevenue), expenses);
-            } else {
-                // Fallback a métodos antiguos
-                ordersRevenue = orderRepository.getTotalRevenueBetweenDates(date, endDate);
-                if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
-                
-                deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(date, endDate);
-                if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
-                
-                expenses = expenseRepository.getTotalExpensesBetweenDates(date, endDate);
-                if (expenses == null) expenses = BigDecimal.ZERO;
-            }
-        } catch (Exception e) {
-            log.warn("Error obteniendo datos desde balance, usando métodos antiguos: {}", e.getMessage());
-            // Fallback a métodos antiguos
-            ordersRevenue = orderRepository.getTotalRevenueBetweenDates(date, endDate);
-            if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
-            
-            deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(date, endDate);
-            if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
-            
-            expenses = expenseRepository.getTotalExpensesBetweenDates(date, endDate);
-            if (expenses == null) expenses = BigDecimal.ZERO;
-        }
+        // Transacciones del balance como fuente de verdad (desde el índice en memoria si está listo)
+        LedgerRangeIndex.RangeTotals ledgerTotals = getLedgerTotals(date, endDate);
+        BigDecimal ordersRevenue = ledgerTotals.getOrdersRevenue();
+        BigDecimal deliveriesRevenue = ledgerTotals.getDeliveriesRevenue();
+        BigDecimal expenses = ledgerTotals.getExpenses();
         
         BigDecimal revenue = ordersRevenue.add(deliveriesRevenue);
         BigDecimal profit = revenue.subtract(expenses);
@@ -480,63 +603,59 @@ public class StatisticsService {
     }
 
     private MonthlySummaryResponse getMonthlySummary(LocalDate startDate, LocalDate endDate) {
+        // Mes completo ya cerrado: leer directamente su snapshot
+        YearMonth month = YearMonth.from(startDate);
+        if (startDate.equals(month.atDay(1)) && endDate.equals(month.atEndOfMonth())) {
+            Optional<PeriodSnapshot> monthSnapshot = periodCloseService.getClosedMonthlySnapshot(month);
+            if (monthSnapshot.isPresent()) {
+                return mapSnapshotToMonthlySummary(monthSnapshot.get(), month);
+            }
+        }
+        
+        // Días cerrados desde snapshots y el resto (normalmente solo hoy) en vivo
+        Map<LocalDate, PeriodSnapshot> closedDays = periodCloseService.getClosedDailySnapshots(startDate, endDate);
+        if (!closedDays.isEmpty()) {
+            long ordersCount = 0;
+            long deliveriesCount = 0;
+            long reservationsCount = 0;
+            BigDecimal revenue = BigDecimal.ZERO;
+            BigDecimal expenses = BigDecimal.ZERO;
+            for (PeriodSnapshot snapshot : closedDays.values()) {
+                ordersCount += snapshot.getOrdersCount();
+                deliveriesCount += snapshot.getDeliveriesCount();
+                reservationsCount += snapshot.getReservationsCount();
+                revenue = revenue.add(snapshot.getOrdersRevenue()).add(snapshot.getDeliveriesRevenue());
+                expenses = expenses.add(snapshot.getTotalExpenses());
+            }
+            for (LocalDate[] segment : getOpenSegments(startDate, endDate, closedDays.keySet())) {
+                DailySummaryResponse live = getDailySummary(segment[0], segment[1]);
+                ordersCount += live.getOrdersCount();
+                deliveriesCount += live.getDeliveriesCount();
+                reservationsCount += live.getReservationsCount();
+                revenue = revenue.add(live.getRevenue());
+                expenses = expenses.add(live.getExpenses());
+            }
+            return MonthlySummaryResponse.builder()
+                    .ordersCount(ordersCount)
+                    .deliveriesCount(deliveriesCount)
+                    .reservationsCount(reservationsCount)
+                    .revenue(revenue)
+                    .expenses(expenses)
+                    .profit(revenue.subtract(expenses))
+                    .month(LocalDate.now().getMonthValue())
+                    .year(LocalDate.now().getYear())
+                    .build();
+        }
+        
         Long ordersCount = orderRepository.countOrdersBetweenDates(startDate, endDate);
         Long deliveriesCount = deliveryRepository.countDeliveriesBetweenDates(startDate, endDate);
         Long reservationsCount = reservationRepository.countReservationsBetweenDates(startDate, endDate);
         
-        BigDecimal ordersRevenue = BigDecimal.ZERO;
-        BigDecimal deliveriesRevenue = BigDecimal.ZERO;
-        BigDecimal expenses = BigDecimal.ZERO;
-        
-        // Usar transacciones del balance como fuente de verdad
-        try {
-            if (balanceService != null) {
-                LocalDateTime startDateTime = startDate.atStartOfDay();
-                LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusSeconds(1);
-                
-                List<Transaction> transactions = balanceService.getTransactionsBetweenDates(startDateTime, endDateTime);
-                
-                for (Transaction transaction : transactions) {
-                    LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
-                    if (!transactionDate.isBefore(startDate) && !transactionDate.isAfter(endDate)) {
-                        if (transaction.getTransactionType() == TransactionType.INCOME) {
-                            if ("ORDER".equals(transaction.getReferenceType())) {
-                                ordersRevenue = ordersRevenue.add(transaction.getAmount());
-                            } else if ("DELIVERY".equals(transaction.getReferenceType())) {
-                                deliveriesRevenue = deliveriesRevenue.add(transaction.getAmount());
-                            }
-                        } else if (transaction.getTransactionType() == TransactionType.EXPENSE || 
-                                   transaction.getTransactionType() == TransactionType.SALARY_PAYMENT) {
-                            expenses = expenses.add(transaction.getAmount());
-                        }
-                    }
-                }
-                
-                log.debug("MonthlySummary desde balance para [{}, {}]: Revenue={}, Expenses={}", 
-                        startDate, endDate, ordersRevenue.add(deliveriesRevenue), expenses);
-            } else {
-                // Fallback a métodos antiguos
-                ordersRevenue = orderRepository.getTotalRevenueBetweenDates(startDate, endDate);
-                if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
-                
-                deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(startDate, endDate);
-                if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
-                
-                expenses = expenseRepository.getTotalExpensesBetweenDates(startDate, endDate);
-                if (expenses == null) expenses = BigDecimal.ZERO;
-            }
-        } catch (Exception e) {
-            log.warn("Error obteniendo datos desde balance, usando métodos antiguos: {}", e.getMessage());
-            // Fallback a métodos antiguos
-            ordersRevenue = orderRepository.getTotalRevenueBetweenDates(startDate, endDate);
-            if (ordersRevenue == null) ordersRevenue = BigDecimal.ZERO;
-            
-            deliveriesRevenue = deliveryRepository.getTotalRevenueBetweenDates(startDate, endDate);
-            if (deliveriesRevenue == null) deliveriesRevenue = BigDecimal.ZERO;
-            
-            expenses = expenseRepository.getTotalExpensesBetweenDates(startDate, endDate);
-            if (expenses == null) expenses = BigDecimal.ZERO;
-        }
+        // Transacciones del balance como fuente de verdad (desde el índice en memoria si está listo)
+        LedgerRangeIndex.RangeTotals ledgerTotals = getLedgerTotals(startDate, endDate);
+        BigDecimal ordersRevenue = ledgerTotals.getOrdersRevenue();
+        BigDecimal deliveriesRevenue = ledgerTotals.getDeliveriesRevenue();
+        BigDecimal expenses = ledgerTotals.getExpenses();
         
         BigDecimal revenue = ordersRevenue.add(deliveriesRevenue);
         BigDecimal profit = revenue.subtract(expenses);
@@ -552,5 +671,19 @@ public class StatisticsService {
                 .year(LocalDate.now().getYear())
                 .build();
     }
+
+    private MonthlySummaryResponse mapSnapshotToMonthlySummary(PeriodSnapshot snapshot, YearMonth month) {
+        BigDecimal revenue = snapshot.getOrdersRevenue().add(snapshot.getDeliveriesRevenue());
+        return MonthlySummaryResponse.builder()
+                .ordersCount(snapshot.getOrdersCount())
+                .deliveriesCount(snapshot.getDeliveriesCount())
+                .reservationsCount(snapshot.getReservationsCount())
+                .revenue(revenue)
+                .expenses(snapshot.getTotalExpenses())
+                .profit(revenue.subtract(snapshot.getTotalExpenses()))
+                .month(month.getMonthValue())
+                .year(month.getYear())
+                .build();
+    }
 }
 
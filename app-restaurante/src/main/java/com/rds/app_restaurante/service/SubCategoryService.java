@@ -1,15 +1,20 @@
 package com.rds.app_restaurante.service;
 
+import com.rds.app_restaurante.config.SingleFlight;
 import com.rds.app_restaurante.dto.SubCategoryRequest;
 import com.rds.app_restaurante.dto.SubCategoryResponse;
 import com.rds.app_restaurante.model.Category;
 import com.rds.app_restaurante.model.SubCategory;
+import com.rds.app_restaurante.repository.ProductRepository;
 import com.rds.app_restaurante.repository.SubCategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,18 +23,23 @@ public class SubCategoryService {
 
     private final SubCategoryRepository subCategoryRepository;
     private final CategoryService categoryService;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
+    @SingleFlight
     public List<SubCategoryResponse> getAllSubCategories() {
+        Map<Long, Integer> productCounts = countProductsBySubCategory();
         return subCategoryRepository.findAll().stream()
-                .map(this::mapToResponse)
+                .map(subCategory -> mapToResponse(subCategory, productCounts.getOrDefault(subCategory.getId(), 0)))
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public List<SubCategoryResponse> getSubCategoriesByCategory(Long categoryId) {
+        Map<Long, Integer> productCounts = countProductsBySubCategory();
         return subCategoryRepository.findByCategoryId(categoryId).stream()
-                .map(this::mapToResponse)
+                .map(subCategory -> mapToResponse(subCategory, productCounts.getOrDefault(subCategory.getId(), 0)))
                 .collect(Collectors.toList());
     }
 
@@ -56,6 +66,7 @@ public class SubCategoryService {
                 category
         );
         SubCategory savedSubCategory = subCategoryRepository.save(subCategory);
+        eventPublisher.publishEvent(new CatalogChangedEvent("subCategory"));
         return mapToResponse(savedSubCategory);
     }
 
@@ -78,6 +89,7 @@ public class SubCategoryService {
         subCategory.setCategory(category);
 
         SubCategory updatedSubCategory = subCategoryRepository.save(subCategory);
+        eventPublisher.publishEvent(new CatalogChangedEvent("subCategory"));
         return mapToResponse(updatedSubCategory);
     }
 
@@ -87,12 +99,13 @@ public class SubCategoryService {
                 .orElseThrow(() -> new RuntimeException("Subcategoría no encontrada con id: " + id));
 
         // Verificar si la subcategoría tiene productos asociados
-        if (subCategory.getProducts() != null && !subCategory.getProducts().isEmpty()) {
+        if (productRepository.existsBySubCategoryId(subCategory.getId())) {
             throw new RuntimeException("No se puede eliminar la subcategoría porque tiene productos asociados. " +
                     "Primero elimine o reasigne los productos de esta subcategoría.");
         }
 
         subCategoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent("subCategory"));
     }
 
     @Transactional(readOnly = true)
@@ -101,14 +114,27 @@ public class SubCategoryService {
                 .orElseThrow(() -> new RuntimeException("Subcategoría no encontrada con id: " + id));
     }
 
+    // Un solo conteo agrupado para todo el listado en lugar de inicializar los productos de cada subcategoría
+    private Map<Long, Integer> countProductsBySubCategory() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : productRepository.countProductsBySubCategory()) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
     private SubCategoryResponse mapToResponse(SubCategory subCategory) {
+        return mapToResponse(subCategory, (int) productRepository.countBySubCategoryId(subCategory.getId()));
+    }
+
+    private SubCategoryResponse mapToResponse(SubCategory subCategory, int productCount) {
         return SubCategoryResponse.builder()
                 .id(subCategory.getId())
                 .name(subCategory.getName())
                 .description(subCategory.getDescription())
                 .categoryId(subCategory.getCategory() != null ? subCategory.getCategory().getId() : null)
                 .categoryName(subCategory.getCategory() != null ? subCategory.getCategory().getName() : null)
-                .productCount(subCategory.getProducts() != null ? subCategory.getProducts().size() : 0)
+                .productCount(productCount)
                 .build();
     }
 }
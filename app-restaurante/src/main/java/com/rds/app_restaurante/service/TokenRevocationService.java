@@ -0,0 +1,286 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.config.CacheInvalidationBus;
+import com.rds.app_restaurante.model.RevokedToken;
+import com.rds.app_restaurante.model.Role;
+import com.rds.app_restaurante.repository.RevokedTokenRepository;
+import com.rds.app_restaurante.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocación de JWT sin consultas en el camino de cada petición. Se revoca un token concreto por
+ * su jti (cierre de sesión) o todos los de una cuenta (rol e id, como en los claims) emitidos
+ * antes de un instante (cambio o restablecimiento de contraseña, cierre forzado por un
+ * administrador). Los jti revocados viven en un conjunto exacto con un filtro de Bloom delante;
+ * cada revocación se guarda en la base de datos para sobrevivir a reinicios, y las demás
+ * instancias la leen al sondear la tabla cada pocos segundos (o antes, por el canal de
+ * invalidaciones si lo hay). Una revocación se olvida cuando ya expiraron todos los tokens que
+ * afecta.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    static final String BUS_CHANNEL = "token-revocations";
+    // Una fila con un id menor que el último visto puede confirmarse un poco después (los ids se
+    // asignan al insertar): durante este margen se vuelve a leer
+    private static final long POLL_GRACE_MS = 60_000;
+
+    private final RevokedTokenRepository repository;
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus bus;
+    private final long tokenLifetimeMs;
+    private final int bloomBits;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    // jti revocado -> expiración del token (epoch millis)
+    private final Map<String, Long> revokedTokenIds = new ConcurrentHashMap<>();
+    // "ROL:id" de la cuenta -> tokens emitidos antes de ese instante revocados
+    private final Map<String, Cutoff> accountCutoffs = new ConcurrentHashMap<>();
+    private volatile RevocationBloomFilter bloom;
+    // Todas las filas hasta este id ya se aplicaron; las posteriores se leen en cada sondeo
+    private long confirmedId;
+    private long lastSeenId;
+    // [instante del sondeo, último id visto entonces]: pasado el margen pasa a confirmedId
+    private final Deque<long[]> pollHistory = new ArrayDeque<>();
+
+    private record Cutoff(long issuedBeforeMs, String exceptTokenId, long expiresAtMs) {
+
+        boolean revokes(Claims claims) {
+            if (exceptTokenId != null && exceptTokenId.equals(claims.getId())) {
+                return false;
+            }
+            Date issuedAt = claims.getIssuedAt();
+            // iat lleva segundos enteros: se compara en segundos para no revocar un token emitido
+            // justo después del corte dentro del mismo segundo (p. ej. el inicio de sesión tras el cambio)
+            return issuedAt == null || issuedAt.getTime() / 1000 < issuedBeforeMs / 1000;
+        }
+    }
+
+    public TokenRevocationService(
+            RevokedTokenRepository repository,
+            UserRepository userRepository,
+            ObjectProvider<CacheInvalidationBus> invalidationBus,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.expiration}") long tokenLifetimeMs,
+            @Value("${jwt.revocation.bloom-bits:1048576}") int bloomBits) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.bus = invalidationBus.getIfAvailable();
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        this.bloomBits = bloomBits;
+        this.bloom = new RevocationBloomFilter(bloomBits);
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("jwt.revocations.rejected")
+                .description("Peticiones rechazadas por presentar un token revocado")
+                .register(meterRegistry);
+    }
+
+    // Las revocaciones vigentes se cargan al arrancar; las nuevas llegan por el sondeo y el canal
+    @PostConstruct
+    public synchronized void load() {
+        Gauge.builder("jwt.revocations.active", this, service -> service.revokedTokenIds.size() + service.accountCutoffs.size())
+                .description("Revocaciones vigentes en memoria (tokens y cuentas)")
+                .register(meterRegistry);
+        try {
+            for (RevokedToken revocation : repository.findByExpiresAtAfter(LocalDateTime.now())) {
+                apply(revocation);
+                lastSeenId = Math.max(lastSeenId, revocation.getId());
+            }
+            confirmedId = lastSeenId;
+            log.info("Revocaciones de tokens cargadas: {} tokens, {} cuentas", revokedTokenIds.size(), accountCutoffs.size());
+        } catch (Exception e) {
+            log.warn("No se pudieron cargar las revocaciones de tokens: {}", e.getMessage());
+        }
+        if (bus != null) {
+            bus.subscribe((cacheName, key) -> {
+                if (BUS_CHANNEL.equals(cacheName) && key != null) {
+                    repository.findById(Long.valueOf(key)).ifPresent(this::apply);
+                }
+            });
+        }
+    }
+
+    /**
+     * Aplica las revocaciones guardadas por cualquier instancia desde el último sondeo; no depende
+     * del canal de invalidaciones, que puede no estar configurado o perder mensajes
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-ms:5000}")
+    public synchronized void pollNew() {
+        long now = System.currentTimeMillis();
+        while (!pollHistory.isEmpty() && pollHistory.peekFirst()[0] <= now - POLL_GRACE_MS) {
+            confirmedId = pollHistory.pollFirst()[1];
+        }
+        try {
+            List<RevokedToken> revocations = repository.findByIdGreaterThanOrderByIdAsc(confirmedId);
+            for (RevokedToken revocation : revocations) {
+                apply(revocation);
+                lastSeenId = Math.max(lastSeenId, revocation.getId());
+            }
+            pollHistory.addLast(new long[]{now, lastSeenId});
+        } catch (Exception e) {
+            log.warn("No se pudieron leer las revocaciones nuevas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * true si los claims (ya verificados) pertenecen a un token revocado
+     */
+    public boolean isRevoked(Claims claims) {
+        String tokenId = claims.getId();
+        if (tokenId != null && bloom.mightContain(tokenId) && revokedTokenIds.containsKey(tokenId)) {
+            rejected.increment();
+            return true;
+        }
+        if (!accountCutoffs.isEmpty()) {
+            Cutoff cutoff = accountCutoffs.get(accountKey(claims.get("role", String.class), claims.get("userId", Long.class)));
+            if (cutoff != null && cutoff.revokes(claims)) {
+                rejected.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Revoca el token de la sesión actual (cierre de sesión)
+     */
+    @Transactional
+    public void revoke(Claims claims) {
+        if (claims.getId() == null) {
+            // Token emitido antes de incluir jti: se revocan los de la cuenta hasta su emisión
+            long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : System.currentTimeMillis();
+            revokeAll(claims.get("role", String.class), claims.get("userId", Long.class), issuedAt + 1000, null);
+            return;
+        }
+        long expiresAt = claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : System.currentTimeMillis() + tokenLifetimeMs;
+        revokeTokenId(claims.getId(), expiresAt);
+    }
+
+    /**
+     * Revoca un token por su jti; sin la fecha de expiración se asume la vida máxima de un token
+     */
+    @Transactional
+    public void revokeTokenId(String tokenId, Long expiresAtMs) {
+        long expiresAt = expiresAtMs != null ? expiresAtMs : System.currentTimeMillis() + tokenLifetimeMs;
+        save(RevokedToken.builder()
+                .tokenId(tokenId)
+                .expiresAt(toDateTime(expiresAt))
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Revoca todos los tokens de la cuenta emitidos hasta ahora, salvo opcionalmente el de la
+     * sesión que hace el cambio
+     */
+    @Transactional
+    public void revokeAllFor(Role role, Long userId, String exceptTokenId) {
+        revokeAll(role.name(), userId, System.currentTimeMillis(), exceptTokenId);
+    }
+
+    /**
+     * Revoca todos los tokens de las cuentas (cliente, administrador o empleado) con ese email;
+     * devuelve cuántas cuentas se encontraron
+     */
+    @Transactional
+    public int revokeAllForEmail(String email) {
+        List<Object[]> identities = userRepository.findLoginIdentities(email);
+        long now = System.currentTimeMillis();
+        for (Object[] identity : identities) {
+            revokeAll((String) identity[0], ((Number) identity[1]).longValue(), now, null);
+        }
+        return identities.size();
+    }
+
+    private void revokeAll(String role, Long userId, long issuedBeforeMs, String exceptTokenId) {
+        if (role == null || userId == null) {
+            log.warn("No se puede revocar por cuenta sin rol e id ({}:{})", role, userId);
+            return;
+        }
+        save(RevokedToken.builder()
+                .role(role)
+                .userId(userId)
+                .issuedBefore(toDateTime(issuedBeforeMs))
+                .exceptTokenId(exceptTokenId)
+                // El último token afectado se emitió como muy tarde en issuedBefore
+                .expiresAt(toDateTime(issuedBeforeMs + tokenLifetimeMs))
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private void save(RevokedToken revocation) {
+        RevokedToken saved = repository.save(revocation);
+        TransactionHooks.afterCommit(() -> {
+            apply(saved);
+            if (bus != null) {
+                bus.publish(BUS_CHANNEL, String.valueOf(saved.getId()));
+            }
+        });
+    }
+
+    // Las altas se serializan con la reconstrucción del filtro; las lecturas no bloquean
+    private synchronized void apply(RevokedToken revocation) {
+        long expiresAt = toEpochMillis(revocation.getExpiresAt());
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revocation.getTokenId() != null) {
+            revokedTokenIds.put(revocation.getTokenId(), expiresAt);
+            bloom.add(revocation.getTokenId());
+        } else if (revocation.getRole() != null && revocation.getUserId() != null && revocation.getIssuedBefore() != null) {
+            Cutoff cutoff = new Cutoff(toEpochMillis(revocation.getIssuedBefore()), revocation.getExceptTokenId(), expiresAt);
+            // Prevalece el corte más reciente
+            accountCutoffs.merge(accountKey(revocation.getRole(), revocation.getUserId()), cutoff,
+                    (current, candidate) -> candidate.issuedBeforeMs() >= current.issuedBeforeMs() ? candidate : current);
+        }
+    }
+
+    // Cada 10 minutos se olvidan las revocaciones vencidas y se reconstruye el filtro sin ellas
+    @Scheduled(cron = "0 */10 * * * ?")
+    @Transactional
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokenIds.values().removeIf(expiresAt -> expiresAt <= now);
+        accountCutoffs.values().removeIf(cutoff -> cutoff.expiresAtMs() <= now);
+        RevocationBloomFilter rebuilt = new RevocationBloomFilter(bloomBits);
+        revokedTokenIds.keySet().forEach(rebuilt::add);
+        bloom = rebuilt;
+        repository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static String accountKey(String role, Long userId) {
+        return role + ":" + userId;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,96 @@
+package com.rds.app_restaurante.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Acciones ligadas al commit de la transacción actual, compartidas por los índices, cachés y
+ * estructuras en memoria que solo deben ver escrituras ya confirmadas.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Ejecuta la acción después del commit si hay una transacción activa, o en el acto si no la hay
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Ventana sin escrituras para las reconstrucciones desde la BD: cada escritura cuenta como en
+     * curso desde antes de su commit hasta que termina. Si alguna terminó o sigue en curso mientras
+     * se leía la BD no se sabe si la lectura la incluyó, y la reconstrucción debe repetirse.
+     */
+    public static final class WriteWindow {
+
+        private final AtomicLong completedWrites = new AtomicLong();
+        private final AtomicInteger writesInFlight = new AtomicInteger();
+
+        /**
+         * Marca el inicio de una lectura
+         */
+        public long open() {
+            return completedWrites.get();
+        }
+
+        /**
+         * true si ninguna escritura terminó ni quedó en curso desde {@link #open()}
+         */
+        public boolean isQuiet(long mark) {
+            return completedWrites.get() == mark && writesInFlight.get() == 0;
+        }
+
+        /**
+         * Aplica la acción después del commit y registra la escritura desde antes del commit hasta que termina
+         */
+        public void afterCommit(Runnable action) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    private boolean committing;
+
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        committing = true;
+                        writesInFlight.incrementAndGet();
+                    }
+
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        completedWrites.incrementAndGet();
+                        if (committing) {
+                            writesInFlight.decrementAndGet();
+                        }
+                    }
+                });
+            } else {
+                writesInFlight.incrementAndGet();
+                try {
+                    action.run();
+                } finally {
+                    completedWrites.incrementAndGet();
+                    writesInFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.rds.app_restaurante.service;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.rds.app_restaurante.model.Role;
 import com.rds.app_restaurante.model.User;
 import com.rds.app_restaurante.repository.UserRepository;
 import com.rds.app_restaurante.dto.UserRequest;
@@ -36,9 +37,16 @@ public class UserService {
     //Servicio de email
     private final EmailService emailService;
 
+    private final TokenRevocationService tokenRevocationService;
+
+    private final ExportCacheService exportCacheService;
+
     //Metodo para hashear la contraseña y crear un nuevo usuario (para uso interno)
     public User create(UserRequest userRequest) {
         log.info("Creating new user: {}", userRequest.getEmail());
+        if (userRepository.countAccountsWithEmail(userRequest.getEmail()) > 0) {
+            throw new RuntimeException("El email ya está registrado");
+        }
         User user = new User(
             userRequest.getName(),
             userRequest.getLastName(),
@@ -50,6 +58,7 @@ public class UserService {
             userRequest.getDateOfBirth()
         );
         User savedUser = userRepository.save(user);
+        exportCacheService.markBusinessChanged();
         log.info("User created successfully with ID: {}", savedUser.getId());
         return savedUser;
     }
@@ -57,8 +66,8 @@ public class UserService {
     //Metodo para registro público de usuarios (solo CLIENT)
     public User signUp(SignUpRequest signUpRequest) {
         log.info("User signup attempt for email: {}", signUpRequest.getEmail());
-        // Verificar si el email ya existe
-        if (userRepository.findByEmail(signUpRequest.getEmail()).isPresent()) {
+        // Verificar si el email ya existe en cualquier tipo de cuenta
+        if (userRepository.countAccountsWithEmail(signUpRequest.getEmail()) > 0) {
             log.warn("Signup attempt with existing email: {}", signUpRequest.getEmail());
             throw new RuntimeException("El email ya está registrado");
         }
@@ -75,6 +84,7 @@ public class UserService {
         );
         
         User savedUser = userRepository.save(user);
+        exportCacheService.markBusinessChanged();
         log.info("User signed up successfully with ID: {}", savedUser.getId());
         return savedUser;
     }
@@ -137,13 +147,11 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
 
-        // Verificar si el email ya está en uso por otro usuario
-        userRepository.findByEmail(userUpdateRequest.getEmail())
-                .ifPresent(existingUser -> {
-                    if (!existingUser.getId().equals(id)) {
-                        throw new RuntimeException("El email ya está en uso por otro usuario");
-                    }
-                });
+        // Verificar si el email ya está en uso por otra cuenta (usuario, administrador o empleado)
+        if (!userUpdateRequest.getEmail().equals(user.getEmail())
+                && userRepository.countAccountsWithEmail(userUpdateRequest.getEmail()) > 0) {
+            throw new RuntimeException("El email ya está en uso por otra cuenta");
+        }
 
         user.setName(userUpdateRequest.getName());
         user.setLastName(userUpdateRequest.getLastName());
@@ -171,6 +179,7 @@ public class UserService {
             throw new RuntimeException("Usuario no encontrado con id: " + id);
         }
         userRepository.deleteById(id);
+        exportCacheService.markBusinessChanged();
     }
 
     public User getUserByEmail(String email) {
@@ -244,12 +253,14 @@ public class UserService {
         user.setResetPasswordCode(null);
         user.setResetPasswordCodeExpiry(null);
         userRepository.save(user);
+        // Quien tenga un token anterior al restablecimiento pierde el acceso
+        tokenRevocationService.revokeAllFor(Role.CLIENT, user.getId(), null);
         
         log.info("Password reset successful for user: {}", user.getEmail());
     }
 
     @Transactional
-    public void changePassword(Long userId, String currentPassword, String newPassword) {
+    public void changePassword(Long userId, String currentPassword, String newPassword, String currentTokenId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + userId));
         
@@ -261,6 +272,8 @@ public class UserService {
         // Actualizar contraseña
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        // Se cierran las demás sesiones; la que hizo el cambio sigue activa
+        tokenRevocationService.revokeAllFor(Role.CLIENT, user.getId(), currentTokenId);
         
         log.info("Password changed successfully for user: {}", user.getEmail());
     }
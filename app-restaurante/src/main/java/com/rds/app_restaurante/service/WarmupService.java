@@ -0,0 +1,201 @@
+package com.rds.app_restaurante.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rds.app_restaurante.dto.CategoryResponse;
+import com.rds.app_restaurante.dto.ProductResponse;
+import com.rds.app_restaurante.dto.RewardProductResponse;
+import com.rds.app_restaurante.dto.SubCategoryResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Calentamiento después de cada despliegue: carga las cachés del catálogo, arma el menú público,
+ * ejecuta una vez las consultas principales (Hibernate prepara sus planes y metadatos), serializa
+ * varias veces las respuestas para que el JIT compile los serializadores y recorre los endpoints
+ * públicos por HTTP. Hasta que termina, el grupo de salud "readiness" responde OUT_OF_SERVICE
+ * y el balanceador no envía tráfico a la instancia.
+ */
+@Service
+@Slf4j
+public class WarmupService {
+
+    public enum Phase {
+        PENDING, RUNNING, COMPLETED, FAILED, DISABLED
+    }
+
+    // Endpoints públicos que se recorren por HTTP (filtros, seguridad, Jackson y Tomcat)
+    private static final List<String> PUBLIC_PATHS = List.of(
+            "/api/public/menu",
+            "/api/public/categories",
+            "/api/public/subcategories",
+            "/api/public/products",
+            "/api/public/rewards"
+    );
+
+    private final CategoryService categoryService;
+    private final SubCategoryService subCategoryService;
+    private final ProductService productService;
+    private final RewardProductService rewardProductService;
+    private final MenuSnapshotService menuSnapshotService;
+    private final OrderService orderService;
+    private final DeliveryService deliveryService;
+    private final ReservationService reservationService;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final boolean enabled;
+    private final int serializationRounds;
+    private final int httpRounds;
+
+    private volatile Phase phase = Phase.PENDING;
+    private volatile long durationMs;
+    private volatile String error;
+
+    public WarmupService(
+            CategoryService categoryService,
+            SubCategoryService subCategoryService,
+            ProductService productService,
+            RewardProductService rewardProductService,
+            MenuSnapshotService menuSnapshotService,
+            OrderService orderService,
+            DeliveryService deliveryService,
+            ReservationService reservationService,
+            ObjectMapper objectMapper,
+            Environment environment,
+            @Value("${warmup.enabled:true}") boolean enabled,
+            @Value("${warmup.serialization-rounds:200}") int serializationRounds,
+            @Value("${warmup.http-rounds:10}") int httpRounds) {
+        this.categoryService = categoryService;
+        this.subCategoryService = subCategoryService;
+        this.productService = productService;
+        this.rewardProductService = rewardProductService;
+        this.menuSnapshotService = menuSnapshotService;
+        this.orderService = orderService;
+        this.deliveryService = deliveryService;
+        this.reservationService = reservationService;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.serializationRounds = serializationRounds;
+        this.httpRounds = httpRounds;
+    }
+
+    /**
+     * Se ejecuta en el hilo de arranque: Spring Boot no publica ACCEPTING_TRAFFIC hasta que
+     * terminan los listeners de ApplicationReadyEvent, así que la instancia entra ya caliente
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            phase = Phase.DISABLED;
+            return;
+        }
+        phase = Phase.RUNNING;
+        long start = System.nanoTime();
+        try {
+            warmup();
+            phase = Phase.COMPLETED;
+        } catch (Exception e) {
+            // Un fallo del calentamiento no debe dejar la instancia fuera del balanceador para siempre
+            error = e.getMessage();
+            phase = Phase.FAILED;
+            log.warn("El calentamiento no se completó, la instancia arranca en frío: {}", e.getMessage());
+        } finally {
+            durationMs = (System.nanoTime() - start) / 1_000_000;
+        }
+        log.info("Calentamiento {} en {} ms", phase == Phase.COMPLETED ? "completado" : "interrumpido", durationMs);
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Lista para recibir tráfico: calentamiento terminado, fallido o desactivado
+     */
+    public boolean isFinished() {
+        return phase != Phase.PENDING && phase != Phase.RUNNING;
+    }
+
+    private void warmup() throws Exception {
+        // Cachés del catálogo (listas, por categoría y por id)
+        List<CategoryResponse> categories = categoryService.getAllCategories();
+        List<SubCategoryResponse> subCategories = subCategoryService.getAllSubCategories();
+        List<ProductResponse> products = productService.getAllProducts();
+        List<RewardProductResponse> rewards = rewardProductService.getActiveRewardProducts();
+        for (CategoryResponse category : categories) {
+            productService.getProductsByCategory(category.getId());
+        }
+        for (ProductResponse product : products) {
+            productService.getProductById(product.getId());
+        }
+        log.debug("Catálogo precargado: {} categorías, {} subcategorías, {} productos, {} recompensas",
+                categories.size(), subCategories.size(), products.size(), rewards.size());
+
+        // Instantánea del menú público
+        menuSnapshotService.getMenu();
+
+        // Consultas principales del panel (sin caché): pedidos, domicilios y reservas del día
+        LocalDate today = LocalDate.now();
+        List<?> orders = orderService.getOrdersByDate(today);
+        List<?> deliveries = deliveryService.getDeliveriesByDate(today);
+        List<?> reservations = reservationService.getReservationsByDate(today);
+
+        // Serializadores de Jackson hasta que el JIT los compile
+        List<Object> payloads = List.of(categories, subCategories, products, rewards, orders, deliveries, reservations);
+        for (int round = 0; round < serializationRounds; round++) {
+            for (Object payload : payloads) {
+                objectMapper.writeValueAsBytes(payload);
+            }
+        }
+
+        warmupHttp();
+    }
+
+    // Peticiones reales al propio servidor: calienta la cadena de filtros y el DispatcherServlet
+    private void warmupHttp() {
+        String port = environment.getProperty("local.server.port");
+        if (port == null || httpRounds <= 0) {
+            return;
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        for (int round = 0; round < httpRounds; round++) {
+            for (String path : PUBLIC_PATHS) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                        .timeout(Duration.ofSeconds(5))
+                        .header("Accept-Encoding", round % 2 == 0 ? "gzip" : "identity")
+                        .GET()
+                        .build();
+                try {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.debug("Petición de calentamiento a {} fallida: {}", path, e.getMessage());
+                }
+            }
+        }
+    }
+}
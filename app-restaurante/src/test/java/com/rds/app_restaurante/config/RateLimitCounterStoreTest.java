@@ -0,0 +1,79 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.config.RateLimitCounterStore.Grant;
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Policy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitCounterStoreTest {
+
+    // Ráfaga de 5 y un token por segundo: intervalo de 1.000.000 µs
+    private static final Policy POLICY = new Policy("test", 5, 60);
+    private static final long SECOND = 1_000_000L;
+    private static final long NOW = 1_700_000_000_000_000L;
+
+    @Test
+    void emptyBucketGrantsUpToWanted() {
+        Grant grant = RateLimitCounterStore.grant(POLICY, 0, 3, NOW);
+
+        assertEquals(3, grant.tokens());
+        assertEquals(NOW + 3 * SECOND, grant.fullAtMicros());
+    }
+
+    @Test
+    void grantIsCappedByRemainingBurst() {
+        Grant grant = RateLimitCounterStore.grant(POLICY, NOW + 3 * SECOND, 5, NOW);
+
+        assertEquals(2, grant.tokens());
+        assertEquals(NOW + 5 * SECOND, grant.fullAtMicros());
+    }
+
+    @Test
+    void exhaustedBucketGrantsNothingAndKeepsItsInstant() {
+        Grant grant = RateLimitCounterStore.grant(POLICY, NOW + 5 * SECOND, 1, NOW);
+
+        assertEquals(0, grant.tokens());
+        assertEquals(NOW + 5 * SECOND, grant.fullAtMicros());
+    }
+
+    @Test
+    void oneTokenIsBackExactlyOneIntervalLater() {
+        Grant justBefore = RateLimitCounterStore.grant(POLICY, NOW + 5 * SECOND, 1, NOW + SECOND - 1);
+        Grant atInterval = RateLimitCounterStore.grant(POLICY, NOW + 5 * SECOND, 2, NOW + SECOND);
+
+        assertEquals(0, justBefore.tokens());
+        assertEquals(1, atInterval.tokens());
+        assertEquals(NOW + 6 * SECOND, atInterval.fullAtMicros());
+    }
+
+    @Test
+    void staleInstantCountsAsFullBucket() {
+        Grant grant = RateLimitCounterStore.grant(POLICY, NOW - 3600 * SECOND, 10, NOW);
+
+        assertEquals(5, grant.tokens());
+        assertEquals(NOW + 5 * SECOND, grant.fullAtMicros());
+    }
+
+    @Test
+    void refundMovesTheInstantBackOneIntervalPerToken() {
+        assertEquals(NOW + 2 * SECOND, RateLimitCounterStore.refunded(POLICY, NOW + 5 * SECOND, 3, NOW));
+    }
+
+    @Test
+    void refundPastNowMeansFullBucket() {
+        assertEquals(0, RateLimitCounterStore.refunded(POLICY, NOW + 2 * SECOND, 3, NOW));
+    }
+
+    @Test
+    void refundedTokensCanBeReservedAgain() {
+        LocalRateLimitCounterStore store = new LocalRateLimitCounterStore();
+        Policy slow = new Policy("slow", 5, 1);
+        assertEquals(5, store.reserve("slow:10.0.0.1", slow, 5).tokens());
+        assertEquals(0, store.reserve("slow:10.0.0.1", slow, 1).tokens());
+
+        store.refund("slow:10.0.0.1", slow, 2);
+
+        assertEquals(2, store.reserve("slow:10.0.0.1", slow, 5).tokens());
+    }
+}
@@ -0,0 +1,176 @@
+package com.rds.app_restaurante.config;
+
+import com.rds.app_restaurante.config.RateLimitCounterStore.Grant;
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Decision;
+import com.rds.app_restaurante.config.TokenBucketRateLimiter.Policy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+    // Sin almacén compartido: cada instancia aplica su propio límite
+    private static TokenBucketRateLimiter limiter() {
+        return new TokenBucketRateLimiter(new SimpleMeterRegistry(),
+                new StaticListableBeanFactory().getBeanProvider(RateLimitCounterStore.class), 1000, 60, 20, 1000);
+    }
+
+    private static TokenBucketRateLimiter limiter(RateLimitCounterStore store, long leaseTtlMs) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("rateLimitCounterStore", store));
+        return new TokenBucketRateLimiter(new SimpleMeterRegistry(),
+                beans.getBeanProvider(RateLimitCounterStore.class), 1000, 60, 20, leaseTtlMs);
+    }
+
+    @Test
+    void burstIsExhaustedAfterCapacity() {
+        TokenBucketRateLimiter limiter = limiter();
+        Policy policy = new Policy("test", 5, 60);
+
+        for (int expectedRemaining = 4; expectedRemaining >= 0; expectedRemaining--) {
+            Decision decision = limiter.tryAcquire(policy, "10.0.0.1");
+            assertTrue(decision.allowed());
+            assertEquals(5, decision.limit());
+            assertEquals(expectedRemaining, decision.remaining());
+        }
+
+        Decision rejected = limiter.tryAcquire(policy, "10.0.0.1");
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertEquals(1, rejected.retryAfterSeconds());
+    }
+
+    @Test
+    void singleTokenBucketHasNoRemainingAfterFirstRequest() {
+        TokenBucketRateLimiter limiter = limiter();
+        Policy policy = new Policy("login", 1, 60);
+
+        Decision first = limiter.tryAcquire(policy, "10.0.0.1");
+        assertTrue(first.allowed());
+        assertEquals(0, first.remaining());
+        assertFalse(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+    }
+
+    @Test
+    void clientsAndPoliciesHaveSeparateBuckets() {
+        TokenBucketRateLimiter limiter = limiter();
+        Policy login = new Policy("login", 1, 60);
+        Policy api = new Policy("api", 1, 60);
+
+        assertTrue(limiter.tryAcquire(login, "10.0.0.1").allowed());
+        assertFalse(limiter.tryAcquire(login, "10.0.0.1").allowed());
+        assertTrue(limiter.tryAcquire(login, "10.0.0.2").allowed());
+        assertTrue(limiter.tryAcquire(api, "10.0.0.1").allowed());
+    }
+
+    @Test
+    void tokenIsRefilledAfterInterval() throws InterruptedException {
+        TokenBucketRateLimiter limiter = limiter();
+        // Un token cada 100 ms
+        Policy policy = new Policy("fast", 2, 600);
+
+        assertTrue(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+        assertTrue(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+        assertFalse(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+
+        Thread.sleep(150);
+
+        Decision refilled = limiter.tryAcquire(policy, "10.0.0.1");
+        assertTrue(refilled.allowed());
+        assertEquals(0, refilled.remaining());
+        assertFalse(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+    }
+
+    @Test
+    void sharedStoreEnforcesOneLimitAcrossInstances() {
+        LocalRateLimitCounterStore store = new LocalRateLimitCounterStore();
+        TokenBucketRateLimiter first = limiter(store, 1000);
+        TokenBucketRateLimiter second = limiter(store, 1000);
+        // Ráfaga de 30 (lotes de 3) y recarga de un token por minuto: no se recarga durante la prueba
+        Policy policy = new Policy("api", 30, 1);
+
+        int allowed = 0;
+        for (int i = 0; i < 40; i++) {
+            if (first.tryAcquire(policy, "10.0.0.1").allowed()) {
+                allowed++;
+            }
+            if (second.tryAcquire(policy, "10.0.0.1").allowed()) {
+                allowed++;
+            }
+        }
+
+        assertEquals(30, allowed);
+        Decision rejected = first.tryAcquire(policy, "10.0.0.1");
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertTrue(rejected.retryAfterSeconds() > 0);
+    }
+
+    @Test
+    void sharedRemainingCountsLeaseAndGlobalBucket() {
+        TokenBucketRateLimiter limiter = limiter(new LocalRateLimitCounterStore(), 1000);
+        Policy policy = new Policy("api", 30, 1);
+
+        for (int expectedRemaining = 29; expectedRemaining >= 0; expectedRemaining--) {
+            Decision decision = limiter.tryAcquire(policy, "10.0.0.1");
+            assertTrue(decision.allowed());
+            assertEquals(expectedRemaining, decision.remaining());
+        }
+        assertFalse(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+    }
+
+    @Test
+    void unavailableSharedStoreFallsBackToLocalLimit() {
+        TokenBucketRateLimiter limiter = limiter(new RateLimitCounterStore() {
+            @Override
+            public Grant reserve(String key, Policy policy, int wanted) {
+                throw new IllegalStateException("almacén caído");
+            }
+
+            @Override
+            public void refund(String key, Policy policy, int tokens) {
+                throw new IllegalStateException("almacén caído");
+            }
+        }, 1000);
+        Policy policy = new Policy("login", 3, 60);
+
+        assertTrue(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+        assertTrue(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+        assertTrue(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+        assertFalse(limiter.tryAcquire(policy, "10.0.0.1").allowed());
+    }
+
+    @Test
+    void unusedLeaseTokensAreRefundedWhenTheLeaseExpires() throws InterruptedException {
+        CountDownLatch refunded = new CountDownLatch(1);
+        LocalRateLimitCounterStore store = new LocalRateLimitCounterStore() {
+            @Override
+            public void refund(String key, Policy policy, int tokens) {
+                super.refund(key, policy, tokens);
+                assertEquals(2, tokens);
+                refunded.countDown();
+            }
+        };
+        TokenBucketRateLimiter first = limiter(store, 50);
+        TokenBucketRateLimiter second = limiter(store, 1000);
+        // Lotes de 3 y sin recarga durante la prueba
+        Policy policy = new Policy("api", 30, 1);
+
+        assertTrue(first.tryAcquire(policy, "10.0.0.1").allowed());
+        // El lote de la primera instancia vence con dos tokens sin usar
+        assertTrue(refunded.await(5, TimeUnit.SECONDS));
+
+        int allowed = 0;
+        while (second.tryAcquire(policy, "10.0.0.1").allowed()) {
+            allowed++;
+        }
+        assertEquals(29, allowed);
+    }
+}
@@ -0,0 +1,83 @@
+package com.rds.app_restaurante.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TwoLevelCacheTest {
+
+    private final LocalSharedCacheStore shared = new LocalSharedCacheStore(10);
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    // Escrituras en L2 retenidas hasta que la prueba las ejecute, como una cola atrasada
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+    private final TwoLevelCache cache = new TwoLevelCache(
+            new CaffeineCache("products", Caffeine.newBuilder().build()), shared, bus, pendingWrites::add);
+
+    @Test
+    void loadedValueIsWrittenToSharedLevel() {
+        assertEquals("menu-v1", cache.get(1L, () -> "menu-v1"));
+        runPendingWrites();
+
+        assertEquals("menu-v1", shared.get("products", "1"));
+    }
+
+    @Test
+    void writeQueuedBeforeEvictionDoesNotRestoreStaleValue() throws InterruptedException {
+        cache.get(1L, () -> "menu-v1");
+        Thread.sleep(2);
+
+        cache.evict(1L);
+        runPendingWrites();
+
+        assertNull(shared.get("products", "1"));
+        verify(bus).publish("products", "1");
+    }
+
+    @Test
+    void writeQueuedBeforeClearDoesNotRestoreStaleValue() throws InterruptedException {
+        cache.get(1L, () -> "menu-v1");
+        cache.get(2L, () -> "menu-v1");
+        Thread.sleep(2);
+
+        cache.clear();
+        runPendingWrites();
+
+        assertNull(shared.get("products", "1"));
+        assertNull(shared.get("products", "2"));
+        verify(bus).publish("products", null);
+    }
+
+    @Test
+    void valueLoadedAfterEvictionIsShared() throws InterruptedException {
+        cache.get(1L, () -> "menu-v1");
+        runPendingWrites();
+        cache.evict(1L);
+        Thread.sleep(2);
+
+        assertEquals("menu-v2", cache.get(1L, () -> "menu-v2"));
+        runPendingWrites();
+
+        assertEquals("menu-v2", shared.get("products", "1"));
+    }
+
+    @Test
+    void olderLoadDoesNotReplaceNewerValue() {
+        shared.put("products", "1", "menu-v2", System.currentTimeMillis());
+        shared.put("products", "1", "menu-v1", System.currentTimeMillis() - 1_000);
+
+        assertEquals("menu-v2", shared.get("products", "1"));
+    }
+
+    private void runPendingWrites() {
+        List<Runnable> writes = new ArrayList<>(pendingWrites);
+        pendingWrites.clear();
+        writes.forEach(Runnable::run);
+    }
+}
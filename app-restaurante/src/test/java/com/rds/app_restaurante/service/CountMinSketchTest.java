@@ -0,0 +1,91 @@
+package com.rds.app_restaurante.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimatesNeverUnderestimate() {
+        CountMinSketch sketch = new CountMinSketch();
+        long[] counts = new long[2_000];
+        for (int product = 0; product < counts.length; product++) {
+            int quantity = 1 + product % 7;
+            sketch.add(product, quantity);
+            counts[product] += quantity;
+        }
+
+        for (int product = 0; product < counts.length; product++) {
+            assertTrue(sketch.estimate(product) >= counts[product], "producto " + product);
+        }
+    }
+
+    @Test
+    void unseenItemWithoutCollisionsEstimatesZero() {
+        assertEquals(0, new CountMinSketch().estimate(12345));
+    }
+
+    @Test
+    void topItemsFindsHeavyHitters() {
+        CountMinSketch sketch = new CountMinSketch();
+        // Cola larga de productos poco vendidos y tres muy populares añadidos al final
+        for (long product = 1_000; product < 1_500; product++) {
+            sketch.add(product, 1);
+        }
+        sketch.add(1, 500);
+        sketch.add(2, 400);
+        sketch.add(3, 300);
+
+        List<Map.Entry<Long, Long>> top = sketch.topItems(3);
+
+        assertEquals(List.of(1L, 2L, 3L), top.stream().map(Map.Entry::getKey).toList());
+        assertTrue(top.get(0).getValue() >= 500);
+    }
+
+    @Test
+    void topItemsClampsLimit() {
+        CountMinSketch sketch = new CountMinSketch();
+        sketch.add(1, 2);
+        sketch.add(2, 1);
+
+        assertEquals(2, sketch.topItems(10).size());
+        assertTrue(sketch.topItems(0).isEmpty());
+        assertTrue(sketch.topItems(-1).isEmpty());
+    }
+
+    @Test
+    void mergeAddsCountersAndCandidates() {
+        CountMinSketch monday = new CountMinSketch();
+        CountMinSketch tuesday = new CountMinSketch();
+        monday.add(7, 10);
+        tuesday.add(7, 5);
+        tuesday.add(8, 3);
+
+        monday.merge(tuesday);
+
+        assertTrue(monday.estimate(7) >= 15);
+        assertTrue(monday.estimate(8) >= 3);
+        assertEquals(7L, monday.topItems(1).get(0).getKey());
+        assertEquals(2, monday.topItems(10).size());
+    }
+
+    @Test
+    void bytesAndCandidatesRoundTrip() {
+        CountMinSketch sketch = new CountMinSketch();
+        for (long product = 1; product <= 20; product++) {
+            sketch.add(product, (int) product);
+        }
+
+        CountMinSketch restored = CountMinSketch.fromBytes(sketch.toBytes(), sketch.candidatesToString());
+
+        for (long product = 1; product <= 20; product++) {
+            assertEquals(sketch.estimate(product), restored.estimate(product));
+        }
+        assertEquals(sketch.topItems(5), restored.topItems(5));
+    }
+}
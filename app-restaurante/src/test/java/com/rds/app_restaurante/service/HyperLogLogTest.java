@@ -0,0 +1,77 @@
+package com.rds.app_restaurante.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    // Cinco veces el error típico (~2.3 %) para que la prueba no dependa de la suerte
+    private static final double TOLERANCE = 0.115;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long user = 1; user <= 50; user++) {
+            sketch.add(user);
+            sketch.add(user);
+        }
+
+        assertTrue(Math.abs(sketch.estimate() - 50) <= 2, "estimación " + sketch.estimate());
+    }
+
+    @Test
+    void largeCardinalitiesStayWithinError() {
+        for (int distinct : new int[]{1_000, 10_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long user = 0; user < distinct; user++) {
+                sketch.add(user * 31 + 7);
+            }
+            assertWithinError(distinct, sketch.estimate());
+        }
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (long user = 0; user < 6_000; user++) {
+            monday.add(user);
+        }
+        for (long user = 4_000; user < 10_000; user++) {
+            tuesday.add(user);
+        }
+
+        monday.merge(tuesday);
+
+        assertWithinError(10_000, monday.estimate());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long user = 0; user < 5_000; user++) {
+            sketch.add(user);
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertArrayEquals(sketch.toBytes(), restored.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+        // Datos ausentes o de otra precisión se tratan como un sketch vacío
+        assertEquals(0, HyperLogLog.fromBytes(null).estimate());
+        assertEquals(0, HyperLogLog.fromBytes(new byte[16]).estimate());
+    }
+
+    private static void assertWithinError(long actual, long estimate) {
+        double error = Math.abs(estimate - actual) / (double) actual;
+        assertTrue(error <= TOLERANCE, "estimación " + estimate + " para " + actual);
+    }
+}
@@ -0,0 +1,123 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.Transaction;
+import com.rds.app_restaurante.model.TransactionType;
+import com.rds.app_restaurante.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LedgerColumnStoreTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 3, 10, 12, 0);
+    private static final LocalDateTime FROM = NOON.toLocalDate().atStartOfDay();
+    private static final LocalDateTime TO = FROM.plusDays(1).minusNanos(1);
+
+    @TempDir
+    Path directory;
+
+    private final TransactionRepository repository = mock(TransactionRepository.class);
+    private LedgerColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LedgerColumnStore(repository, true, directory.toString(), "none");
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void lateCommitWithLowerIdIsAppendedAfterRebuild() throws Exception {
+        // La transacción 3 todavía no estaba confirmada cuando la reconstrucción leyó la 4
+        rows(row(1, "10.00"), row(2, "20.00"), row(4, "40.00"));
+        store.rebuild();
+
+        store.append(income(3, "30.00"));
+
+        assertEquals(new BigDecimal("100.00"), store.sum(FROM, TO, TransactionType.INCOME).orElseThrow());
+    }
+
+    @Test
+    void writeAlreadyReadByRebuildIsNotCountedTwice() throws Exception {
+        rows(row(1, "10.00"), row(2, "20.00"), row(4, "40.00"));
+        store.rebuild();
+
+        // Confirmadas antes de la lectura de su página; su afterCommit llega después de la reconstrucción
+        store.append(income(1, "10.00"));
+        store.append(income(2, "20.00"));
+        store.append(income(4, "40.00"));
+        store.append(income(5, "50.00"));
+
+        assertEquals(new BigDecimal("120.00"), store.sum(FROM, TO, TransactionType.INCOME).orElseThrow());
+    }
+
+    @Test
+    void sumsByReferenceAndSkipDeletedRows() throws Exception {
+        rows(row(1, "10.00"), row(2, "20.00"));
+        store.rebuild();
+        store.append(Transaction.builder().id(3L).createdAt(NOON).transactionType(TransactionType.EXPENSE)
+                .referenceType("EXPENSE").amount(new BigDecimal("7.50")).build());
+
+        store.markDeleted(1L);
+
+        Map<String, BigDecimal> income = store.sumByReferenceType(FROM, TO, TransactionType.INCOME).orElseThrow();
+        assertEquals(Map.of("ORDER", new BigDecimal("20.00")), income);
+        assertEquals(new BigDecimal("7.50"), store.sum(FROM, TO, TransactionType.EXPENSE).orElseThrow());
+    }
+
+    @Test
+    void reopenedStoreKeepsRebuiltRowsForDuplicateChecks() throws Exception {
+        rows(row(1, "10.00"), row(2, "20.00"), row(4, "40.00"));
+        store.rebuild();
+        store.close();
+        List<Object[]> stats = new ArrayList<>();
+        stats.add(new Object[]{3L, 4L});
+        when(repository.getLedgerStats()).thenReturn(stats);
+
+        store = new LedgerColumnStore(repository, true, directory.toString(), "none");
+        store.onApplicationReady();
+        assertTrue(store.isReady());
+        store.append(income(2, "20.00"));
+        store.append(income(3, "30.00"));
+
+        assertEquals(new BigDecimal("100.00"), store.sum(FROM, TO, TransactionType.INCOME).orElseThrow());
+    }
+
+    private void rows(Object[]... rows) {
+        List<Object[]> page = new ArrayList<>(List.of(rows));
+        when(repository.findLedgerColumnsAfter(anyLong(), any())).thenReturn(page).thenReturn(List.of());
+    }
+
+    private static Object[] row(long id, String amount) {
+        return new Object[]{id, NOON, TransactionType.INCOME, "ORDER", id, new BigDecimal(amount)};
+    }
+
+    private static Transaction income(long id, String amount) {
+        return Transaction.builder()
+                .id(id)
+                .createdAt(NOON)
+                .transactionType(TransactionType.INCOME)
+                .referenceType("ORDER")
+                .referenceId(id)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
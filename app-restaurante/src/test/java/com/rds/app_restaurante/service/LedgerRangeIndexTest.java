@@ -0,0 +1,159 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.Transaction;
+import com.rds.app_restaurante.model.TransactionType;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import com.rds.app_restaurante.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LedgerRangeIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final DeliveryRepository deliveryRepository = mock(DeliveryRepository.class);
+
+    // Valores esperados por día: ingresos, ingresos de pedidos, gastos (en centavos) y pedidos
+    private final TreeMap<LocalDate, long[]> expected = new TreeMap<>();
+    private LedgerRangeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        List<Object[]> ledger = new ArrayList<>();
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LocalDate day = TODAY.minusDays(random.nextInt(90));
+            long cents = 100 + random.nextInt(100_000);
+            boolean income = random.nextBoolean();
+            ledger.add(new Object[]{day.atTime(12, 0), income ? TransactionType.INCOME : TransactionType.EXPENSE,
+                    income ? "ORDER" : "EXPENSE", BigDecimal.valueOf(cents, 2)});
+            long[] values = expected.computeIfAbsent(day, key -> new long[4]);
+            if (income) {
+                values[0] += cents;
+                values[1] += cents;
+            } else {
+                values[2] += cents;
+            }
+        }
+        // Un ajuste no cuenta ni como ingreso ni como gasto
+        ledger.add(new Object[]{TODAY.atTime(9, 0), TransactionType.ADJUSTMENT, null, new BigDecimal("500.00")});
+        for (int i = 0; i < 30; i++) {
+            LocalDate day = TODAY.minusDays(random.nextInt(90));
+            long count = 1 + random.nextInt(20);
+            orders.add(new Object[]{day, count});
+            expected.computeIfAbsent(day, key -> new long[4])[3] += count;
+        }
+        when(transactionRepository.findLedgerEntries()).thenReturn(ledger);
+        when(orderRepository.countOrdersByDate()).thenReturn(orders);
+        when(deliveryRepository.countDeliveriesByDate()).thenReturn(List.of());
+
+        index = new LedgerRangeIndex(transactionRepository, orderRepository, deliveryRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void notReadyBeforeRebuild() {
+        LedgerRangeIndex empty = new LedgerRangeIndex(transactionRepository, orderRepository, deliveryRepository);
+
+        assertFalse(empty.isReady());
+        assertTrue(empty.getTotals(TODAY, TODAY).isEmpty());
+    }
+
+    @Test
+    void rangeTotalsMatchDailySums() {
+        assertTrue(index.isReady());
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            LocalDate start = TODAY.minusDays(random.nextInt(120));
+            LocalDate end = start.plusDays(random.nextInt(60));
+            assertRange(start, end);
+        }
+        // Rangos de un día, completamente fuera del índice y en el borde del histórico
+        assertRange(TODAY, TODAY);
+        assertRange(TODAY.minusYears(5), TODAY.minusYears(4));
+        assertRange(TODAY.plusYears(4), TODAY.plusYears(5));
+        assertRange(TODAY.minusYears(5), TODAY.plusYears(5));
+    }
+
+    @Test
+    void dailyTotalsMatchEachDay() {
+        LocalDate start = TODAY.minusDays(95);
+        List<LedgerRangeIndex.RangeTotals> daily = index.getDailyTotals(start, TODAY).orElseThrow();
+
+        assertEquals(96, daily.size());
+        for (LedgerRangeIndex.RangeTotals day : daily) {
+            long[] values = expected.getOrDefault(day.getStartDate(), new long[4]);
+            assertEquals(BigDecimal.valueOf(values[0], 2), day.getRevenue());
+            assertEquals(BigDecimal.valueOf(values[2], 2), day.getExpenses());
+            assertEquals(values[3], day.getOrdersCount());
+        }
+    }
+
+    @Test
+    void recordedWritesUpdateRangesAndGrowTheIndex() {
+        // Fuera de cualquier transacción la escritura se aplica en el acto
+        LocalDate historic = TODAY.minusYears(3);
+        LocalDate future = TODAY.plusYears(2);
+        Transaction old = transaction(historic, TransactionType.SALARY_PAYMENT, "SALARY_PAYMENT", "1200.50");
+        Transaction upcoming = transaction(future, TransactionType.INCOME, "DELIVERY", "80.00");
+
+        index.recordTransaction(old, 1);
+        index.recordTransaction(upcoming, 1);
+        index.recordOrder(historic);
+        index.recordDelivery(future);
+
+        LedgerRangeIndex.RangeTotals past = index.getTotals(historic, historic).orElseThrow();
+        assertEquals(new BigDecimal("1200.50"), past.getExpenses());
+        assertEquals(1, past.getOrdersCount());
+        LedgerRangeIndex.RangeTotals ahead = index.getTotals(future, future).orElseThrow();
+        assertEquals(new BigDecimal("80.00"), ahead.getRevenue());
+        assertEquals(new BigDecimal("80.00"), ahead.getDeliveriesRevenue());
+        assertEquals(1, ahead.getDeliveriesCount());
+        // El resto de rangos no cambia al ampliar el índice
+        assertRange(TODAY.minusDays(89), TODAY);
+
+        index.recordTransaction(old, -1);
+        assertEquals(new BigDecimal("0.00"), index.getTotals(historic, historic).orElseThrow().getExpenses());
+    }
+
+    private void assertRange(LocalDate start, LocalDate end) {
+        long[] sums = new long[4];
+        for (long[] values : expected.subMap(start, true, end, true).values()) {
+            for (int metric = 0; metric < sums.length; metric++) {
+                sums[metric] += values[metric];
+            }
+        }
+        LedgerRangeIndex.RangeTotals totals = index.getTotals(start, end).orElseThrow();
+        String range = start + ".." + end;
+        assertEquals(BigDecimal.valueOf(sums[0], 2), totals.getRevenue(), range);
+        assertEquals(BigDecimal.valueOf(sums[1], 2), totals.getOrdersRevenue(), range);
+        assertEquals(BigDecimal.valueOf(sums[2], 2), totals.getExpenses(), range);
+        assertEquals(sums[3], totals.getOrdersCount(), range);
+    }
+
+    private static Transaction transaction(LocalDate day, TransactionType type, String referenceType, String amount) {
+        return Transaction.builder()
+                .transactionType(type)
+                .referenceType(referenceType)
+                .amount(new BigDecimal(amount))
+                .createdAt(day.atTime(10, 0))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.LifecycleStage;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LifecycleMetricsServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+    private static final LocalTime PLACED = LocalTime.of(13, 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LifecycleMetricsService service = new LifecycleMetricsService(registry,
+            mock(OrderRepository.class), mock(DeliveryRepository.class));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void latencyIsRecordedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.record(LifecycleMetricsService.ORDER, LifecycleStage.PLACED_TO_COMPLETED, DAY, PLACED,
+                LocalDateTime.of(DAY, PLACED).plusMinutes(20));
+        assertNull(registry.find("restaurant.lifecycle.latency").timer());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        Timer timer = registry.get("restaurant.lifecycle.latency")
+                .tag("type", LifecycleMetricsService.ORDER)
+                .tag("stage", LifecycleStage.PLACED_TO_COMPLETED.name())
+                .timer();
+        assertEquals(1, timer.count());
+        assertEquals(20, timer.totalTime(TimeUnit.MINUTES), 0.001);
+    }
+
+    @Test
+    void rolledBackTransitionIsNotRecorded() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.record(LifecycleMetricsService.DELIVERY, LifecycleStage.PLACED_TO_VERIFIED, DAY, PLACED,
+                LocalDateTime.of(DAY, PLACED).plusMinutes(5));
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNull(registry.find("restaurant.lifecycle.latency").timer());
+    }
+
+    @Test
+    void timerHasNoHourTagAndNoClientPercentiles() {
+        // Horas distintas comparten la misma serie
+        service.record(LifecycleMetricsService.ORDER, LifecycleStage.PLACED_TO_COMPLETED, DAY, LocalTime.of(9, 0),
+                LocalDateTime.of(DAY, LocalTime.of(9, 30)));
+        service.record(LifecycleMetricsService.ORDER, LifecycleStage.PLACED_TO_COMPLETED, DAY, LocalTime.of(21, 0),
+                LocalDateTime.of(DAY, LocalTime.of(21, 10)));
+
+        assertEquals(1, registry.find("restaurant.lifecycle.latency").timers().size());
+        Timer timer = registry.get("restaurant.lifecycle.latency").timer();
+        assertEquals(2, timer.count());
+        assertNull(timer.getId().getTag("hour"));
+        assertEquals(0, timer.takeSnapshot().percentileValues().length);
+    }
+
+    @Test
+    void negativeLatencyIsIgnored() {
+        service.record(LifecycleMetricsService.ORDER, LifecycleStage.PLACED_TO_COMPLETED, DAY, PLACED,
+                LocalDateTime.of(DAY, PLACED).minusMinutes(1));
+
+        assertNull(registry.find("restaurant.lifecycle.latency").timer());
+    }
+}
@@ -0,0 +1,54 @@
+package com.rds.app_restaurante.service;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfReportWriterTest {
+
+    private static final PDFont FONT = PdfReportWriter.REGULAR;
+
+    @Test
+    void widthMatchesFontMetricsForWholeText() throws IOException {
+        for (String text : new String[]{"", "Total", "Ají de gallina con papas", "Número de pedidos: 1.234"}) {
+            assertEquals(FONT.getStringWidth(text) / 1000 * 9, PdfReportWriter.width(text, FONT, 9), 0.01, text);
+            assertEquals(PdfReportWriter.BOLD.getStringWidth(text) / 1000 * 12,
+                    PdfReportWriter.width(text, PdfReportWriter.BOLD, 12), 0.01, text);
+        }
+    }
+
+    @Test
+    void unsupportedCharactersAreMeasuredAsReplacement() throws IOException {
+        assertEquals(PdfReportWriter.width("Sopa ?", FONT, 10), PdfReportWriter.width("Sopa 🍜".substring(0, 6), FONT, 10), 0.01);
+    }
+
+    @Test
+    void fitKeepsTextThatFits() throws IOException {
+        assertEquals("Arroz", PdfReportWriter.fit("Arroz", FONT, 9, 100));
+    }
+
+    @Test
+    void fitKeepsTheLongestPrefixThatFitsWithEllipsis() throws IOException {
+        String text = "Bandeja paisa con chicharrón, huevo, aguacate y arepa";
+        float fullWidth = PdfReportWriter.width(text, FONT, 9);
+        for (float maxWidth = 5; maxWidth < fullWidth; maxWidth += 3.5f) {
+            String fitted = PdfReportWriter.fit(text, FONT, 9, maxWidth);
+
+            assertEquals(linearFit(text, maxWidth), fitted, "ancho " + maxWidth);
+            assertTrue(fitted.endsWith("..."));
+        }
+    }
+
+    // Recorte carácter a carácter desde el final, como referencia
+    private static String linearFit(String text, float maxWidth) throws IOException {
+        int end = text.length();
+        while (end > 0 && FONT.getStringWidth(text.substring(0, end) + "...") / 1000 * 9 > maxWidth) {
+            end--;
+        }
+        return text.substring(0, end) + "...";
+    }
+}
@@ -0,0 +1,135 @@
+package com.rds.app_restaurante.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rds.app_restaurante.model.PeriodSnapshot;
+import com.rds.app_restaurante.model.PeriodStatus;
+import com.rds.app_restaurante.model.PeriodType;
+import com.rds.app_restaurante.model.TransactionType;
+import com.rds.app_restaurante.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PeriodCloseServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().minusDays(3);
+
+    private final PeriodSnapshotRepository snapshots = mock(PeriodSnapshotRepository.class);
+    private final TransactionRepository transactions = mock(TransactionRepository.class);
+    private final OrderRepository orders = mock(OrderRepository.class);
+    private final DeliveryRepository deliveries = mock(DeliveryRepository.class);
+    private final ReservationRepository reservations = mock(ReservationRepository.class);
+    private final ExpenseRepository expenses = mock(ExpenseRepository.class);
+    private final OrderItemRepository orderItems = mock(OrderItemRepository.class);
+    private final DeliveryItemRepository deliveryItems = mock(DeliveryItemRepository.class);
+    private PeriodCloseService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PeriodCloseService(snapshots, transactions, expenses, orders, deliveries, reservations,
+                orderItems, deliveryItems, new ObjectMapper(), mock(PlatformTransactionManager.class));
+        when(snapshots.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void reopenDuringRecloseRecalculatesWithFreshTotals() {
+        PeriodSnapshot reopened = reopenedSnapshot();
+        when(snapshots.findByStatus(PeriodStatus.REOPENED)).thenReturn(List.of(reopened));
+        when(snapshots.findByPeriodTypeAndPeriodStart(PeriodType.DAILY, DAY)).thenReturn(Optional.of(reopened));
+        // La primera lectura no incluye el pago que reabrió el periodo durante el cálculo
+        when(transactions.sumByTypeAndReferenceBetweenDates(any(), any())).thenReturn(
+                List.<Object[]>of(income("100.00")),
+                List.<Object[]>of(income("150.00")));
+        AtomicReference<BigDecimal> firstAttempt = new AtomicReference<>();
+        when(snapshots.saveAndFlush(any()))
+                .thenAnswer(invocation -> {
+                    firstAttempt.set(((PeriodSnapshot) invocation.getArgument(0)).getTotalRevenue());
+                    throw new ObjectOptimisticLockingFailureException(PeriodSnapshot.class, 1L);
+                })
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(1, service.recloseReopenedPeriods());
+
+        assertEquals(new BigDecimal("100.00"), firstAttempt.get());
+        assertEquals(PeriodStatus.CLOSED, reopened.getStatus());
+        assertEquals(new BigDecimal("150.00"), reopened.getTotalRevenue());
+        assertNull(reopened.getReopenedAt());
+        verify(snapshots, times(2)).saveAndFlush(reopened);
+    }
+
+    @Test
+    void periodReopenedOnEveryAttemptStaysReopened() {
+        PeriodSnapshot reopened = reopenedSnapshot();
+        when(snapshots.findByStatus(PeriodStatus.REOPENED)).thenReturn(List.of(reopened));
+        when(snapshots.findByPeriodTypeAndPeriodStart(PeriodType.DAILY, DAY)).thenReturn(Optional.of(reopened));
+        when(transactions.sumByTypeAndReferenceBetweenDates(any(), any())).thenReturn(List.of());
+        when(snapshots.saveAndFlush(any())).thenThrow(new ObjectOptimisticLockingFailureException(PeriodSnapshot.class, 1L));
+
+        assertEquals(0, service.recloseReopenedPeriods());
+        verify(snapshots, times(3)).saveAndFlush(any());
+    }
+
+    @Test
+    void snapshotIsReadBeforeTotals() {
+        when(snapshots.findByPeriodTypeAndPeriodStart(PeriodType.DAILY, DAY)).thenReturn(Optional.empty());
+        when(transactions.sumByTypeAndReferenceBetweenDates(any(), any())).thenReturn(List.<Object[]>of(income("40.00")));
+
+        PeriodSnapshot closed = service.closeDay(DAY);
+
+        assertEquals(PeriodStatus.CLOSED, closed.getStatus());
+        assertEquals(new BigDecimal("40.00"), closed.getOrdersRevenue());
+        InOrder order = inOrder(snapshots, transactions);
+        order.verify(snapshots).findByPeriodTypeAndPeriodStart(PeriodType.DAILY, DAY);
+        order.verify(transactions).sumByTypeAndReferenceBetweenDates(any(), any());
+        order.verify(snapshots).saveAndFlush(any());
+    }
+
+    @Test
+    void reopenMarksDayAndMonthAndPropagatesFailures() {
+        service.reopen(DAY);
+
+        verify(snapshots).markReopened(eq(PeriodType.DAILY), eq(DAY), eq(PeriodStatus.REOPENED), any());
+        verify(snapshots).markReopened(eq(PeriodType.MONTHLY), eq(DAY.withDayOfMonth(1)), eq(PeriodStatus.REOPENED), any());
+
+        when(snapshots.markReopened(any(), any(), any(), any())).thenThrow(new QueryTimeoutException("lock wait timeout"));
+        assertThrows(QueryTimeoutException.class, () -> service.reopen(DAY));
+    }
+
+    @Test
+    void reopenIgnoresOpenPeriods() {
+        service.reopen(LocalDate.now());
+        service.reopen(null);
+
+        verifyNoInteractions(snapshots);
+    }
+
+    private static PeriodSnapshot reopenedSnapshot() {
+        return PeriodSnapshot.builder()
+                .id(1L)
+                .periodType(PeriodType.DAILY)
+                .periodStart(DAY)
+                .periodEnd(DAY)
+                .status(PeriodStatus.REOPENED)
+                .reopenedAt(DAY.plusDays(1).atStartOfDay())
+                .version(4L)
+                .build();
+    }
+
+    private static Object[] income(String amount) {
+        return new Object[]{TransactionType.INCOME, "ORDER", new BigDecimal(amount)};
+    }
+}
@@ -0,0 +1,136 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.*;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReceiptServiceTest {
+
+    private final OrderRepository orders = mock(OrderRepository.class);
+    private final DeliveryRepository deliveries = mock(DeliveryRepository.class);
+    private ReceiptService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new ReceiptService(orders, deliveries, "Restaurante RDS", "Calle 1", "300", "Gracias",
+                42, 100, mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void verifiedOrderIsLoadedOnRendererAfterCommitAndCached() throws Exception {
+        AtomicReference<String> loadingThread = new AtomicReference<>();
+        when(orders.findReceiptById(1L)).thenAnswer(invocation -> {
+            loadingThread.set(Thread.currentThread().getName());
+            return Optional.of(order(1L));
+        });
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.prepareOrderReceipt(1L);
+        // Dentro de la transacción del pago no se lee nada
+        verifyNoInteractions(orders);
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        awaitRenderer();
+
+        assertEquals("receipt-renderer", loadingThread.get());
+        byte[] pdf = service.getOrderReceipt(1L, ReceiptFormat.PDF);
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        verify(orders, times(1)).findReceiptById(1L);
+        verify(orders, never()).findById(any());
+    }
+
+    @Test
+    void rolledBackVerificationDoesNotLoadOrRender() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.prepareDeliveryReceipt(5L);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verifyNoInteractions(deliveries);
+    }
+
+    @Test
+    void missingOrderIsSkipped() throws Exception {
+        when(orders.findReceiptById(2L)).thenReturn(Optional.empty());
+
+        service.prepareOrderReceipt(2L);
+        awaitRenderer();
+
+        assertThrows(RuntimeException.class, () -> service.getOrderReceipt(2L, ReceiptFormat.PDF));
+    }
+
+    @Test
+    void textReceiptUsesFetchJoinQuery() {
+        when(orders.findReceiptById(1L)).thenReturn(Optional.of(order(1L)));
+
+        String text = new String(service.getOrderReceipt(1L, ReceiptFormat.TEXT), StandardCharsets.UTF_8);
+
+        assertTrue(text.contains("2 x Bandeja paisa"), text);
+        assertTrue(text.contains("Cliente: Ana Pérez"), text);
+        verify(orders, never()).findById(any());
+    }
+
+    // El generador tiene un solo hilo: cuando corre una tarea posterior las anteriores ya terminaron
+    private void awaitRenderer() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        when(deliveries.findReceiptById(-1L)).thenAnswer(invocation -> {
+            done.countDown();
+            return Optional.empty();
+        });
+        service.prepareDeliveryReceipt(-1L);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Order order(Long id) {
+        User user = new User();
+        user.setName("Ana");
+        user.setLastName("Pérez");
+        Product product = new Product();
+        product.setName("Bandeja paisa");
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setSubtotal(64_000);
+        Order order = new Order();
+        order.setId(id);
+        order.setDate(LocalDate.of(2025, 3, 10));
+        order.setTime(LocalTime.of(13, 15));
+        order.setTableNumber(4);
+        order.setUser(user);
+        order.setItems(List.of(item));
+        order.setTotalPrice(64_000);
+        order.setPaymentMethod(PaymentMethod.CASH);
+        order.setPaymentStatus(PaymentStatus.VERIFIED);
+        order.setVerifiedAt(LocalDateTime.of(2025, 3, 10, 13, 40));
+        return order;
+    }
+}
@@ -0,0 +1,51 @@
+package com.rds.app_restaurante.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationBloomFilterTest {
+
+    @Test
+    void addedTokensAreAlwaysReported() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(1 << 20);
+        String[] tokens = new String[50_000];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = UUID.randomUUID().toString();
+            filter.add(tokens[i]);
+        }
+
+        for (String token : tokens) {
+            assertTrue(filter.mightContain(token));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysBelowDocumentedBound() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(1 << 20);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add("revoked-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("active-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < probes / 1000, falsePositives + " falsos positivos");
+    }
+
+    @Test
+    void emptyFilterRejectsEverything() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(0);
+
+        assertFalse(filter.mightContain(""));
+        assertFalse(filter.mightContain(UUID.randomUUID().toString()));
+    }
+}
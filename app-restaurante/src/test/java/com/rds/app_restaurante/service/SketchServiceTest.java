@@ -0,0 +1,116 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.model.DailySketch;
+import com.rds.app_restaurante.model.Order;
+import com.rds.app_restaurante.model.OrderItem;
+import com.rds.app_restaurante.model.Product;
+import com.rds.app_restaurante.model.User;
+import com.rds.app_restaurante.repository.DailySketchRepository;
+import com.rds.app_restaurante.repository.DeliveryRepository;
+import com.rds.app_restaurante.repository.OrderRepository;
+import com.rds.app_restaurante.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SketchServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final DailySketchRepository sketches = mock(DailySketchRepository.class);
+    private final OrderRepository orders = mock(OrderRepository.class);
+    private final DeliveryRepository deliveries = mock(DeliveryRepository.class);
+    private SketchService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SketchService(sketches, orders, deliveries, mock(ProductRepository.class),
+                mock(PlatformTransactionManager.class));
+        when(sketches.findBySketchDateForUpdate(any())).thenReturn(Optional.empty());
+        when(sketches.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void rebuildStopsBeforeFirstDayRecordedOnline() {
+        // Desde hace dos días otras instancias registran en línea y pueden tener cambios sin guardar
+        when(sketches.findFirstByRebuiltFalseOrderBySketchDateAsc()).thenReturn(Optional.of(stored(TODAY.minusDays(2))));
+
+        assertEquals(3, service.rebuild(TODAY.minusDays(5), TODAY));
+
+        verify(orders).findByDateBetween(TODAY.minusDays(5), TODAY.minusDays(3));
+        verify(deliveries).findByDateBetween(TODAY.minusDays(5), TODAY.minusDays(3));
+        verify(sketches, never()).findBySketchDateForUpdate(TODAY.minusDays(2));
+    }
+
+    @Test
+    void rangeRecordedOnlineIsNotRebuilt() {
+        when(sketches.findFirstByRebuiltFalseOrderBySketchDateAsc()).thenReturn(Optional.of(stored(TODAY.minusDays(2))));
+
+        assertEquals(0, service.rebuild(TODAY.minusDays(2), TODAY));
+
+        verifyNoInteractions(orders, deliveries);
+        verify(sketches, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void withoutOnlineSketchesTodayIsNeverRebuilt() {
+        when(sketches.findFirstByRebuiltFalseOrderBySketchDateAsc()).thenReturn(Optional.empty());
+
+        assertEquals(2, service.rebuild(TODAY.minusDays(2), TODAY.plusDays(1)));
+
+        verify(orders).findByDateBetween(TODAY.minusDays(2), TODAY.minusDays(1));
+    }
+
+    @Test
+    void rebuiltDaysReplaceStoredRowAndAreMarked() {
+        when(sketches.findFirstByRebuiltFalseOrderBySketchDateAsc()).thenReturn(Optional.empty());
+        LocalDate day = TODAY.minusDays(1);
+        DailySketch previous = stored(day);
+        when(sketches.findBySketchDateForUpdate(day)).thenReturn(Optional.of(previous));
+        when(orders.findByDateBetween(day, day)).thenReturn(List.of(order(day, 7L, 3L, 2), order(day, 8L, 3L, 1)));
+
+        assertEquals(1, service.rebuild(day, day));
+
+        ArgumentCaptor<DailySketch> saved = ArgumentCaptor.forClass(DailySketch.class);
+        verify(sketches).saveAndFlush(saved.capture());
+        assertSame(previous, saved.getValue());
+        assertTrue(saved.getValue().isRebuilt());
+        assertEquals(2, HyperLogLog.fromBytes(saved.getValue().getDistinctUsers()).estimate());
+        CountMinSketch products = CountMinSketch.fromBytes(saved.getValue().getProductCounts(),
+                saved.getValue().getTopProductIds());
+        assertEquals(3, products.estimate(3L));
+    }
+
+    private static DailySketch stored(LocalDate date) {
+        return DailySketch.builder()
+                .sketchDate(date)
+                .distinctUsers(new HyperLogLog().toBytes())
+                .productCounts(new CountMinSketch().toBytes())
+                .topProductIds("")
+                .build();
+    }
+
+    private static Order order(LocalDate date, Long userId, Long productId, int quantity) {
+        User user = new User();
+        user.setId(userId);
+        Product product = new Product();
+        product.setId(productId);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        Order order = new Order();
+        order.setDate(date);
+        order.setUser(user);
+        order.setItems(List.of(item));
+        return order;
+    }
+}
@@ -0,0 +1,99 @@
+package com.rds.app_restaurante.service;
+
+import com.rds.app_restaurante.config.CacheInvalidationBus;
+import com.rds.app_restaurante.model.RevokedToken;
+import com.rds.app_restaurante.repository.RevokedTokenRepository;
+import com.rds.app_restaurante.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private static final long LIFETIME_MS = 3_600_000;
+    // Segundo entero en el que se hace el corte
+    private static final Instant SECOND = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void tokenIssuedInTheCutoffSecondAfterTheCutoffIsNotRevoked() {
+        // El corte cae a mitad de segundo; el nuevo inicio de sesión lleva iat de ese mismo segundo
+        TokenRevocationService service = serviceWithCutoff(SECOND.plusMillis(500), null);
+
+        assertFalse(service.isRevoked(claims("new", SECOND)));
+        assertFalse(service.isRevoked(claims("later", SECOND.plusSeconds(1))));
+    }
+
+    @Test
+    void tokenIssuedInAnEarlierSecondIsRevoked() {
+        TokenRevocationService service = serviceWithCutoff(SECOND.plusMillis(500), null);
+
+        assertTrue(service.isRevoked(claims("old", SECOND.minusSeconds(1))));
+        assertTrue(service.isRevoked(claims(null, null)));
+    }
+
+    @Test
+    void exceptedSessionSurvivesTheCutoff() {
+        TokenRevocationService service = serviceWithCutoff(SECOND, "current");
+
+        assertFalse(service.isRevoked(claims("current", SECOND.minusSeconds(60))));
+        assertTrue(service.isRevoked(claims("other", SECOND.minusSeconds(60))));
+    }
+
+    @Test
+    void activeRevocationsGaugeIsRegisteredOnLoad() {
+        TokenRevocationService service = serviceWithCutoff(SECOND, null);
+
+        assertEquals(1.0, meterRegistry.get("jwt.revocations.active").gauge().value());
+        service.isRevoked(claims("old", SECOND.minusSeconds(1)));
+        assertEquals(1.0, meterRegistry.get("jwt.revocations.rejected").counter().count());
+    }
+
+    private TokenRevocationService serviceWithCutoff(Instant issuedBefore, String exceptTokenId) {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(RevokedToken.builder()
+                .id(1L)
+                .role("CLIENT")
+                .userId(7L)
+                .issuedBefore(toDateTime(issuedBefore))
+                .exceptTokenId(exceptTokenId)
+                .expiresAt(toDateTime(issuedBefore.plusMillis(LIFETIME_MS)))
+                .build()));
+        @SuppressWarnings("unchecked")
+        ObjectProvider<CacheInvalidationBus> bus = mock(ObjectProvider.class);
+        TokenRevocationService service = new TokenRevocationService(
+                repository, mock(UserRepository.class), bus, meterRegistry, LIFETIME_MS, 1024);
+        service.load();
+        return service;
+    }
+
+    private static Claims claims(String tokenId, Instant issuedAt) {
+        return Jwts.claims()
+                .id(tokenId)
+                .issuedAt(issuedAt != null ? Date.from(issuedAt) : null)
+                .add("role", "CLIENT")
+                .add("userId", 7L)
+                .build();
+    }
+
+    private static LocalDateTime toDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
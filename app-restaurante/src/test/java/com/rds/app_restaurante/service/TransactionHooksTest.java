@@ -0,0 +1,98 @@
+package com.rds.app_restaurante.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionHooksTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void runsImmediatelyWithoutTransaction() {
+        AtomicInteger runs = new AtomicInteger();
+
+        TransactionHooks.afterCommit(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runsOnlyAfterCommit() {
+        AtomicInteger runs = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransactionHooks.afterCommit(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+
+        commit();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void writeWindowIsNotQuietWhileAWriteCommits() {
+        TransactionHooks.WriteWindow window = new TransactionHooks.WriteWindow();
+        AtomicInteger applied = new AtomicInteger();
+        long mark = window.open();
+        assertTrue(window.isQuiet(mark));
+
+        TransactionSynchronizationManager.initSynchronization();
+        window.afterCommit(applied::incrementAndGet);
+        // Registrada pero sin commit todavía: la lectura no puede haberla visto
+        assertTrue(window.isQuiet(mark));
+
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        assertFalse(window.isQuiet(mark));
+        assertFalse(window.isQuiet(window.open()));
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(1, applied.get());
+        // La lectura iniciada antes no sabe si incluyó la escritura; una nueva sí
+        assertFalse(window.isQuiet(mark));
+        assertTrue(window.isQuiet(window.open()));
+    }
+
+    @Test
+    void rolledBackWriteIsNotApplied() {
+        TransactionHooks.WriteWindow window = new TransactionHooks.WriteWindow();
+        AtomicInteger applied = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        window.afterCommit(applied::incrementAndGet);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(0, applied.get());
+        assertTrue(window.isQuiet(window.open()));
+    }
+
+    @Test
+    void writeWithoutTransactionCountsAsCompleted() {
+        TransactionHooks.WriteWindow window = new TransactionHooks.WriteWindow();
+        long mark = window.open();
+
+        window.afterCommit(() -> assertFalse(window.isQuiet(window.open())));
+
+        assertFalse(window.isQuiet(mark));
+        assertTrue(window.isQuiet(window.open()));
+    }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+}
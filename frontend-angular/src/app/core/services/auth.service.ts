@@ -38,6 +38,10 @@ export class AuthService {
 
   logout(): void {
     if (this.isBrowser) {
+      // Revocar el token en el servidor (el interceptor lo adjunta antes de borrarlo)
+      if (this.getToken()) {
+        this.http.post(`${environment.apiUrl}/auth/logout`, {}).subscribe({ error: () => {} });
+      }
       localStorage.removeItem(this.TOKEN_KEY);
       localStorage.removeItem(this.USER_KEY);
     }